@@ -0,0 +1,81 @@
+package com.example.paymenttransfer.benchmark;
+
+import com.example.paymenttransfer.domain.Account;
+import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The in-memory part of a transfer: the funds check and the {@link BigDecimal} debit and credit on
+ * {@link Account}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccountArithmeticBenchmark {
+
+    private static final int AMOUNTS = 1024;
+
+    private final BigDecimal[] amounts = new BigDecimal[AMOUNTS];
+    private Account source;
+    private Account destination;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < AMOUNTS; i++) {
+            amounts[i] = BigDecimal.valueOf(random.nextLong(1, 1_000_000), 2);
+        }
+        source = account();
+        destination = account();
+    }
+
+    @Benchmark
+    public BigDecimal withdrawalFunds() {
+        BigDecimal amount = nextAmount();
+        source.withdrawalFunds(amount);
+        source.addFunds(amount);
+        return source.getBalance();
+    }
+
+    @Benchmark
+    public BigDecimal transferBetweenAccounts() {
+        BigDecimal amount = nextAmount();
+        if (source.hasSufficientFunds(amount)) {
+            source.withdrawalFunds(amount);
+            destination.addFunds(amount);
+        }
+        Account swap = source;
+        source = destination;
+        destination = swap;
+        return destination.getBalance();
+    }
+
+    private BigDecimal nextAmount() {
+        return amounts[next++ & (AMOUNTS - 1)];
+    }
+
+    private static Account account() {
+        return Account.builder()
+            .balance(new BigDecimal("1000000000.00"))
+            .currency(CurrencyEnum.EUR)
+            .build();
+    }
+}
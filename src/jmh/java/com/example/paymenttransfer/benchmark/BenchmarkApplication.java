@@ -0,0 +1,90 @@
+package com.example.paymenttransfer.benchmark;
+
+import com.example.paymenttransfer.PaymentTransferServiceApplication;
+import com.example.paymenttransfer.domain.Account;
+import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+import com.example.paymenttransfer.repository.AccountRepository;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Starts the application for benchmarks: without the web layer for benchmarks that go through Spring beans, or with it
+ * on a random port for benchmarks that go through HTTP.
+ * <p>
+ * By default the database is an in-memory H2 with the schema generated by Hibernate. To measure against Postgres,
+ * pass {@code -Dbenchmark.datasource.url=jdbc:postgresql://...} (and {@code .username} / {@code .password}) to the
+ * forked JVMs, e.g. {@code -Djmh.args="-jvmArgsAppend -Dbenchmark.datasource.url=..."}; the Liquibase changelog is
+ * applied as usual then.
+ */
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(Map<String, Object> properties) {
+        return start(properties, WebApplicationType.NONE);
+    }
+
+    static ConfigurableApplicationContext start(Map<String, Object> properties, WebApplicationType webApplicationType) {
+        Map<String, Object> arguments = new HashMap<>();
+        arguments.put("logging.level.root", "WARN");
+        arguments.put("logging.level.com.example.paymenttransfer", "WARN");
+        arguments.put("logging.level.org.hibernate.SQL", "WARN");
+        arguments.put("logging.level.org.hibernate.type.descriptor.sql.BasicBinder", "WARN");
+        arguments.put("logging.level.org.springframework.transaction", "WARN");
+        arguments.put("spring.jpa.show-sql", "false");
+
+        String url = System.getProperty("benchmark.datasource.url");
+        if (url == null) {
+            arguments.put("spring.datasource.url", "jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1");
+            arguments.put("spring.datasource.driver-class-name", "org.h2.Driver");
+            arguments.put("spring.datasource.username", "sa");
+            arguments.put("spring.datasource.password", "");
+            arguments.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+            arguments.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+            arguments.put("spring.liquibase.enabled", "false");
+        } else {
+            arguments.put("spring.datasource.url", url);
+            arguments.put("spring.datasource.username", System.getProperty("benchmark.datasource.username", "payment_user"));
+            arguments.put("spring.datasource.password",
+                System.getProperty("benchmark.datasource.password", "payment_password"));
+        }
+        arguments.putAll(properties);
+
+        // Passed as command line arguments, which take precedence over application.properties.
+        String[] args = arguments.entrySet().stream()
+            .map(property -> "--" + property.getKey() + "=" + property.getValue())
+            .toArray(String[]::new);
+        return new SpringApplicationBuilder(PaymentTransferServiceApplication.class)
+            .web(webApplicationType)
+            .run(args);
+    }
+
+    /**
+     * Creates accounts whose balance no benchmark can exhaust; account numbers are unique per run so repeated runs
+     * against the same Postgres database do not collide.
+     */
+    static List<Long> createAccounts(ConfigurableApplicationContext context, int count) {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        List<Account> accounts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            accounts.add(Account.builder()
+                .accountNumber("BENCH-" + run + "-" + i)
+                .ownerName("Benchmark " + i)
+                .balance(new BigDecimal("1000000000000.00"))
+                .currency(CurrencyEnum.EUR)
+                .build());
+        }
+        return context.getBean(AccountRepository.class).saveAll(accounts).stream()
+            .map(Account::getId)
+            .toList();
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.paymenttransfer.benchmark;
+
+import com.example.paymenttransfer.domain.Money;
+import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A transfer's funds check, debit and credit with the balances as {@link BigDecimal}, as {@link Money} and as bare
+ * {@code long} minor units, the way the ledger shards hold them. Run with {@code -prof gc} to compare the bytes
+ * allocated per operation ({@code gc.alloc.rate.norm}) next to the throughput.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoneyArithmeticBenchmark {
+
+    private static final int AMOUNTS = 1024;
+    private static final CurrencyEnum CURRENCY = CurrencyEnum.EUR;
+
+    private final BigDecimal[] decimalAmounts = new BigDecimal[AMOUNTS];
+    private final Money[] moneyAmounts = new Money[AMOUNTS];
+    private final long[] minorAmounts = new long[AMOUNTS];
+    private BigDecimal decimalSource;
+    private BigDecimal decimalDestination;
+    private Money moneySource;
+    private Money moneyDestination;
+    private long minorSource;
+    private long minorDestination;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < AMOUNTS; i++) {
+            long cents = random.nextLong(1, 1_000_000);
+            decimalAmounts[i] = BigDecimal.valueOf(cents, 2);
+            moneyAmounts[i] = new Money(cents, CURRENCY);
+            minorAmounts[i] = cents;
+        }
+        BigDecimal opening = new BigDecimal("1000000000.00");
+        decimalSource = opening;
+        decimalDestination = opening;
+        moneySource = Money.of(opening, CURRENCY);
+        moneyDestination = moneySource;
+        minorSource = moneySource.minorUnits();
+        minorDestination = minorSource;
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimal() {
+        BigDecimal amount = decimalAmounts[nextIndex()];
+        if (decimalSource.compareTo(amount) >= 0) {
+            decimalSource = decimalSource.subtract(amount);
+            decimalDestination = decimalDestination.add(amount);
+        }
+        BigDecimal swap = decimalSource;
+        decimalSource = decimalDestination;
+        decimalDestination = swap;
+        return decimalDestination;
+    }
+
+    @Benchmark
+    public Money money() {
+        Money amount = moneyAmounts[nextIndex()];
+        if (moneySource.isAtLeast(amount)) {
+            moneySource = moneySource.minus(amount);
+            moneyDestination = moneyDestination.plus(amount);
+        }
+        Money swap = moneySource;
+        moneySource = moneyDestination;
+        moneyDestination = swap;
+        return moneyDestination;
+    }
+
+    @Benchmark
+    public long minorUnits() {
+        long amount = minorAmounts[nextIndex()];
+        if (minorSource >= amount) {
+            minorSource -= amount;
+            minorDestination = Math.addExact(minorDestination, amount);
+        }
+        long swap = minorSource;
+        minorSource = minorDestination;
+        minorDestination = swap;
+        return minorDestination;
+    }
+
+    private int nextIndex() {
+        return next++ & (AMOUNTS - 1);
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.paymenttransfer.benchmark;
+
+import com.example.paymenttransfer.domain.Account;
+import com.example.paymenttransfer.domain.BalanceAudit;
+import com.example.paymenttransfer.domain.Transaction;
+import com.example.paymenttransfer.domain.dto.AuditListResponseDTO;
+import com.example.paymenttransfer.domain.dto.TransactionListResponseDTO;
+import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+import com.example.paymenttransfer.domain.enums.TransactionStatus;
+import com.example.paymenttransfer.repository.AccountRepository;
+import com.example.paymenttransfer.repository.BalanceAuditRepository;
+import com.example.paymenttransfer.repository.TransactionRepository;
+import com.example.paymenttransfer.service.ReportExportService;
+import com.example.paymenttransfer.service.TransactionReportService;
+import com.example.paymenttransfer.service.export.ExportFormat;
+import com.example.paymenttransfer.service.report.ReportPage;
+import com.example.paymenttransfer.service.report.ReportQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Report reads over one account with {@code rows} transactions and as many audit records: a full report page
+ * (query, projection and DTO mapping) and complete exports streamed to a discarding output.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ReportBenchmark {
+
+    private static final int SEED_BATCH = 1000;
+
+    @Param({"100000"})
+    public int rows;
+
+    @Param({"500"})
+    public int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private TransactionReportService reportService;
+    private ReportExportService exportService;
+    private Long merchantId;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = BenchmarkApplication.start(Map.of(
+            "payment.transfer.report.max-page-size", pageSize,
+            "spring.jpa.properties.hibernate.jdbc.batch_size", SEED_BATCH));
+        reportService = context.getBean(TransactionReportService.class);
+        exportService = context.getBean(ReportExportService.class);
+
+        List<Long> accountIds = BenchmarkApplication.createAccounts(context, 2);
+        merchantId = accountIds.get(0);
+        seed(accountIds.get(0), accountIds.get(1));
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public ReportPage<TransactionListResponseDTO> transactionPage() {
+        return reportService.getAccountTransactions(merchantId, new ReportQuery(null, null, null, null, pageSize));
+    }
+
+    @Benchmark
+    public ReportPage<AuditListResponseDTO> auditPage() {
+        return reportService.getAccountAudits(merchantId, new ReportQuery(null, null, null, null, pageSize));
+    }
+
+    @Benchmark
+    public void exportTransactionsNdjson() {
+        exportService.exportTransactions(merchantId, null, null, null, ExportFormat.NDJSON,
+            OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void exportTransactionsCsv() {
+        exportService.exportTransactions(merchantId, null, null, null, ExportFormat.CSV,
+            OutputStream.nullOutputStream());
+    }
+
+    private void seed(Long merchantId, Long customerId) {
+        AccountRepository accountRepository = context.getBean(AccountRepository.class);
+        TransactionRepository transactionRepository = context.getBean(TransactionRepository.class);
+        BalanceAuditRepository balanceAuditRepository = context.getBean(BalanceAuditRepository.class);
+        TransactionTemplate transactionTemplate =
+            new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        for (int offset = 0; offset < rows; offset += SEED_BATCH) {
+            int batch = Math.min(SEED_BATCH, rows - offset);
+            transactionTemplate.executeWithoutResult(status -> {
+                Account merchant = accountRepository.getReferenceById(merchantId);
+                Account customer = accountRepository.getReferenceById(customerId);
+                List<Transaction> transactions = new ArrayList<>(batch);
+                List<BalanceAudit> audits = new ArrayList<>(batch);
+                for (int i = 0; i < batch; i++) {
+                    boolean incoming = i % 2 == 0;
+                    Transaction transaction = Transaction.builder()
+                        .transactionId(UUID.randomUUID())
+                        .sourceAccount(incoming ? customer : merchant)
+                        .destinationAccount(incoming ? merchant : customer)
+                        .amount(new BigDecimal("10.00"))
+                        .currency(CurrencyEnum.EUR)
+                        .status(TransactionStatus.COMPLETED)
+                        .build();
+                    transactions.add(transaction);
+                    audits.add(BalanceAudit.builder()
+                        .account(merchant)
+                        .beforeBalance(new BigDecimal("1000.00"))
+                        .afterBalance(new BigDecimal(incoming ? "1010.00" : "990.00"))
+                        .currency(CurrencyEnum.EUR)
+                        .transaction(transaction)
+                        .build());
+                }
+                transactionRepository.saveAll(transactions);
+                balanceAuditRepository.saveAll(audits);
+            });
+        }
+    }
+}
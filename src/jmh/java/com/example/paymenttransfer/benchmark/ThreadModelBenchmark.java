@@ -0,0 +1,164 @@
+package com.example.paymenttransfer.benchmark;
+
+import com.example.paymenttransfer.domain.dto.TransferRequestDTO;
+import com.example.paymenttransfer.service.TransferExecutor;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transfers and report pages over HTTP with far more concurrent clients than database connections, comparing Tomcat
+ * on platform threads with virtual threads, each with and without the database work limiter.
+ * <p>
+ * Throughput alone is misleading once the limiter rejects requests, so every response is also counted by class:
+ * {@code ok}, {@code busy} ({@code 503}) and {@code failed} (anything else, including client timeouts). The platform
+ * thread pool only runs out with more than 200 clients, so keep {@code -t} above that when changing it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@Threads(256)
+public class ThreadModelBenchmark {
+
+    private static final int ACCOUNTS = 1000;
+    private static final int REPORT_ROWS = 500;
+    private static final Duration CLIENT_TIMEOUT = Duration.ofSeconds(60);
+
+    @Param({"platform", "virtual"})
+    public String threadModel;
+
+    @Param({"true", "false"})
+    public boolean limiter;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private URI transferUri;
+    private URI reportUri;
+    private List<Long> accountIds;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = BenchmarkApplication.start(Map.of(
+            "server.port", 0,
+            "spring.threads.virtual.enabled", threadModel.equals("virtual"),
+            "payment.transfer.limiter.enabled", limiter,
+            // Rejections are counted by the benchmark; logging each one would dominate the profile.
+            "logging.level.com.example.paymenttransfer.errors", "ERROR"), WebApplicationType.SERVLET);
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        accountIds = BenchmarkApplication.createAccounts(context, ACCOUNTS);
+        transferUri = URI.create("http://localhost:" + port + "/api/v1/transfers");
+        reportUri = URI.create("http://localhost:" + port + "/api/v1/reports/transactions/" + accountIds.get(0)
+            + "?limit=50");
+        client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+        TransferExecutor executor = context.getBean(TransferExecutor.class);
+        for (int i = 0; i < REPORT_ROWS; i++) {
+            executor.transferFunds(TransferRequestDTO.builder()
+                .sourceAccountId(accountIds.get(0))
+                .destinationAccountId(accountIds.get(1 + i % (ACCOUNTS - 1)))
+                .amount(new BigDecimal("0.01"))
+                .idempotencyKey(UUID.randomUUID().toString())
+                .build());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        client.close();
+        context.close();
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Responses {
+
+        public long ok;
+        public long busy;
+        public long failed;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            ok = 0;
+            busy = 0;
+            failed = 0;
+        }
+
+        void count(int status) {
+            if (status < 300) {
+                ok++;
+            } else if (status == 503) {
+                busy++;
+            } else {
+                failed++;
+            }
+        }
+    }
+
+    @Benchmark
+    public int transfer(Responses responses) throws InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int source = random.nextInt(ACCOUNTS);
+        int destination = (source + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+        String body = """
+            {"sourceAccountId":%d,"destinationAccountId":%d,"amount":0.01,"idempotencyKey":"%s"}"""
+            .formatted(accountIds.get(source), accountIds.get(destination), UUID.randomUUID());
+        return send(responses, HttpRequest.newBuilder(transferUri)
+            .timeout(CLIENT_TIMEOUT)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build());
+    }
+
+    @Benchmark
+    public int reportPage(Responses responses) throws InterruptedException {
+        return send(responses, HttpRequest.newBuilder(reportUri)
+            .timeout(CLIENT_TIMEOUT)
+            .GET()
+            .build());
+    }
+
+    private int send(Responses responses, HttpRequest request) throws InterruptedException {
+        int status;
+        try {
+            status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            status = -1;
+        }
+        responses.count(status);
+        return status;
+    }
+}
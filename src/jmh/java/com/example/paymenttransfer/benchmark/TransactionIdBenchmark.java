@@ -0,0 +1,138 @@
+package com.example.paymenttransfer.benchmark;
+
+import com.example.paymenttransfer.service.TransactionIds;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Time-ordered {@link TransactionIds} against {@link UUID#randomUUID()}: raw generation throughput (run with
+ * {@code -t} above one to see the contention on the shared {@code SecureRandom}), and batches of inserts into a scratch
+ * table with a unique index like the one on {@code transaction.transaction_id}.
+ * <p>
+ * The insert benchmark also reports how many kilobytes the index grew in each iteration as {@code indexKilobytes}
+ * (JMH sums them over the iterations in the summary). It is only measured on PostgreSQL (see
+ * {@link BenchmarkApplication}) and stays {@code 0} on H2.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionIdBenchmark {
+
+    private static final int INSERT_BATCH = 1000;
+    private static final int BATCHES_PER_ITERATION = 50;
+
+    @Benchmark
+    public UUID randomUuid() {
+        return UUID.randomUUID();
+    }
+
+    @Benchmark
+    public UUID timeOrdered() {
+        return TransactionIds.next();
+    }
+
+    @State(Scope.Benchmark)
+    public static class Database {
+
+        @Param({"random", "time-ordered"})
+        public String ids;
+
+        private ConfigurableApplicationContext context;
+        private JdbcTemplate jdbcTemplate;
+        private Supplier<UUID> generator;
+        private String table;
+        private boolean postgres;
+        private final AtomicLong indexBytes = new AtomicLong();
+
+        @Setup(Level.Trial)
+        public void createTable() {
+            context = BenchmarkApplication.start(Map.of());
+            jdbcTemplate = context.getBean(JdbcTemplate.class);
+            generator = ids.equals("random") ? UUID::randomUUID : TransactionIds::next;
+            postgres = System.getProperty("benchmark.datasource.url") != null;
+            table = "benchmark_ids_" + ids.replace('-', '_');
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + table);
+            jdbcTemplate.execute("CREATE TABLE " + table + " (transaction_id UUID NOT NULL)");
+            jdbcTemplate.execute("CREATE UNIQUE INDEX " + table + "_idx ON " + table + " (transaction_id)");
+        }
+
+        @TearDown(Level.Trial)
+        public void dropTable() {
+            jdbcTemplate.execute("DROP TABLE " + table);
+            context.close();
+        }
+
+        /**
+         * Bytes the index grew by since the previous call, from any thread.
+         */
+        long indexGrowth() {
+            if (!postgres) {
+                return 0;
+            }
+            long size = jdbcTemplate.queryForObject("SELECT pg_relation_size(?::regclass)", Long.class,
+                table + "_idx");
+            return size - indexBytes.getAndSet(size);
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class IndexSize {
+
+        private long indexBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            indexBytes = 0;
+        }
+
+        public long indexKilobytes() {
+            return indexBytes / 1024;
+        }
+    }
+
+    /**
+     * One operation inserts {@value #INSERT_BATCH} ids in a single JDBC batch, and every iteration runs a fixed
+     * {@value #BATCHES_PER_ITERATION} of them, so the index growth per iteration compares directly. The table keeps
+     * growing across iterations; later iterations show the cost of a larger, colder index.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2, batchSize = BATCHES_PER_ITERATION)
+    @Measurement(iterations = 5, batchSize = BATCHES_PER_ITERATION)
+    public int[] insertBatch(Database database, IndexSize indexSize) {
+        List<Object[]> rows = new ArrayList<>(INSERT_BATCH);
+        for (int i = 0; i < INSERT_BATCH; i++) {
+            rows.add(new Object[] {database.generator.get()});
+        }
+        int[] inserted = database.jdbcTemplate.batchUpdate(
+            "INSERT INTO " + database.table + " (transaction_id) VALUES (?)", rows);
+        indexSize.indexBytes += database.indexGrowth();
+        return inserted;
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.paymenttransfer.benchmark;
+
+import com.example.paymenttransfer.domain.dto.TransferRequestDTO;
+import com.example.paymenttransfer.domain.dto.TransferResponseDTO;
+import com.example.paymenttransfer.errors.InsufficientFundsException;
+import com.example.paymenttransfer.service.TransferExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end transfers through the configured {@link TransferExecutor}, under three workloads:
+ * <ul>
+ *     <li>{@code uncontended} - every thread moves money between its own pair of accounts</li>
+ *     <li>{@code hotAccount} - every thread pays into the same merchant account</li>
+ *     <li>{@code randomPair} - random pairs out of {@value #ACCOUNTS} accounts</li>
+ * </ul>
+ * Execution and concurrency modes are parameters, e.g. {@code -p concurrencyMode=optimistic}. With
+ * {@code -p declinePercent=90} that share of the transfers asks for more than any account holds and is declined;
+ * {@code failureRecords} switches the record of those declines on or off.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(4)
+public class TransferBenchmark {
+
+    private static final int ACCOUNTS = 1000;
+    private static final BigDecimal AMOUNT = new BigDecimal("0.01");
+    private static final BigDecimal DECLINED_AMOUNT = new BigDecimal("1000000000000.00");
+
+    @Param({"jpa"})
+    public String executionMode;
+
+    @Param({"pessimistic"})
+    public String concurrencyMode;
+
+    @Param({"0"})
+    public int declinePercent;
+
+    @Param({"true"})
+    public boolean failureRecords;
+
+    private ConfigurableApplicationContext context;
+    private TransferExecutor executor;
+    private List<Long> accountIds;
+    private final AtomicInteger nextThread = new AtomicInteger();
+    private final AtomicLong nextKey = new AtomicLong();
+    private final String keyPrefix = "bench-" + System.nanoTime() + "-";
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = BenchmarkApplication.start(Map.of(
+            "payment.transfer.execution-mode", executionMode,
+            "payment.transfer.concurrency.mode", concurrencyMode,
+            "payment.transfer.failure-records.enabled", String.valueOf(failureRecords)));
+        executor = context.getBean(TransferExecutor.class);
+        accountIds = BenchmarkApplication.createAccounts(context, ACCOUNTS);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    /**
+     * Each benchmark thread owns the accounts {@code 2n + 1} and {@code 2n + 2}; account 0 is the hot account.
+     */
+    @State(Scope.Thread)
+    public static class ThreadAccounts {
+        Long hotAccount;
+        Long first;
+        Long second;
+        boolean forward;
+
+        @Setup(Level.Trial)
+        public void assign(TransferBenchmark benchmark) {
+            int thread = benchmark.nextThread.getAndIncrement();
+            hotAccount = benchmark.accountIds.get(0);
+            first = benchmark.accountIds.get(1 + (2 * thread) % (ACCOUNTS - 2));
+            second = benchmark.accountIds.get(2 + (2 * thread) % (ACCOUNTS - 2));
+        }
+    }
+
+    @Benchmark
+    public TransferResponseDTO uncontended(ThreadAccounts accounts) {
+        accounts.forward = !accounts.forward;
+        return accounts.forward
+            ? transfer(accounts.first, accounts.second)
+            : transfer(accounts.second, accounts.first);
+    }
+
+    @Benchmark
+    public TransferResponseDTO hotAccount(ThreadAccounts accounts) {
+        return transfer(accounts.first, accounts.hotAccount);
+    }
+
+    @Benchmark
+    public TransferResponseDTO randomPair() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int source = random.nextInt(ACCOUNTS);
+        int destination = (source + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+        return transfer(accountIds.get(source), accountIds.get(destination));
+    }
+
+    private TransferResponseDTO transfer(Long source, Long destination) {
+        boolean declined = ThreadLocalRandom.current().nextInt(100) < declinePercent;
+        try {
+            return executor.transferFunds(TransferRequestDTO.builder()
+                .sourceAccountId(source)
+                .destinationAccountId(destination)
+                .amount(declined ? DECLINED_AMOUNT : AMOUNT)
+                .idempotencyKey(keyPrefix + nextKey.incrementAndGet())
+                .build());
+        } catch (InsufficientFundsException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.paymenttransfer.loadtest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks, after the load has stopped, that the run neither created nor lost money:
+ * <ul>
+ *     <li>the balances of the seeded accounts, including the {@code account_balance_slot} rows of striped accounts,
+ *     still add up to their opening total;</li>
+ *     <li>every balance row's {@code balance_audit} rows, in insertion order, form a chain from its opening balance
+ *     to its current balance, each row starting where the previous one ended: {@code account.balance} from the
+ *     account's opening balance, and each balance slot from zero;</li>
+ *     <li>every completed transaction has exactly two audit rows and every failed one none;</li>
+ *     <li>the number of completed transactions matches the number of idempotency keys the server acknowledged, so no
+ *     duplicate was executed twice.</li>
+ * </ul>
+ * Audit order is taken from {@code balance_audit.id}, which follows the order of the balance changes as long as a
+ * single application instance allocates the ids. The audits of sweeps, which move slot balances into
+ * {@code account.balance}, belong to no transaction.
+ */
+final class InvariantChecker {
+
+    private static final int MAX_REPORTED_PER_CHECK = 20;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    InvariantChecker(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    List<String> check(SeededAccounts accounts, long acknowledgedTransfers, long failedExchanges) {
+        List<String> violations = new ArrayList<>();
+        String numberPattern = accounts.numberPrefix() + "%";
+
+        BigDecimal total = jdbcTemplate.queryForObject("""
+                SELECT COALESCE(SUM(a.balance), 0)
+                    + COALESCE((SELECT SUM(s.balance) FROM account_balance_slot s
+                                JOIN account sa ON sa.id = s.account_id
+                                WHERE sa.account_number LIKE ?), 0)
+                FROM account a WHERE a.account_number LIKE ?
+                """, BigDecimal.class, numberPattern, numberPattern);
+        if (total.compareTo(accounts.openingTotal()) != 0) {
+            violations.add("Total balance is " + total + " but the accounts opened with " + accounts.openingTotal());
+        }
+
+        checkAuditChains(accounts, numberPattern, violations);
+
+        List<String> unbalanced = jdbcTemplate.query("""
+                SELECT t.transaction_id, t.status, COUNT(b.id) AS audits
+                FROM transaction t
+                JOIN account s ON s.id = t.source_account_id
+                LEFT JOIN balance_audit b ON b.transaction_id = t.id
+                WHERE s.account_number LIKE ?
+                GROUP BY t.transaction_id, t.status
+                HAVING COUNT(b.id) <> CASE WHEN t.status = 'COMPLETED' THEN 2 ELSE 0 END
+                """,
+            (rs, rowNum) -> "Transaction " + rs.getString("transaction_id") + " is " + rs.getString("status")
+                + " with " + rs.getLong("audits") + " audit rows",
+            numberPattern);
+        addLimited(violations, unbalanced);
+
+        Long completed = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM transaction t
+                JOIN account s ON s.id = t.source_account_id
+                WHERE s.account_number LIKE ? AND t.status = 'COMPLETED'
+                """, Long.class, numberPattern);
+        // An exchange that failed on the client side may still have been committed by the server.
+        if (completed < acknowledgedTransfers || completed > acknowledgedTransfers + failedExchanges) {
+            violations.add(completed + " transfers completed but " + acknowledgedTransfers
+                + " distinct idempotency keys were acknowledged (" + failedExchanges + " exchanges failed)");
+        }
+        return violations;
+    }
+
+    private void checkAuditChains(SeededAccounts accounts, String numberPattern, List<String> violations) {
+        Map<BalanceRow, BigDecimal> balances = new HashMap<>();
+        jdbcTemplate.query("SELECT id, balance FROM account WHERE account_number LIKE ?",
+            rs -> {
+                balances.put(new BalanceRow(rs.getLong("id"), null), rs.getBigDecimal("balance"));
+            },
+            numberPattern);
+        jdbcTemplate.query("""
+                SELECT s.account_id, s.slot, s.balance
+                FROM account_balance_slot s
+                JOIN account a ON a.id = s.account_id
+                WHERE a.account_number LIKE ?
+                """,
+            rs -> {
+                balances.put(new BalanceRow(rs.getLong("account_id"), rs.getInt("slot")), rs.getBigDecimal("balance"));
+            },
+            numberPattern);
+
+        Map<BalanceRow, BigDecimal> chainEnds = new HashMap<>();
+        accounts.openingBalances().forEach((accountId, opening) -> chainEnds.put(new BalanceRow(accountId, null),
+            opening));
+        List<String> broken = new ArrayList<>();
+        jdbcTemplate.query("""
+                SELECT b.id, b.account_id, b.balance_slot, b.before_balance, b.after_balance
+                FROM balance_audit b
+                JOIN account a ON a.id = b.account_id
+                WHERE a.account_number LIKE ?
+                ORDER BY b.account_id, b.balance_slot NULLS FIRST, b.id
+                """,
+            rs -> {
+                int slot = rs.getInt("balance_slot");
+                BalanceRow row = new BalanceRow(rs.getLong("account_id"), rs.wasNull() ? null : slot);
+                BigDecimal before = rs.getBigDecimal("before_balance");
+                BigDecimal expected = chainEnds.getOrDefault(row, BigDecimal.ZERO);
+                if (before.compareTo(expected) != 0) {
+                    broken.add("Audit " + rs.getLong("id") + " of " + row + " starts at " + before
+                        + " but the previous balance was " + expected);
+                }
+                chainEnds.put(row, rs.getBigDecimal("after_balance"));
+            },
+            numberPattern);
+
+        chainEnds.forEach((row, chainEnd) -> {
+            // Un-striping deletes the slot rows once their chains have been swept down to zero.
+            BigDecimal balance = balances.getOrDefault(row, row.slot() == null ? null : BigDecimal.ZERO);
+            if (balance == null || balance.compareTo(chainEnd) != 0) {
+                broken.add(row + " has balance " + balance + " but its audit chain ends at " + chainEnd);
+            }
+        });
+        addLimited(violations, broken);
+    }
+
+    private static void addLimited(List<String> violations, List<String> found) {
+        violations.addAll(found.subList(0, Math.min(found.size(), MAX_REPORTED_PER_CHECK)));
+        if (found.size() > MAX_REPORTED_PER_CHECK) {
+            violations.add("... and " + (found.size() - MAX_REPORTED_PER_CHECK) + " more like the above");
+        }
+    }
+
+    /**
+     * {@code account.balance} of an account when {@code slot} is {@code null}, otherwise one of its balance slots.
+     */
+    private record BalanceRow(long accountId, Integer slot) {
+
+        @Override
+        public String toString() {
+            return slot == null ? "account " + accountId : "slot " + slot + " of account " + accountId;
+        }
+    }
+}
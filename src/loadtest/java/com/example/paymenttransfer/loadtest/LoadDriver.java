@@ -0,0 +1,178 @@
+package com.example.paymenttransfer.loadtest;
+
+import com.example.paymenttransfer.domain.dto.TransferRequestDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends transfers from a fixed number of client threads for one phase of the run.
+ * <p>
+ * With a target rate the phase is open loop: send times are fixed slots {@code 1 / rate} apart, shared by all threads,
+ * and latency is measured from the slot rather than from the moment a thread got round to sending it. A server that
+ * falls behind therefore shows up as queueing in the latency percentiles instead of quietly lowering the offered load.
+ */
+final class LoadDriver {
+
+    private static final Duration PROGRESS_INTERVAL = Duration.ofSeconds(5);
+
+    record PhaseResult(Duration elapsed, Histogram latencies, Map<String, Long> outcomes, long behindSchedule) {
+
+        double throughput() {
+            return latencies.getTotalCount() / (elapsed.toNanos() / 1e9);
+        }
+    }
+
+    private final HttpClient client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(5))
+        .build();
+    private final URI endpoint;
+    private final ObjectMapper objectMapper;
+    private final TransferWorkload workload;
+    private final LoadTestOptions options;
+    private final SplittableRandom random;
+    private final Set<String> acknowledgedKeys = ConcurrentHashMap.newKeySet();
+    private final LongAdder failedExchanges = new LongAdder();
+
+    LoadDriver(URI endpoint, ObjectMapper objectMapper, TransferWorkload workload, LoadTestOptions options) {
+        this.endpoint = endpoint;
+        this.objectMapper = objectMapper;
+        this.workload = workload;
+        this.options = options;
+        this.random = new SplittableRandom(options.seed());
+    }
+
+    PhaseResult run(String phase, Duration duration, LoadReport report) throws InterruptedException {
+        Recorder recorder = new Recorder(3);
+        Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+        AtomicLong slots = new AtomicLong();
+        LongAdder dispatched = new LongAdder();
+        long intervalNanos = options.rate() > 0 ? TimeUnit.SECONDS.toNanos(1) / options.rate() : 0;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+
+        List<Thread> threads = new ArrayList<>(options.threads());
+        for (int i = 0; i < options.threads(); i++) {
+            SplittableRandom threadRandom = random.split();
+            threads.add(Thread.ofPlatform().name("loadtest-client-" + i).start(() ->
+                drive(threadRandom, recorder, outcomes, slots, dispatched, start, end, intervalNanos)));
+        }
+
+        Histogram total = new Histogram(3);
+        Histogram interval = null;
+        long reported = start;
+        while (reported < end) {
+            long next = Math.min(reported + PROGRESS_INTERVAL.toNanos(), end);
+            TimeUnit.NANOSECONDS.sleep(next - System.nanoTime());
+            if (next == end) {
+                for (Thread thread : threads) {
+                    thread.join();
+                }
+            }
+            interval = recorder.getIntervalHistogram(interval);
+            total.add(interval);
+            report.progress(phase, Duration.ofNanos(next - start), Duration.ofNanos(next - reported), interval);
+            reported = next;
+        }
+
+        long scheduled = intervalNanos > 0 ? duration.toNanos() / intervalNanos : 0;
+        Map<String, Long> counts = new TreeMap<>();
+        outcomes.forEach((outcome, count) -> counts.put(outcome, count.sum()));
+        return new PhaseResult(Duration.ofNanos(System.nanoTime() - start), total, counts,
+            Math.max(0, scheduled - dispatched.sum()));
+    }
+
+    /**
+     * Transfers the server acknowledged with {@code 201 Created}, across all phases.
+     */
+    Set<String> acknowledgedKeys() {
+        return acknowledgedKeys;
+    }
+
+    /**
+     * Exchanges that ended without a response; the server may or may not have committed them.
+     */
+    long failedExchanges() {
+        return failedExchanges.sum();
+    }
+
+    private void drive(SplittableRandom threadRandom, Recorder recorder, Map<String, LongAdder> outcomes,
+                       AtomicLong slots, LongAdder dispatched, long start, long end, long intervalNanos) {
+        while (true) {
+            long intended;
+            if (intervalNanos > 0) {
+                intended = start + slots.getAndIncrement() * intervalNanos;
+                long now = System.nanoTime();
+                if (intended >= end || now >= end) {
+                    return;
+                }
+                while (now < intended) {
+                    LockSupport.parkNanos(intended - now);
+                    now = System.nanoTime();
+                }
+            } else {
+                intended = System.nanoTime();
+                if (intended >= end) {
+                    return;
+                }
+            }
+
+            TransferWorkload.TransferCall call = workload.next(threadRandom);
+            dispatched.increment();
+            String outcome;
+            try {
+                int status = client.send(request(call), HttpResponse.BodyHandlers.discarding()).statusCode();
+                recorder.recordValue(System.nanoTime() - intended);
+                if (status == 201) {
+                    acknowledgedKeys.add(call.idempotencyKey());
+                }
+                outcome = call.kind() + " " + status;
+            } catch (IOException e) {
+                failedExchanges.increment();
+                outcome = call.kind() + " " + e.getClass().getSimpleName();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+        }
+    }
+
+    private HttpRequest request(TransferWorkload.TransferCall call) {
+        TransferRequestDTO body = TransferRequestDTO.builder()
+            .sourceAccountId(call.sourceAccountId())
+            .destinationAccountId(call.destinationAccountId())
+            .amount(call.amount())
+            .idempotencyKey(call.idempotencyKey())
+            .build();
+        try {
+            return HttpRequest.newBuilder(endpoint)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
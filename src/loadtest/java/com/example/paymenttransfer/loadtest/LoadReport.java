@@ -0,0 +1,88 @@
+package com.example.paymenttransfer.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Prints the progress and the summary of a run. Latencies are recorded in nanoseconds and shown in milliseconds.
+ */
+final class LoadReport {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final PrintStream out;
+
+    LoadReport(PrintStream out) {
+        this.out = out;
+    }
+
+    void start(LoadTestOptions options, SeededAccounts accounts) {
+        out.printf("Load test against %d %s accounts (prefix %s), %d threads, %s, mix %s, zipf exponent %s, seed %d%n",
+            accounts.ids().size(), options.currency(), accounts.numberPrefix(), options.threads(),
+            options.rate() > 0 ? "target " + options.rate() + " transfers/s" : "unthrottled",
+            options.mix(), options.zipfExponent(), options.seed());
+        out.printf("%-8s %8s %10s %10s %10s %10s %10s%n", "phase", "elapsed", "transfers", "per sec", "p50 ms",
+            "p99 ms", "max ms");
+    }
+
+    void progress(String phase, Duration elapsed, Duration interval, Histogram latencies) {
+        out.printf("%-8s %7ds %10d %10.1f %10.2f %10.2f %10.2f%n",
+            phase,
+            elapsed.toSeconds(),
+            latencies.getTotalCount(),
+            latencies.getTotalCount() / (interval.toNanos() / 1e9),
+            millis(latencies.getValueAtPercentile(50)),
+            millis(latencies.getValueAtPercentile(99)),
+            millis(latencies.getMaxValue()));
+    }
+
+    void summary(LoadTestOptions options, LoadDriver.PhaseResult result) {
+        Histogram latencies = result.latencies();
+        out.println();
+        out.printf("Measured %d transfers in %.1f s: %.1f transfers/s%s%n",
+            latencies.getTotalCount(), result.elapsed().toNanos() / 1e9, result.throughput(),
+            options.rate() > 0 ? " (target " + options.rate() + ", " + result.behindSchedule()
+                + " never sent because the clients fell behind)" : "");
+        out.printf("Latency ms: p50 %.2f, p90 %.2f, p99 %.2f, p99.9 %.2f, max %.2f%n",
+            millis(latencies.getValueAtPercentile(50)),
+            millis(latencies.getValueAtPercentile(90)),
+            millis(latencies.getValueAtPercentile(99)),
+            millis(latencies.getValueAtPercentile(99.9)),
+            millis(latencies.getMaxValue()));
+        out.println("Outcomes:");
+        result.outcomes().forEach((outcome, count) -> out.printf("  %-40s %10d%n", outcome, count));
+        out.println("Latency distribution (ms):");
+        latencies.outputPercentileDistribution(out, 1, NANOS_PER_MILLI, false);
+    }
+
+    void writeHistogram(Path file, Histogram latencies) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (PrintStream histogram = new PrintStream(Files.newOutputStream(file))) {
+            latencies.outputPercentileDistribution(histogram, NANOS_PER_MILLI);
+        }
+        out.println("Full latency histogram written to " + file);
+    }
+
+    void invariants(List<String> violations) {
+        out.println();
+        if (violations.isEmpty()) {
+            out.println("Invariants hold: balances conserved, audit chains consistent, no duplicate executions");
+            return;
+        }
+        out.println("INVARIANT VIOLATIONS:");
+        violations.forEach(violation -> out.println("  " + violation));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.paymenttransfer.loadtest;
+
+import com.example.paymenttransfer.PaymentTransferServiceApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Load and invariant harness for {@code POST /api/v1/transfers}.
+ * <p>
+ * Starts the application on a random port, seeds synthetic accounts, sends the configured transfer mix over HTTP for a
+ * warmup and a measured phase, prints throughput and latency, and finally checks that no money was created or lost.
+ * The process exits with status 1 when an invariant is violated, which fails the Maven build.
+ * <p>
+ * The application runs with its usual configuration (PostgreSQL and Liquibase), with logging turned down so it does
+ * not dominate the measurement. Each run adds its accounts and transfers to the database, so point it at a scratch
+ * database. The client threads share the machine with the server; for absolute numbers run on hardware sized like
+ * production.
+ */
+public final class LoadTestMain {
+
+    private LoadTestMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> harnessOptions = new LinkedHashMap<>();
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("logging.level.root", "WARN");
+        // Lock conflicts, retries and rejected duplicates are expected under this load; they are counted as outcomes.
+        properties.put("logging.level.com.example.paymenttransfer", "ERROR");
+        properties.put("logging.level.org.hibernate.orm.jdbc.batch", "OFF");
+        properties.put("logging.level.org.hibernate.engine.jdbc.spi.SqlExceptionHelper", "OFF");
+        properties.put("logging.level.org.hibernate.SQL", "WARN");
+        properties.put("logging.level.org.hibernate.type.descriptor.sql.BasicBinder", "WARN");
+        properties.put("logging.level.org.springframework.transaction", "WARN");
+        properties.put("spring.jpa.show-sql", "false");
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Arguments must look like --name=value, got '" + arg + "'");
+            }
+            if (arg.startsWith(LoadTestOptions.PREFIX)) {
+                harnessOptions.put(arg.substring(LoadTestOptions.PREFIX.length(), separator), arg.substring(separator + 1));
+            } else {
+                properties.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+        LoadTestOptions options = LoadTestOptions.from(harnessOptions);
+
+        // Passed as command line arguments, which take precedence over application.properties.
+        String[] applicationArgs = properties.entrySet().stream()
+            .map(property -> "--" + property.getKey() + "=" + property.getValue())
+            .toArray(String[]::new);
+        List<String> violations;
+        try (ConfigurableApplicationContext context =
+                 new SpringApplicationBuilder(PaymentTransferServiceApplication.class).run(applicationArgs)) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadReport report = new LoadReport(System.out);
+
+            SeededAccounts accounts = SeededAccounts.seed(context, options, new SplittableRandom(options.seed()));
+            TransferWorkload workload = new TransferWorkload(accounts, options);
+            LoadDriver driver = new LoadDriver(URI.create("http://localhost:" + port + "/api/v1/transfers"),
+                context.getBean(ObjectMapper.class), workload, options);
+
+            report.start(options, accounts);
+            if (!options.warmup().isZero()) {
+                driver.run("warmup", options.warmup(), report);
+            }
+            LoadDriver.PhaseResult result = driver.run("measure", options.duration(), report);
+            report.summary(options, result);
+            report.writeHistogram(options.histogramFile(), result.latencies());
+
+            violations = new InvariantChecker(context.getBean(JdbcTemplate.class))
+                .check(accounts, driver.acknowledgedKeys().size(), driver.failedExchanges());
+            report.invariants(violations);
+        }
+        System.exit(violations.isEmpty() ? 0 : 1);
+    }
+}
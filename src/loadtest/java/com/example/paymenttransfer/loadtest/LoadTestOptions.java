@@ -0,0 +1,72 @@
+package com.example.paymenttransfer.loadtest;
+
+import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Harness settings, given as {@code --loadtest.<name>=<value>} arguments; every other argument is handed to the
+ * application, so {@code --spring.datasource.url=...} or {@code --payment.transfer.concurrency.mode=optimistic} select
+ * what is measured.
+ *
+ * @param accounts     number of synthetic accounts seeded for the run
+ * @param threads      client threads, which is also the largest number of transfers in flight
+ * @param rate         target transfers per second across all threads; {@code 0} sends as fast as responses arrive
+ * @param zipfExponent skew of the account popularity; {@code 0} picks accounts uniformly
+ */
+record LoadTestOptions(int accounts,
+                       CurrencyEnum currency,
+                       BigDecimal minBalance,
+                       BigDecimal maxBalance,
+                       BigDecimal maxAmount,
+                       int threads,
+                       int rate,
+                       Duration warmup,
+                       Duration duration,
+                       double zipfExponent,
+                       TransferMix mix,
+                       long seed,
+                       Path histogramFile) {
+
+    static final String PREFIX = "--loadtest.";
+
+    static LoadTestOptions from(Map<String, String> values) {
+        Map<String, String> remaining = new HashMap<>(values);
+        LoadTestOptions options = new LoadTestOptions(
+            Integer.parseInt(take(remaining, "accounts", "1000")),
+            CurrencyEnum.valueOf(take(remaining, "currency", "EUR")),
+            new BigDecimal(take(remaining, "min-balance", "1000.00")),
+            new BigDecimal(take(remaining, "max-balance", "100000.00")),
+            new BigDecimal(take(remaining, "max-amount", "100.00")),
+            Integer.parseInt(take(remaining, "threads", "32")),
+            Integer.parseInt(take(remaining, "rate", "0")),
+            Duration.parse(take(remaining, "warmup", "PT10S")),
+            Duration.parse(take(remaining, "duration", "PT60S")),
+            Double.parseDouble(take(remaining, "zipf-exponent", "0.99")),
+            TransferMix.parse(take(remaining, "mix", "zipf:80,opposite:10,duplicate:10")),
+            Long.parseLong(take(remaining, "seed", String.valueOf(System.nanoTime()))),
+            Path.of(take(remaining, "histogram-file", "loadtest-latency.hgrm")));
+        if (!remaining.isEmpty()) {
+            throw new IllegalArgumentException("Unknown load test options: " + remaining.keySet());
+        }
+        if (options.accounts < 2) {
+            throw new IllegalArgumentException("At least two accounts are needed, got " + options.accounts);
+        }
+        if (options.threads < 1 || options.rate < 0) {
+            throw new IllegalArgumentException("threads must be positive and rate must not be negative");
+        }
+        if (options.minBalance.compareTo(options.maxBalance) > 0) {
+            throw new IllegalArgumentException("min-balance must not exceed max-balance");
+        }
+        return options;
+    }
+
+    private static String take(Map<String, String> values, String name, String defaultValue) {
+        String value = values.remove(name);
+        return value != null ? value : defaultValue;
+    }
+}
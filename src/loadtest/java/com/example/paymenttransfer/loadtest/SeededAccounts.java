@@ -0,0 +1,52 @@
+package com.example.paymenttransfer.loadtest;
+
+import com.example.paymenttransfer.domain.Account;
+import com.example.paymenttransfer.repository.AccountRepository;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.random.RandomGenerator;
+
+/**
+ * The synthetic accounts of one run and their opening balances. Account numbers share a per-run prefix, so the
+ * invariant checks only look at this run's data even when the database already holds other accounts.
+ */
+record SeededAccounts(String numberPrefix, List<Long> ids, Map<Long, BigDecimal> openingBalances) {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    static SeededAccounts seed(ConfigurableApplicationContext context, LoadTestOptions options,
+                               RandomGenerator random) {
+        AccountRepository accountRepository = context.getBean(AccountRepository.class);
+        TransactionTemplate transactionTemplate = context.getBean(TransactionTemplate.class);
+        String prefix = "LOAD-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+        long minCents = options.minBalance().movePointRight(2).longValueExact();
+        long maxCents = options.maxBalance().movePointRight(2).longValueExact();
+
+        Map<Long, BigDecimal> openingBalances = new LinkedHashMap<>();
+        for (int from = 0; from < options.accounts(); from += CHUNK_SIZE) {
+            List<Account> chunk = new ArrayList<>(CHUNK_SIZE);
+            for (int i = from; i < Math.min(from + CHUNK_SIZE, options.accounts()); i++) {
+                chunk.add(Account.builder()
+                    .accountNumber(prefix + i)
+                    .ownerName("Load test " + i)
+                    .balance(BigDecimal.valueOf(random.nextLong(minCents, maxCents + 1), 2))
+                    .currency(options.currency())
+                    .build());
+            }
+            transactionTemplate.executeWithoutResult(status -> accountRepository.saveAll(chunk)
+                .forEach(account -> openingBalances.put(account.getId(), account.getBalance())));
+        }
+        return new SeededAccounts(prefix, List.copyOf(openingBalances.keySet()), openingBalances);
+    }
+
+    BigDecimal openingTotal() {
+        return openingBalances.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
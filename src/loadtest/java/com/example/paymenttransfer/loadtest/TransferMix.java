@@ -0,0 +1,55 @@
+package com.example.paymenttransfer.loadtest;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Relative weights of the transfer shapes the harness sends, written as {@code zipf:80,opposite:10,duplicate:10}.
+ *
+ * @param zipf      single transfers between accounts drawn from the Zipfian popularity
+ * @param opposite  pairs {@code a -> b} and {@code b -> a} sent back to back, the shape that deadlocks without
+ *                  ordered locking
+ * @param duplicate transfers sent twice with the same idempotency key by different client threads
+ */
+record TransferMix(int zipf, int opposite, int duplicate) {
+
+    enum Kind {
+        ZIPF,
+        OPPOSITE,
+        DUPLICATE
+    }
+
+    static TransferMix parse(String value) {
+        int zipf = 0;
+        int opposite = 0;
+        int duplicate = 0;
+        for (String part : value.split(",")) {
+            String[] weight = part.trim().split(":");
+            if (weight.length != 2) {
+                throw new IllegalArgumentException("Mix entries must look like kind:weight, got '" + part + "'");
+            }
+            int parsed = Integer.parseInt(weight[1].trim());
+            switch (Kind.valueOf(weight[0].trim().toUpperCase())) {
+                case ZIPF -> zipf = parsed;
+                case OPPOSITE -> opposite = parsed;
+                case DUPLICATE -> duplicate = parsed;
+            }
+        }
+        if (zipf < 0 || opposite < 0 || duplicate < 0 || zipf + opposite + duplicate == 0) {
+            throw new IllegalArgumentException("Mix weights must not be negative and must not all be zero: " + value);
+        }
+        return new TransferMix(zipf, opposite, duplicate);
+    }
+
+    Kind pick(RandomGenerator random) {
+        int roll = random.nextInt(zipf + opposite + duplicate);
+        if (roll < zipf) {
+            return Kind.ZIPF;
+        }
+        return roll < zipf + opposite ? Kind.OPPOSITE : Kind.DUPLICATE;
+    }
+
+    @Override
+    public String toString() {
+        return "zipf:" + zipf + ",opposite:" + opposite + ",duplicate:" + duplicate;
+    }
+}
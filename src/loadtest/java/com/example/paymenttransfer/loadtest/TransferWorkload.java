@@ -0,0 +1,66 @@
+package com.example.paymenttransfer.loadtest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.random.RandomGenerator;
+
+/**
+ * Generates the transfers of a run. Shapes that need a second request (the reverse leg of an opposite pair, the
+ * resend of a duplicate) leave it in a shared queue, so the next free client thread sends it while the first one is
+ * still in flight.
+ */
+final class TransferWorkload {
+
+    record TransferCall(TransferMix.Kind kind,
+                        long sourceAccountId,
+                        long destinationAccountId,
+                        BigDecimal amount,
+                        String idempotencyKey) {
+    }
+
+    private final List<Long> accountIds;
+    private final ZipfianDistribution popularity;
+    private final TransferMix mix;
+    private final long maxAmountCents;
+    private final Queue<TransferCall> followUps = new ConcurrentLinkedQueue<>();
+
+    TransferWorkload(SeededAccounts accounts, LoadTestOptions options) {
+        this.accountIds = accounts.ids();
+        this.popularity = new ZipfianDistribution(accountIds.size(), options.zipfExponent());
+        this.mix = options.mix();
+        this.maxAmountCents = options.maxAmount().movePointRight(2).longValueExact();
+    }
+
+    TransferCall next(RandomGenerator random) {
+        TransferCall followUp = followUps.poll();
+        if (followUp != null) {
+            return followUp;
+        }
+        TransferMix.Kind kind = mix.pick(random);
+        int source = popularity.sample(random);
+        int destination = popularity.sample(random);
+        while (destination == source) {
+            destination = popularity.sample(random);
+        }
+        TransferCall call = call(kind, source, destination, random);
+        switch (kind) {
+            case OPPOSITE -> followUps.add(call(kind, destination, source, random));
+            case DUPLICATE -> followUps.add(call);
+            case ZIPF -> {
+            }
+        }
+        return call;
+    }
+
+    private TransferCall call(TransferMix.Kind kind, int source, int destination, RandomGenerator random) {
+        return new TransferCall(
+            kind,
+            accountIds.get(source),
+            accountIds.get(destination),
+            BigDecimal.valueOf(random.nextLong(1, maxAmountCents + 1), 2),
+            UUID.randomUUID().toString());
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.paymenttransfer.loadtest;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Picks an index in {@code [0, size)} with probability proportional to {@code 1 / (index + 1)^exponent}, so the first
+ * accounts are the hot ones. The cumulative distribution is computed once and sampled with a binary search.
+ */
+final class ZipfianDistribution {
+
+    private final double[] cumulative;
+
+    ZipfianDistribution(int size, double exponent) {
+        cumulative = new double[size];
+        double sum = 0;
+        for (int rank = 0; rank < size; rank++) {
+            sum += 1 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < size; rank++) {
+            cumulative[rank] /= sum;
+        }
+    }
+
+    int sample(RandomGenerator random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return index >= 0 ? index : Math.min(-index - 1, cumulative.length - 1);
+    }
+}
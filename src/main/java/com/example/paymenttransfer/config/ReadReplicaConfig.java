@@ -0,0 +1,121 @@
+package com.example.paymenttransfer.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+
+/**
+ * Sends read-only transactions ({@code @Transactional(readOnly = true)} and read-only
+ * {@code TransactionTemplate}s) to a replica, so report queries stop taking connections and buffer cache from
+ * transfers. Only active with {@code payment.transfer.replica.enabled=true}; otherwise the data source is Spring
+ * Boot's own.
+ * <p>
+ * The application's data source is a {@link LazyConnectionDataSourceProxy} over the primary pool: it only fetches a
+ * physical connection on the first statement, by when the transaction manager has marked the connection read-only,
+ * and takes read-only connections from the {@link ReplicaDataSource}. Reads that must see the latest commits run in
+ * transactions that are not read-only.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "payment.transfer.replica", name = "enabled", havingValue = "true")
+@Slf4j
+public class ReadReplicaConfig {
+
+    /**
+     * The pool Spring Boot would otherwise create, configured by {@code spring.datasource.*} as usual.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        if (StringUtils.hasText(properties.getName())) {
+            dataSource.setPoolName(properties.getName());
+        }
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaDataSource readOnlyDataSource(TransferProperties transferProperties,
+                                                DataSourceProperties primaryProperties,
+                                                HikariDataSource primaryDataSource,
+                                                ObjectProvider<MeterRegistry> meterRegistry) {
+        TransferProperties.Replica settings = transferProperties.getReplica();
+        if (!StringUtils.hasText(settings.getUrl())) {
+            throw new IllegalStateException("payment.transfer.replica.url is required when the replica is enabled");
+        }
+        HikariDataSource replica = new HikariDataSource();
+        replica.setPoolName("replica");
+        replica.setJdbcUrl(settings.getUrl());
+        replica.setDriverClassName(primaryProperties.determineDriverClassName());
+        replica.setUsername(settings.getUsername() != null
+            ? settings.getUsername()
+            : primaryProperties.determineUsername());
+        replica.setPassword(settings.getPassword() != null
+            ? settings.getPassword()
+            : primaryProperties.determinePassword());
+        replica.setMaximumPoolSize(settings.getMaximumPoolSize());
+        replica.setConnectionTimeout(settings.getConnectionTimeout().toMillis());
+        replica.setReadOnly(true);
+        meterRegistry.ifAvailable(registry -> replica.setMetricsTrackerFactory(
+            new MicrometerMetricsTrackerFactory(registry)));
+
+        ReplicaDataSource readOnly = new ReplicaDataSource(replica, primaryDataSource, settings.getMaxLag());
+        readOnly.checkLag();
+        log.info("Read replica: url={}, maximumPoolSize={}, maxLag={}, usable={}",
+            settings.getUrl(), settings.getMaximumPoolSize(), settings.getMaxLag(), readOnly.stats().usable());
+        return readOnly;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaDataSource readOnlyDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(readOnlyDataSource);
+        return dataSource;
+    }
+
+    /**
+     * {@code datasource.replica.connections} by target (connections of read-only transactions from the replica, or
+     * from the primary as a fallback), {@code datasource.replica.lag} and {@code datasource.replica.usable}.
+     */
+    @Bean
+    public MeterBinder replicaMetrics(ReplicaDataSource readOnlyDataSource) {
+        return registry -> {
+            FunctionCounter.builder("datasource.replica.connections", readOnlyDataSource,
+                    dataSource -> dataSource.stats().replicaConnections())
+                .description("Connections of read-only transactions, by the database they came from")
+                .tag("target", "replica")
+                .register(registry);
+            FunctionCounter.builder("datasource.replica.connections", readOnlyDataSource,
+                    dataSource -> dataSource.stats().primaryConnections())
+                .description("Connections of read-only transactions, by the database they came from")
+                .tag("target", "primary")
+                .register(registry);
+            Gauge.builder("datasource.replica.lag", readOnlyDataSource, dataSource -> {
+                    long lagMillis = dataSource.stats().lagMillis();
+                    return lagMillis < 0 ? Double.NaN : lagMillis / 1000.0;
+                })
+                .description("Replication lag at the last check")
+                .baseUnit("seconds")
+                .register(registry);
+            Gauge.builder("datasource.replica.usable", readOnlyDataSource,
+                    dataSource -> dataSource.stats().usable() ? 1 : 0)
+                .description("Whether read-only transactions currently run on the replica")
+                .register(registry);
+        };
+    }
+}
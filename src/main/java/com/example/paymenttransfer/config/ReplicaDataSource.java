@@ -0,0 +1,116 @@
+package com.example.paymenttransfer.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connections of read-only transactions: from the replica pool while the replica answers and lags the primary by at
+ * most {@code max-lag}, from the primary otherwise. The lag is measured every {@code lag-check-interval}; a replica
+ * connection that cannot be had within the pool's connection timeout also sends the transaction to the primary and
+ * takes the replica out of use until the next check succeeds.
+ * <p>
+ * Owns the replica pool and closes it with the application context.
+ */
+@Slf4j
+public class ReplicaDataSource extends DelegatingDataSource implements Closeable {
+
+    /**
+     * Milliseconds since the last replayed commit, or {@code 0} when everything received has been replayed (an idle
+     * primary commits nothing, so the replay timestamp alone would grow forever) or the database is not a standby at
+     * all, as with a second local database standing in for a replica.
+     */
+    private static final String LAG_QUERY = """
+        SELECT CASE
+            WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+            ELSE COALESCE(EXTRACT(EPOCH FROM clock_timestamp() - pg_last_xact_replay_timestamp()) * 1000, 0)
+        END""";
+
+    private final DataSource primary;
+    private final long maxLagMillis;
+    private final LongAdder replicaConnections = new LongAdder();
+    private final LongAdder primaryConnections = new LongAdder();
+    private volatile boolean usable;
+    private volatile long lagMillis = -1;
+
+    public ReplicaDataSource(DataSource replica, DataSource primary, Duration maxLag) {
+        super(replica);
+        this.primary = primary;
+        this.maxLagMillis = maxLag.toMillis();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (usable) {
+            try {
+                Connection connection = obtainTargetDataSource().getConnection();
+                replicaConnections.increment();
+                return connection;
+            } catch (SQLException e) {
+                markUnusable("no connection: " + e.getMessage());
+            }
+        }
+        primaryConnections.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+
+    @Scheduled(fixedDelayString = "${payment.transfer.replica.lag-check-interval:PT1S}")
+    public void checkLag() {
+        long lag;
+        try (Connection connection = obtainTargetDataSource().getConnection()) {
+            lag = measureLagMillis(connection);
+        } catch (SQLException e) {
+            lagMillis = -1;
+            markUnusable("lag check failed: " + e.getMessage());
+            return;
+        }
+        lagMillis = lag;
+        if (lag > maxLagMillis) {
+            markUnusable("lagging " + lag + " ms behind the primary");
+        } else if (!usable) {
+            usable = true;
+            log.info("Read-only transactions use the replica, lag {} ms", lag);
+        }
+    }
+
+    public ReplicaStats stats() {
+        return new ReplicaStats(usable, lagMillis, replicaConnections.sum(), primaryConnections.sum());
+    }
+
+    @Override
+    public void close() {
+        if (obtainTargetDataSource() instanceof HikariDataSource pool) {
+            pool.close();
+        }
+    }
+
+    long measureLagMillis(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(LAG_QUERY)) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+
+    private void markUnusable(String reason) {
+        if (usable) {
+            usable = false;
+            log.warn("Read-only transactions fall back to the primary, replica {}", reason);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.paymenttransfer.config;
+
+/**
+ * Point-in-time state of the {@link ReplicaDataSource}.
+ *
+ * @param usable             whether read-only transactions currently get replica connections
+ * @param lagMillis          replication lag at the last check, {@code -1} if the check failed
+ * @param replicaConnections connections handed out from the replica
+ * @param primaryConnections connections of read-only transactions handed out from the primary instead
+ */
+public record ReplicaStats(boolean usable, long lagMillis, long replicaConnections, long primaryConnections) {
+}
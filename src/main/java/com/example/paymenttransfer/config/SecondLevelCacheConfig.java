@@ -0,0 +1,57 @@
+package com.example.paymenttransfer.config;
+
+import com.example.paymenttransfer.domain.AccountProfile;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * The JCache (Caffeine) cache manager behind the Hibernate second-level cache. Regions are created here with their
+ * size bound and statistics enabled, instead of on the fly with the provider defaults, and handed to Hibernate
+ * through {@link HibernatePropertiesCustomizer}.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    /**
+     * A cache manager of its own, so application contexts in the same JVM (as in tests) never share cached entities.
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(TransferProperties properties) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+            .getCacheManager(URI.create("payment-transfer-" + UUID.randomUUID()), getClass().getClassLoader());
+        CaffeineConfiguration<Object, Object> profiles = new CaffeineConfiguration<>()
+            .setMaximumSize(OptionalLong.of(properties.getAccountCache().getMaxSize()))
+            // Hibernate already stores disassembled entries; copying them on every read would only add garbage.
+            .setStoreByValue(false)
+            .setStatisticsEnabled(true);
+        cacheManager.createCache(AccountProfile.CACHE_REGION, profiles);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+    }
+
+    /**
+     * {@code cache.gets} by result (hit or miss), {@code cache.puts} and {@code cache.evictions} of the account
+     * profile region.
+     */
+    @Bean
+    public MeterBinder accountProfileCacheMetrics(CacheManager secondLevelCacheManager) {
+        return registry -> JCacheMetrics.monitor(registry,
+            secondLevelCacheManager.getCache(AccountProfile.CACHE_REGION));
+    }
+}
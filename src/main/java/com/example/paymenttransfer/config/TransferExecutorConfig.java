@@ -0,0 +1,48 @@
+package com.example.paymenttransfer.config;
+
+import com.example.paymenttransfer.monitoring.TransferMetrics;
+import com.example.paymenttransfer.repository.IdempotencyRecordRepository;
+import com.example.paymenttransfer.service.BatchTransferService;
+import com.example.paymenttransfer.service.SqlFunctionTransferService;
+import com.example.paymenttransfer.service.TransferExecutor;
+import com.example.paymenttransfer.service.TransferService;
+import com.example.paymenttransfer.service.concurrency.AccountBalanceSlots;
+import com.example.paymenttransfer.service.idempotency.IdempotencyCache;
+import com.example.paymenttransfer.service.ledger.LedgerEngine;
+import com.example.paymenttransfer.service.ledger.LedgerProjector;
+import com.example.paymenttransfer.service.microbatch.MicroBatchTransferExecutor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+@Configuration
+@Slf4j
+public class TransferExecutorConfig {
+
+    /**
+     * The micro-batch and ledger executors are created here rather than as their own beans, so their threads only
+     * exist in their mode; their {@code @PostConstruct}/{@code @PreDestroy} methods still run on this bean.
+     */
+    @Bean
+    @Primary
+    public TransferExecutor transferExecutor(TransferProperties properties,
+                                             TransferService transferService,
+                                             SqlFunctionTransferService sqlFunctionTransferService,
+                                             BatchTransferService batchTransferService,
+                                             AccountBalanceSlots accountBalanceSlots,
+                                             LedgerProjector ledgerProjector,
+                                             IdempotencyCache idempotencyCache,
+                                             IdempotencyRecordRepository idempotencyRecordRepository,
+                                             TransferMetrics transferMetrics) {
+        log.info("Transfer execution mode: {}", properties.getExecutionMode());
+        return switch (properties.getExecutionMode()) {
+            case JPA -> transferService;
+            case SQL_FUNCTION -> sqlFunctionTransferService;
+            case MICRO_BATCH -> new MicroBatchTransferExecutor(batchTransferService, transferService, transferMetrics,
+                properties);
+            case LEDGER -> new LedgerEngine(accountBalanceSlots, ledgerProjector, idempotencyCache,
+                idempotencyRecordRepository, transferMetrics, properties);
+        };
+    }
+}
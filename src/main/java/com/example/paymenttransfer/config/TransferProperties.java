@@ -0,0 +1,392 @@
+package com.example.paymenttransfer.config;
+
+import com.example.paymenttransfer.service.concurrency.ConcurrencyMode;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "payment.transfer")
+public class TransferProperties {
+
+    /**
+     * How a single transfer is executed against the database.
+     */
+    private ExecutionMode executionMode = ExecutionMode.JPA;
+
+    private Concurrency concurrency = new Concurrency();
+
+    private Batch batch = new Batch();
+
+    private MicroBatch microBatch = new MicroBatch();
+
+    private Idempotency idempotency = new Idempotency();
+
+    private IdempotencyCache idempotencyCache = new IdempotencyCache();
+
+    private Report report = new Report();
+
+    private Limiter limiter = new Limiter();
+
+    private AccountQueue accountQueue = new AccountQueue();
+
+    private Async async = new Async();
+
+    private Ledger ledger = new Ledger();
+
+    private BalanceSlots balanceSlots = new BalanceSlots();
+
+    private AccountCache accountCache = new AccountCache();
+
+    private FailureRecords failureRecords = new FailureRecords();
+
+    private Replica replica = new Replica();
+
+    public enum ExecutionMode {
+        /**
+         * Entity based execution through {@link com.example.paymenttransfer.service.TransferService}.
+         */
+        JPA,
+        /**
+         * The whole debit/credit/audit/idempotency unit runs inside the {@code transfer_funds}
+         * database function, in a single round trip.
+         */
+        SQL_FUNCTION,
+        /**
+         * Concurrent single transfers are grouped and committed together by
+         * {@link com.example.paymenttransfer.service.microbatch.MicroBatchTransferExecutor}.
+         */
+        MICRO_BATCH,
+        /**
+         * Balances live in memory in single-writer shards of
+         * {@link com.example.paymenttransfer.service.ledger.LedgerEngine}, made durable by its journal and projected
+         * into the database asynchronously.
+         */
+        LEDGER
+    }
+
+    @Data
+    public static class Concurrency {
+
+        /**
+         * Locking strategy used by the JPA execution mode.
+         */
+        private ConcurrencyMode mode = ConcurrencyMode.PESSIMISTIC;
+
+        /**
+         * Attempts per transfer, including the first one, before a concurrency conflict is reported to the client.
+         */
+        private int maxAttempts = 8;
+
+        /**
+         * Upper bound of the random delay before the first retry; doubles with every further retry.
+         */
+        private Duration initialBackoff = Duration.ofMillis(10);
+
+        /**
+         * Cap for the random delay between retries.
+         */
+        private Duration maxBackoff = Duration.ofMillis(250);
+    }
+
+    @Data
+    public static class Batch {
+
+        /**
+         * Largest number of transfers accepted in one batch request.
+         */
+        private int maxSize = 5000;
+
+        /**
+         * JDBC batch size used while persisting a batch, overriding {@code hibernate.jdbc.batch_size}.
+         */
+        private int jdbcBatchSize = 100;
+    }
+
+    @Data
+    public static class MicroBatch {
+
+        /**
+         * How long a worker keeps collecting requests after the first one arrives.
+         */
+        private Duration window = Duration.ofMillis(5);
+
+        /**
+         * Largest group of transfers committed together; capped by {@code batch.max-size}.
+         */
+        private int maxSize = 200;
+
+        /**
+         * Requests waiting for a worker; beyond this, transfers are executed individually.
+         */
+        private int queueCapacity = 10_000;
+
+        /**
+         * Worker threads, each holding at most one database connection while committing a group.
+         */
+        private int workers = 2;
+    }
+
+    @Data
+    public static class Idempotency {
+
+        /**
+         * How long a processed idempotency key is remembered; a retry after this is treated as a new transfer.
+         */
+        private Duration ttl = Duration.ofHours(24);
+
+        /**
+         * Delay between runs of the expired key purge (ISO-8601, e.g. {@code PT5M}).
+         */
+        private Duration purgeInterval = Duration.ofMinutes(5);
+
+        /**
+         * Rows deleted per purge statement, keeping each delete transaction short.
+         */
+        private int purgeBatchSize = 1000;
+    }
+
+    @Data
+    public static class IdempotencyCache {
+
+        /**
+         * When disabled every transfer looks its idempotency key up in the database.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Keys the bloom filter is sized for; it is resized to twice the stored keys on rebuild if that is larger.
+         */
+        private long expectedKeys = 1_000_000;
+
+        /**
+         * Target false positive probability of the bloom filter at {@code expectedKeys} keys.
+         */
+        private double falsePositiveRate = 0.01;
+
+        /**
+         * Recent transfer responses kept in memory to answer client retries.
+         */
+        private int responseCacheSize = 10_000;
+    }
+
+    @Data
+    public static class Report {
+
+        /**
+         * Rows per report page when the request does not set {@code limit}.
+         */
+        private int defaultPageSize = 50;
+
+        /**
+         * Upper bound for the {@code limit} request parameter.
+         */
+        private int maxPageSize = 500;
+
+        /**
+         * Rows fetched per round trip while streaming an export.
+         */
+        private int exportFetchSize = 1000;
+
+        /**
+         * Exports streaming at once. They hold a connection for the whole stream, so they have a limiter of their
+         * own rather than taking transfer permits.
+         */
+        private int exportMaxConcurrent = 2;
+
+        /**
+         * Exports allowed to wait for one of those permits, for up to {@code payment.transfer.limiter.max-wait}.
+         */
+        private int exportMaxQueued = 10;
+    }
+
+    @Data
+    public static class Limiter {
+
+        /**
+         * When disabled, requests queue inside the connection pool for up to its {@code connection-timeout}.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Units of database work (transfers, batches, report pages unless a replica serves them) running at once;
+         * {@code 0} uses the maximum size of the Hikari connection pool, less the connections exports may hold on it.
+         */
+        private int maxConcurrent = 0;
+
+        /**
+         * Requests allowed to wait for a permit; further requests are rejected immediately.
+         */
+        private int maxQueued = 100;
+
+        /**
+         * How long a queued request waits for a permit before it is rejected.
+         */
+        private Duration maxWait = Duration.ofSeconds(1);
+    }
+
+    @Data
+    public static class AccountQueue {
+
+        /**
+         * When disabled, concurrent transfers of the same account each take a connection and wait on its row lock.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Locks accounts are hashed onto, rounded up to a power of two. Unrelated accounts sharing a stripe are
+         * serialized too, so this should be well above the number of transfers in flight.
+         */
+        private int stripes = 1024;
+
+        /**
+         * How long a transfer waits behind others of the same accounts before it is rejected as busy.
+         */
+        private Duration maxWait = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class Async {
+
+        /**
+         * Worker threads processing submitted transfers; pending transfers are partitioned between them by source
+         * account, so every instance must use the same value. {@code 0} only accepts submissions on this instance.
+         */
+        private int workers = 2;
+
+        /**
+         * Pending transfers claimed and committed together by one worker.
+         */
+        private int batchSize = 100;
+
+        /**
+         * How often an idle worker looks for transfers submitted through other instances.
+         */
+        private Duration pollInterval = Duration.ofMillis(500);
+    }
+
+    @Data
+    public static class Ledger {
+
+        /**
+         * Directory holding the journal segments and snapshots. It must be on a local disk and used by one instance.
+         */
+        private String directory = "data/ledger";
+
+        /**
+         * Single-writer shards, each owning the accounts whose id modulo this value is its index. Changing it
+         * between restarts is safe: the journal and snapshots are not sharded.
+         */
+        private int shards = 4;
+
+        /**
+         * Transfers waiting for one shard before new ones are rejected as busy.
+         */
+        private int queueCapacity = 10_000;
+
+        /**
+         * Most entries written by one journal write and made durable by one fsync.
+         */
+        private int maxGroupSize = 1000;
+
+        /**
+         * Whether a group is forced to disk before its transfers are acknowledged. Only disable it for benchmarks.
+         */
+        private boolean fsync = true;
+
+        /**
+         * Size after which the journal rolls over to a new segment file.
+         */
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+        /**
+         * Journal entries between two snapshots. Segments that precede both the latest snapshot and the
+         * projection checkpoint are deleted.
+         */
+        private long snapshotEvery = 100_000;
+
+        /**
+         * Journal entries projected into the database per transaction.
+         */
+        private int projectionBatchSize = 500;
+    }
+
+    @Data
+    public static class BalanceSlots {
+
+        /**
+         * Ids of hot accounts whose balance is striped over {@code slots} rows, applied on startup. Accounts striped
+         * earlier but no longer listed are folded back into a single balance. All instances must list the same
+         * accounts.
+         */
+        private List<Long> accounts = new ArrayList<>();
+
+        /**
+         * Slots per striped account; concurrent credits to the account contend on one slot each instead of its row.
+         */
+        private int slots = 16;
+    }
+
+    @Data
+    public static class AccountCache {
+
+        /**
+         * Account profiles (number, owner and currency) kept in the second-level cache; the least recently used are
+         * evicted beyond this.
+         */
+        private long maxSize = 100_000;
+    }
+
+    @Data
+    public static class FailureRecords {
+
+        /**
+         * Whether a transfer declined for insufficient funds leaves a {@code FAILED} transaction, written in a
+         * transaction of its own after the transfer's has ended.
+         */
+        private boolean enabled = true;
+    }
+
+    @Data
+    public static class Replica {
+
+        /**
+         * Whether read-only transactions run on the replica below instead of the primary {@code spring.datasource}.
+         */
+        private boolean enabled = false;
+
+        /**
+         * JDBC url of the replica; the username and password default to those of the primary.
+         */
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        /**
+         * Connections of the replica pool, on top of the primary's {@code spring.datasource.hikari} pool.
+         */
+        private int maximumPoolSize = 10;
+
+        /**
+         * How long a read-only transaction waits for a replica connection before it falls back to the primary.
+         */
+        private Duration connectionTimeout = Duration.ofSeconds(1);
+
+        /**
+         * Replication lag beyond which read-only transactions run on the primary until the replica has caught up.
+         */
+        private Duration maxLag = Duration.ofSeconds(5);
+
+        /**
+         * How often the replication lag is measured.
+         */
+        private Duration lagCheckInterval = Duration.ofSeconds(1);
+    }
+}
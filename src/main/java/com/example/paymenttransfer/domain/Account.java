@@ -2,10 +2,13 @@ package com.example.paymenttransfer.domain;
 
 import com.example.paymenttransfer.domain.enums.CurrencyEnum;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -18,19 +21,31 @@ import java.time.Instant;
 @Builder
 public class Account {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_seq")
+    @SequenceGenerator(name = "account_seq", sequenceName = "account_seq", allocationSize = 50)
     private Long id;
 
-    @Column(name = "account_number", nullable = false, unique = true)
+    /**
+     * Like {@link #ownerName} and {@link #currency}, fixed once the account is opened; {@link AccountProfile}s of
+     * them are cached without invalidation.
+     */
+    @Column(name = "account_number", nullable = false, unique = true, updatable = false)
     private String accountNumber;
 
-    @Column(name = "owner_name", nullable = false)
+    @Column(name = "owner_name", nullable = false, updatable = false)
     private String ownerName;
 
+    /**
+     * Balance in minor units of {@link #currency}; {@link #getFunds()} and {@link #getBalance()} present it as an
+     * amount.
+     */
     @Column(name = "balance", nullable = false, precision = 19, scale = 2)
-    private BigDecimal balance;
+    @Convert(converter = MinorUnitsConverter.class)
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private long balance;
 
-    @Column(name = "currency", nullable = false)
+    @Column(name = "currency", nullable = false, updatable = false)
     @Enumerated(EnumType.STRING)
     private CurrencyEnum currency;
 
@@ -40,6 +55,17 @@ public class Account {
     @Column(name = "updated_at", nullable = false)
     private Instant updatedAt;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    /**
+     * Number of {@link AccountBalanceSlot}s holding part of the balance, {@code 0} for an ordinary account. The
+     * balance of a striped account is {@link #balance} plus the sum of its slots.
+     */
+    @Column(name = "balance_slots", nullable = false)
+    private int balanceSlots;
+
     @PrePersist
     protected void onCreate() {
         createdAt = Instant.now();
@@ -51,19 +77,43 @@ public class Account {
         updatedAt = Instant.now();
     }
 
+    public Money getFunds() {
+        return new Money(balance, currency);
+    }
+
+    public BigDecimal getBalance() {
+        return MinorUnitsConverter.toAmount(balance);
+    }
+
+    /**
+     * @throws ArithmeticException if {@code balance} has more decimals than the column keeps
+     */
+    public void setBalance(BigDecimal balance) {
+        this.balance = MinorUnitsConverter.toMinorUnits(balance);
+    }
+
     public boolean hasSufficientFunds(BigDecimal amount) {
-        return balance.compareTo(amount) >= 0;
+        return getFunds().isAtLeast(Money.of(amount, currency));
     }
 
     public void withdrawalFunds(BigDecimal amount) {
-        if (!hasSufficientFunds(amount)) {
+        Money funds = getFunds();
+        Money debit = Money.of(amount, currency);
+        if (!funds.isAtLeast(debit)) {
             throw new IllegalStateException("Insufficient funds");
         }
-        this.balance = this.balance.subtract(amount);
+        this.balance = funds.minus(debit).minorUnits();
     }
 
     public void addFunds(BigDecimal amount) {
-        this.balance = this.balance.add(amount);
+        this.balance = getFunds().plus(Money.of(amount, currency)).minorUnits();
     }
-}
 
+    public static class AccountBuilder {
+
+        public AccountBuilder balance(BigDecimal balance) {
+            this.balance = MinorUnitsConverter.toMinorUnits(balance);
+            return this;
+        }
+    }
+}
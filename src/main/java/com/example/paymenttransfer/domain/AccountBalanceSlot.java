@@ -0,0 +1,47 @@
+package com.example.paymenttransfer.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * One part of the balance of a striped account, credited without locking the account row. See
+ * {@link com.example.paymenttransfer.service.concurrency.AccountBalanceSlots}.
+ */
+@Entity
+@Table(name = "account_balance_slot")
+@IdClass(AccountBalanceSlot.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AccountBalanceSlot {
+
+    @Id
+    @Column(name = "account_id")
+    private Long accountId;
+
+    @Id
+    @Column(name = "slot")
+    private int slot;
+
+    @Column(name = "balance", nullable = false, precision = 19, scale = 2)
+    private BigDecimal balance;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long accountId;
+        private int slot;
+    }
+}
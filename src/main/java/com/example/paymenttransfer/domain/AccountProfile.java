@@ -0,0 +1,50 @@
+package com.example.paymenttransfer.domain;
+
+import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Subselect;
+
+/**
+ * The columns of an {@link Account} that never change once it is opened, held in the Hibernate second-level cache
+ * so reports can name accounts without reading them again.
+ * <p>
+ * Balances are not part of the profile, so balance updates have nothing to invalidate, and {@link Account} maps these
+ * columns as not updatable. The profile is mapped through a subselect rather than to the {@code account} table:
+ * Hibernate evicts the whole region of an entity on every bulk update of its table, such as the balance updates of
+ * the ledger projection.
+ */
+@Entity
+@Immutable
+@Subselect("SELECT id, account_number, owner_name, currency FROM account")
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = AccountProfile.CACHE_REGION)
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountProfile {
+
+    public static final String CACHE_REGION = "account-profiles";
+
+    @Id
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "account_number")
+    private String accountNumber;
+
+    @Column(name = "owner_name")
+    private String ownerName;
+
+    @Column(name = "currency")
+    @Enumerated(EnumType.STRING)
+    private CurrencyEnum currency;
+}
@@ -9,6 +9,7 @@ import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 
 @Entity
 @Table(name = "balance_audit")
@@ -19,13 +20,22 @@ import java.time.Instant;
 public class BalanceAudit {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "balance_audit_seq")
+    @SequenceGenerator(name = "balance_audit_seq", sequenceName = "balance_audit_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "account_id", nullable = false)
     private Account account;
 
+    /**
+     * The {@code account_balance_slot} whose balance changed, or {@code null} for {@code account.balance}; each of an
+     * account's balance rows has an audit chain of its own. See
+     * {@link com.example.paymenttransfer.service.concurrency.AccountBalanceSlots}.
+     */
+    @Column(name = "balance_slot")
+    private Integer balanceSlot;
+
     @Column(name = "before_balance", nullable = false, precision = 19, scale = 2)
     private BigDecimal beforeBalance;
 
@@ -36,16 +46,25 @@ public class BalanceAudit {
     @Enumerated(EnumType.STRING)
     private CurrencyEnum currency;
 
+    /**
+     * {@code null} for the audits of a sweep, which moves a striped account's slot balances into its balance.
+     */
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "transaction_id", nullable = false)
+    @JoinColumn(name = "transaction_id")
     private Transaction transaction;
 
     @Column(name = "created_at", nullable = false)
     private Instant createdAt;
 
+    /**
+     * Truncated to the database's microsecond precision so the in-memory value matches the stored one; report
+     * cursors are built from it. Rows projected from the ledger journal keep the time the ledger applied them.
+     */
     @PrePersist
     protected void onCreate() {
-        createdAt = Instant.now();
+        if (createdAt == null) {
+            createdAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        }
     }
 }
 
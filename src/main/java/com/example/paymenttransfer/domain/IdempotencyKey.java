@@ -1,34 +0,0 @@
-package com.example.paymenttransfer.domain;
-
-import jakarta.persistence.*;
-import lombok.AllArgsConstructor;
-import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-
-import java.time.Instant;
-
-@Entity
-@Table(name = "idempotency_key")
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
-@Builder
-public class IdempotencyKey {
-
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
-
-    @Column(name = "key_value", nullable = false, unique = true)
-    private String keyValue;
-
-    @Column(name = "created_at", nullable = false)
-    private Instant createdAt;
-
-    @PrePersist
-    protected void onCreate() {
-        createdAt = Instant.now();
-    }
-}
-
@@ -0,0 +1,43 @@
+package com.example.paymenttransfer.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.Instant;
+
+/**
+ * Idempotency key of a completed transfer, stored as the SHA-256 digest of the client supplied key and kept until
+ * {@code expiresAt}. Shares its primary key with the transaction it produced.
+ */
+@Entity
+@Table(name = "idempotency_record",
+    uniqueConstraints = @UniqueConstraint(name = "uk_idempotency_record_key_hash", columnNames = "key_hash"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyRecord {
+
+    @Id
+    @Column(name = "transaction_id")
+    private Long transactionId;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "transaction_id")
+    @ToString.Exclude
+    private Transaction transaction;
+
+    @Column(name = "key_hash", nullable = false, length = 32)
+    private byte[] keyHash;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
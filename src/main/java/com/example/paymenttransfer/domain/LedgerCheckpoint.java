@@ -0,0 +1,35 @@
+package com.example.paymenttransfer.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Last ledger journal entry projected into the relational tables. There is a single row, {@link #SINGLETON_ID}.
+ */
+@Entity
+@Table(name = "ledger_checkpoint")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LedgerCheckpoint {
+
+    public static final int SINGLETON_ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(name = "journal_sequence", nullable = false)
+    private long journalSequence;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
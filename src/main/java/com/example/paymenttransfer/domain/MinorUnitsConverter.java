@@ -0,0 +1,43 @@
+package com.example.paymenttransfer.domain;
+
+import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * Maps whole minor units to the {@code NUMERIC(19,2)} amount columns and back. The columns keep two decimals, the
+ * minor unit of every {@link CurrencyEnum}, so the conversion is the same for all currencies; it is exact and fails
+ * rather than round a value with more decimals.
+ */
+@Converter
+public class MinorUnitsConverter implements AttributeConverter<Long, BigDecimal> {
+
+    /**
+     * Scale of the amount columns.
+     */
+    public static final int SCALE = 2;
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Long minorUnits) {
+        return minorUnits == null ? null : toAmount(minorUnits);
+    }
+
+    @Override
+    public Long convertToEntityAttribute(BigDecimal amount) {
+        return amount == null ? null : toMinorUnits(amount);
+    }
+
+    /**
+     * @throws ArithmeticException if {@code amount} has more than {@link #SCALE} decimals, or does not fit in a
+     *                             {@code long} of minor units
+     */
+    public static long toMinorUnits(BigDecimal amount) {
+        return amount.movePointRight(SCALE).longValueExact();
+    }
+
+    public static BigDecimal toAmount(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+}
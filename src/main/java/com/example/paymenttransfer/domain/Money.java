@@ -0,0 +1,85 @@
+package com.example.paymenttransfer.domain;
+
+import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * An amount as a whole number of minor units of its currency, e.g. cents for {@link CurrencyEnum#EUR}. Arithmetic
+ * throws {@link ArithmeticException} on overflow instead of wrapping.
+ * <p>
+ * The API and the database carry amounts as {@code BigDecimal} ({@code NUMERIC(19,2)} columns); conversions from
+ * them are exact and fail rather than round. {@link Account} keeps its balance as minor units, mapped to the column by
+ * {@link MinorUnitsConverter}, and checks, debits and credits it as {@code Money}. Code on a hot path can keep the bare
+ * {@code long} and use the static conversions, so no object is allocated per amount.
+ *
+ * @param minorUnits amount in minor units of {@code currency}
+ * @param currency   currency of the amount
+ */
+public record Money(long minorUnits, CurrencyEnum currency) implements Comparable<Money> {
+
+    public Money {
+        Objects.requireNonNull(currency, "currency");
+    }
+
+    /**
+     * @throws ArithmeticException if {@code amount} has more decimals than the currency's minor unit, or does not fit
+     *                             in a {@code long} of minor units
+     */
+    public static Money of(BigDecimal amount, CurrencyEnum currency) {
+        return new Money(toMinorUnits(amount, currency), currency);
+    }
+
+    /**
+     * @throws ArithmeticException if {@code amount} has more decimals than the currency's minor unit, or does not fit
+     *                             in a {@code long} of minor units
+     */
+    public static long toMinorUnits(BigDecimal amount, CurrencyEnum currency) {
+        return amount.movePointRight(currency.minorUnitDigits()).longValueExact();
+    }
+
+    /**
+     * Converts minor units back to an amount with the currency's scale, e.g. {@code 1050} EUR to {@code 10.50}.
+     */
+    public static BigDecimal toBigDecimal(long minorUnits, CurrencyEnum currency) {
+        return BigDecimal.valueOf(minorUnits, currency.minorUnitDigits());
+    }
+
+    public BigDecimal toBigDecimal() {
+        return toBigDecimal(minorUnits, currency);
+    }
+
+    public Money plus(Money other) {
+        return new Money(Math.addExact(minorUnits, sameCurrency(other).minorUnits), currency);
+    }
+
+    public Money minus(Money other) {
+        return new Money(Math.subtractExact(minorUnits, sameCurrency(other).minorUnits), currency);
+    }
+
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    public boolean isAtLeast(Money other) {
+        return compareTo(other) >= 0;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, sameCurrency(other).minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString() + " " + currency;
+    }
+
+    private Money sameCurrency(Money other) {
+        if (other.currency != currency) {
+            throw new IllegalArgumentException("Cannot combine " + currency + " with " + other.currency);
+        }
+        return other;
+    }
+}
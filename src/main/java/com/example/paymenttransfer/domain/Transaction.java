@@ -10,6 +10,7 @@ import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.UUID;
 
 @Entity
@@ -21,7 +22,8 @@ import java.util.UUID;
 public class Transaction {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_seq")
+    @SequenceGenerator(name = "transaction_seq", sequenceName = "transaction_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "transaction_id", nullable = false, unique = true)
@@ -49,15 +51,18 @@ public class Transaction {
     @Column(name = "failure_reason")
     private String failureReason;
 
-    @Column(name = "idempotency_key")
-    private String idempotencyKey;
-
     @Column(name = "created_at", nullable = false)
     private Instant createdAt;
 
+    /**
+     * Truncated to the database's microsecond precision so the in-memory value matches the stored one; report
+     * cursors are built from it. Rows projected from the ledger journal keep the time the ledger applied them.
+     */
     @PrePersist
     protected void onCreate() {
-        createdAt = Instant.now();
+        if (createdAt == null) {
+            createdAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        }
     }
 }
 
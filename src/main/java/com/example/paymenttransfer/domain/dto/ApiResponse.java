@@ -36,6 +36,9 @@ public class ApiResponse<T> {
     @Schema(description = "Human-readable message", example = "Transfer completed successfully")
     private String message;
 
+    @Schema(description = "Opaque cursor for the next page of a paginated list (absent on the last page)")
+    private String nextCursor;
+
 
     /**
      * Create a success response with data
@@ -75,6 +78,20 @@ public class ApiResponse<T> {
                 .build();
     }
 
+    /**
+     * Create a success response for one page of a paginated list
+     */
+    public static <T> ApiResponse<T> page(T data, String message, String nextCursor) {
+        return ApiResponse.<T>builder()
+                .success(true)
+                .data(data)
+                .message(message)
+                .nextCursor(nextCursor)
+                .timestamp(LocalDateTime.now())
+                .status(200)
+                .build();
+    }
+
     // ========== ERROR RESPONSE FACTORY METHODS ==========
 
     /**
@@ -26,6 +26,10 @@ public class AuditListResponseDTO {
     @Schema(description = "Account number", example = "ACC001")
     private String accountNumber;
 
+    @Schema(description = "Balance slot of a striped account whose balance changed; absent for the account balance",
+            example = "3")
+    private Integer balanceSlot;
+
     @Schema(description = "Balance before transaction", example = "1000.00")
     private BigDecimal beforeBalance;
 
@@ -35,7 +39,8 @@ public class AuditListResponseDTO {
     @Schema(description = "Currency", example = "EUR")
     private CurrencyEnum currency;
 
-    @Schema(description = "Related transaction ID", example = "550e8400-e29b-41d4-a716-446655440000")
+    @Schema(description = "Related transaction ID; absent when the slots of a striped account were swept",
+            example = "550e8400-e29b-41d4-a716-446655440000")
     private UUID transactionId;
 
     @Schema(description = "Audit record creation timestamp")
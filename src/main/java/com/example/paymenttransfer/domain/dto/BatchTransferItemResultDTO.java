@@ -0,0 +1,32 @@
+package com.example.paymenttransfer.domain.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Result of one transfer inside a batch")
+public class BatchTransferItemResultDTO {
+    @Schema(description = "Position of the transfer in the submitted batch", example = "0")
+    private int index;
+
+    @Schema(description = "Idempotency key of the transfer", example = "550e8400-e29b-41d4-a716-446655440000")
+    private String idempotencyKey;
+
+    @Schema(description = "Whether the transfer was applied (or had already been applied)", example = "true")
+    private boolean success;
+
+    @Schema(description = "Transfer result (present on success)")
+    private TransferResponseDTO transfer;
+
+    @Schema(description = "Reason the transfer was rejected (present on failure)",
+            example = "Insufficient funds in account 1. Required: 100.00, Available: 50.00")
+    private String error;
+}
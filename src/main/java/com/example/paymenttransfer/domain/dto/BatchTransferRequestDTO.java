@@ -0,0 +1,22 @@
+package com.example.paymenttransfer.domain.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Request payload for submitting many fund transfers at once")
+public class BatchTransferRequestDTO {
+    @Schema(description = "Transfers to execute, processed in the given order")
+    @NotEmpty(message = "At least one transfer is required")
+    private List<@Valid TransferRequestDTO> transfers;
+}
@@ -0,0 +1,28 @@
+package com.example.paymenttransfer.domain.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Per-item results of a batch transfer")
+public class BatchTransferResponseDTO {
+    @Schema(description = "Number of transfers submitted", example = "3")
+    private int total;
+
+    @Schema(description = "Number of transfers applied or already processed", example = "2")
+    private int succeeded;
+
+    @Schema(description = "Number of transfers rejected", example = "1")
+    private int failed;
+
+    @Schema(description = "One result per submitted transfer, in submission order")
+    private List<BatchTransferItemResultDTO> results;
+}
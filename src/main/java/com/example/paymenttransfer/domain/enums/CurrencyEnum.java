@@ -1,8 +1,21 @@
 package com.example.paymenttransfer.domain.enums;
 
 public enum CurrencyEnum {
-    EUR,
-    MKD,
-    RSD,
-    USD
+    EUR(2),
+    MKD(2),
+    RSD(2),
+    USD(2);
+
+    private final int minorUnitDigits;
+
+    CurrencyEnum(int minorUnitDigits) {
+        this.minorUnitDigits = minorUnitDigits;
+    }
+
+    /**
+     * Number of decimal digits of the currency's minor unit, as in ISO 4217.
+     */
+    public int minorUnitDigits() {
+        return minorUnitDigits;
+    }
 }
@@ -0,0 +1,21 @@
+package com.example.paymenttransfer.domain.projection;
+
+import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Columns of an audit report row, selected with a JPQL constructor expression so no entities are loaded. The
+ * account number is resolved through {@link com.example.paymenttransfer.service.report.AccountProfiles}.
+ */
+public record AuditReportRow(Long id,
+                             Long accountId,
+                             Integer balanceSlot,
+                             BigDecimal beforeBalance,
+                             BigDecimal afterBalance,
+                             CurrencyEnum currency,
+                             UUID transactionId,
+                             Instant createdAt) {
+}
@@ -0,0 +1,24 @@
+package com.example.paymenttransfer.domain.projection;
+
+import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+import com.example.paymenttransfer.domain.enums.TransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Columns of a transaction report row, selected with a JPQL constructor expression so no entities are loaded;
+ * {@code id} is only used for the keyset cursor. Account numbers are not selected but resolved through
+ * {@link com.example.paymenttransfer.service.report.AccountProfiles}.
+ */
+public record TransactionReportRow(Long id,
+                                   UUID transactionId,
+                                   Long sourceAccountId,
+                                   Long destinationAccountId,
+                                   BigDecimal amount,
+                                   CurrencyEnum currency,
+                                   TransactionStatus status,
+                                   String failureReason,
+                                   Instant createdAt) {
+}
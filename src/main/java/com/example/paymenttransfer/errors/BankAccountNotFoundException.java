@@ -1,7 +1,10 @@
 package com.example.paymenttransfer.errors;
 
+/**
+ * Thrown for a transfer naming an unknown account, an expected client error; it skips the stack trace.
+ */
 public class BankAccountNotFoundException extends RuntimeException {
     public BankAccountNotFoundException(Long accountId) {
-        super("Bank account not found with ID: " + accountId);
+        super("Bank account not found with ID: " + accountId, null, false, false);
     }
 }
@@ -0,0 +1,8 @@
+package com.example.paymenttransfer.errors;
+
+public class ConcurrentTransferException extends RuntimeException {
+    public ConcurrentTransferException(int attempts, Throwable cause) {
+        super("Transfer could not be completed due to concurrent updates after " + attempts
+                + " attempts. Please retry.", cause);
+    }
+}
@@ -45,6 +45,12 @@ public class ExceptionTranslator extends ResponseEntityExceptionHandler {
         return buildErrorResponse(ex.getMessage(), HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(TransactionNotFoundException.class)
+    public ResponseEntity<ApiResponse<?>> handleTransactionNotFound(TransactionNotFoundException ex) {
+        log.warn("Transaction not found: {}", ex.getMessage());
+        return buildErrorResponse(ex.getMessage(), HttpStatus.NOT_FOUND);
+    }
+
     @ExceptionHandler(InsufficientFundsException.class)
     public ResponseEntity<ApiResponse<?>> handleInsufficientFunds(InsufficientFundsException ex) {
         log.error("Insufficient funds: {}", ex.getMessage());
@@ -57,12 +63,32 @@ public class ExceptionTranslator extends ResponseEntityExceptionHandler {
         return buildErrorResponse(ex.getMessage(), HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ApiResponse<?>> handleInvalidCursor(InvalidCursorException ex) {
+        log.warn("Invalid cursor: {}", ex.getMessage());
+        return buildErrorResponse(ex.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(DuplicateTransactionException.class)
     public ResponseEntity<ApiResponse<?>> handleDuplicateTransaction(DuplicateTransactionException ex) {
         log.warn("Duplicate transaction detected: {}", ex.getMessage());
         return buildErrorResponse(ex.getMessage(), HttpStatus.CONFLICT);
     }
 
+    @ExceptionHandler(ConcurrentTransferException.class)
+    public ResponseEntity<ApiResponse<?>> handleConcurrentTransfer(ConcurrentTransferException ex) {
+        log.warn("Concurrent transfer conflict: {}", ex.getMessage());
+        return buildErrorResponse(ex.getMessage(), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<ApiResponse<?>> handleServiceBusy(ServiceBusyException ex) {
+        log.warn("Request rejected: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfter().toSeconds()))
+                .body(ApiResponse.error(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE.value()));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiResponse<?>> handleGenericException(Exception ex) {
         log.error("Unexpected error occurred", ex);
@@ -2,9 +2,13 @@ package com.example.paymenttransfer.errors;
 
 import java.math.BigDecimal;
 
+/**
+ * A declined transfer. Under a high decline rate this is thrown constantly and only its message is ever used, so it
+ * does not capture a stack trace.
+ */
 public class InsufficientFundsException extends RuntimeException {
     public InsufficientFundsException(Long accountId, BigDecimal required, BigDecimal available) {
         super(String.format("Insufficient funds in account %d. Required: %s, Available: %s",
-                accountId, required, available));
+                accountId, required, available), null, false, false);
     }
 }
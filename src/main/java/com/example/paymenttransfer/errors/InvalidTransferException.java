@@ -1,7 +1,10 @@
 package com.example.paymenttransfer.errors;
 
+/**
+ * A request that breaks a business rule; answered with {@code 400} and its message, without a stack trace.
+ */
 public class InvalidTransferException extends RuntimeException {
     public InvalidTransferException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
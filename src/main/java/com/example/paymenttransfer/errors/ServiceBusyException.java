@@ -0,0 +1,16 @@
+package com.example.paymenttransfer.errors;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class ServiceBusyException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public ServiceBusyException(String reason, Duration retryAfter) {
+        super("Service is busy (" + reason + "). Please retry later.");
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.paymenttransfer.errors;
+
+import java.util.UUID;
+
+public class TransactionNotFoundException extends RuntimeException {
+    public TransactionNotFoundException(UUID transactionId) {
+        super("Transaction not found with ID: " + transactionId);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.paymenttransfer.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for one {@code SELECT ... FOR UPDATE} of an account; its duration is the row-lock wait plus
+ * the round trip.
+ */
+@Name("com.example.paymenttransfer.AccountLock")
+@Label("Account Lock")
+@Category({"Payment Transfer"})
+@Description("Loading an account with a pessimistic row lock")
+@StackTrace(false)
+public final class AccountLockEvent extends Event {
+
+    @Label("Account")
+    long accountId;
+
+    @Label("Found")
+    boolean found;
+
+    public void acquired(long accountId, boolean found) {
+        end();
+        if (shouldCommit()) {
+            this.accountId = accountId;
+            this.found = found;
+            commit();
+        }
+    }
+}
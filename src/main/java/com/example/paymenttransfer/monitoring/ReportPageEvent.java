@@ -0,0 +1,53 @@
+package com.example.paymenttransfer.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event for reading one report page. The event duration covers the queries and the mapping;
+ * {@code mappingTime} is the part spent turning the loaded rows into the response.
+ */
+@Name("com.example.paymenttransfer.ReportPage")
+@Label("Report Page")
+@Category({"Payment Transfer"})
+@Description("Reading and mapping one page of a transaction or audit report")
+@StackTrace(false)
+public final class ReportPageEvent extends Event {
+
+    @Label("Report")
+    String report;
+
+    @Label("Account")
+    long accountId;
+
+    @Label("Page Size")
+    int pageSize;
+
+    @Label("Rows Loaded")
+    @Description("Rows returned by the report queries, including the look-ahead row")
+    int rowsLoaded;
+
+    @Label("Mapping Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long mappingTime;
+
+    /**
+     * @param mappingStartedNanos {@link System#nanoTime()} reading taken when mapping started
+     */
+    public void mapped(String report, long accountId, int pageSize, int rowsLoaded, long mappingStartedNanos) {
+        end();
+        if (shouldCommit()) {
+            this.mappingTime = System.nanoTime() - mappingStartedNanos;
+            this.report = report;
+            this.accountId = accountId;
+            this.pageSize = pageSize;
+            this.rowsLoaded = rowsLoaded;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.paymenttransfer.monitoring;
+
+import com.example.paymenttransfer.domain.dto.TransferRequestDTO;
+import com.example.paymenttransfer.domain.dto.TransferResponseDTO;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event spanning one call of the transfer service, retries included. Usage:
+ * <pre>{@code
+ * TransferEvent event = new TransferEvent();
+ * event.begin();
+ * ...
+ * event.completed(request, response);   // or event.failed(request, error)
+ * }</pre>
+ * Fields are only filled in when the recording keeps the event, so a disabled event costs a timestamp.
+ */
+@Name("com.example.paymenttransfer.Transfer")
+@Label("Transfer")
+@Category({"Payment Transfer"})
+@Description("One transfer request, from entering the service until it completed or failed, including retries")
+@StackTrace(false)
+public final class TransferEvent extends Event {
+
+    @Label("Source Account")
+    long sourceAccountId;
+
+    @Label("Destination Account")
+    long destinationAccountId;
+
+    @Label("Amount")
+    String amount;
+
+    @Label("Idempotency Key")
+    String idempotencyKey;
+
+    @Label("Transaction Id")
+    String transactionId;
+
+    @Label("Outcome")
+    @Description("completed, or the failure reason also used by the transfer.failures metric")
+    String outcome;
+
+    public void completed(TransferRequestDTO request, TransferResponseDTO response) {
+        end();
+        if (shouldCommit()) {
+            describe(request);
+            transactionId = String.valueOf(response.getTransactionId());
+            outcome = "completed";
+            commit();
+        }
+    }
+
+    public void failed(TransferRequestDTO request, Throwable error) {
+        end();
+        if (shouldCommit()) {
+            describe(request);
+            outcome = TransferMetrics.FailureReason.of(error).tag();
+            commit();
+        }
+    }
+
+    private void describe(TransferRequestDTO request) {
+        sourceAccountId = request.getSourceAccountId() == null ? 0 : request.getSourceAccountId();
+        destinationAccountId = request.getDestinationAccountId() == null ? 0 : request.getDestinationAccountId();
+        amount = request.getAmount() == null ? null : request.getAmount().toPlainString();
+        idempotencyKey = request.getIdempotencyKey();
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.paymenttransfer.monitoring;
+
+import com.example.paymenttransfer.errors.BankAccountNotFoundException;
+import com.example.paymenttransfer.errors.ConcurrentTransferException;
+import com.example.paymenttransfer.errors.DuplicateTransactionException;
+import com.example.paymenttransfer.errors.InsufficientFundsException;
+import com.example.paymenttransfer.errors.InvalidTransferException;
+import com.example.paymenttransfer.errors.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers and counters of the entity based transfer path:
+ * <ul>
+ *     <li>{@code transfer.phase} (tag {@code phase}) splits each transaction attempt into {@link Phase}s, so a latency
+ *     spike can be attributed to account queueing, connection waits, row-lock waits, the idempotency lookup, the
+ *     writes or the commit;</li>
+ *     <li>{@code transfer.duration} (tag {@code outcome}) is the whole transfer including retries;</li>
+ *     <li>{@code transfer.failures} (tag {@code reason}) counts rejected transfers by {@link FailureReason}.</li>
+ * </ul>
+ * All timers publish percentile histograms. Meters are registered up front so every series exists at zero.
+ */
+@Component
+public class TransferMetrics {
+
+    public enum Phase {
+        /** Waiting in memory behind other transfers of the same accounts; recorded once per transfer. */
+        ACCOUNT_QUEUE,
+        /** Starting the transaction, which includes waiting for a pooled connection. */
+        BEGIN,
+        /** Idempotency cache check and, when the cache cannot rule the key out, the lookup query. */
+        IDEMPOTENCY_LOOKUP,
+        /** Loading both accounts; in pessimistic mode this includes waiting for their row locks. */
+        LOAD_ACCOUNTS,
+        /** Sending the inserts and updates of the transfer. */
+        FLUSH,
+        /** Committing the transaction. */
+        COMMIT;
+
+        String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    public enum FailureReason {
+        INSUFFICIENT_FUNDS,
+        INVALID,
+        ACCOUNT_NOT_FOUND,
+        DUPLICATE,
+        /** Concurrency conflicts (serialization failures, deadlocks, stale versions) that outlasted the retries. */
+        CONFLICT,
+        /** Rejected by the database work limiter before reaching the database. */
+        BUSY,
+        ERROR;
+
+        static FailureReason of(Throwable error) {
+            if (error instanceof InsufficientFundsException) {
+                return INSUFFICIENT_FUNDS;
+            }
+            if (error instanceof InvalidTransferException) {
+                return INVALID;
+            }
+            if (error instanceof BankAccountNotFoundException) {
+                return ACCOUNT_NOT_FOUND;
+            }
+            if (error instanceof DuplicateTransactionException) {
+                return DUPLICATE;
+            }
+            if (error instanceof ConcurrentTransferException) {
+                return CONFLICT;
+            }
+            if (error instanceof ServiceBusyException) {
+                return BUSY;
+            }
+            return ERROR;
+        }
+
+        String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final Map<Phase, Timer> phases = new EnumMap<>(Phase.class);
+    private final Map<FailureReason, Counter> failures = new EnumMap<>(FailureReason.class);
+    private final Timer completed;
+    private final Timer failed;
+
+    public TransferMetrics(MeterRegistry registry) {
+        for (Phase phase : Phase.values()) {
+            phases.put(phase, Timer.builder("transfer.phase")
+                .description("Time spent in one phase of a transfer attempt")
+                .tag("phase", phase.tag())
+                .publishPercentileHistogram()
+                .register(registry));
+        }
+        for (FailureReason reason : FailureReason.values()) {
+            failures.put(reason, Counter.builder("transfer.failures")
+                .description("Transfers rejected or aborted, by reason")
+                .tag("reason", reason.tag())
+                .register(registry));
+        }
+        completed = transferTimer(registry, "completed");
+        failed = transferTimer(registry, "failed");
+    }
+
+    private static Timer transferTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("transfer.duration")
+            .description("End to end time of a transfer, including retries")
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(registry);
+    }
+
+    /**
+     * Records the time from {@code startedNanos}, a {@link System#nanoTime()} reading, until now.
+     */
+    public void record(Phase phase, long startedNanos) {
+        phases.get(phase).record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void transferCompleted(long startedNanos) {
+        completed.record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void transferFailed(long startedNanos, Throwable error) {
+        failed.record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+        failures.get(FailureReason.of(error)).increment();
+    }
+}
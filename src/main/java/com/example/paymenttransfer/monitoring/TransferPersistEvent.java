@@ -0,0 +1,34 @@
+package com.example.paymenttransfer.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.UUID;
+
+/**
+ * Flight recorder event for the persistence phase of a completed transfer attempt: saving the balances, the
+ * transaction, the audit rows and the idempotency record, and flushing them. Not emitted for attempts that fail on the
+ * way.
+ */
+@Name("com.example.paymenttransfer.TransferPersist")
+@Label("Transfer Persist")
+@Category({"Payment Transfer"})
+@Description("Writing the rows of a transfer attempt and flushing them to the database")
+@StackTrace(false)
+public final class TransferPersistEvent extends Event {
+
+    @Label("Transaction Id")
+    String transactionId;
+
+    public void flushed(UUID transactionId) {
+        end();
+        if (shouldCommit()) {
+            this.transactionId = String.valueOf(transactionId);
+            commit();
+        }
+    }
+}
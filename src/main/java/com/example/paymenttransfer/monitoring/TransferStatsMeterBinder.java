@@ -0,0 +1,275 @@
+package com.example.paymenttransfer.monitoring;
+
+import com.example.paymenttransfer.service.FailedTransferRecorder;
+import com.example.paymenttransfer.service.FailureRecordStats;
+import com.example.paymenttransfer.service.ReportExportService;
+import com.example.paymenttransfer.service.TransferExecutor;
+import com.example.paymenttransfer.service.async.AsyncTransferStats;
+import com.example.paymenttransfer.service.async.AsyncTransferWorkers;
+import com.example.paymenttransfer.service.concurrency.AccountBalanceSlots;
+import com.example.paymenttransfer.service.concurrency.AccountQueueStats;
+import com.example.paymenttransfer.service.concurrency.AccountTransferQueue;
+import com.example.paymenttransfer.service.concurrency.BalanceSlotStats;
+import com.example.paymenttransfer.service.concurrency.ConcurrencyStats;
+import com.example.paymenttransfer.service.concurrency.DatabaseWorkLimiter;
+import com.example.paymenttransfer.service.concurrency.LimiterStats;
+import com.example.paymenttransfer.service.concurrency.ReportWorkLimiter;
+import com.example.paymenttransfer.service.concurrency.TransferConcurrencyControl;
+import com.example.paymenttransfer.service.idempotency.IdempotencyCache;
+import com.example.paymenttransfer.service.idempotency.IdempotencyCacheStats;
+import com.example.paymenttransfer.service.ledger.LedgerEngine;
+import com.example.paymenttransfer.service.ledger.LedgerStats;
+import com.example.paymenttransfer.service.microbatch.MicroBatchStats;
+import com.example.paymenttransfer.service.microbatch.MicroBatchTransferExecutor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes the counters the transfer components already keep ({@link ConcurrencyStats},
+ * {@link IdempotencyCacheStats}, {@link AccountQueueStats}, {@link LimiterStats}, {@link AsyncTransferStats},
+ * {@link BalanceSlotStats}, {@link FailureRecordStats} and, in micro-batch or ledger mode, {@link MicroBatchStats} or
+ * {@link LedgerStats}). They are read when the registry is scraped, so the hot path does not pay for a second set of
+ * counters.
+ */
+@Component
+@RequiredArgsConstructor
+public class TransferStatsMeterBinder implements MeterBinder {
+
+    private final TransferConcurrencyControl concurrencyControl;
+    private final IdempotencyCache idempotencyCache;
+    private final TransferExecutor transferExecutor;
+    private final AccountTransferQueue accountTransferQueue;
+    private final DatabaseWorkLimiter databaseWorkLimiter;
+    private final ReportExportService reportExportService;
+    private final ReportWorkLimiter reportWorkLimiter;
+    private final AsyncTransferWorkers asyncTransferWorkers;
+    private final AccountBalanceSlots accountBalanceSlots;
+    private final FailedTransferRecorder failedTransferRecorder;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        String mode = concurrencyControl.mode().name().toLowerCase(Locale.ROOT);
+        concurrencyCounter(registry, "transfer.concurrency.attempts", mode, ConcurrencyStats::attempts,
+            "Transaction attempts started, including retries");
+        concurrencyCounter(registry, "transfer.concurrency.retries", mode, ConcurrencyStats::retries,
+            "Attempts run again after a retryable concurrency error");
+        concurrencyCounter(registry, "transfer.concurrency.aborts", mode, ConcurrencyStats::aborts,
+            "Transfers given up after exhausting the retry budget");
+        conflictCounter(registry, mode, "optimistic_lock", ConcurrencyStats::optimisticLockFailures);
+        conflictCounter(registry, mode, "serialization_failure", ConcurrencyStats::serializationFailures);
+        conflictCounter(registry, mode, "deadlock", ConcurrencyStats::deadlocks);
+
+        idempotencyCounter(registry, "idempotency.cache.response.hits", IdempotencyCacheStats::responseHits,
+            "Retries answered from the recent-response cache");
+        FunctionCounter.builder("idempotency.cache.bloom.checks", idempotencyCache,
+                cache -> cache.stats().bloomNegatives())
+            .description("Bloom filter checks, by result")
+            .tag("result", "negative")
+            .register(registry);
+        FunctionCounter.builder("idempotency.cache.bloom.checks", idempotencyCache,
+                cache -> cache.stats().bloomPositives())
+            .description("Bloom filter checks, by result")
+            .tag("result", "positive")
+            .register(registry);
+        idempotencyCounter(registry, "idempotency.cache.bloom.false.positives", IdempotencyCacheStats::falsePositives,
+            "Bloom positives the lookup query did not confirm");
+        Gauge.builder("idempotency.cache.bloom.keys", idempotencyCache, cache -> cache.stats().bloomKeys())
+            .description("Keys inserted into the bloom filter since the last rebuild")
+            .register(registry);
+        Gauge.builder("idempotency.cache.responses", idempotencyCache, cache -> cache.stats().cachedResponses())
+            .description("Entries held by the recent-response cache")
+            .register(registry);
+
+        Gauge.builder("account.queue.waiting", accountTransferQueue, queue -> queue.stats().waiting())
+            .description("Transfers waiting in memory for another transfer of their accounts")
+            .register(registry);
+        accountQueueCounter(registry, "account.queue.admitted", AccountQueueStats::admitted,
+            "Transfers that got their account locks, immediately or after waiting");
+        accountQueueCounter(registry, "account.queue.contended", AccountQueueStats::contended,
+            "Admitted transfers that had to wait for another transfer of their accounts");
+        accountQueueCounter(registry, "account.queue.timeouts", AccountQueueStats::timeouts,
+            "Transfers rejected with 503 after waiting max-wait for their accounts");
+
+        bindLimiter(registry, databaseWorkLimiter);
+        bindLimiter(registry, reportExportService.exportLimiter());
+        reportWorkLimiter.replicaLimiter().ifPresent(limiter -> bindLimiter(registry, limiter));
+
+        asyncCounter(registry, "transfer.async.submitted", AsyncTransferStats::submitted,
+            "Transfers accepted for asynchronous processing");
+        FunctionCounter.builder("transfer.async.processed", asyncTransferWorkers,
+                workers -> workers.stats().completed())
+            .description("Pending transfers processed by a worker, by outcome")
+            .tag("outcome", "completed")
+            .register(registry);
+        FunctionCounter.builder("transfer.async.processed", asyncTransferWorkers,
+                workers -> workers.stats().failed())
+            .description("Pending transfers processed by a worker, by outcome")
+            .tag("outcome", "failed")
+            .register(registry);
+        asyncCounter(registry, "transfer.async.batches", AsyncTransferStats::batches,
+            "Worker transactions committed");
+        asyncCounter(registry, "transfer.async.fallbacks", AsyncTransferStats::fallbacks,
+            "Pending transfers re-run individually after their batch failed");
+
+        Gauge.builder("account.balance.slots.accounts", accountBalanceSlots, slots -> slots.stats().accounts())
+            .description("Accounts whose balance is striped over slot rows")
+            .register(registry);
+        balanceSlotCounter(registry, "account.balance.slots.credits", BalanceSlotStats::credits,
+            "Credits written to a balance slot instead of the account row");
+        balanceSlotCounter(registry, "account.balance.slots.sweeps", BalanceSlotStats::sweeps,
+            "Times the slots of an account were swept into its balance");
+
+        FunctionCounter.builder("transfer.failure.records", failedTransferRecorder,
+                recorder -> recorder.stats().written())
+            .description("FAILED transactions recorded for declined transfers, by result")
+            .tag("result", "written")
+            .register(registry);
+        FunctionCounter.builder("transfer.failure.records", failedTransferRecorder,
+                recorder -> recorder.stats().dropped())
+            .description("FAILED transactions recorded for declined transfers, by result")
+            .tag("result", "dropped")
+            .register(registry);
+
+        if (transferExecutor instanceof MicroBatchTransferExecutor microBatch) {
+            microBatchCounter(registry, microBatch, "transfer.microbatch.batches", MicroBatchStats::batches,
+                "Group commits executed");
+            microBatchCounter(registry, microBatch, "transfer.microbatch.transfers", MicroBatchStats::transfers,
+                "Transfers that went through a group commit");
+            microBatchCounter(registry, microBatch, "transfer.microbatch.fallbacks", MicroBatchStats::fallbacks,
+                "Transfers re-run individually");
+            Gauge.builder("transfer.microbatch.queued", microBatch, executor -> executor.stats().queued())
+                .description("Transfers waiting for a micro-batch worker")
+                .register(registry);
+        }
+
+        if (transferExecutor instanceof LedgerEngine ledger) {
+            ledgerCounter(registry, ledger, "ledger.transfers", LedgerStats::transfers,
+                "Transfers completed by the ledger");
+            ledgerCounter(registry, ledger, "ledger.transfers.cross.shard", LedgerStats::crossShard,
+                "Completed transfers between accounts of different shards");
+            ledgerCounter(registry, ledger, "ledger.rejected", LedgerStats::rejected,
+                "Transfers refused for insufficient funds");
+            ledgerCounter(registry, ledger, "ledger.duplicates", LedgerStats::duplicates,
+                "Requests answered from an idempotency key held by the ledger");
+            ledgerCounter(registry, ledger, "ledger.journal.groups", LedgerStats::journalGroups,
+                "Journal writes, one fsync each");
+            ledgerCounter(registry, ledger, "ledger.journal.entries", LedgerStats::journalEntries,
+                "Entries written to the journal");
+            Gauge.builder("ledger.projection.lag", ledger, engine -> engine.stats().projectionLag())
+                .description("Durable journal entries not projected into the database yet")
+                .register(registry);
+            Gauge.builder("ledger.accounts", ledger, engine -> engine.stats().accounts())
+                .description("Accounts held in memory by the ledger")
+                .register(registry);
+        }
+    }
+
+    private void concurrencyCounter(MeterRegistry registry, String name, String mode,
+                                    ToDoubleFunction<ConcurrencyStats> value, String description) {
+        FunctionCounter.builder(name, concurrencyControl, control -> value.applyAsDouble(control.stats()))
+            .description(description)
+            .tag("mode", mode)
+            .register(registry);
+    }
+
+    private void conflictCounter(MeterRegistry registry, String mode, String cause,
+                                 ToDoubleFunction<ConcurrencyStats> value) {
+        FunctionCounter.builder("transfer.concurrency.conflicts", concurrencyControl,
+                control -> value.applyAsDouble(control.stats()))
+            .description("Retryable concurrency errors, by cause")
+            .tag("mode", mode)
+            .tag("cause", cause)
+            .register(registry);
+    }
+
+    private void idempotencyCounter(MeterRegistry registry, String name, ToDoubleFunction<IdempotencyCacheStats> value,
+                                    String description) {
+        FunctionCounter.builder(name, idempotencyCache, cache -> value.applyAsDouble(cache.stats()))
+            .description(description)
+            .register(registry);
+    }
+
+    private void accountQueueCounter(MeterRegistry registry, String name, ToDoubleFunction<AccountQueueStats> value,
+                                     String description) {
+        FunctionCounter.builder(name, accountTransferQueue, queue -> value.applyAsDouble(queue.stats()))
+            .description(description)
+            .register(registry);
+    }
+
+    /**
+     * {@code database.limiter.*}, tagged with the limiter's name.
+     */
+    private void bindLimiter(MeterRegistry registry, DatabaseWorkLimiter workLimiter) {
+        Gauge.builder("database.limiter.in.flight", workLimiter, limiter -> limiter.stats().inFlight())
+            .description("Units of database work holding a limiter permit")
+            .tag("limiter", workLimiter.name())
+            .register(registry);
+        Gauge.builder("database.limiter.queued", workLimiter, limiter -> limiter.stats().queued())
+            .description("Requests waiting for a limiter permit")
+            .tag("limiter", workLimiter.name())
+            .register(registry);
+        Gauge.builder("database.limiter.max.concurrent", workLimiter, limiter -> limiter.stats().maxConcurrent())
+            .description("Permits of the limiter, normally derived from the connection pool size")
+            .tag("limiter", workLimiter.name())
+            .register(registry);
+        limiterCounter(registry, workLimiter, "database.limiter.admitted", LimiterStats::admitted,
+            "Requests that got a permit, immediately or after queueing");
+        limiterCounter(registry, workLimiter, "database.limiter.waited", LimiterStats::waited,
+            "Admitted requests that had to queue first");
+        FunctionCounter.builder("database.limiter.rejected", workLimiter,
+                limiter -> limiter.stats().rejectedQueueFull())
+            .description("Requests rejected with 503, by cause")
+            .tag("limiter", workLimiter.name())
+            .tag("cause", "queue_full")
+            .register(registry);
+        FunctionCounter.builder("database.limiter.rejected", workLimiter,
+                limiter -> limiter.stats().rejectedTimeout())
+            .description("Requests rejected with 503, by cause")
+            .tag("limiter", workLimiter.name())
+            .tag("cause", "timeout")
+            .register(registry);
+    }
+
+    private void limiterCounter(MeterRegistry registry, DatabaseWorkLimiter workLimiter, String name,
+                                ToDoubleFunction<LimiterStats> value, String description) {
+        FunctionCounter.builder(name, workLimiter, limiter -> value.applyAsDouble(limiter.stats()))
+            .description(description)
+            .tag("limiter", workLimiter.name())
+            .register(registry);
+    }
+
+    private void asyncCounter(MeterRegistry registry, String name, ToDoubleFunction<AsyncTransferStats> value,
+                              String description) {
+        FunctionCounter.builder(name, asyncTransferWorkers, workers -> value.applyAsDouble(workers.stats()))
+            .description(description)
+            .register(registry);
+    }
+
+    private void balanceSlotCounter(MeterRegistry registry, String name, ToDoubleFunction<BalanceSlotStats> value,
+                                    String description) {
+        FunctionCounter.builder(name, accountBalanceSlots, slots -> value.applyAsDouble(slots.stats()))
+            .description(description)
+            .register(registry);
+    }
+
+    private static void microBatchCounter(MeterRegistry registry, MicroBatchTransferExecutor executor, String name,
+                                          ToDoubleFunction<MicroBatchStats> value, String description) {
+        FunctionCounter.builder(name, executor, microBatch -> value.applyAsDouble(microBatch.stats()))
+            .description(description)
+            .register(registry);
+    }
+
+    private static void ledgerCounter(MeterRegistry registry, LedgerEngine engine, String name,
+                                      ToDoubleFunction<LedgerStats> value, String description) {
+        FunctionCounter.builder(name, engine, ledger -> value.applyAsDouble(ledger.stats()))
+            .description(description)
+            .register(registry);
+    }
+}
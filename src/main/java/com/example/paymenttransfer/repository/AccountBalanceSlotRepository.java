@@ -0,0 +1,31 @@
+package com.example.paymenttransfer.repository;
+
+import com.example.paymenttransfer.domain.AccountBalanceSlot;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AccountBalanceSlotRepository extends JpaRepository<AccountBalanceSlot, AccountBalanceSlot.Key> {
+
+    @Query("SELECT COALESCE(SUM(s.balance), 0) FROM AccountBalanceSlot s WHERE s.accountId = :accountId")
+    BigDecimal sumBalance(@Param("accountId") Long accountId);
+
+    /**
+     * Locks one slot of the account until commit; credits to its other slots go ahead.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM AccountBalanceSlot s WHERE s.accountId = :accountId AND s.slot = :slot")
+    Optional<AccountBalanceSlot> findByIdWithLock(@Param("accountId") Long accountId, @Param("slot") int slot);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM AccountBalanceSlot s WHERE s.accountId = :accountId ORDER BY s.slot")
+    List<AccountBalanceSlot> findAllByAccountIdWithLock(@Param("accountId") Long accountId);
+}
@@ -4,10 +4,14 @@ import com.example.paymenttransfer.domain.Account;
 import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,4 +20,23 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT a FROM Account a WHERE a.id = :id")
     Optional<Account> findByIdWithLock(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id IN :ids ORDER BY a.id")
+    List<Account> findAllByIdWithLock(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT a.id FROM Account a WHERE a.balanceSlots > 0")
+    List<Long> findStripedIds();
+
+    /**
+     * Overwrites the balance, in minor units, with the value the ledger holds; only used by the ledger projector.
+     */
+    @Modifying
+    @Query("""
+        UPDATE Account a
+        SET a.balance = :balance, a.version = a.version + 1, a.updatedAt = :updatedAt
+        WHERE a.id = :id
+    """)
+    int updateBalance(@Param("id") Long id, @Param("balance") long balance,
+                      @Param("updatedAt") Instant updatedAt);
 }
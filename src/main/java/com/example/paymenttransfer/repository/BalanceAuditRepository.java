@@ -2,18 +2,40 @@ package com.example.paymenttransfer.repository;
 
 import com.example.paymenttransfer.domain.BalanceAudit;
 import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+import com.example.paymenttransfer.domain.projection.AuditReportRow;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
 
 @Repository
 public interface BalanceAuditRepository extends JpaRepository<BalanceAudit, Long> {
 
-    List<BalanceAudit> findByCurrencyAndAccountId(CurrencyEnum currency, Long accountId);
-
-    @Query("SELECT ba FROM BalanceAudit ba where ba.account.id = :accountId ORDER BY ba.currency, ba.createdAt DESC")
-    List<BalanceAudit> findAllByAccount(@Param("accountId") Long accountId);
+    /**
+     * One keyset page of an account's audit records, newest first; a backward range scan of
+     * {@code idx_balance_audit_account_created_at}.
+     */
+    @Query("""
+        SELECT new com.example.paymenttransfer.domain.projection.AuditReportRow(
+            ba.id, ba.account.id, ba.balanceSlot, ba.beforeBalance, ba.afterBalance, ba.currency, t.transactionId,
+            ba.createdAt)
+        FROM BalanceAudit ba
+        LEFT JOIN ba.transaction t
+        WHERE ba.account.id = :accountId
+        AND (:currency IS NULL OR ba.currency = :currency)
+        AND ba.createdAt >= :from
+        AND ba.createdAt <= :beforeCreatedAt
+        AND (ba.createdAt < :beforeCreatedAt OR (ba.createdAt = :beforeCreatedAt AND ba.id < :beforeId))
+        ORDER BY ba.createdAt DESC, ba.id DESC
+    """)
+    List<AuditReportRow> findPageByAccount(@Param("accountId") Long accountId,
+                                           @Param("currency") CurrencyEnum currency,
+                                           @Param("from") Instant from,
+                                           @Param("beforeCreatedAt") Instant beforeCreatedAt,
+                                           @Param("beforeId") long beforeId,
+                                           Limit limit);
 }
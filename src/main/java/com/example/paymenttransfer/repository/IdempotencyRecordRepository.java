@@ -0,0 +1,73 @@
+package com.example.paymenttransfer.repository;
+
+import com.example.paymenttransfer.domain.IdempotencyRecord;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    @Query("""
+        SELECT r FROM IdempotencyRecord r
+        JOIN FETCH r.transaction t
+        JOIN FETCH t.sourceAccount
+        JOIN FETCH t.destinationAccount
+        WHERE r.keyHash = :keyHash AND r.expiresAt > :now
+    """)
+    Optional<IdempotencyRecord> findActiveByKeyHash(@Param("keyHash") byte[] keyHash, @Param("now") Instant now);
+
+    @Query("""
+        SELECT r FROM IdempotencyRecord r
+        JOIN FETCH r.transaction t
+        JOIN FETCH t.sourceAccount
+        JOIN FETCH t.destinationAccount
+        WHERE r.keyHash IN :keyHashes AND r.expiresAt > :now
+    """)
+    List<IdempotencyRecord> findAllActiveByKeyHashIn(@Param("keyHashes") Collection<byte[]> keyHashes,
+                                                     @Param("now") Instant now);
+
+    @Query("""
+        SELECT r FROM IdempotencyRecord r
+        JOIN FETCH r.transaction t
+        JOIN FETCH t.sourceAccount
+        JOIN FETCH t.destinationAccount
+        WHERE r.expiresAt > :now
+        ORDER BY r.createdAt DESC
+    """)
+    List<IdempotencyRecord> findRecentActive(@Param("now") Instant now,
+                                             Pageable pageable);
+
+    /**
+     * Frees the key hashes of expired records so the keys can be used again.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.keyHash IN :keyHashes AND r.expiresAt <= :now")
+    int deleteExpiredByKeyHashIn(@Param("keyHashes") Collection<byte[]> keyHashes, @Param("now") Instant now);
+
+    /**
+     * Deletes up to {@code limit} expired records, oldest first, in its own short transaction. The batch is collected
+     * into an array first: as an {@code IN} subquery Postgres hashes it and scans the whole table for the matches,
+     * while {@code = ANY} of the array is a primary key lookup per row.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        DELETE FROM idempotency_record
+        WHERE transaction_id = ANY (ARRAY(
+            SELECT transaction_id FROM idempotency_record
+            WHERE expires_at <= :now
+            ORDER BY expires_at
+            LIMIT :limit))
+    """, nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") Instant now, @Param("limit") int limit);
+}
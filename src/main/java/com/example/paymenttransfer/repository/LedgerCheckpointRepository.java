@@ -0,0 +1,9 @@
+package com.example.paymenttransfer.repository;
+
+import com.example.paymenttransfer.domain.LedgerCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface LedgerCheckpointRepository extends JpaRepository<LedgerCheckpoint, Integer> {
+}
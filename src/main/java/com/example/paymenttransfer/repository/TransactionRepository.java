@@ -2,31 +2,102 @@ package com.example.paymenttransfer.repository;
 
 import com.example.paymenttransfer.domain.Transaction;
 import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+import com.example.paymenttransfer.domain.projection.TransactionReportRow;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
 
-    Optional<Transaction> findByIdempotencyKey(String idempotencyKey);
+    /**
+     * One keyset page of the transactions sent by an account, newest first; a backward range scan of
+     * {@code idx_transaction_source_account_created_at}. The redundant {@code createdAt <= :beforeCreatedAt} lets
+     * the scan start at the cursor instead of filtering every newer row. Only the foreign keys of the accounts are
+     * selected, so {@code account} is not joined.
+     */
+    @Query("""
+        SELECT new com.example.paymenttransfer.domain.projection.TransactionReportRow(
+            t.id, t.transactionId, t.sourceAccount.id, t.destinationAccount.id,
+            t.amount, t.currency, t.status, t.failureReason, t.createdAt)
+        FROM Transaction t
+        WHERE t.sourceAccount.id = :accountId
+        AND (:currency IS NULL OR t.currency = :currency)
+        AND t.createdAt >= :from
+        AND t.createdAt <= :beforeCreatedAt
+        AND (t.createdAt < :beforeCreatedAt OR (t.createdAt = :beforeCreatedAt AND t.id < :beforeId))
+        ORDER BY t.createdAt DESC, t.id DESC
+    """)
+    List<TransactionReportRow> findPageBySourceAccount(@Param("accountId") Long accountId,
+                                                       @Param("currency") CurrencyEnum currency,
+                                                       @Param("from") Instant from,
+                                                       @Param("beforeCreatedAt") Instant beforeCreatedAt,
+                                                       @Param("beforeId") long beforeId,
+                                                       Limit limit);
 
+    /**
+     * Counterpart of {@link #findPageBySourceAccount} for received transactions, backed by
+     * {@code idx_transaction_destination_account_created_at}.
+     */
     @Query("""
-        SELECT t FROM Transaction t
-        WHERE (t.sourceAccount.id = :accountId OR t.destinationAccount.id = :accountId)
-        and t.currency = :currency
-        ORDER BY t.currency, t.createdAt DESC
+        SELECT new com.example.paymenttransfer.domain.projection.TransactionReportRow(
+            t.id, t.transactionId, t.sourceAccount.id, t.destinationAccount.id,
+            t.amount, t.currency, t.status, t.failureReason, t.createdAt)
+        FROM Transaction t
+        WHERE t.destinationAccount.id = :accountId
+        AND (:currency IS NULL OR t.currency = :currency)
+        AND t.createdAt >= :from
+        AND t.createdAt <= :beforeCreatedAt
+        AND (t.createdAt < :beforeCreatedAt OR (t.createdAt = :beforeCreatedAt AND t.id < :beforeId))
+        ORDER BY t.createdAt DESC, t.id DESC
     """)
-    List<Transaction> findByCurrencyAndSourceAccountId(CurrencyEnum currency, Long accountId);
+    List<TransactionReportRow> findPageByDestinationAccount(@Param("accountId") Long accountId,
+                                                            @Param("currency") CurrencyEnum currency,
+                                                            @Param("from") Instant from,
+                                                            @Param("beforeCreatedAt") Instant beforeCreatedAt,
+                                                            @Param("beforeId") long beforeId,
+                                                            Limit limit);
 
+    /**
+     * Status lookup by the public id, through the index of its unique constraint.
+     */
     @Query("""
         SELECT t FROM Transaction t
-        WHERE (t.sourceAccount.id = :accountId OR t.destinationAccount.id = :accountId)
-        ORDER BY t.currency, t.createdAt DESC
+        JOIN FETCH t.sourceAccount
+        JOIN FETCH t.destinationAccount
+        WHERE t.transactionId = :transactionId
+    """)
+    Optional<Transaction> findByTransactionIdWithAccounts(@Param("transactionId") UUID transactionId);
+
+    /**
+     * Claims the oldest pending transfers of one partition (source account modulo {@code partitions}) for the
+     * current transaction. Rows another worker or instance has already claimed are skipped rather than waited for;
+     * on Postgres the scan is served by {@code idx_transaction_pending}.
+     */
+    @Query(value = """
+        SELECT * FROM transaction
+        WHERE status = 'PENDING'
+        AND MOD(source_account_id, :partitions) = :partition
+        ORDER BY id
+        LIMIT :limit
+        FOR UPDATE SKIP LOCKED
+    """, nativeQuery = true)
+    List<Transaction> claimPending(@Param("partition") int partition, @Param("partitions") int partitions,
+                                   @Param("limit") int limit);
+
+    @Modifying
+    @Query("""
+        UPDATE Transaction t
+        SET t.status = com.example.paymenttransfer.domain.enums.TransactionStatus.FAILED, t.failureReason = :reason
+        WHERE t.id = :id AND t.status = com.example.paymenttransfer.domain.enums.TransactionStatus.PENDING
     """)
-    List<Transaction> findAllByAccount(@Param("accountId") Long accountId);
+    int failPending(@Param("id") Long id, @Param("reason") String reason);
 }
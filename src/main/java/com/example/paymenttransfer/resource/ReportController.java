@@ -4,16 +4,26 @@ import com.example.paymenttransfer.domain.dto.ApiResponse;
 import com.example.paymenttransfer.domain.dto.AuditListResponseDTO;
 import com.example.paymenttransfer.domain.dto.TransactionListResponseDTO;
 import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+import com.example.paymenttransfer.resource.annotations.ApiExportAuditsOperation;
+import com.example.paymenttransfer.resource.annotations.ApiExportTransactionsOperation;
 import com.example.paymenttransfer.resource.annotations.ApiGetAuditsOperation;
 import com.example.paymenttransfer.resource.annotations.ApiGetTransactionsOperation;
+import com.example.paymenttransfer.service.ReportExportService;
 import com.example.paymenttransfer.service.TransactionReportService;
+import com.example.paymenttransfer.service.concurrency.ReportWorkLimiter;
+import com.example.paymenttransfer.service.export.ExportFormat;
+import com.example.paymenttransfer.service.report.ReportPage;
+import com.example.paymenttransfer.service.report.ReportQuery;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Instant;
 import java.util.List;
-import java.util.Map;
 
 @RestController
 @RequestMapping("/api/v1/reports")
@@ -21,51 +31,81 @@ import java.util.Map;
 @Slf4j
 public class ReportController {
     private final TransactionReportService transactionReportService;
+    private final ReportExportService reportExportService;
+    private final ReportWorkLimiter reportWorkLimiter;
 
     @GetMapping("/transactions/{id}")
     @ApiGetTransactionsOperation
-    public ResponseEntity<ApiResponse<?>> getTransactionsByUser(@PathVariable("id") Long id, @RequestParam(required = false) CurrencyEnum currency) {
-        if (currency != null) {
-            log.info("Fetching transaction report for currency: {}", currency);
-            List<TransactionListResponseDTO> transactions =
-                    transactionReportService.getAccountTransactionsByCurrency(id, currency);
+    public ResponseEntity<ApiResponse<List<TransactionListResponseDTO>>> getTransactionsByUser(
+            @PathVariable("id") Long id,
+            @RequestParam(required = false) CurrencyEnum currency,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        log.info("Fetching transaction report page for account: {}", id);
+        ReportQuery query = new ReportQuery(currency, from, to, cursor, limit);
+        ReportPage<TransactionListResponseDTO> page = reportWorkLimiter.call(
+                () -> transactionReportService.getAccountTransactions(id, query));
 
-            ApiResponse<List<TransactionListResponseDTO>> response =
-                    ApiResponse.success(transactions, "Transactions retrieved successfully");
-
-            return ResponseEntity.ok(response);
-        } else {
-            log.info("Fetching all transactions grouped by currency");
-            Map<CurrencyEnum, List<TransactionListResponseDTO>> groupedTransactions =
-                    transactionReportService.getAllAccountTransactions(id);
-            ApiResponse<Map<CurrencyEnum, List<TransactionListResponseDTO>>> response =
-                    ApiResponse.success(groupedTransactions, "Transactions grouped by currency retrieved successfully");
-
-            return ResponseEntity.ok(response);
-        }
+        return ResponseEntity.ok(
+                ApiResponse.page(page.items(), "Transactions retrieved successfully", page.nextCursor()));
     }
 
     @GetMapping("/audits/{id}")
     @ApiGetAuditsOperation
-    public ResponseEntity<ApiResponse<?>> getAuditsByUser(@PathVariable("id") Long id, @RequestParam(required = false) CurrencyEnum currency) {
-        if (currency != null) {
-            log.info("Fetching audit report for currency: {}", currency);
-            List<AuditListResponseDTO> audits =
-                    transactionReportService.getAccountAuditsByCurrency(id, currency);
+    public ResponseEntity<ApiResponse<List<AuditListResponseDTO>>> getAuditsByUser(
+            @PathVariable("id") Long id,
+            @RequestParam(required = false) CurrencyEnum currency,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        log.info("Fetching audit report page for account: {}", id);
+        ReportQuery query = new ReportQuery(currency, from, to, cursor, limit);
+        ReportPage<AuditListResponseDTO> page = reportWorkLimiter.call(
+                () -> transactionReportService.getAccountAudits(id, query));
 
-            ApiResponse<List<AuditListResponseDTO>> response =
-                    ApiResponse.success(audits, "Audits retrieved successfully");
+        return ResponseEntity.ok(
+                ApiResponse.page(page.items(), "Audits retrieved successfully", page.nextCursor()));
+    }
 
-            return ResponseEntity.ok(response);
-        } else {
-            log.info("Fetching all audits grouped by currency");
-            Map<CurrencyEnum, List<AuditListResponseDTO>> groupedAudits =
-                    transactionReportService.getAllAccountAudits(id);
+    @GetMapping("/transactions/{id}/export")
+    @ApiExportTransactionsOperation
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @PathVariable("id") Long id,
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @RequestParam(required = false) CurrencyEnum currency,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to) {
+        log.info("Exporting transactions for account {} as {}", id, format);
+        StreamingResponseBody body = out ->
+                reportExportService.exportTransactions(id, currency, from, to, format, out);
+        return exportResponse("transactions-" + id, format, body);
+    }
 
-            ApiResponse<Map<CurrencyEnum, List<AuditListResponseDTO>>> response =
-                    ApiResponse.success(groupedAudits, "Audits grouped by currency retrieved successfully");
+    @GetMapping("/audits/{id}/export")
+    @ApiExportAuditsOperation
+    public ResponseEntity<StreamingResponseBody> exportAudits(
+            @PathVariable("id") Long id,
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @RequestParam(required = false) CurrencyEnum currency,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to) {
+        log.info("Exporting audits for account {} as {}", id, format);
+        StreamingResponseBody body = out ->
+                reportExportService.exportAudits(id, currency, from, to, format, out);
+        return exportResponse("audits-" + id, format, body);
+    }
 
-            return ResponseEntity.ok(response);
-        }
+    private ResponseEntity<StreamingResponseBody> exportResponse(String fileName, ExportFormat format,
+                                                                 StreamingResponseBody body) {
+        ContentDisposition disposition = ContentDisposition.attachment()
+                .filename(fileName + "." + format.fileExtension())
+                .build();
+        return ResponseEntity.ok()
+                .contentType(format.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .body(body);
     }
 }
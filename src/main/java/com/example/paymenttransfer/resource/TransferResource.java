@@ -1,34 +1,54 @@
 package com.example.paymenttransfer.resource;
 
+import com.example.paymenttransfer.config.TransferProperties;
 import com.example.paymenttransfer.domain.dto.ApiResponse;
+import com.example.paymenttransfer.domain.dto.BatchTransferRequestDTO;
+import com.example.paymenttransfer.domain.dto.BatchTransferResponseDTO;
 import com.example.paymenttransfer.domain.dto.TransferRequestDTO;
 import com.example.paymenttransfer.domain.dto.TransferResponseDTO;
+import com.example.paymenttransfer.domain.enums.TransactionStatus;
+import com.example.paymenttransfer.errors.InvalidTransferException;
+import com.example.paymenttransfer.resource.annotations.ApiAsyncTransferOperation;
+import com.example.paymenttransfer.resource.annotations.ApiBatchTransferOperation;
+import com.example.paymenttransfer.resource.annotations.ApiTransferStatusOperation;
 import com.example.paymenttransfer.resource.annotations.ApiTransferOperation;
-import com.example.paymenttransfer.service.TransferService;
+import com.example.paymenttransfer.service.BatchTransferService;
+import com.example.paymenttransfer.service.TransferExecutor;
+import com.example.paymenttransfer.service.async.AsyncTransferService;
+import com.example.paymenttransfer.service.concurrency.DatabaseWorkLimiter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.net.URI;
+import java.util.UUID;
+
 @RestController
 @RequestMapping("/api/v1/transfers")
 @RequiredArgsConstructor
 @Slf4j
 @Tag(name = "Transfer", description = "Fund transfer operations between accounts")
 public class TransferResource {
-    private final TransferService transferService;
+    private final TransferExecutor transferExecutor;
+    private final BatchTransferService batchTransferService;
+    private final DatabaseWorkLimiter databaseWorkLimiter;
+    private final AsyncTransferService asyncTransferService;
+    private final TransferProperties transferProperties;
 
     @PostMapping
     @ApiTransferOperation
     public ResponseEntity<ApiResponse<TransferResponseDTO>> transfer(@Valid @RequestBody TransferRequestDTO request) {
         log.info("Received transfer request: {}", request);
-        TransferResponseDTO response = transferService.transferFunds(request);
+        TransferResponseDTO response = transferExecutor.transferFunds(request);
 
         ApiResponse<TransferResponseDTO> apiResponse = ApiResponse.success(
                 response,
@@ -38,4 +58,65 @@ public class TransferResource {
 
         return ResponseEntity.status(HttpStatus.CREATED).body(apiResponse);
     }
+
+    @PostMapping("/batch")
+    @ApiBatchTransferOperation
+    public ResponseEntity<ApiResponse<BatchTransferResponseDTO>> transferBatch(
+            @Valid @RequestBody BatchTransferRequestDTO request) {
+        log.info("Received batch transfer request with {} transfers", request.getTransfers().size());
+        requireDatabaseBalances("Batch transfers");
+        BatchTransferResponseDTO response = databaseWorkLimiter.call(
+                () -> batchTransferService.transferBatch(request.getTransfers()));
+
+        ApiResponse<BatchTransferResponseDTO> apiResponse = ApiResponse.success(
+                response,
+                "Batch processed: " + response.getSucceeded() + " succeeded, " + response.getFailed() + " failed",
+                HttpStatus.OK.value()
+        );
+
+        return ResponseEntity.ok(apiResponse);
+    }
+
+    /**
+     * Answers {@code 202 Accepted} while the transfer waits for a worker; a retry with the key of an already
+     * processed transfer gets its final state with {@code 200 OK}.
+     */
+    @PostMapping("/async")
+    @ApiAsyncTransferOperation
+    public ResponseEntity<ApiResponse<TransferResponseDTO>> transferAsync(
+            @Valid @RequestBody TransferRequestDTO request) {
+        log.info("Received asynchronous transfer request: {}", request);
+        requireDatabaseBalances("Asynchronous transfers");
+        TransferResponseDTO response = asyncTransferService.submit(request);
+
+        if (response.getStatus() != TransactionStatus.PENDING) {
+            return ResponseEntity.ok(ApiResponse.success(response, response.getMessage(), HttpStatus.OK.value()));
+        }
+        ApiResponse<TransferResponseDTO> apiResponse = ApiResponse.success(
+                response,
+                "Transfer accepted for processing",
+                HttpStatus.ACCEPTED.value()
+        );
+
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/transfers/" + response.getTransactionId()))
+                .body(apiResponse);
+    }
+
+    @GetMapping("/{transactionId}")
+    @ApiTransferStatusOperation
+    public ResponseEntity<ApiResponse<TransferResponseDTO>> getTransfer(@PathVariable UUID transactionId) {
+        TransferResponseDTO response = asyncTransferService.status(transactionId);
+        return ResponseEntity.ok(ApiResponse.success(response, "Transfer status retrieved", HttpStatus.OK.value()));
+    }
+
+    /**
+     * In ledger mode the balances are owned by the in-memory ledger; paths that update them in the database directly
+     * would be overwritten by its projection.
+     */
+    private void requireDatabaseBalances(String operation) {
+        if (transferProperties.getExecutionMode() == TransferProperties.ExecutionMode.LEDGER) {
+            throw new InvalidTransferException(operation + " are not available in ledger execution mode");
+        }
+    }
 }
@@ -0,0 +1,88 @@
+package com.example.paymenttransfer.resource.annotations;
+
+import com.example.paymenttransfer.domain.dto.ErrorResponseDTO;
+import com.example.paymenttransfer.domain.dto.TransferResponseDTO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Custom annotation for asynchronous Transfer endpoint documentation
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Operation(
+        summary = "Submit a fund transfer for asynchronous processing",
+        description = "Validates the request and records it as a PENDING transfer without waiting for the " +
+                "balances to move. Poll the URL in the Location header for the outcome; sufficient funds are " +
+                "checked when the transfer is processed. A retry with the same idempotency key returns the same " +
+                "transaction."
+)
+@ApiResponses(value = {
+        @ApiResponse(
+                responseCode = "202",
+                description = "Transfer accepted; its status is available at the Location header",
+                content = @Content(
+                        mediaType = "application/json",
+                        schema = @Schema(implementation = TransferResponseDTO.class)
+                )
+        ),
+        @ApiResponse(
+                responseCode = "200",
+                description = "Idempotency key already used by a transfer that has been processed",
+                content = @Content(
+                        mediaType = "application/json",
+                        schema = @Schema(implementation = TransferResponseDTO.class)
+                )
+        ),
+        @ApiResponse(
+                responseCode = "400",
+                description = "Bad Request - Invalid input or validation error",
+                content = @Content(
+                        mediaType = "application/json",
+                        schema = @Schema(implementation = ErrorResponseDTO.class)
+                )
+        ),
+        @ApiResponse(
+                responseCode = "404",
+                description = "Account not found",
+                content = @Content(
+                        mediaType = "application/json",
+                        schema = @Schema(implementation = ErrorResponseDTO.class)
+                )
+        ),
+        @ApiResponse(
+                responseCode = "409",
+                description = "Duplicate transaction - idempotency key already processed",
+                content = @Content(
+                        mediaType = "application/json",
+                        schema = @Schema(implementation = ErrorResponseDTO.class)
+                )
+        ),
+        @ApiResponse(
+                responseCode = "503",
+                description = "Database capacity exhausted; retry after the number of seconds in Retry-After",
+                content = @Content(
+                        mediaType = "application/json",
+                        schema = @Schema(implementation = ErrorResponseDTO.class)
+                )
+        ),
+        @ApiResponse(
+                responseCode = "500",
+                description = "Internal server error",
+                content = @Content(
+                        mediaType = "application/json",
+                        schema = @Schema(implementation = ErrorResponseDTO.class)
+                )
+        )
+})
+public @interface ApiAsyncTransferOperation {
+}
+
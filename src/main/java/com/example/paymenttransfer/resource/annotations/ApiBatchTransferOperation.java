@@ -0,0 +1,62 @@
+package com.example.paymenttransfer.resource.annotations;
+
+import com.example.paymenttransfer.domain.dto.BatchTransferResponseDTO;
+import com.example.paymenttransfer.domain.dto.ErrorResponseDTO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Custom annotation for Batch Transfer endpoint documentation
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Operation(
+        summary = "Initiate a batch of fund transfers",
+        description = "Apply many transfers in a single database transaction. " +
+                "Each item is validated on its own: insufficient funds, unknown accounts or invalid input fail only " +
+                "that item. Items whose idempotency key was already processed return the original transfer."
+)
+@ApiResponses(value = {
+        @ApiResponse(
+                responseCode = "200",
+                description = "Batch processed, see per-item results",
+                content = @Content(
+                        mediaType = "application/json",
+                        schema = @Schema(implementation = BatchTransferResponseDTO.class)
+                )
+        ),
+        @ApiResponse(
+                responseCode = "400",
+                description = "Bad Request - Empty batch, batch too large, or validation error",
+                content = @Content(
+                        mediaType = "application/json",
+                        schema = @Schema(implementation = ErrorResponseDTO.class)
+                )
+        ),
+        @ApiResponse(
+                responseCode = "503",
+                description = "Database capacity exhausted; retry after the number of seconds in Retry-After",
+                content = @Content(
+                        mediaType = "application/json",
+                        schema = @Schema(implementation = ErrorResponseDTO.class)
+                )
+        ),
+        @ApiResponse(
+                responseCode = "500",
+                description = "Internal server error",
+                content = @Content(
+                        mediaType = "application/json",
+                        schema = @Schema(implementation = ErrorResponseDTO.class)
+                )
+        )
+})
+public @interface ApiBatchTransferOperation {
+}
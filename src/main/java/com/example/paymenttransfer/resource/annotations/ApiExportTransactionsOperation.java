@@ -0,0 +1,53 @@
+package com.example.paymenttransfer.resource.annotations;
+
+import com.example.paymenttransfer.domain.dto.ErrorResponseDTO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Custom annotation for Export Transactions endpoint documentation
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Operation(
+        summary = "Export transactions for an account",
+        description = "Stream all of the transactions (sent and received) of an account in chronological order as NDJSON (default) or CSV. " +
+                "Optionally filter by currency and by a from (inclusive) / to (exclusive) creation time range. " +
+                "Rows are streamed as they are read, so exports of any size are supported."
+)
+@ApiResponses(value = {
+        @ApiResponse(
+                responseCode = "200",
+                description = "Export stream",
+                content = {
+                        @Content(mediaType = "application/x-ndjson"),
+                        @Content(mediaType = "text/csv")
+                }
+        ),
+        @ApiResponse(
+                responseCode = "503",
+                description = "Database capacity exhausted; retry after the number of seconds in Retry-After",
+                content = @Content(
+                        mediaType = "application/json",
+                        schema = @Schema(implementation = ErrorResponseDTO.class)
+                )
+        ),
+        @ApiResponse(
+                responseCode = "500",
+                description = "Internal server error",
+                content = @Content(
+                        mediaType = "application/json",
+                        schema = @Schema(implementation = ErrorResponseDTO.class)
+                )
+        )
+})
+public @interface ApiExportTransactionsOperation {
+}
@@ -19,8 +19,10 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 @Operation(
         summary = "Get balance audits for an account",
-        description = "Retrieve all balance audit records showing before/after balance changes for a specific account. " +
-                "Optionally filter by currency. Returns audits grouped by currency if no currency is specified."
+        description = "Retrieve one page of the balance audit records showing before/after balance changes for a specific " +
+                "account, newest first. Optionally filter by currency and by a from (inclusive) / to (exclusive) " +
+                "creation time range. Pass the returned nextCursor as cursor to fetch the next page; it is absent on " +
+                "the last page."
 )
 @ApiResponses(value = {
         @ApiResponse(
@@ -28,6 +30,14 @@ import java.lang.annotation.Target;
                 description = "Successfully retrieved audits",
                 content = @Content(mediaType = "application/json")
         ),
+        @ApiResponse(
+                responseCode = "400",
+                description = "Invalid pagination cursor",
+                content = @Content(
+                        mediaType = "application/json",
+                        schema = @Schema(implementation = ErrorResponseDTO.class)
+                )
+        ),
         @ApiResponse(
                 responseCode = "404",
                 description = "Account not found",
@@ -36,6 +46,14 @@ import java.lang.annotation.Target;
                         schema = @Schema(implementation = ErrorResponseDTO.class)
                 )
         ),
+        @ApiResponse(
+                responseCode = "503",
+                description = "Database capacity exhausted; retry after the number of seconds in Retry-After",
+                content = @Content(
+                        mediaType = "application/json",
+                        schema = @Schema(implementation = ErrorResponseDTO.class)
+                )
+        ),
         @ApiResponse(
                 responseCode = "500",
                 description = "Internal server error",
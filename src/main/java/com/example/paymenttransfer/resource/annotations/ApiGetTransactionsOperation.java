@@ -19,8 +19,9 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 @Operation(
         summary = "Get transactions for an account",
-        description = "Retrieve all transactions (sent and received) for a specific account. " +
-                "Optionally filter by currency. Returns transactions grouped by currency if no currency is specified."
+        description = "Retrieve one page of the transactions (sent and received) for a specific account, newest first. " +
+                "Optionally filter by currency and by a from (inclusive) / to (exclusive) creation time range. " +
+                "Pass the returned nextCursor as cursor to fetch the next page; it is absent on the last page."
 )
 @ApiResponses(value = {
         @ApiResponse(
@@ -28,6 +29,14 @@ import java.lang.annotation.Target;
                 description = "Successfully retrieved transactions",
                 content = @Content(mediaType = "application/json")
         ),
+        @ApiResponse(
+                responseCode = "400",
+                description = "Invalid pagination cursor",
+                content = @Content(
+                        mediaType = "application/json",
+                        schema = @Schema(implementation = ErrorResponseDTO.class)
+                )
+        ),
         @ApiResponse(
                 responseCode = "404",
                 description = "Account not found",
@@ -36,6 +45,14 @@ import java.lang.annotation.Target;
                         schema = @Schema(implementation = ErrorResponseDTO.class)
                 )
         ),
+        @ApiResponse(
+                responseCode = "503",
+                description = "Database capacity exhausted; retry after the number of seconds in Retry-After",
+                content = @Content(
+                        mediaType = "application/json",
+                        schema = @Schema(implementation = ErrorResponseDTO.class)
+                )
+        ),
         @ApiResponse(
                 responseCode = "500",
                 description = "Internal server error",
@@ -57,6 +57,14 @@ import java.lang.annotation.Target;
                         schema = @Schema(implementation = ErrorResponseDTO.class)
                 )
         ),
+        @ApiResponse(
+                responseCode = "503",
+                description = "Database capacity exhausted; retry after the number of seconds in Retry-After",
+                content = @Content(
+                        mediaType = "application/json",
+                        schema = @Schema(implementation = ErrorResponseDTO.class)
+                )
+        ),
         @ApiResponse(
                 responseCode = "500",
                 description = "Internal server error",
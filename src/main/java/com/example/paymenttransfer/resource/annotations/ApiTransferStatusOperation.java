@@ -0,0 +1,61 @@
+package com.example.paymenttransfer.resource.annotations;
+
+import com.example.paymenttransfer.domain.dto.ErrorResponseDTO;
+import com.example.paymenttransfer.domain.dto.TransferResponseDTO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Custom annotation for Transfer Status endpoint documentation
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Operation(
+        summary = "Get the status of a transfer",
+        description = "Look a transfer up by its transaction id. Transfers submitted asynchronously stay PENDING " +
+                "until a worker processes them, then become COMPLETED or FAILED with a failure reason."
+)
+@ApiResponses(value = {
+        @ApiResponse(
+                responseCode = "200",
+                description = "Transfer found",
+                content = @Content(
+                        mediaType = "application/json",
+                        schema = @Schema(implementation = TransferResponseDTO.class)
+                )
+        ),
+        @ApiResponse(
+                responseCode = "404",
+                description = "Transaction not found",
+                content = @Content(
+                        mediaType = "application/json",
+                        schema = @Schema(implementation = ErrorResponseDTO.class)
+                )
+        ),
+        @ApiResponse(
+                responseCode = "503",
+                description = "Database capacity exhausted; retry after the number of seconds in Retry-After",
+                content = @Content(
+                        mediaType = "application/json",
+                        schema = @Schema(implementation = ErrorResponseDTO.class)
+                )
+        ),
+        @ApiResponse(
+                responseCode = "500",
+                description = "Internal server error",
+                content = @Content(
+                        mediaType = "application/json",
+                        schema = @Schema(implementation = ErrorResponseDTO.class)
+                )
+        )
+})
+public @interface ApiTransferStatusOperation {
+}
@@ -0,0 +1,23 @@
+package com.example.paymenttransfer.service;
+
+import com.example.paymenttransfer.domain.dto.TransferRequestDTO;
+import com.example.paymenttransfer.domain.dto.TransferResponseDTO;
+
+/**
+ * Result of one transfer inside a batch: either the response the single-transfer endpoint would have returned,
+ * or the exception it would have thrown.
+ */
+public record BatchTransferOutcome(TransferRequestDTO request, TransferResponseDTO response, RuntimeException error) {
+
+    public static BatchTransferOutcome success(TransferRequestDTO request, TransferResponseDTO response) {
+        return new BatchTransferOutcome(request, response, null);
+    }
+
+    public static BatchTransferOutcome failure(TransferRequestDTO request, RuntimeException error) {
+        return new BatchTransferOutcome(request, null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
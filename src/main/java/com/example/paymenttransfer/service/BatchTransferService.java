@@ -0,0 +1,353 @@
+package com.example.paymenttransfer.service;
+
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.domain.Account;
+import com.example.paymenttransfer.domain.BalanceAudit;
+import com.example.paymenttransfer.domain.IdempotencyRecord;
+import com.example.paymenttransfer.domain.Transaction;
+import com.example.paymenttransfer.domain.dto.BatchTransferItemResultDTO;
+import com.example.paymenttransfer.domain.dto.BatchTransferResponseDTO;
+import com.example.paymenttransfer.domain.dto.TransferRequestDTO;
+import com.example.paymenttransfer.domain.dto.TransferResponseDTO;
+import com.example.paymenttransfer.domain.enums.TransactionStatus;
+import com.example.paymenttransfer.errors.BankAccountNotFoundException;
+import com.example.paymenttransfer.errors.InsufficientFundsException;
+import com.example.paymenttransfer.errors.InvalidTransferException;
+import com.example.paymenttransfer.repository.AccountRepository;
+import com.example.paymenttransfer.repository.BalanceAuditRepository;
+import com.example.paymenttransfer.repository.IdempotencyRecordRepository;
+import com.example.paymenttransfer.repository.TransactionRepository;
+import com.example.paymenttransfer.service.concurrency.AccountBalanceSlots;
+import com.example.paymenttransfer.service.concurrency.TransferConcurrencyControl;
+import com.example.paymenttransfer.service.idempotency.IdempotencyCache;
+import com.example.paymenttransfer.service.idempotency.IdempotencyKeyHash;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Executes many transfers in one database transaction.
+ * <p>
+ * All involved accounts are locked once, in ascending id order (the same order the single-transfer path uses),
+ * the transfers are applied in memory in submission order, and the resulting transactions, audits and idempotency
+ * keys are written with batched JDBC. A transfer that breaks a business rule only fails its own item.
+ * <p>
+ * The batch runs through {@link TransferConcurrencyControl} like a single transfer: in a transaction of the
+ * configured concurrency mode, retried as a whole with backoff when it loses a race (a deadlock, a serialization
+ * failure or a stale version), and answered with {@code 409} once the attempts are used up. The accounts are locked
+ * in every mode, since a batch touching many accounts would otherwise rarely commit without a conflict.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BatchTransferService {
+
+    private static final int IN_CLAUSE_CHUNK_SIZE = 1000;
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final BalanceAuditRepository balanceAuditRepository;
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final TransferProperties transferProperties;
+    private final EntityManager entityManager;
+    private final IdempotencyCache idempotencyCache;
+    private final AccountBalanceSlots accountBalanceSlots;
+    private final FailedTransferRecorder failedTransferRecorder;
+    private final TransferConcurrencyControl concurrencyControl;
+
+    public BatchTransferResponseDTO transferBatch(List<TransferRequestDTO> requests) {
+        List<BatchTransferOutcome> outcomes = processBatch(requests);
+
+        List<BatchTransferItemResultDTO> results = new ArrayList<>(outcomes.size());
+        for (int index = 0; index < outcomes.size(); index++) {
+            BatchTransferOutcome outcome = outcomes.get(index);
+            results.add(BatchTransferItemResultDTO.builder()
+                .index(index)
+                .idempotencyKey(outcome.request().getIdempotencyKey())
+                .success(outcome.isSuccess())
+                .transfer(outcome.response())
+                .error(outcome.isSuccess() ? null : outcome.error().getMessage())
+                .build());
+        }
+
+        int succeeded = (int) outcomes.stream().filter(BatchTransferOutcome::isSuccess).count();
+        return BatchTransferResponseDTO.builder()
+            .total(outcomes.size())
+            .succeeded(succeeded)
+            .failed(outcomes.size() - succeeded)
+            .results(results)
+            .build();
+    }
+
+    /**
+     * Applies the transfers and returns one outcome per request, in the same order.
+     */
+    public List<BatchTransferOutcome> processBatch(List<TransferRequestDTO> requests) {
+        int maxSize = transferProperties.getBatch().getMaxSize();
+        if (requests.size() > maxSize) {
+            throw new InvalidTransferException(
+                "Batch contains " + requests.size() + " transfers, the maximum is " + maxSize);
+        }
+        return concurrencyControl.execute(() -> applyBatch(requests));
+    }
+
+    private List<BatchTransferOutcome> applyBatch(List<TransferRequestDTO> requests) {
+        log.info("Starting batch of {} transfers", requests.size());
+
+        entityManager.unwrap(Session.class).setJdbcBatchSize(transferProperties.getBatch().getJdbcBatchSize());
+
+        Map<String, IdempotencyKeyHash> keyHashes = new HashMap<>();
+        requests.forEach(request -> keyHashes.computeIfAbsent(request.getIdempotencyKey(), IdempotencyKeyHash::of));
+        List<IdempotencyKeyHash> unconfirmedKeys = new ArrayList<>();
+        Map<String, TransferResponseDTO> processedTransfers = findProcessedTransfers(keyHashes, unconfirmedKeys);
+        Map<Long, Account> accounts = lockAccounts(requests, processedTransfers);
+
+        Map<String, Transaction> transactions = new LinkedHashMap<>();
+        List<BalanceAudit> audits = new ArrayList<>();
+        AccountBalanceSlots.Batch slotCredits = accountBalanceSlots.batch(audits);
+        List<Transaction> declines = new ArrayList<>();
+        List<Object> results = new ArrayList<>(requests.size());
+
+        for (TransferRequestDTO request : requests) {
+            TransferResponseDTO processedTransfer = processedTransfers.get(request.getIdempotencyKey());
+            Transaction createdInBatch = transactions.get(request.getIdempotencyKey());
+            if (processedTransfer != null || createdInBatch != null) {
+                log.warn("Duplicate transaction detected with idempotency key: {}", request.getIdempotencyKey());
+                results.add(processedTransfer != null ? processedTransfer : createdInBatch);
+                continue;
+            }
+
+            try {
+                Transaction transaction = applyTransfer(request, accounts, slotCredits, audits, declines);
+                transactions.put(request.getIdempotencyKey(), transaction);
+                results.add(transaction);
+            } catch (InsufficientFundsException | InvalidTransferException | BankAccountNotFoundException e) {
+                log.warn("Batch item rejected: idempotencyKey={}, reason={}", request.getIdempotencyKey(),
+                    e.getMessage());
+                results.add(e);
+            }
+        }
+
+        transactionRepository.saveAll(transactions.values());
+        failedTransferRecorder.recordInBatch(declines);
+        accountBalanceSlots.apply(slotCredits);
+        balanceAuditRepository.saveAll(audits);
+        storeIdempotencyRecords(transactions, keyHashes, unconfirmedKeys);
+
+        // Entities use value equality, so track the freshly created rows by identity; only the first request
+        // carrying a key reports the new transfer, later duplicates in the same batch replay it.
+        Set<Transaction> unreported = Collections.newSetFromMap(new IdentityHashMap<>());
+        unreported.addAll(transactions.values());
+
+        List<BatchTransferOutcome> outcomes = new ArrayList<>(requests.size());
+        for (int index = 0; index < requests.size(); index++) {
+            TransferRequestDTO request = requests.get(index);
+            Object result = results.get(index);
+            if (result instanceof RuntimeException error) {
+                outcomes.add(BatchTransferOutcome.failure(request, error));
+            } else if (result instanceof TransferResponseDTO processedTransfer) {
+                outcomes.add(BatchTransferOutcome.success(request, processedTransfer));
+            } else {
+                Transaction transaction = (Transaction) result;
+                outcomes.add(BatchTransferOutcome.success(request, unreported.remove(transaction)
+                    ? TransferResponses.completed(transaction, transaction.getSourceAccount(),
+                        transaction.getDestinationAccount())
+                    : TransferResponses.fromExisting(transaction)));
+            }
+        }
+
+        log.info("Batch completed: {} transfers applied, {} rejected",
+            transactions.size(),
+            outcomes.stream().filter(outcome -> !outcome.isSuccess()).count());
+        return outcomes;
+    }
+
+    /**
+     * A transfer the source cannot cover adds its {@code FAILED} transaction to {@code declines} before throwing.
+     * Credits to striped accounts are held in {@code slotCredits} and added to one slot per account once the whole
+     * batch is applied.
+     */
+    private Transaction applyTransfer(TransferRequestDTO request, Map<Long, Account> accounts,
+                                      AccountBalanceSlots.Batch slotCredits, List<BalanceAudit> audits,
+                                      List<Transaction> declines) {
+        TransferRequestValidator.validate(request);
+
+        Account sourceAccount = accounts.get(request.getSourceAccountId());
+        if (sourceAccount == null) {
+            throw new BankAccountNotFoundException(request.getSourceAccountId());
+        }
+        Account destinationAccount = accounts.get(request.getDestinationAccountId());
+        if (destinationAccount == null) {
+            throw new BankAccountNotFoundException(request.getDestinationAccountId());
+        }
+
+        if (!accountBalanceSlots.hasSufficientFunds(sourceAccount, request.getAmount(), slotCredits)) {
+            InsufficientFundsException rejection = new InsufficientFundsException(
+                sourceAccount.getId(),
+                request.getAmount(),
+                accountBalanceSlots.balance(sourceAccount));
+            Transaction declined = newTransaction(request, sourceAccount, destinationAccount, TransactionStatus.FAILED);
+            declined.setFailureReason(rejection.getMessage());
+            declines.add(declined);
+            throw rejection;
+        }
+
+        BigDecimal sourceBeforeBalance = sourceAccount.getBalance();
+        sourceAccount.withdrawalFunds(request.getAmount());
+
+        Transaction transaction = newTransaction(request, sourceAccount, destinationAccount,
+            TransactionStatus.COMPLETED);
+
+        audits.add(auditRecord(sourceAccount, sourceBeforeBalance, sourceAccount.getBalance(), transaction));
+        audits.add(accountBalanceSlots.credit(destinationAccount, request.getAmount(), transaction, slotCredits));
+        return transaction;
+    }
+
+    private Transaction newTransaction(TransferRequestDTO request, Account sourceAccount, Account destinationAccount,
+                                       TransactionStatus status) {
+        return Transaction.builder()
+            .transactionId(TransactionIds.next())
+            .sourceAccount(sourceAccount)
+            .destinationAccount(destinationAccount)
+            .amount(request.getAmount())
+            .currency(sourceAccount.getCurrency())
+            .status(status)
+            .build();
+    }
+
+    private BalanceAudit auditRecord(Account account, BigDecimal beforeBalance, BigDecimal afterBalance,
+                                     Transaction transaction) {
+        return BalanceAudit.builder()
+            .account(account)
+            .beforeBalance(beforeBalance)
+            .afterBalance(afterBalance)
+            .currency(account.getCurrency())
+            .transaction(transaction)
+            .build();
+    }
+
+    /**
+     * Resolves keys that were already processed, from the response cache where possible and otherwise with one
+     * lookup per chunk for the keys the bloom filter cannot rule out. Keys that were looked up but not found are
+     * collected in {@code unconfirmedKeys}, since they may still have an expired record that must be removed.
+     */
+    private Map<String, TransferResponseDTO> findProcessedTransfers(Map<String, IdempotencyKeyHash> keyHashes,
+                                                                   List<IdempotencyKeyHash> unconfirmedKeys) {
+        Map<String, TransferResponseDTO> processed = new HashMap<>();
+        Map<IdempotencyKeyHash, String> keysToLookUp = new LinkedHashMap<>();
+        keyHashes.forEach((key, keyHash) -> {
+            TransferResponseDTO cachedResponse = idempotencyCache.cachedResponse(keyHash);
+            if (cachedResponse != null) {
+                processed.put(key, cachedResponse);
+            } else if (idempotencyCache.mightHaveBeenProcessed(keyHash)) {
+                keysToLookUp.put(keyHash, key);
+            }
+        });
+
+        Instant now = Instant.now();
+        Set<IdempotencyKeyHash> found = new HashSet<>();
+        for (List<IdempotencyKeyHash> chunk : chunks(List.copyOf(keysToLookUp.keySet()))) {
+            for (IdempotencyRecord existingRecord : idempotencyRecordRepository.findAllActiveByKeyHashIn(
+                    chunk.stream().map(IdempotencyKeyHash::bytes).toList(), now)) {
+                IdempotencyKeyHash keyHash = IdempotencyKeyHash.fromBytes(existingRecord.getKeyHash());
+                TransferResponseDTO response = TransferResponses.fromExisting(existingRecord.getTransaction());
+                processed.put(keysToLookUp.get(keyHash), response);
+                idempotencyCache.rememberResponse(keyHash, response, existingRecord.getExpiresAt());
+                found.add(keyHash);
+            }
+        }
+        keysToLookUp.keySet().stream()
+            .filter(keyHash -> !found.contains(keyHash))
+            .forEach(keyHash -> {
+                unconfirmedKeys.add(keyHash);
+                idempotencyCache.recordFalsePositive();
+            });
+        return processed;
+    }
+
+    private void storeIdempotencyRecords(Map<String, Transaction> transactions,
+                                         Map<String, IdempotencyKeyHash> keyHashes,
+                                         List<IdempotencyKeyHash> unconfirmedKeys) {
+        Instant now = Instant.now();
+        Set<IdempotencyKeyHash> stored = new HashSet<>();
+        transactions.keySet().forEach(key -> stored.add(keyHashes.get(key)));
+        for (List<IdempotencyKeyHash> chunk : chunks(unconfirmedKeys.stream().filter(stored::contains).toList())) {
+            idempotencyRecordRepository.deleteExpiredByKeyHashIn(
+                chunk.stream().map(IdempotencyKeyHash::bytes).toList(), now);
+        }
+
+        Instant expiresAt = now.plus(transferProperties.getIdempotency().getTtl());
+        List<IdempotencyRecord> idempotencyRecords = new ArrayList<>(transactions.size());
+        transactions.forEach((key, transaction) -> {
+            IdempotencyKeyHash keyHash = keyHashes.get(key);
+            idempotencyRecords.add(IdempotencyRecord.builder()
+                .transaction(transaction)
+                .keyHash(keyHash.bytes())
+                .createdAt(now)
+                .expiresAt(expiresAt)
+                .build());
+            idempotencyCache.rememberProcessed(keyHash, TransferResponses.fromExisting(transaction), expiresAt);
+        });
+        idempotencyRecordRepository.saveAll(idempotencyRecords);
+    }
+
+    /**
+     * Locks every account the batch will touch. Chunks are locked in ascending id order as well, so the global
+     * lock order matches single transfers and other batches. A striped account that only receives credits in the
+     * batch is read without a lock, as in the single-transfer path, since its row is not written.
+     */
+    private Map<Long, Account> lockAccounts(List<TransferRequestDTO> requests,
+                                            Map<String, TransferResponseDTO> processedTransfers) {
+        TreeSet<Long> lockedIds = new TreeSet<>();
+        Set<Long> stripedDestinationIds = new HashSet<>();
+        for (TransferRequestDTO request : requests) {
+            if (!processedTransfers.containsKey(request.getIdempotencyKey())) {
+                lockedIds.add(request.getSourceAccountId());
+                if (accountBalanceSlots.isStriped(request.getDestinationAccountId())) {
+                    stripedDestinationIds.add(request.getDestinationAccountId());
+                } else {
+                    lockedIds.add(request.getDestinationAccountId());
+                }
+            }
+        }
+        stripedDestinationIds.removeAll(lockedIds);
+
+        Map<Long, Account> accounts = new HashMap<>();
+        for (List<Long> chunk : chunks(List.copyOf(lockedIds))) {
+            accounts.putAll(accountRepository.findAllByIdWithLock(chunk).stream()
+                .collect(Collectors.toMap(Account::getId, Function.identity())));
+        }
+        if (!stripedDestinationIds.isEmpty()) {
+            accountRepository.findAllById(stripedDestinationIds)
+                .forEach(account -> accounts.put(account.getId(), account));
+        }
+        log.debug("Locked {} accounts for batch, read {} striped destinations without a lock",
+            lockedIds.size(), stripedDestinationIds.size());
+        return accounts;
+    }
+
+    private static <T> List<List<T>> chunks(List<T> values) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < values.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+            chunks.add(values.subList(from, Math.min(values.size(), from + IN_CLAUSE_CHUNK_SIZE)));
+        }
+        return chunks;
+    }
+}
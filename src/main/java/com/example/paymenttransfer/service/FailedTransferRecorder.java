@@ -0,0 +1,110 @@
+package com.example.paymenttransfer.service;
+
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.domain.Transaction;
+import com.example.paymenttransfer.domain.dto.TransferRequestDTO;
+import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+import com.example.paymenttransfer.domain.enums.TransactionStatus;
+import com.example.paymenttransfer.repository.AccountRepository;
+import com.example.paymenttransfer.repository.TransactionRepository;
+import com.example.paymenttransfer.service.concurrency.DatabaseWorkLimiter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Writes the {@code FAILED} transaction of a declined transfer in a transaction of its own, once the transfer's
+ * transaction has ended and released its account locks. Declines are decided before the transfer writes anything, so
+ * this single insert is all a decline costs, and nothing when {@code payment.transfer.failure-records.enabled} is off.
+ * <p>
+ * Records are best effort: one that cannot be written is counted and logged, and the decline is reported as usual.
+ * Batches are the exception, see {@link #recordInBatch}.
+ */
+@Component
+@Slf4j
+public class FailedTransferRecorder {
+
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final DatabaseWorkLimiter databaseWorkLimiter;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public FailedTransferRecorder(TransactionRepository transactionRepository,
+                                  AccountRepository accountRepository,
+                                  DatabaseWorkLimiter databaseWorkLimiter,
+                                  PlatformTransactionManager transactionManager,
+                                  TransferProperties properties) {
+        this.transactionRepository = transactionRepository;
+        this.accountRepository = accountRepository;
+        this.databaseWorkLimiter = databaseWorkLimiter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = properties.getFailureRecords().isEnabled();
+    }
+
+    public void record(Transaction declined) {
+        write(() -> declined);
+    }
+
+    /**
+     * For callers that only know the account ids, such as the {@code transfer_funds} function mode.
+     */
+    public void record(TransferRequestDTO request, CurrencyEnum currency, String failureReason) {
+        write(() -> Transaction.builder()
+            .transactionId(TransactionIds.next())
+            .sourceAccount(accountRepository.getReferenceById(request.getSourceAccountId()))
+            .destinationAccount(accountRepository.getReferenceById(request.getDestinationAccountId()))
+            .amount(request.getAmount())
+            .currency(currency)
+            .status(TransactionStatus.FAILED)
+            .failureReason(failureReason)
+            .build());
+    }
+
+    /**
+     * Writes the declines of a batch with the batch's own inserts, in its transaction: the batch keeps its account
+     * locks until it commits either way, and a transaction of their own would need a second connection and work
+     * permit while the batch holds one. Unlike {@link #record}, a failure here fails the batch.
+     */
+    public void recordInBatch(Collection<Transaction> declined) {
+        if (!enabled || declined.isEmpty()) {
+            return;
+        }
+        transactionRepository.saveAll(declined);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                written.add(declined.size());
+            }
+        });
+    }
+
+    private void write(Supplier<Transaction> declined) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            databaseWorkLimiter.run(() ->
+                transactionTemplate.executeWithoutResult(status -> transactionRepository.save(declined.get())));
+            written.increment();
+        } catch (RuntimeException e) {
+            dropped.increment();
+            log.warn("Could not record declined transfer: {}", e.getMessage());
+        }
+    }
+
+    public FailureRecordStats stats() {
+        return new FailureRecordStats(written.sum(), dropped.sum());
+    }
+}
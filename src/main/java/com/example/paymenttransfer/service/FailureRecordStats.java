@@ -0,0 +1,10 @@
+package com.example.paymenttransfer.service;
+
+/**
+ * Point-in-time counters of {@link FailedTransferRecorder}.
+ *
+ * @param written {@code FAILED} transactions written for declined transfers
+ * @param dropped declined transfers whose record could not be written
+ */
+public record FailureRecordStats(long written, long dropped) {
+}
@@ -0,0 +1,179 @@
+package com.example.paymenttransfer.service;
+
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+import com.example.paymenttransfer.service.concurrency.DatabaseWorkLimiter;
+import com.example.paymenttransfer.service.export.ExportFormat;
+import com.example.paymenttransfer.service.export.ExportRowWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams full account histories for reconciliation. Rows are read through a JDBC cursor with
+ * {@code payment.transfer.report.export-fetch-size} and written to the response as they arrive, without entities,
+ * DTOs or a result list, so heap use does not depend on the number of exported rows.
+ * <p>
+ * An export holds its connection for as long as the client takes to read it, so exports are admitted by a limiter
+ * of their own, {@code payment.transfer.report.export-max-concurrent} at a time, instead of taking transfer permits.
+ */
+@Service
+@Slf4j
+public class ReportExportService {
+
+    private static final List<String> TRANSACTION_COLUMNS = List.of(
+        "transactionId", "sourceAccountId", "sourceAccountNumber", "destinationAccountId",
+        "destinationAccountNumber", "amount", "currency", "status", "failureReason", "createdAt");
+
+    private static final List<String> AUDIT_COLUMNS = List.of(
+        "auditId", "accountId", "accountNumber", "balanceSlot", "beforeBalance", "afterBalance", "currency",
+        "transactionId", "createdAt");
+
+    private final JdbcTemplate cursorJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final DatabaseWorkLimiter exportLimiter;
+
+    public ReportExportService(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               TransferProperties transferProperties,
+                               ObjectMapper objectMapper) {
+        // Postgres only honours the fetch size inside a transaction; otherwise the driver reads the whole result.
+        this.cursorJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.cursorJdbcTemplate.setFetchSize(transferProperties.getReport().getExportFetchSize());
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        TransferProperties.Report report = transferProperties.getReport();
+        this.exportLimiter = new DatabaseWorkLimiter("export", transferProperties.getLimiter().isEnabled(),
+            report.getExportMaxConcurrent(), report.getExportMaxQueued(), transferProperties.getLimiter().getMaxWait());
+    }
+
+    public DatabaseWorkLimiter exportLimiter() {
+        return exportLimiter;
+    }
+
+    /**
+     * Sent and received transactions in chronological order. Each branch of the union reads one of the
+     * (account, created_at, id) indexes in order, so the database can merge them without sorting.
+     */
+    @Timed(value = "report.export", description = "Time to stream one report export", histogram = true)
+    public void exportTransactions(Long accountId, CurrencyEnum currency, Instant from, Instant to,
+                                   ExportFormat format, OutputStream out) {
+        List<Object> args = new ArrayList<>();
+        String sourceBranch = transactionBranch("source_account_id", accountId, currency, from, to, args);
+        String destinationBranch = transactionBranch("destination_account_id", accountId, currency, from, to, args);
+        String sql = """
+            SELECT t.transaction_id, t.source_account_id, s.account_number, t.destination_account_id,
+                   d.account_number, t.amount, t.currency, t.status, t.failure_reason, t.created_at
+            FROM (%s UNION ALL %s) t
+            JOIN account s ON s.id = t.source_account_id
+            JOIN account d ON d.id = t.destination_account_id
+            ORDER BY t.created_at, t.id
+            """.formatted(sourceBranch, destinationBranch);
+
+        long rows = export(sql, args, TRANSACTION_COLUMNS, format, out);
+        log.info("Exported {} transactions for account {} as {}", rows, accountId, format);
+    }
+
+    @Timed(value = "report.export", description = "Time to stream one report export", histogram = true)
+    public void exportAudits(Long accountId, CurrencyEnum currency, Instant from, Instant to,
+                             ExportFormat format, OutputStream out) {
+        List<Object> args = new ArrayList<>();
+        args.add(accountId);
+        String sql = """
+            SELECT ba.id, ba.account_id, a.account_number, ba.balance_slot, ba.before_balance, ba.after_balance,
+                   ba.currency, t.transaction_id, ba.created_at
+            FROM balance_audit ba
+            JOIN account a ON a.id = ba.account_id
+            LEFT JOIN transaction t ON t.id = ba.transaction_id
+            WHERE ba.account_id = ?%s
+            ORDER BY ba.created_at, ba.id
+            """.formatted(filters("ba", currency, from, to, args));
+
+        long rows = export(sql, args, AUDIT_COLUMNS, format, out);
+        log.info("Exported {} audits for account {} as {}", rows, accountId, format);
+    }
+
+    private String transactionBranch(String accountColumn, Long accountId, CurrencyEnum currency,
+                                     Instant from, Instant to, List<Object> args) {
+        args.add(accountId);
+        return "(SELECT id, transaction_id, source_account_id, destination_account_id, amount, currency, status,"
+            + " failure_reason, created_at FROM transaction WHERE " + accountColumn + " = ?"
+            + filters("transaction", currency, from, to, args) + ")";
+    }
+
+    private String filters(String alias, CurrencyEnum currency, Instant from, Instant to, List<Object> args) {
+        StringBuilder sql = new StringBuilder();
+        if (currency != null) {
+            sql.append(" AND ").append(alias).append(".currency = ?");
+            args.add(currency.name());
+        }
+        if (from != null) {
+            sql.append(" AND ").append(alias).append(".created_at >= ?");
+            args.add(Timestamp.from(from));
+        }
+        if (to != null) {
+            sql.append(" AND ").append(alias).append(".created_at < ?");
+            args.add(Timestamp.from(to));
+        }
+        return sql.toString();
+    }
+
+    private long export(String sql, List<Object> args, List<String> columns, ExportFormat format,
+                        OutputStream out) {
+        Long rows = exportLimiter.call(() -> readOnlyTransaction.execute(status -> {
+            try {
+                ExportRowWriter writer = format.open(out, columns, objectMapper);
+                RowCounter counter = new RowCounter(writer, columns.size());
+                cursorJdbcTemplate.query(sql, counter, args.toArray());
+                writer.finish();
+                return counter.rows;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+        return rows == null ? 0 : rows;
+    }
+
+    private static final class RowCounter implements RowCallbackHandler {
+
+        private final ExportRowWriter writer;
+        private final Object[] values;
+        private long rows;
+
+        private RowCounter(ExportRowWriter writer, int columnCount) {
+            this.writer = writer;
+            this.values = new Object[columnCount];
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            for (int i = 0; i < values.length; i++) {
+                Object value = rs.getObject(i + 1);
+                values[i] = value instanceof Timestamp timestamp ? timestamp.toInstant() : value;
+            }
+            try {
+                writer.writeRow(values);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows++;
+        }
+    }
+}
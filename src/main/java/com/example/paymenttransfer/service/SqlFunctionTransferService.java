@@ -0,0 +1,188 @@
+package com.example.paymenttransfer.service;
+
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.domain.dto.TransferRequestDTO;
+import com.example.paymenttransfer.domain.dto.TransferResponseDTO;
+import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+import com.example.paymenttransfer.domain.enums.TransactionStatus;
+import com.example.paymenttransfer.errors.BankAccountNotFoundException;
+import com.example.paymenttransfer.errors.DuplicateTransactionException;
+import com.example.paymenttransfer.errors.InsufficientFundsException;
+import com.example.paymenttransfer.service.concurrency.AccountBalanceSlots;
+import com.example.paymenttransfer.service.concurrency.AccountTransferQueue;
+import com.example.paymenttransfer.service.concurrency.DatabaseWorkLimiter;
+import com.example.paymenttransfer.service.idempotency.IdempotencyCache;
+import com.example.paymenttransfer.service.idempotency.IdempotencyKeyConflicts;
+import com.example.paymenttransfer.service.idempotency.IdempotencyKeyHash;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Executes a transfer with a single call to the {@code transfer_funds} database function.
+ * <p>
+ * The function locks both accounts in id order, moves the funds and writes the transaction, both audit rows and
+ * the idempotency key in one statement, so the whole unit costs one round trip and runs in auto-commit mode.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SqlFunctionTransferService implements TransferExecutor {
+
+    static final String TRANSFER_FUNDS_SQL = """
+        SELECT r_outcome, r_transaction_id, r_status, r_source_account_number, r_destination_account_number,
+               r_amount, r_currency, r_failure_reason, r_available_balance, r_created_at
+        FROM transfer_funds(?, ?, ?, ?, ?, ?)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AccountTransferQueue accountTransferQueue;
+    private final DatabaseWorkLimiter databaseWorkLimiter;
+    private final AccountBalanceSlots accountBalanceSlots;
+    private final IdempotencyCache idempotencyCache;
+    private final TransferProperties transferProperties;
+    private final FailedTransferRecorder failedTransferRecorder;
+
+    @Override
+    public TransferResponseDTO transferFunds(TransferRequestDTO request) {
+        log.info("Starting SQL function transfer: sourceAccountId={}, destinationAccountId={}, amount={}, "
+                + "idempotencyKey={}",
+            request.getSourceAccountId(),
+            request.getDestinationAccountId(),
+            request.getAmount(),
+            request.getIdempotencyKey());
+
+        TransferRequestValidator.validate(request);
+
+        IdempotencyKeyHash keyHash = IdempotencyKeyHash.of(request.getIdempotencyKey());
+        TransferResponseDTO cachedResponse = idempotencyCache.cachedResponse(keyHash);
+        if (cachedResponse != null) {
+            log.warn("Duplicate transaction detected with idempotency key: {}", request.getIdempotencyKey());
+            return cachedResponse;
+        }
+
+        long queuedDestinationId = accountBalanceSlots.isStriped(request.getDestinationAccountId())
+            ? request.getSourceAccountId() : request.getDestinationAccountId();
+        TransferFunctionResult result;
+        try {
+            result = accountTransferQueue.call(request.getSourceAccountId(), queuedDestinationId,
+                () -> databaseWorkLimiter.call(() -> jdbcTemplate.queryForObject(TRANSFER_FUNDS_SQL,
+                    this::mapResult,
+                    request.getSourceAccountId(),
+                    request.getDestinationAccountId(),
+                    request.getAmount(),
+                    request.getIdempotencyKey(),
+                    TransactionIds.next(),
+                    transferProperties.getIdempotency().getTtl().toSeconds())));
+        } catch (DuplicateKeyException e) {
+            if (!IdempotencyKeyConflicts.isKeyConflict(e)) {
+                throw e;
+            }
+            log.warn("Concurrent duplicate transaction detected with idempotency key: {}", request.getIdempotencyKey());
+            throw new DuplicateTransactionException(request.getIdempotencyKey());
+        }
+
+        if (result.outcome() == Outcome.COMPLETED) {
+            idempotencyCache.rememberProcessed(keyHash, replayResponse(request, result),
+                result.createdAt().plus(transferProperties.getIdempotency().getTtl()));
+        }
+        return toResponse(request, result);
+    }
+
+
+    TransferResponseDTO toResponse(TransferRequestDTO request, TransferFunctionResult result) {
+        return switch (result.outcome()) {
+            case COMPLETED -> {
+                log.info("Transfer completed successfully: transactionId={}", result.transactionId());
+                yield buildResponse(request, result, "Transfer completed successfully");
+            }
+            case DUPLICATE -> {
+                log.warn("Duplicate transaction detected with idempotency key: {}", request.getIdempotencyKey());
+                yield replayResponse(request, result);
+            }
+            case SOURCE_NOT_FOUND -> throw new BankAccountNotFoundException(request.getSourceAccountId());
+            case DESTINATION_NOT_FOUND -> throw new BankAccountNotFoundException(request.getDestinationAccountId());
+            case INSUFFICIENT_FUNDS -> {
+                InsufficientFundsException rejection = new InsufficientFundsException(
+                    request.getSourceAccountId(),
+                    request.getAmount(),
+                    result.availableBalance());
+                log.warn("Transfer declined: {}", rejection.getMessage());
+                // The function has returned, so its account locks are released before the decline is written.
+                failedTransferRecorder.record(request, result.currency(), rejection.getMessage());
+                throw rejection;
+            }
+        };
+    }
+
+    private TransferResponseDTO replayResponse(TransferRequestDTO request, TransferFunctionResult result) {
+        return buildResponse(request, result, result.status() == TransactionStatus.COMPLETED
+            ? "Transfer already processed"
+            : "Transfer previously failed");
+    }
+
+    private TransferResponseDTO buildResponse(TransferRequestDTO request, TransferFunctionResult result,
+                                              String message) {
+        return TransferResponseDTO.builder()
+            .transactionId(result.transactionId())
+            .status(result.status())
+            .message(message)
+            .details(TransferResponseDTO.TransferDetails.builder()
+                .sourceAccountId(request.getSourceAccountId())
+                .sourceAccountNumber(result.sourceAccountNumber())
+                .destinationAccountId(request.getDestinationAccountId())
+                .destinationAccountNumber(result.destinationAccountNumber())
+                .amount(result.amount())
+                .currency(result.currency())
+                .timestamp(result.createdAt())
+                .failureReason(result.failureReason())
+                .build())
+            .build();
+    }
+
+    private TransferFunctionResult mapResult(ResultSet rs, int rowNum) throws SQLException {
+        String status = rs.getString("r_status");
+        String currency = rs.getString("r_currency");
+        Timestamp createdAt = rs.getTimestamp("r_created_at");
+        return new TransferFunctionResult(
+            Outcome.valueOf(rs.getString("r_outcome")),
+            rs.getObject("r_transaction_id", UUID.class),
+            status != null ? TransactionStatus.valueOf(status) : null,
+            rs.getString("r_source_account_number"),
+            rs.getString("r_destination_account_number"),
+            rs.getBigDecimal("r_amount"),
+            currency != null ? CurrencyEnum.valueOf(currency) : null,
+            rs.getString("r_failure_reason"),
+            rs.getBigDecimal("r_available_balance"),
+            createdAt != null ? createdAt.toInstant() : null);
+    }
+
+    enum Outcome {
+        COMPLETED,
+        DUPLICATE,
+        SOURCE_NOT_FOUND,
+        DESTINATION_NOT_FOUND,
+        INSUFFICIENT_FUNDS
+    }
+
+    record TransferFunctionResult(Outcome outcome,
+                                  UUID transactionId,
+                                  TransactionStatus status,
+                                  String sourceAccountNumber,
+                                  String destinationAccountNumber,
+                                  BigDecimal amount,
+                                  CurrencyEnum currency,
+                                  String failureReason,
+                                  BigDecimal availableBalance,
+                                  Instant createdAt) {
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.paymenttransfer.service;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates the public ids of transactions as time-ordered UUIDs (version 7, RFC 9562).
+ * <p>
+ * The first 48 bits are the Unix time in milliseconds, followed by a 42-bit counter split over {@code rand_a} and the
+ * top of {@code rand_b} (the RFC's fixed-length counter method) and 32 random bits. The counter starts at a random
+ * value below 2<sup>41</sup> every millisecond and is incremented for every further id, so ids of one thread are
+ * strictly increasing even within a millisecond or if the clock steps back. Ids of different threads are ordered by
+ * millisecond. Inserts into the unique index on {@code transaction.transaction_id} therefore land on its right-most
+ * pages instead of on random ones.
+ * <p>
+ * Each thread keeps its own state and draws from {@link ThreadLocalRandom}, so no lock and no shared
+ * {@code SecureRandom} is involved. The ids are unique, not secret: they are not meant to be unguessable.
+ */
+public final class TransactionIds {
+
+    private static final long COUNTER_LIMIT = 1L << 42;
+    private static final long COUNTER_SEED_BOUND = 1L << 41;
+    private static final ThreadLocal<State> STATE = ThreadLocal.withInitial(State::new);
+
+    private TransactionIds() {
+    }
+
+    public static UUID next() {
+        State state = STATE.get();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now = System.currentTimeMillis();
+        if (now > state.millis) {
+            state.millis = now;
+            state.counter = random.nextLong(COUNTER_SEED_BOUND);
+        } else if (++state.counter == COUNTER_LIMIT) {
+            // The counter is exhausted: borrow the next millisecond, as the RFC allows.
+            state.millis++;
+            state.counter = random.nextLong(COUNTER_SEED_BOUND);
+        }
+        long mostSignificant = state.millis << 16 | 0x7000L | state.counter >>> 30;
+        long leastSignificant = 0x8000_0000_0000_0000L | (state.counter & 0x3FFF_FFFFL) << 32
+            | random.nextInt() & 0xFFFF_FFFFL;
+        return new UUID(mostSignificant, leastSignificant);
+    }
+
+    private static final class State {
+
+        private long millis = -1;
+        private long counter;
+    }
+}
@@ -1,104 +1,138 @@
 package com.example.paymenttransfer.service;
 
-import com.example.paymenttransfer.domain.BalanceAudit;
-import com.example.paymenttransfer.domain.Transaction;
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.domain.AccountProfile;
 import com.example.paymenttransfer.domain.dto.AuditListResponseDTO;
 import com.example.paymenttransfer.domain.dto.TransactionListResponseDTO;
-import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+import com.example.paymenttransfer.domain.projection.AuditReportRow;
+import com.example.paymenttransfer.domain.projection.TransactionReportRow;
+import com.example.paymenttransfer.monitoring.ReportPageEvent;
 import com.example.paymenttransfer.repository.BalanceAuditRepository;
 import com.example.paymenttransfer.repository.TransactionRepository;
+import com.example.paymenttransfer.service.report.AccountProfiles;
+import com.example.paymenttransfer.service.report.ReportCursor;
+import com.example.paymenttransfer.service.report.ReportPage;
+import com.example.paymenttransfer.service.report.ReportQuery;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.LinkedHashMap;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class TransactionReportService {
+
+    private static final Comparator<TransactionReportRow> NEWEST_FIRST =
+        Comparator.comparing(TransactionReportRow::createdAt).thenComparing(TransactionReportRow::id).reversed();
+
     private final TransactionRepository transactionRepository;
     private final BalanceAuditRepository balanceAuditRepository;
+    private final TransferProperties transferProperties;
+    private final AccountProfiles accountProfiles;
 
+    /**
+     * Sent and received transactions are read with one keyset query each, so both stay index range scans, and
+     * merged here; each side can contribute at most a page plus the row that tells whether another page exists.
+     * Both queries select only the report columns; account numbers come from the cached {@link AccountProfile}s, so a
+     * page costs two statements, and a third only for accounts not cached yet.
+     */
+    @Timed(value = "report.query", description = "Time to read one report page", histogram = true)
     @Transactional(readOnly = true)
-    public List<TransactionListResponseDTO> getAccountTransactionsByCurrency(Long accountId, CurrencyEnum currency) {
-        log.info("Generating transaction report for currency: {}", currency);
+    public ReportPage<TransactionListResponseDTO> getAccountTransactions(Long accountId, ReportQuery query) {
+        ReportPageEvent event = new ReportPageEvent();
+        event.begin();
+        int pageSize = query.pageSize(transferProperties.getReport());
+        ReportCursor bound = query.upperBound();
+        log.info("Generating transaction report: accountId={}, currency={}, pageSize={}",
+            accountId, query.currency(), pageSize);
+
+        Limit limit = Limit.of(pageSize + 1);
+        List<TransactionReportRow> sent = transactionRepository.findPageBySourceAccount(
+            accountId, query.currency(), query.lowerBound(), bound.createdAt(), bound.id(), limit);
+        List<TransactionReportRow> received = transactionRepository.findPageByDestinationAccount(
+            accountId, query.currency(), query.lowerBound(), bound.createdAt(), bound.id(), limit);
 
-        List<Transaction> transactions = transactionRepository.findByCurrencyAndSourceAccountId(currency, accountId);
-        return transactions.stream()
-            .map(this::mapToTransactionResponse)
+        long mappingStarted = System.nanoTime();
+        List<TransactionReportRow> rows = Stream.concat(sent.stream(), received.stream())
+            .sorted(NEWEST_FIRST)
+            .limit(pageSize + 1L)
             .toList();
+        Set<Long> accountIds = new HashSet<>();
+        rows.forEach(row -> {
+            accountIds.add(row.sourceAccountId());
+            accountIds.add(row.destinationAccountId());
+        });
+        Map<Long, AccountProfile> profiles = accountProfiles.findAll(accountIds);
+        ReportPage<TransactionListResponseDTO> page = ReportPage.of(rows, pageSize,
+            row -> new ReportCursor(row.createdAt(), row.id()),
+            row -> mapToTransactionResponse(row, profiles));
+        event.mapped("transactions", accountId, pageSize, sent.size() + received.size(), mappingStarted);
+        return page;
     }
 
-    private TransactionListResponseDTO mapToTransactionResponse(Transaction transaction) {
+    private TransactionListResponseDTO mapToTransactionResponse(TransactionReportRow row,
+                                                                Map<Long, AccountProfile> profiles) {
         return TransactionListResponseDTO.builder()
-            .transactionId(transaction.getTransactionId())
-            .sourceAccountId(transaction.getSourceAccount().getId())
-            .sourceAccountNumber(transaction.getSourceAccount().getAccountNumber())
-            .destinationAccountId(transaction.getDestinationAccount().getId())
-            .destinationAccountNumber(transaction.getDestinationAccount().getAccountNumber())
-            .amount(transaction.getAmount())
-            .currency(transaction.getCurrency())
-            .status(transaction.getStatus())
-            .failureReason(transaction.getFailureReason())
-            .createdAt(transaction.getCreatedAt())
+            .transactionId(row.transactionId())
+            .sourceAccountId(row.sourceAccountId())
+            .sourceAccountNumber(accountNumber(profiles, row.sourceAccountId()))
+            .destinationAccountId(row.destinationAccountId())
+            .destinationAccountNumber(accountNumber(profiles, row.destinationAccountId()))
+            .amount(row.amount())
+            .currency(row.currency())
+            .status(row.status())
+            .failureReason(row.failureReason())
+            .createdAt(row.createdAt())
             .build();
     }
 
+    @Timed(value = "report.query", description = "Time to read one report page", histogram = true)
     @Transactional(readOnly = true)
-    public Map<CurrencyEnum, List<TransactionListResponseDTO>> getAllAccountTransactions(Long accountId) {
-        log.info("Generating comprehensive transaction report grouped by currency");
-
-        List<Transaction> allTransactions = transactionRepository.findAllByAccount(accountId);
-
-        return allTransactions.stream()
-            .map(this::mapToTransactionResponse)
-            .collect(Collectors.groupingBy(
-                TransactionListResponseDTO::getCurrency,
-                LinkedHashMap::new,
-                Collectors.toList()
-            ));
-    }
-
-    @Transactional(readOnly = true)
-    public List<AuditListResponseDTO> getAccountAuditsByCurrency(Long accountId, CurrencyEnum currency) {
-        log.info("Generating audit report for currency: {}", currency);
+    public ReportPage<AuditListResponseDTO> getAccountAudits(Long accountId, ReportQuery query) {
+        ReportPageEvent event = new ReportPageEvent();
+        event.begin();
+        int pageSize = query.pageSize(transferProperties.getReport());
+        ReportCursor bound = query.upperBound();
+        log.info("Generating audit report: accountId={}, currency={}, pageSize={}",
+            accountId, query.currency(), pageSize);
 
-        List<BalanceAudit> audits = balanceAuditRepository.findByCurrencyAndAccountId(currency, accountId);
-        return audits.stream()
-            .map(this::mapToAuditResponse)
-            .toList();
+        List<AuditReportRow> rows = balanceAuditRepository.findPageByAccount(
+            accountId, query.currency(), query.lowerBound(), bound.createdAt(), bound.id(), Limit.of(pageSize + 1));
+        long mappingStarted = System.nanoTime();
+        Map<Long, AccountProfile> profiles = rows.isEmpty() ? Map.of() : accountProfiles.findAll(List.of(accountId));
+        ReportPage<AuditListResponseDTO> page = ReportPage.of(rows, pageSize,
+            row -> new ReportCursor(row.createdAt(), row.id()),
+            row -> mapToAuditResponse(row, profiles));
+        event.mapped("audits", accountId, pageSize, rows.size(), mappingStarted);
+        return page;
     }
 
-    private AuditListResponseDTO mapToAuditResponse(BalanceAudit audit) {
+    private AuditListResponseDTO mapToAuditResponse(AuditReportRow row, Map<Long, AccountProfile> profiles) {
         return AuditListResponseDTO.builder()
-            .auditId(audit.getId())
-            .accountId(audit.getAccount().getId())
-            .accountNumber(audit.getAccount().getAccountNumber())
-            .beforeBalance(audit.getBeforeBalance())
-            .afterBalance(audit.getAfterBalance())
-            .currency(audit.getCurrency())
-            .transactionId(audit.getTransaction().getTransactionId())
-            .createdAt(audit.getCreatedAt())
+            .auditId(row.id())
+            .accountId(row.accountId())
+            .accountNumber(accountNumber(profiles, row.accountId()))
+            .balanceSlot(row.balanceSlot())
+            .beforeBalance(row.beforeBalance())
+            .afterBalance(row.afterBalance())
+            .currency(row.currency())
+            .transactionId(row.transactionId())
+            .createdAt(row.createdAt())
             .build();
     }
 
-    @Transactional(readOnly = true)
-    public Map<CurrencyEnum, List<AuditListResponseDTO>> getAllAccountAudits(Long accountId) {
-        log.info("Generating comprehensive audit report grouped by currency");
-
-        List<BalanceAudit> allAudits = balanceAuditRepository.findAllByAccount(accountId);
-
-        return allAudits.stream()
-            .map(this::mapToAuditResponse)
-            .collect(Collectors.groupingBy(
-                AuditListResponseDTO::getCurrency,
-                LinkedHashMap::new,
-                Collectors.toList()
-            ));
+    private static String accountNumber(Map<Long, AccountProfile> profiles, Long accountId) {
+        AccountProfile profile = profiles.get(accountId);
+        return profile == null ? null : profile.getAccountNumber();
     }
 }
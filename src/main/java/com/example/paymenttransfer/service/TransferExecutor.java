@@ -0,0 +1,13 @@
+package com.example.paymenttransfer.service;
+
+import com.example.paymenttransfer.domain.dto.TransferRequestDTO;
+import com.example.paymenttransfer.domain.dto.TransferResponseDTO;
+
+/**
+ * Executes a single fund transfer. The active implementation is chosen by
+ * {@code payment.transfer.execution-mode}, see {@link com.example.paymenttransfer.config.TransferExecutorConfig}.
+ */
+public interface TransferExecutor {
+
+    TransferResponseDTO transferFunds(TransferRequestDTO request);
+}
@@ -0,0 +1,25 @@
+package com.example.paymenttransfer.service;
+
+import com.example.paymenttransfer.domain.dto.TransferRequestDTO;
+import com.example.paymenttransfer.errors.InvalidTransferException;
+
+import java.math.BigDecimal;
+
+/**
+ * Business rules a transfer request must satisfy before any account is touched.
+ */
+public final class TransferRequestValidator {
+
+    private TransferRequestValidator() {
+    }
+
+    public static void validate(TransferRequestDTO request) {
+        if (request.getSourceAccountId().equals(request.getDestinationAccountId())) {
+            throw new InvalidTransferException("Cannot transfer to the same account");
+        }
+
+        if (request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new InvalidTransferException("Transfer amount must be greater than zero");
+        }
+    }
+}
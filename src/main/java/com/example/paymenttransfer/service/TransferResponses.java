@@ -0,0 +1,62 @@
+package com.example.paymenttransfer.service;
+
+import com.example.paymenttransfer.domain.Account;
+import com.example.paymenttransfer.domain.Transaction;
+import com.example.paymenttransfer.domain.dto.TransferResponseDTO;
+import com.example.paymenttransfer.domain.enums.TransactionStatus;
+
+/**
+ * Builds {@link TransferResponseDTO}s from persisted transactions, shared by the single, batch and asynchronous
+ * transfer paths.
+ */
+public final class TransferResponses {
+
+    private TransferResponses() {
+    }
+
+    public static TransferResponseDTO completed(Transaction transaction, Account sourceAccount,
+                                                Account destinationAccount) {
+        return TransferResponseDTO.builder()
+            .transactionId(transaction.getTransactionId())
+            .status(TransactionStatus.COMPLETED)
+            .message("Transfer completed successfully")
+            .details(TransferResponseDTO.TransferDetails.builder()
+                .sourceAccountId(sourceAccount.getId())
+                .sourceAccountNumber(sourceAccount.getAccountNumber())
+                .destinationAccountId(destinationAccount.getId())
+                .destinationAccountNumber(destinationAccount.getAccountNumber())
+                .amount(transaction.getAmount())
+                .currency(transaction.getCurrency())
+                .timestamp(transaction.getCreatedAt())
+                .build())
+            .build();
+    }
+
+    public static TransferResponseDTO accepted(Transaction transaction) {
+        TransferResponseDTO response = fromExisting(transaction);
+        response.setMessage("Transfer accepted for processing");
+        return response;
+    }
+
+    public static TransferResponseDTO fromExisting(Transaction transaction) {
+        return TransferResponseDTO.builder()
+            .transactionId(transaction.getTransactionId())
+            .status(transaction.getStatus())
+            .message(switch (transaction.getStatus()) {
+                case PENDING -> "Transfer is being processed";
+                case COMPLETED -> "Transfer already processed";
+                case FAILED -> "Transfer previously failed";
+            })
+            .details(TransferResponseDTO.TransferDetails.builder()
+                .sourceAccountId(transaction.getSourceAccount().getId())
+                .sourceAccountNumber(transaction.getSourceAccount().getAccountNumber())
+                .destinationAccountId(transaction.getDestinationAccount().getId())
+                .destinationAccountNumber(transaction.getDestinationAccount().getAccountNumber())
+                .amount(transaction.getAmount())
+                .currency(transaction.getCurrency())
+                .timestamp(transaction.getCreatedAt())
+                .failureReason(transaction.getFailureReason())
+                .build())
+            .build();
+    }
+}
@@ -2,38 +2,59 @@ package com.example.paymenttransfer.service;
 
 import com.example.paymenttransfer.domain.Account;
 import com.example.paymenttransfer.domain.BalanceAudit;
-import com.example.paymenttransfer.domain.IdempotencyKey;
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.domain.IdempotencyRecord;
 import com.example.paymenttransfer.domain.Transaction;
 import com.example.paymenttransfer.domain.dto.TransferRequestDTO;
 import com.example.paymenttransfer.domain.dto.TransferResponseDTO;
 import com.example.paymenttransfer.domain.enums.TransactionStatus;
 import com.example.paymenttransfer.errors.BankAccountNotFoundException;
+import com.example.paymenttransfer.errors.DuplicateTransactionException;
 import com.example.paymenttransfer.errors.InsufficientFundsException;
-import com.example.paymenttransfer.errors.InvalidTransferException;
+import com.example.paymenttransfer.monitoring.AccountLockEvent;
+import com.example.paymenttransfer.monitoring.TransferEvent;
+import com.example.paymenttransfer.monitoring.TransferMetrics;
+import com.example.paymenttransfer.monitoring.TransferPersistEvent;
 import com.example.paymenttransfer.repository.AccountRepository;
 import com.example.paymenttransfer.repository.BalanceAuditRepository;
-import com.example.paymenttransfer.repository.IdempotencyKeyRepository;
+import com.example.paymenttransfer.repository.IdempotencyRecordRepository;
 import com.example.paymenttransfer.repository.TransactionRepository;
+import com.example.paymenttransfer.service.concurrency.AccountBalanceSlots;
+import com.example.paymenttransfer.service.concurrency.AccountTransferQueue;
+import com.example.paymenttransfer.service.concurrency.DatabaseWorkLimiter;
+import com.example.paymenttransfer.service.concurrency.TransferConcurrencyControl;
+import com.example.paymenttransfer.service.idempotency.IdempotencyCache;
+import com.example.paymenttransfer.service.idempotency.IdempotencyKeyConflicts;
+import com.example.paymenttransfer.service.idempotency.IdempotencyKeyHash;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Isolation;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.util.UUID;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class TransferService {
+public class TransferService implements TransferExecutor {
 
     private final AccountRepository accountRepository;
     private final TransactionRepository transactionRepository;
     private final BalanceAuditRepository balanceAuditRepository;
-    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final TransferConcurrencyControl concurrencyControl;
+    private final AccountTransferQueue accountTransferQueue;
+    private final AccountBalanceSlots accountBalanceSlots;
+    private final DatabaseWorkLimiter databaseWorkLimiter;
+    private final IdempotencyCache idempotencyCache;
+    private final TransferProperties transferProperties;
+    private final TransferMetrics transferMetrics;
+    private final FailedTransferRecorder failedTransferRecorder;
 
-    @Transactional(isolation = Isolation.SERIALIZABLE, rollbackFor = Exception.class)
+    @Override
     public TransferResponseDTO transferFunds(TransferRequestDTO request) {
         log.info("Starting transfer: sourceAccountId={}, destinationAccountId={}, amount={}, idempotencyKey={}",
             request.getSourceAccountId(),
@@ -41,40 +62,103 @@ public class TransferService {
             request.getAmount(),
             request.getIdempotencyKey());
 
-        Transaction existingTransaction = checkIdempotency(request.getIdempotencyKey());
-        if (existingTransaction != null) {
-            log.warn("Duplicate transaction detected with idempotency key: {}", request.getIdempotencyKey());
-            return buildResponseFromExistingTransaction(existingTransaction);
+        long started = System.nanoTime();
+        TransferEvent event = new TransferEvent();
+        event.begin();
+        try {
+            // Credits to a striped account do not serialize on it, so only its debits queue for it.
+            long queuedDestinationId = accountBalanceSlots.isStriped(request.getDestinationAccountId())
+                ? request.getSourceAccountId() : request.getDestinationAccountId();
+            TransferAttempt attempt = accountTransferQueue.call(request.getSourceAccountId(), queuedDestinationId,
+                () -> {
+                    transferMetrics.record(TransferMetrics.Phase.ACCOUNT_QUEUE, started);
+                    return databaseWorkLimiter.call(() -> concurrencyControl.execute(() -> executeTransfer(request)));
+                });
+            if (attempt.rejection() != null) {
+                failedTransferRecorder.record(attempt.declined());
+                throw attempt.rejection();
+            }
+            TransferResponseDTO response = attempt.response();
+            transferMetrics.transferCompleted(started);
+            event.completed(request, response);
+            return response;
+        } catch (DataIntegrityViolationException e) {
+            if (!IdempotencyKeyConflicts.isKeyConflict(e)) {
+                transferMetrics.transferFailed(started, e);
+                event.failed(request, e);
+                throw e;
+            }
+            // The unique idempotency key rejected a concurrent transfer with the same key at commit time.
+            log.warn("Concurrent duplicate transaction detected with idempotency key: {}", request.getIdempotencyKey());
+            DuplicateTransactionException duplicate = new DuplicateTransactionException(request.getIdempotencyKey());
+            transferMetrics.transferFailed(started, duplicate);
+            event.failed(request, duplicate);
+            throw duplicate;
+        } catch (RuntimeException e) {
+            transferMetrics.transferFailed(started, e);
+            event.failed(request, e);
+            throw e;
         }
+    }
 
-        validateTransferRequest(request);
+    /**
+     * Runs inside the transfer transaction. A transfer the source cannot cover is declined before anything is
+     * written, and returned rather than thrown: the transaction then only held the account locks, and the caller
+     * records the decline once they are released.
+     */
+    private TransferAttempt executeTransfer(TransferRequestDTO request) {
+        IdempotencyKeyHash keyHash = IdempotencyKeyHash.of(request.getIdempotencyKey());
+        long lookupStarted = System.nanoTime();
+        TransferResponseDTO processedTransfer = idempotencyCache.cachedResponse(keyHash);
+        boolean possiblyProcessed = processedTransfer == null && idempotencyCache.mightHaveBeenProcessed(keyHash);
+        if (possiblyProcessed) {
+            processedTransfer = findProcessedTransfer(keyHash);
+        }
+        transferMetrics.record(TransferMetrics.Phase.IDEMPOTENCY_LOOKUP, lookupStarted);
+        if (processedTransfer != null) {
+            log.warn("Duplicate transaction detected with idempotency key: {}", request.getIdempotencyKey());
+            return TransferAttempt.completed(processedTransfer);
+        }
 
-        Account sourceAccount = accountRepository.findByIdWithLock(request.getSourceAccountId())
-            .orElseThrow(() -> new BankAccountNotFoundException(request.getSourceAccountId()));
+        TransferRequestValidator.validate(request);
 
-        Account destinationAccount = accountRepository.findByIdWithLock(request.getDestinationAccountId())
-            .orElseThrow(() -> new BankAccountNotFoundException(request.getDestinationAccountId()));
+        long loadStarted = System.nanoTime();
+        Account sourceAccount;
+        Account destinationAccount;
+        boolean lockDestination = !accountBalanceSlots.isStriped(request.getDestinationAccountId());
+        if (request.getSourceAccountId() < request.getDestinationAccountId()) {
+            sourceAccount = loadAccount(request.getSourceAccountId(), true);
+            destinationAccount = loadAccount(request.getDestinationAccountId(), lockDestination);
+        } else {
+            destinationAccount = loadAccount(request.getDestinationAccountId(), lockDestination);
+            sourceAccount = loadAccount(request.getSourceAccountId(), true);
+        }
+        transferMetrics.record(TransferMetrics.Phase.LOAD_ACCOUNTS, loadStarted);
 
-        log.debug("Accounts locked: source={}, destination={}",
+        log.debug("Accounts loaded in {} mode: source={}, destination={}",
+            concurrencyControl.mode(),
             sourceAccount.getAccountNumber(),
             destinationAccount.getAccountNumber());
 
-        Transaction transaction = createPendingTransaction(request, sourceAccount, destinationAccount);
+        if (!accountBalanceSlots.hasSufficientFunds(sourceAccount, request.getAmount())) {
+            InsufficientFundsException rejection = new InsufficientFundsException(
+                sourceAccount.getId(),
+                request.getAmount(),
+                accountBalanceSlots.balance(sourceAccount));
+            log.warn("Transfer declined: {}", rejection.getMessage());
+            Transaction declined = newTransaction(request, sourceAccount, destinationAccount, TransactionStatus.FAILED);
+            declined.setFailureReason(rejection.getMessage());
+            return TransferAttempt.declined(declined, rejection);
+        }
 
+        Transaction transaction;
+        TransferResponseDTO response;
+        TransferPersistEvent persistEvent = new TransferPersistEvent();
         try {
-            if (!sourceAccount.hasSufficientFunds(request.getAmount())) {
-                throw new InsufficientFundsException(
-                    sourceAccount.getId(),
-                    request.getAmount(),
-                    sourceAccount.getBalance());
-            }
-
             BigDecimal sourceBeforeBalance = sourceAccount.getBalance();
-            BigDecimal destinationBeforeBalance = destinationAccount.getBalance();
-
             sourceAccount.withdrawalFunds(request.getAmount());
-            destinationAccount.addFunds(request.getAmount());
 
+            persistEvent.begin();
             log.info("Transfer executed: {} from account {}, {} to account {}",
                 request.getAmount(),
                 sourceAccount.getAccountNumber(),
@@ -84,68 +168,87 @@ public class TransferService {
             accountRepository.save(sourceAccount);
             accountRepository.save(destinationAccount);
 
-            transaction.setStatus(TransactionStatus.COMPLETED);
-            transaction = transactionRepository.save(transaction);
+            transaction = transactionRepository.save(
+                newTransaction(request, sourceAccount, destinationAccount, TransactionStatus.COMPLETED));
 
-            createAuditRecord(sourceAccount, sourceBeforeBalance, transaction);
-            createAuditRecord(destinationAccount, destinationBeforeBalance, transaction);
+            createAuditRecord(sourceAccount, sourceBeforeBalance, sourceAccount.getBalance(), transaction);
+            balanceAuditRepository.save(accountBalanceSlots.credit(destinationAccount, request.getAmount(),
+                transaction));
 
-            storeIdempotencyKey(request.getIdempotencyKey());
+            IdempotencyRecord idempotencyRecord = storeIdempotencyRecord(keyHash, transaction, possiblyProcessed);
+            idempotencyCache.rememberProcessed(keyHash, TransferResponses.fromExisting(transaction),
+                idempotencyRecord.getExpiresAt());
 
             log.info("Transfer completed successfully: transactionId={}", transaction.getTransactionId());
 
-            return buildSuccessResponse(transaction, sourceAccount, destinationAccount);
-        } catch (InsufficientFundsException | InvalidTransferException e) {
-            log.error("Transfer failed due to business rule violation: {}", e.getMessage());
-            transaction.setStatus(TransactionStatus.FAILED);
-            transaction.setFailureReason(e.getMessage());
-            transactionRepository.save(transaction);
-            throw e;
+            response = TransferResponses.completed(transaction, sourceAccount, destinationAccount);
         } catch (Exception e) {
+            // The transaction rolls back, so nothing is recorded for the attempt.
             log.error("Unexpected error during transfer", e);
-            transaction.setStatus(TransactionStatus.FAILED);
-            transaction.setFailureReason("Internal error: " + e.getMessage());
-            transactionRepository.save(transaction);
             throw new RuntimeException("Transfer failed due to internal error", e);
         }
-    }
 
-    private Transaction checkIdempotency(String idempotencyKey) {
-        return transactionRepository.findByIdempotencyKey(idempotencyKey).orElse(null);
+        // Flushed here rather than by the commit so the writes are timed apart from the commit itself. This stays
+        // outside the try block: a stale version or duplicate key raised by the flush must reach the retry loop and
+        // the duplicate handling unwrapped, exactly as it would from the commit.
+        long flushStarted = System.nanoTime();
+        transactionRepository.flush();
+        transferMetrics.record(TransferMetrics.Phase.FLUSH, flushStarted);
+        persistEvent.flushed(transaction.getTransactionId());
+        return TransferAttempt.completed(response);
     }
 
-    private void validateTransferRequest(TransferRequestDTO request) {
-        if (request.getSourceAccountId().equals(request.getDestinationAccountId())) {
-            throw new InvalidTransferException("Cannot transfer to the same account");
+    /**
+     * Accounts are always loaded in ascending id order so that, when the mode takes row locks, two transfers
+     * between the same pair of accounts acquire them in the same order and cannot deadlock. A striped destination
+     * is not locked, since its row is not written.
+     */
+    private Account loadAccount(Long accountId, boolean lock) {
+        Optional<Account> account;
+        if (lock && concurrencyControl.mode().locksAccounts()) {
+            AccountLockEvent lockEvent = new AccountLockEvent();
+            lockEvent.begin();
+            account = accountRepository.findByIdWithLock(accountId);
+            lockEvent.acquired(accountId, account.isPresent());
+        } else {
+            account = accountRepository.findById(accountId);
         }
+        return account.orElseThrow(() -> new BankAccountNotFoundException(accountId));
+    }
 
-        if (request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
-            throw new InvalidTransferException("Transfer amount must be greater than zero");
+    /**
+     * Looks the key up in the database; only called when the idempotency cache cannot rule the key out.
+     */
+    private TransferResponseDTO findProcessedTransfer(IdempotencyKeyHash keyHash) {
+        Optional<IdempotencyRecord> existingRecord =
+            idempotencyRecordRepository.findActiveByKeyHash(keyHash.bytes(), Instant.now());
+        if (existingRecord.isEmpty()) {
+            idempotencyCache.recordFalsePositive();
+            return null;
         }
+        TransferResponseDTO response = TransferResponses.fromExisting(existingRecord.get().getTransaction());
+        idempotencyCache.rememberResponse(keyHash, response, existingRecord.get().getExpiresAt());
+        return response;
     }
 
-    private Transaction createPendingTransaction(TransferRequestDTO request,
-                                                 Account sourceAccount,
-                                                 Account destinationAccount) {
-        Transaction transaction = Transaction.builder()
-            .transactionId(UUID.randomUUID())
+    private Transaction newTransaction(TransferRequestDTO request, Account sourceAccount, Account destinationAccount,
+                                       TransactionStatus status) {
+        return Transaction.builder()
+            .transactionId(TransactionIds.next())
             .sourceAccount(sourceAccount)
             .destinationAccount(destinationAccount)
             .amount(request.getAmount())
             .currency(sourceAccount.getCurrency())
-            .status(TransactionStatus.PENDING)
-            .idempotencyKey(request.getIdempotencyKey())
+            .status(status)
             .build();
-
-        return transactionRepository.save(transaction);
     }
 
-    private void createAuditRecord(Account account, BigDecimal beforeBalance,
+    private void createAuditRecord(Account account, BigDecimal beforeBalance, BigDecimal afterBalance,
                                    Transaction transaction) {
         BalanceAudit sourceAudit = BalanceAudit.builder()
             .account(account)
             .beforeBalance(beforeBalance)
-            .afterBalance(account.getBalance())
+            .afterBalance(afterBalance)
             .currency(account.getCurrency())
             .transaction(transaction)
             .build();
@@ -154,49 +257,38 @@ public class TransferService {
         log.debug("Audit records created for transaction {}", transaction.getTransactionId());
     }
 
-    private void storeIdempotencyKey(String keyValue) {
-        IdempotencyKey key = IdempotencyKey.builder()
-            .keyValue(keyValue)
+    /**
+     * A key the lookup did not find may still have an expired record that the purge job has not removed yet; it is
+     * deleted first so the key can be reused.
+     */
+    private IdempotencyRecord storeIdempotencyRecord(IdempotencyKeyHash keyHash, Transaction transaction,
+                                                     boolean possiblyProcessed) {
+        Instant now = Instant.now();
+        if (possiblyProcessed) {
+            idempotencyRecordRepository.deleteExpiredByKeyHashIn(List.of(keyHash.bytes()), now);
+        }
+        IdempotencyRecord idempotencyRecord = IdempotencyRecord.builder()
+            .transaction(transaction)
+            .keyHash(keyHash.bytes())
+            .createdAt(now)
+            .expiresAt(now.plus(transferProperties.getIdempotency().getTtl()))
             .build();
-        idempotencyKeyRepository.save(key);
+        idempotencyRecordRepository.save(idempotencyRecord);
+        return idempotencyRecord;
     }
 
-    private TransferResponseDTO buildSuccessResponse(Transaction transaction,
-                                                     Account sourceAccount,
-                                                     Account destinationAccount) {
-        return TransferResponseDTO.builder()
-            .transactionId(transaction.getTransactionId())
-            .status(TransactionStatus.COMPLETED)
-            .message("Transfer completed successfully")
-            .details(TransferResponseDTO.TransferDetails.builder()
-                .sourceAccountId(sourceAccount.getId())
-                .sourceAccountNumber(sourceAccount.getAccountNumber())
-                .destinationAccountId(destinationAccount.getId())
-                .destinationAccountNumber(destinationAccount.getAccountNumber())
-                .amount(transaction.getAmount())
-                .currency(transaction.getCurrency())
-                .timestamp(transaction.getCreatedAt())
-                .build())
-            .build();
-    }
+    /**
+     * Outcome of {@link #executeTransfer}: the response, or a decline with the {@code FAILED} transaction to record.
+     */
+    private record TransferAttempt(TransferResponseDTO response, Transaction declined,
+                                   InsufficientFundsException rejection) {
 
-    private TransferResponseDTO buildResponseFromExistingTransaction(Transaction transaction) {
-        return TransferResponseDTO.builder()
-            .transactionId(transaction.getTransactionId())
-            .status(transaction.getStatus())
-            .message(transaction.getStatus() == TransactionStatus.COMPLETED
-                ? "Transfer already processed"
-                : "Transfer previously failed")
-            .details(TransferResponseDTO.TransferDetails.builder()
-                .sourceAccountId(transaction.getSourceAccount().getId())
-                .sourceAccountNumber(transaction.getSourceAccount().getAccountNumber())
-                .destinationAccountId(transaction.getDestinationAccount().getId())
-                .destinationAccountNumber(transaction.getDestinationAccount().getAccountNumber())
-                .amount(transaction.getAmount())
-                .currency(transaction.getCurrency())
-                .timestamp(transaction.getCreatedAt())
-                .failureReason(transaction.getFailureReason())
-                .build())
-            .build();
+        static TransferAttempt completed(TransferResponseDTO response) {
+            return new TransferAttempt(response, null, null);
+        }
+
+        static TransferAttempt declined(Transaction declined, InsufficientFundsException rejection) {
+            return new TransferAttempt(null, declined, rejection);
+        }
     }
 }
@@ -0,0 +1,173 @@
+package com.example.paymenttransfer.service.async;
+
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.domain.Account;
+import com.example.paymenttransfer.domain.IdempotencyRecord;
+import com.example.paymenttransfer.domain.Transaction;
+import com.example.paymenttransfer.domain.dto.TransferRequestDTO;
+import com.example.paymenttransfer.domain.dto.TransferResponseDTO;
+import com.example.paymenttransfer.domain.enums.TransactionStatus;
+import com.example.paymenttransfer.errors.BankAccountNotFoundException;
+import com.example.paymenttransfer.errors.DuplicateTransactionException;
+import com.example.paymenttransfer.errors.TransactionNotFoundException;
+import com.example.paymenttransfer.repository.AccountRepository;
+import com.example.paymenttransfer.repository.IdempotencyRecordRepository;
+import com.example.paymenttransfer.repository.TransactionRepository;
+import com.example.paymenttransfer.service.TransactionIds;
+import com.example.paymenttransfer.service.TransferRequestValidator;
+import com.example.paymenttransfer.service.TransferResponses;
+import com.example.paymenttransfer.service.concurrency.DatabaseWorkLimiter;
+import com.example.paymenttransfer.service.idempotency.IdempotencyCache;
+import com.example.paymenttransfer.service.idempotency.IdempotencyKeyConflicts;
+import com.example.paymenttransfer.service.idempotency.IdempotencyKeyHash;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Accepts transfers for asynchronous execution.
+ * <p>
+ * A submission is validated, checked against its idempotency key and committed as a {@code PENDING} transaction
+ * together with its idempotency record, without locking any account; the caller gets the transaction id back
+ * straight away and polls {@link #status} for the outcome. The balances are moved later by
+ * {@link AsyncTransferWorkers}. Because the idempotency record is written with the pending row, a retried
+ * submission returns the same transaction whether or not it has been processed yet.
+ */
+@Service
+@Slf4j
+public class AsyncTransferService {
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final DatabaseWorkLimiter databaseWorkLimiter;
+    private final IdempotencyCache idempotencyCache;
+    private final AsyncTransferWorkers workers;
+    private final TransferProperties transferProperties;
+    private final TransactionTemplate transactionTemplate;
+
+    public AsyncTransferService(AccountRepository accountRepository,
+                                TransactionRepository transactionRepository,
+                                IdempotencyRecordRepository idempotencyRecordRepository,
+                                DatabaseWorkLimiter databaseWorkLimiter,
+                                IdempotencyCache idempotencyCache,
+                                AsyncTransferWorkers workers,
+                                TransferProperties transferProperties,
+                                PlatformTransactionManager transactionManager) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.databaseWorkLimiter = databaseWorkLimiter;
+        this.idempotencyCache = idempotencyCache;
+        this.workers = workers;
+        this.transferProperties = transferProperties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Returns the pending transfer, or the existing one if the idempotency key was already used.
+     */
+    public TransferResponseDTO submit(TransferRequestDTO request) {
+        log.info("Submitting transfer: sourceAccountId={}, destinationAccountId={}, amount={}, idempotencyKey={}",
+            request.getSourceAccountId(),
+            request.getDestinationAccountId(),
+            request.getAmount(),
+            request.getIdempotencyKey());
+        try {
+            return databaseWorkLimiter.call(() -> transactionTemplate.execute(status -> enqueue(request)));
+        } catch (DataIntegrityViolationException e) {
+            if (!IdempotencyKeyConflicts.isKeyConflict(e)) {
+                throw e;
+            }
+            // The unique idempotency key rejected a concurrent submission with the same key at commit time.
+            log.warn("Concurrent duplicate transaction detected with idempotency key: {}", request.getIdempotencyKey());
+            throw new DuplicateTransactionException(request.getIdempotencyKey());
+        }
+    }
+
+    /**
+     * Read on the primary, in a transaction that is not read-only, so a status polled right after submitting is
+     * never looked up on a lagging replica.
+     */
+    public TransferResponseDTO status(UUID transactionId) {
+        return databaseWorkLimiter.call(() -> transactionTemplate.execute(status -> transactionRepository
+            .findByTransactionIdWithAccounts(transactionId)
+            .map(TransferResponses::fromExisting)
+            .orElseThrow(() -> new TransactionNotFoundException(transactionId))));
+    }
+
+    private TransferResponseDTO enqueue(TransferRequestDTO request) {
+        IdempotencyKeyHash keyHash = IdempotencyKeyHash.of(request.getIdempotencyKey());
+        TransferResponseDTO processedTransfer = idempotencyCache.cachedResponse(keyHash);
+        boolean possiblyProcessed = processedTransfer == null && idempotencyCache.mightHaveBeenProcessed(keyHash);
+        if (possiblyProcessed) {
+            processedTransfer = findProcessedTransfer(keyHash);
+        }
+        if (processedTransfer != null) {
+            log.warn("Duplicate transaction detected with idempotency key: {}", request.getIdempotencyKey());
+            return processedTransfer;
+        }
+
+        TransferRequestValidator.validate(request);
+        Account sourceAccount = accountRepository.findById(request.getSourceAccountId())
+            .orElseThrow(() -> new BankAccountNotFoundException(request.getSourceAccountId()));
+        Account destinationAccount = accountRepository.findById(request.getDestinationAccountId())
+            .orElseThrow(() -> new BankAccountNotFoundException(request.getDestinationAccountId()));
+
+        Transaction transaction = transactionRepository.save(Transaction.builder()
+            .transactionId(TransactionIds.next())
+            .sourceAccount(sourceAccount)
+            .destinationAccount(destinationAccount)
+            .amount(request.getAmount())
+            .currency(sourceAccount.getCurrency())
+            .status(TransactionStatus.PENDING)
+            .build());
+
+        Instant now = Instant.now();
+        if (possiblyProcessed) {
+            idempotencyRecordRepository.deleteExpiredByKeyHashIn(List.of(keyHash.bytes()), now);
+        }
+        IdempotencyRecord idempotencyRecord = idempotencyRecordRepository.save(IdempotencyRecord.builder()
+            .transaction(transaction)
+            .keyHash(keyHash.bytes())
+            .createdAt(now)
+            .expiresAt(now.plus(transferProperties.getIdempotency().getTtl()))
+            .build());
+        TransferResponseDTO response = TransferResponses.accepted(transaction);
+        idempotencyCache.rememberProcessed(keyHash, response, idempotencyRecord.getExpiresAt());
+
+        long sourceAccountId = sourceAccount.getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                workers.submitted(sourceAccountId);
+            }
+        });
+        log.info("Transfer accepted: transactionId={}", transaction.getTransactionId());
+        return response;
+    }
+
+    /**
+     * Looks the key up in the database; only called when the idempotency cache cannot rule the key out.
+     */
+    private TransferResponseDTO findProcessedTransfer(IdempotencyKeyHash keyHash) {
+        Optional<IdempotencyRecord> existingRecord =
+            idempotencyRecordRepository.findActiveByKeyHash(keyHash.bytes(), Instant.now());
+        if (existingRecord.isEmpty()) {
+            idempotencyCache.recordFalsePositive();
+            return null;
+        }
+        TransferResponseDTO response = TransferResponses.fromExisting(existingRecord.get().getTransaction());
+        idempotencyCache.rememberResponse(keyHash, response, existingRecord.get().getExpiresAt());
+        return response;
+    }
+}
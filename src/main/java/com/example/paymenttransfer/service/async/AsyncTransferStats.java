@@ -0,0 +1,13 @@
+package com.example.paymenttransfer.service.async;
+
+/**
+ * Point-in-time counters of the asynchronous transfer path on this instance.
+ *
+ * @param submitted  transfers accepted and committed as {@code PENDING}
+ * @param completed  pending transfers applied by a worker
+ * @param failed     pending transfers a worker marked {@code FAILED}
+ * @param batches    worker transactions committed
+ * @param fallbacks  transfers re-run one by one because their whole batch failed
+ */
+public record AsyncTransferStats(long submitted, long completed, long failed, long batches, long fallbacks) {
+}
@@ -0,0 +1,313 @@
+package com.example.paymenttransfer.service.async;
+
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.domain.Account;
+import com.example.paymenttransfer.domain.BalanceAudit;
+import com.example.paymenttransfer.domain.Transaction;
+import com.example.paymenttransfer.domain.enums.TransactionStatus;
+import com.example.paymenttransfer.errors.InsufficientFundsException;
+import com.example.paymenttransfer.repository.AccountRepository;
+import com.example.paymenttransfer.repository.BalanceAuditRepository;
+import com.example.paymenttransfer.repository.TransactionRepository;
+import com.example.paymenttransfer.service.concurrency.AccountBalanceSlots;
+import com.example.paymenttransfer.service.concurrency.TransferConcurrencyControl;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Applies transfers submitted through {@link AsyncTransferService}.
+ * <p>
+ * Pending transfers are partitioned by source account modulo {@code payment.transfer.async.workers}, with one worker
+ * thread per partition. All transfers debiting an account are therefore applied by the same worker, one batch after
+ * the other, instead of queueing on that account's row lock. A worker claims up to {@code batch-size} of the oldest
+ * pending transfers of its partition with {@code FOR UPDATE SKIP LOCKED}, locks every account they touch once, in
+ * ascending id order like the other transfer paths, applies them in submission order and commits them together.
+ * Claiming with {@code SKIP LOCKED} also lets several instances share the partitions safely.
+ * <p>
+ * Workers are woken when a transfer is submitted on this instance and otherwise poll every {@code poll-interval},
+ * which picks up transfers submitted elsewhere and any left behind by a restart. A batch that deadlocks is retried
+ * through {@link TransferConcurrencyControl}, with its backoff and attempt limit. If a whole batch still fails, its
+ * transfers are re-run one per transaction, and one that still fails is marked {@code FAILED} so it cannot block its
+ * partition.
+ */
+@Component
+@Slf4j
+public class AsyncTransferWorkers {
+
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final BalanceAuditRepository balanceAuditRepository;
+    private final EntityManager entityManager;
+    private final AccountBalanceSlots accountBalanceSlots;
+    private final TransferConcurrencyControl concurrencyControl;
+    private final TransferProperties.Async settings;
+    private final int jdbcBatchSize;
+    private final TransactionTemplate transactionTemplate;
+    private final int partitions;
+    private final Semaphore[] wakeups;
+    private final List<Thread> workers = new ArrayList<>();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private volatile boolean running;
+
+    public AsyncTransferWorkers(TransactionRepository transactionRepository,
+                                AccountRepository accountRepository,
+                                BalanceAuditRepository balanceAuditRepository,
+                                EntityManager entityManager,
+                                AccountBalanceSlots accountBalanceSlots,
+                                TransferConcurrencyControl concurrencyControl,
+                                TransferProperties properties,
+                                PlatformTransactionManager transactionManager) {
+        this.transactionRepository = transactionRepository;
+        this.accountRepository = accountRepository;
+        this.balanceAuditRepository = balanceAuditRepository;
+        this.entityManager = entityManager;
+        this.accountBalanceSlots = accountBalanceSlots;
+        this.concurrencyControl = concurrencyControl;
+        this.settings = properties.getAsync();
+        this.jdbcBatchSize = properties.getBatch().getJdbcBatchSize();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(Isolation.READ_COMMITTED.value());
+        this.partitions = Math.max(1, settings.getWorkers());
+        this.wakeups = new Semaphore[Math.max(0, settings.getWorkers())];
+        for (int partition = 0; partition < wakeups.length; partition++) {
+            wakeups[partition] = new Semaphore(0);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (wakeups.length == 0) {
+            log.info("Asynchronous transfer workers disabled on this instance");
+            return;
+        }
+        running = true;
+        for (int partition = 0; partition < wakeups.length; partition++) {
+            int assigned = partition;
+            Thread worker = new Thread(() -> workLoop(assigned), "transfer-async-" + partition);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        log.info("Asynchronous transfer workers started: workers={}, batchSize={}, pollInterval={} ms",
+            workers.size(), settings.getBatchSize(), settings.getPollInterval().toMillis());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) {
+            worker.interrupt();
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        log.info("Asynchronous transfer workers stopped");
+    }
+
+    /**
+     * Called once a submitted transfer has committed; wakes the worker owning its source account.
+     */
+    void submitted(long sourceAccountId) {
+        submitted.increment();
+        if (wakeups.length > 0) {
+            Semaphore wakeup = wakeups[(int) (sourceAccountId % wakeups.length)];
+            if (wakeup.availablePermits() == 0) {
+                wakeup.release();
+            }
+        }
+    }
+
+    public AsyncTransferStats stats() {
+        return new AsyncTransferStats(submitted.sum(), completed.sum(), failed.sum(), batches.sum(), fallbacks.sum());
+    }
+
+    /**
+     * Processes batches of one partition until it has no pending transfers left that are not claimed elsewhere.
+     *
+     * @return the number of transfers processed
+     */
+    int drain(int partition) {
+        int processed = 0;
+        int batch;
+        do {
+            batch = processBatch(partition);
+            processed += batch;
+        } while (batch >= settings.getBatchSize());
+        return processed;
+    }
+
+    private void workLoop(int partition) {
+        while (running) {
+            try {
+                drain(partition);
+                wakeups[partition].tryAcquire(settings.getPollInterval().toMillis(), TimeUnit.MILLISECONDS);
+                wakeups[partition].drainPermits();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Asynchronous transfer worker {} failed, retrying after the poll interval", partition, e);
+                try {
+                    Thread.sleep(settings.getPollInterval().toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private int processBatch(int partition) {
+        List<Long> claimed = new ArrayList<>();
+        try {
+            return apply(partition, settings.getBatchSize(), claimed);
+        } catch (RuntimeException e) {
+            if (claimed.isEmpty()) {
+                throw e;
+            }
+            log.warn("Asynchronous batch of {} transfers failed, processing them individually: {}",
+                claimed.size(), e.getMessage());
+            fallbacks.add(claimed.size());
+            int processed = 0;
+            for (int i = 0; i < claimed.size(); i++) {
+                processed += processIndividually(partition);
+            }
+            return processed;
+        }
+    }
+
+    private int processIndividually(int partition) {
+        List<Long> claimed = new ArrayList<>(1);
+        try {
+            return apply(partition, 1, claimed);
+        } catch (RuntimeException e) {
+            if (claimed.isEmpty()) {
+                throw e;
+            }
+            Long id = claimed.get(0);
+            log.error("Pending transfer {} failed, marking it as failed", id, e);
+            transactionTemplate.executeWithoutResult(
+                status -> transactionRepository.failPending(id, "Internal error: " + e.getMessage()));
+            failed.increment();
+            return 1;
+        }
+    }
+
+    /**
+     * Claims, applies and commits up to {@code limit} pending transfers of the partition in one transaction, retried
+     * on a deadlock. The ids of the claimed rows are collected in {@code claimed} before anything else can fail.
+     */
+    private int apply(int partition, int limit, List<Long> claimed) {
+        int[] outcome = new int[2];
+        int processed = concurrencyControl.execute(transactionTemplate, () -> {
+            claimed.clear();
+            outcome[0] = 0;
+            outcome[1] = 0;
+            entityManager.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);
+            List<Transaction> transactions = transactionRepository.claimPending(partition, partitions, limit);
+            transactions.forEach(transaction -> claimed.add(transaction.getId()));
+            if (transactions.isEmpty()) {
+                return 0;
+            }
+
+            Map<Long, Account> accounts = lockAccounts(transactions);
+            List<BalanceAudit> audits = new ArrayList<>(2 * transactions.size());
+            AccountBalanceSlots.Batch slotCredits = accountBalanceSlots.batch(audits);
+            for (Transaction transaction : transactions) {
+                Account sourceAccount = accounts.get(transaction.getSourceAccount().getId());
+                Account destinationAccount = accounts.get(transaction.getDestinationAccount().getId());
+                if (!accountBalanceSlots.hasSufficientFunds(sourceAccount, transaction.getAmount(), slotCredits)) {
+                    InsufficientFundsException rejected = new InsufficientFundsException(sourceAccount.getId(),
+                        transaction.getAmount(), accountBalanceSlots.balance(sourceAccount));
+                    log.warn("Pending transfer rejected: transactionId={}, reason={}",
+                        transaction.getTransactionId(), rejected.getMessage());
+                    transaction.setStatus(TransactionStatus.FAILED);
+                    transaction.setFailureReason(rejected.getMessage());
+                    outcome[1]++;
+                    continue;
+                }
+
+                BigDecimal sourceBeforeBalance = sourceAccount.getBalance();
+                sourceAccount.withdrawalFunds(transaction.getAmount());
+                transaction.setStatus(TransactionStatus.COMPLETED);
+                audits.add(auditRecord(sourceAccount, sourceBeforeBalance, sourceAccount.getBalance(), transaction));
+                audits.add(accountBalanceSlots.credit(destinationAccount, transaction.getAmount(), transaction,
+                    slotCredits));
+                outcome[0]++;
+            }
+            accountBalanceSlots.apply(slotCredits);
+            balanceAuditRepository.saveAll(audits);
+            return transactions.size();
+        });
+
+        if (processed > 0) {
+            batches.increment();
+            completed.add(outcome[0]);
+            failed.add(outcome[1]);
+            log.debug("Asynchronous batch of partition {}: {} completed, {} failed", partition, outcome[0],
+                outcome[1]);
+        }
+        return processed;
+    }
+
+    /**
+     * Accounts are locked in ascending id order, the same global order the synchronous and batch paths use. Striped
+     * accounts that only receive credits are read without a lock, as batches do: their credits go to slots, so
+     * workers do not serialize on hot destinations.
+     */
+    private Map<Long, Account> lockAccounts(List<Transaction> transactions) {
+        TreeSet<Long> lockedIds = new TreeSet<>();
+        Set<Long> stripedDestinationIds = new HashSet<>();
+        for (Transaction transaction : transactions) {
+            lockedIds.add(transaction.getSourceAccount().getId());
+            Long destinationId = transaction.getDestinationAccount().getId();
+            if (accountBalanceSlots.isStriped(destinationId)) {
+                stripedDestinationIds.add(destinationId);
+            } else {
+                lockedIds.add(destinationId);
+            }
+        }
+        stripedDestinationIds.removeAll(lockedIds);
+
+        Map<Long, Account> accounts = accountRepository.findAllByIdWithLock(lockedIds).stream()
+            .collect(Collectors.toMap(Account::getId, Function.identity()));
+        if (!stripedDestinationIds.isEmpty()) {
+            accountRepository.findAllById(stripedDestinationIds)
+                .forEach(account -> accounts.put(account.getId(), account));
+        }
+        return accounts;
+    }
+
+    private BalanceAudit auditRecord(Account account, BigDecimal beforeBalance, BigDecimal afterBalance,
+                                     Transaction transaction) {
+        return BalanceAudit.builder()
+            .account(account)
+            .beforeBalance(beforeBalance)
+            .afterBalance(afterBalance)
+            .currency(account.getCurrency())
+            .transaction(transaction)
+            .build();
+    }
+}
@@ -0,0 +1,321 @@
+package com.example.paymenttransfer.service.concurrency;
+
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.domain.Account;
+import com.example.paymenttransfer.domain.AccountBalanceSlot;
+import com.example.paymenttransfer.domain.BalanceAudit;
+import com.example.paymenttransfer.domain.Transaction;
+import com.example.paymenttransfer.errors.BankAccountNotFoundException;
+import com.example.paymenttransfer.repository.AccountBalanceSlotRepository;
+import com.example.paymenttransfer.repository.AccountRepository;
+import com.example.paymenttransfer.repository.BalanceAuditRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Striped balances for hot accounts that receive many concurrent credits.
+ * <p>
+ * The balance of a striped account is {@code account.balance} plus the sum of its {@code account_balance_slot}
+ * rows. A credit adds to one slot picked at random and leaves the account row alone, so concurrent credits only
+ * contend when they pick the same slot, instead of all queueing on the account's row lock. A debit keeps locking the
+ * account row and uses {@code account.balance} as long as that covers the amount; only when it falls short are the
+ * slots locked and swept into it.
+ * <p>
+ * Audits follow the rows that hold the money: {@code balance_audit.balance_slot} names the slot an audit belongs to,
+ * or is {@code null} for {@code account.balance}, and each of these chains is only written under its row's lock, so
+ * it runs from one balance to the next without gaps. A sweep audits every slot it empties and the account balance it
+ * adds to, without a transaction of its own; read together, the chains of an account add up to its total balance.
+ * <p>
+ * Accounts are striped on startup from {@code payment.transfer.balance-slots.accounts}. Striping or un-striping
+ * sweeps the existing slots first, so the total balance never changes.
+ */
+@Component
+@Slf4j
+public class AccountBalanceSlots {
+
+    private final AccountRepository accountRepository;
+    private final AccountBalanceSlotRepository slotRepository;
+    private final BalanceAuditRepository balanceAuditRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransferProperties.BalanceSlots settings;
+    private final LongAdder credits = new LongAdder();
+    private final LongAdder sweeps = new LongAdder();
+    private volatile Set<Long> stripedAccounts = Set.of();
+
+    public AccountBalanceSlots(AccountRepository accountRepository,
+                               AccountBalanceSlotRepository slotRepository,
+                               BalanceAuditRepository balanceAuditRepository,
+                               PlatformTransactionManager transactionManager,
+                               TransferProperties properties) {
+        this.accountRepository = accountRepository;
+        this.slotRepository = slotRepository;
+        this.balanceAuditRepository = balanceAuditRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.settings = properties.getBalanceSlots();
+    }
+
+    @PostConstruct
+    public void start() {
+        Set<Long> configured = new HashSet<>(settings.getAccounts());
+        for (Long accountId : accountRepository.findStripedIds()) {
+            if (!configured.contains(accountId)) {
+                stripe(accountId, 0);
+            }
+        }
+        for (Long accountId : configured) {
+            stripe(accountId, settings.getSlots());
+        }
+        if (!stripedAccounts.isEmpty()) {
+            log.info("Striped balances: accounts={}, slots={}", stripedAccounts, settings.getSlots());
+        }
+    }
+
+    /**
+     * Whether credits to the account go to its slots; transfers then need not serialize on the account.
+     */
+    public boolean isStriped(Long accountId) {
+        return stripedAccounts.contains(accountId);
+    }
+
+    /**
+     * Credits {@code amount} to the account: to a random slot, locked until commit, if it is striped, otherwise to
+     * its balance. The account row is only changed, and must only be locked, in the second case.
+     *
+     * @return the audit of the credit, not saved yet
+     */
+    public BalanceAudit credit(Account account, BigDecimal amount, Transaction transaction) {
+        if (account.getBalanceSlots() == 0) {
+            BigDecimal before = account.getBalance();
+            account.addFunds(amount);
+            return audit(account, null, before, account.getBalance(), transaction);
+        }
+        AccountBalanceSlot slot = lockRandomSlot(account);
+        BigDecimal before = slot.getBalance();
+        slot.setBalance(before.add(amount));
+        credits.increment();
+        return audit(account, slot.getSlot(), before, slot.getBalance(), transaction);
+    }
+
+    /**
+     * Credits {@code amount} within a batch. The credits of a batch to one striped account are added to a single
+     * slot, with one lock and one update, when the batch is {@linkplain #apply applied}; the returned audit is
+     * completed then, and must be saved after that.
+     */
+    public BalanceAudit credit(Account account, BigDecimal amount, Transaction transaction, Batch batch) {
+        if (account.getBalanceSlots() == 0) {
+            return credit(account, amount, transaction);
+        }
+        BalanceAudit audit = audit(account, null, null, null, transaction);
+        batch.pending.computeIfAbsent(account.getId(), id -> new PendingCredits(account))
+            .add(audit, amount);
+        return audit;
+    }
+
+    /**
+     * Whether the account covers {@code amount}. A striped account whose own balance falls short has its slots
+     * swept into it first, and the sweep's audits saved; the caller must hold the account row lock, or rely on its
+     * version check.
+     */
+    public boolean hasSufficientFunds(Account account, BigDecimal amount) {
+        if (account.hasSufficientFunds(amount) || account.getBalanceSlots() == 0) {
+            return account.hasSufficientFunds(amount);
+        }
+        sweep(account, balanceAuditRepository::saveAll);
+        return account.hasSufficientFunds(amount);
+    }
+
+    /**
+     * As {@link #hasSufficientFunds(Account, BigDecimal)}, within a batch: the credits the batch still holds for the
+     * account are applied before a sweep, and the sweep's audits join the batch's audits in order.
+     */
+    public boolean hasSufficientFunds(Account account, BigDecimal amount, Batch batch) {
+        if (account.hasSufficientFunds(amount) || account.getBalanceSlots() == 0) {
+            return account.hasSufficientFunds(amount);
+        }
+        PendingCredits pending = batch.pending.remove(account.getId());
+        if (pending != null) {
+            apply(pending);
+        }
+        sweep(account, batch.audits::addAll);
+        return account.hasSufficientFunds(amount);
+    }
+
+    /**
+     * The total balance of the account: its own balance plus, if it is striped, what its slots hold.
+     */
+    public BigDecimal balance(Account account) {
+        if (account.getBalanceSlots() == 0) {
+            return account.getBalance();
+        }
+        return account.getBalance().add(slotRepository.sumBalance(account.getId()));
+    }
+
+    /**
+     * Starts a batch of transfers run in one transaction, whose audits are collected in {@code audits} in the order
+     * they are to be saved.
+     */
+    public Batch batch(List<BalanceAudit> audits) {
+        return new Batch(audits);
+    }
+
+    /**
+     * Adds the credits the batch holds to the slots of their accounts, in ascending account id order, and completes
+     * their audits.
+     */
+    public void apply(Batch batch) {
+        batch.pending.values().forEach(this::apply);
+        batch.pending.clear();
+    }
+
+    /**
+     * Locks the account, sweeps its slots into its balance and returns it, in a transaction of its own. For callers
+     * that take over the balance of the account, such as the ledger.
+     */
+    public Account consolidate(Long accountId) {
+        return transactionTemplate.execute(status -> {
+            Account account = accountRepository.findByIdWithLock(accountId)
+                .orElseThrow(() -> new BankAccountNotFoundException(accountId));
+            if (account.getBalanceSlots() > 0) {
+                sweep(account, balanceAuditRepository::saveAll);
+            }
+            return account;
+        });
+    }
+
+    public BalanceSlotStats stats() {
+        return new BalanceSlotStats(stripedAccounts.size(), credits.sum(), sweeps.sum());
+    }
+
+    /**
+     * Changes the number of slots of an account, {@code 0} turning it back into an ordinary account.
+     */
+    void stripe(Long accountId, int slots) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Account account = accountRepository.findByIdWithLock(accountId).orElse(null);
+            if (account == null) {
+                log.warn("Cannot stripe the balance of unknown account {}", accountId);
+                return;
+            }
+            if (account.getBalanceSlots() == slots) {
+                return;
+            }
+            sweep(account, balanceAuditRepository::saveAll);
+            slotRepository.deleteAll(slotRepository.findAllByAccountIdWithLock(accountId));
+            // Deletes would otherwise be flushed after the inserts of the same slot numbers.
+            slotRepository.flush();
+            List<AccountBalanceSlot> created = new ArrayList<>(slots);
+            for (int slot = 0; slot < slots; slot++) {
+                created.add(new AccountBalanceSlot(accountId, slot, BigDecimal.ZERO));
+            }
+            slotRepository.saveAll(created);
+            account.setBalanceSlots(slots);
+            log.info("Account {} now has {} balance slots", accountId, slots);
+        });
+        stripedAccounts = Set.copyOf(accountRepository.findStripedIds());
+    }
+
+    private void apply(PendingCredits pending) {
+        AccountBalanceSlot slot = lockRandomSlot(pending.account);
+        BigDecimal balance = slot.getBalance();
+        for (int index = 0; index < pending.audits.size(); index++) {
+            BalanceAudit audit = pending.audits.get(index);
+            audit.setBalanceSlot(slot.getSlot());
+            audit.setBeforeBalance(balance);
+            balance = balance.add(pending.amounts.get(index));
+            audit.setAfterBalance(balance);
+        }
+        slot.setBalance(balance);
+        credits.add(pending.audits.size());
+    }
+
+    private AccountBalanceSlot lockRandomSlot(Account account) {
+        int slot = ThreadLocalRandom.current().nextInt(account.getBalanceSlots());
+        return slotRepository.findByIdWithLock(account.getId(), slot)
+            .orElseThrow(() -> new IllegalStateException(
+                "Account " + account.getId() + " has no balance slot " + slot));
+    }
+
+    /**
+     * Empties the slots into the account balance and hands the audits of every slot emptied and of the account
+     * balance, in that order, to {@code audits}.
+     */
+    private void sweep(Account account, Consumer<List<BalanceAudit>> audits) {
+        List<BalanceAudit> sweepAudits = new ArrayList<>();
+        BigDecimal swept = BigDecimal.ZERO;
+        for (AccountBalanceSlot slot : slotRepository.findAllByAccountIdWithLock(account.getId())) {
+            if (slot.getBalance().signum() != 0) {
+                sweepAudits.add(audit(account, slot.getSlot(), slot.getBalance(), BigDecimal.ZERO, null));
+                swept = swept.add(slot.getBalance());
+                slot.setBalance(BigDecimal.ZERO);
+            }
+        }
+        if (swept.signum() != 0) {
+            BigDecimal before = account.getBalance();
+            account.addFunds(swept);
+            sweepAudits.add(audit(account, null, before, account.getBalance(), null));
+            audits.accept(sweepAudits);
+        }
+        sweeps.increment();
+        log.debug("Swept {} from the slots of account {}", swept, account.getId());
+    }
+
+    private static BalanceAudit audit(Account account, Integer slot, BigDecimal before, BigDecimal after,
+                                      Transaction transaction) {
+        return BalanceAudit.builder()
+            .account(account)
+            .balanceSlot(slot)
+            .beforeBalance(before)
+            .afterBalance(after)
+            .currency(account.getCurrency())
+            .transaction(transaction)
+            .build();
+    }
+
+    /**
+     * Credits to striped accounts held back by a batch until it is {@linkplain #apply applied}, and the batch's
+     * audits, which sweeps add to.
+     */
+    public static final class Batch {
+
+        private final List<BalanceAudit> audits;
+        /**
+         * By account id, so a batch locks the slots of its accounts in ascending id order, like their rows, and two
+         * batches crediting the same accounts cannot deadlock on them.
+         */
+        private final Map<Long, PendingCredits> pending = new TreeMap<>();
+
+        private Batch(List<BalanceAudit> audits) {
+            this.audits = audits;
+        }
+    }
+
+    private static final class PendingCredits {
+
+        private final Account account;
+        private final List<BalanceAudit> audits = new ArrayList<>();
+        private final List<BigDecimal> amounts = new ArrayList<>();
+
+        private PendingCredits(Account account) {
+            this.account = account;
+        }
+
+        private void add(BalanceAudit audit, BigDecimal amount) {
+            audits.add(audit);
+            amounts.add(amount);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.paymenttransfer.service.concurrency;
+
+/**
+ * Point-in-time counters of the {@link AccountTransferQueue}.
+ *
+ * @param enabled   whether transfers are serialized per account at all
+ * @param stripes   locks the accounts are hashed onto
+ * @param waiting   transfers currently waiting for another transfer of their accounts
+ * @param admitted  transfers that got both account locks, immediately or after waiting
+ * @param contended admitted transfers that had to wait first
+ * @param timeouts  transfers rejected after waiting {@code max-wait}
+ */
+public record AccountQueueStats(boolean enabled, int stripes, int waiting, long admitted, long contended,
+                                long timeouts) {
+}
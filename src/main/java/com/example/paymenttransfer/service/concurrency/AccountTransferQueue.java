@@ -0,0 +1,129 @@
+package com.example.paymenttransfer.service.concurrency;
+
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.errors.ServiceBusyException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Serializes the transfers of an account inside this instance, before they take a connection.
+ * <p>
+ * Without it every concurrent transfer of a hot account takes a pooled connection and then waits on the account's
+ * row lock inside Postgres, so a handful of them can hold the whole pool while transfers of unrelated accounts wait
+ * for a connection. Here they wait in memory instead, in arrival order, on one of a fixed set of fair locks the
+ * account ids are hashed onto; transfers whose accounts map to other stripes run in parallel. Both stripes of a
+ * transfer are taken in ascending stripe order, so two transfers can never wait for each other.
+ * <p>
+ * The row locks remain the guarantee across instances and for the batch paths; this only keeps a single instance
+ * from spending connections on waiting. Stripes must be taken before a {@link DatabaseWorkLimiter} permit, never
+ * while holding one, or a transfer holding a permit could wait for a stripe held by a transfer waiting for a
+ * permit.
+ */
+@Component
+@Slf4j
+public class AccountTransferQueue {
+
+    private final boolean enabled;
+    private final Duration maxWait;
+    private final Duration retryAfter;
+    private final ReentrantLock[] stripes;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    public AccountTransferQueue(TransferProperties properties) {
+        TransferProperties.AccountQueue settings = properties.getAccountQueue();
+        this.enabled = settings.isEnabled();
+        this.maxWait = settings.getMaxWait();
+        this.retryAfter = Duration.ofSeconds(Math.max(1, settings.getMaxWait().toSeconds()));
+        int stripeCount = settings.getStripes() <= 1 ? 1 : Integer.highestOneBit(settings.getStripes() - 1) << 1;
+        this.stripes = new ReentrantLock[enabled ? stripeCount : 0];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock(true);
+        }
+        log.info("Account transfer queue: enabled={}, stripes={}, maxWait={}", enabled, stripes.length, maxWait);
+    }
+
+    /**
+     * Runs {@code work} once no other transfer of either account is running on this instance.
+     *
+     * @throws ServiceBusyException if that takes longer than {@code max-wait}
+     */
+    public <T> T call(long firstAccountId, long secondAccountId, Supplier<T> work) {
+        if (!enabled) {
+            return work.get();
+        }
+        int first = stripe(firstAccountId);
+        int second = stripe(secondAccountId);
+        ReentrantLock lower = stripes[Math.min(first, second)];
+        ReentrantLock upper = first == second ? null : stripes[Math.max(first, second)];
+
+        long deadline = System.nanoTime() + maxWait.toNanos();
+        boolean waited = lock(lower, deadline, false);
+        try {
+            if (upper != null) {
+                waited = lock(upper, deadline, waited);
+            }
+            try {
+                admitted.increment();
+                if (waited) {
+                    contended.increment();
+                }
+                return work.get();
+            } finally {
+                if (upper != null) {
+                    upper.unlock();
+                }
+            }
+        } finally {
+            lower.unlock();
+        }
+    }
+
+    public AccountQueueStats stats() {
+        return new AccountQueueStats(enabled, stripes.length, waiting.get(), admitted.sum(), contended.sum(),
+            timeouts.sum());
+    }
+
+    /**
+     * Like the limiter, the first attempt also goes through the timed {@code tryLock}, which honours fairness, so
+     * new arrivals cannot overtake transfers already waiting for the account.
+     *
+     * @return whether this or an earlier lock of the same transfer had to wait
+     */
+    private boolean lock(ReentrantLock lock, long deadline, boolean waitedBefore) {
+        try {
+            if (lock.tryLock(0, TimeUnit.NANOSECONDS)) {
+                return waitedBefore;
+            }
+            waiting.incrementAndGet();
+            try {
+                if (!lock.tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    timeouts.increment();
+                    throw new ServiceBusyException("account busy for more than " + maxWait, retryAfter);
+                }
+            } finally {
+                waiting.decrementAndGet();
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("interrupted while waiting for the account", retryAfter);
+        }
+    }
+
+    /**
+     * Spreads sequential ids over the stripes; the multiplier is the 64-bit golden ratio.
+     */
+    private int stripe(long accountId) {
+        return (int) ((accountId * 0x9E3779B97F4A7C15L) >>> 32) & (stripes.length - 1);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.paymenttransfer.service.concurrency;
+
+/**
+ * Point-in-time counters of {@link AccountBalanceSlots}.
+ *
+ * @param accounts accounts whose balance is striped
+ * @param credits  credits added to a slot instead of the account row
+ * @param sweeps   debits that had to sweep the slots into the account balance
+ */
+public record BalanceSlotStats(int accounts, long credits, long sweeps) {
+}
@@ -0,0 +1,40 @@
+package com.example.paymenttransfer.service.concurrency;
+
+import org.springframework.transaction.annotation.Isolation;
+
+/**
+ * Concurrency control used by {@link com.example.paymenttransfer.service.TransferService}.
+ */
+public enum ConcurrencyMode {
+    /**
+     * Both accounts are locked with {@code SELECT ... FOR UPDATE} in ascending id order at READ COMMITTED,
+     * so opposite-direction transfers cannot deadlock.
+     */
+    PESSIMISTIC(Isolation.READ_COMMITTED, true),
+    /**
+     * Accounts are read without locks at READ COMMITTED; concurrent updates are detected by the
+     * {@code @Version} column on {@code Account} and the transfer is retried.
+     */
+    OPTIMISTIC(Isolation.READ_COMMITTED, false),
+    /**
+     * Accounts are read without locks at SERIALIZABLE; serialization failures and deadlocks
+     * (SQLSTATE 40001 / 40P01) are retried.
+     */
+    SERIALIZABLE(Isolation.SERIALIZABLE, false);
+
+    private final Isolation isolation;
+    private final boolean locksAccounts;
+
+    ConcurrencyMode(Isolation isolation, boolean locksAccounts) {
+        this.isolation = isolation;
+        this.locksAccounts = locksAccounts;
+    }
+
+    public Isolation isolation() {
+        return isolation;
+    }
+
+    public boolean locksAccounts() {
+        return locksAccounts;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.paymenttransfer.service.concurrency;
+
+/**
+ * Point-in-time counters of one {@link ConcurrencyMode}.
+ *
+ * @param attempts               transaction attempts started, including retries
+ * @param retries                attempts that failed with a retryable concurrency error and were run again
+ * @param aborts                 transfers given up after exhausting the retry budget
+ * @param optimisticLockFailures attempts that found a stale {@code account.version}
+ * @param serializationFailures  attempts rolled back by the database with SQLSTATE 40001
+ * @param deadlocks              attempts chosen as the deadlock victim (SQLSTATE 40P01)
+ */
+public record ConcurrencyStats(ConcurrencyMode mode, long attempts, long retries, long aborts,
+                               long optimisticLockFailures, long serializationFailures, long deadlocks) {
+
+    /**
+     * Retryable concurrency errors seen, whether or not they were retried.
+     */
+    public long conflicts() {
+        return optimisticLockFailures + serializationFailures + deadlocks;
+    }
+}
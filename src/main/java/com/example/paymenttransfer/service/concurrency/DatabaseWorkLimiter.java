@@ -0,0 +1,158 @@
+package com.example.paymenttransfer.service.concurrency;
+
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.errors.ServiceBusyException;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Admits as many units of database work at a time as the connection pool has connections, so a burst waits here, in
+ * a bounded queue with a short timeout, instead of piling up inside Hikari for its full {@code connection-timeout}.
+ * A request that finds the queue full, or that waits longer than {@code max-wait}, fails with
+ * {@link ServiceBusyException} ({@code 503 Service Unavailable}).
+ * <p>
+ * Request threads are cheap with virtual threads, so this is what bounds the database work they can start. A permit
+ * must be taken outside the transaction it covers: entry points that open their transaction programmatically call
+ * {@link #call} themselves, {@code @Transactional} services are wrapped by the resource that calls them. Permits are
+ * not reentrant, so limited work must not call other limited work.
+ * <p>
+ * The limiter bean admits transfers and other short units of work. Work that holds a connection for much longer,
+ * such as a streamed export, gets a small limiter of its own, created with {@link #DatabaseWorkLimiter(String,
+ * boolean, int, int, Duration)}; the connections it may hold are then left out of the bean's share of the pool.
+ */
+@Component
+@Slf4j
+public class DatabaseWorkLimiter {
+
+    private final String name;
+    private final boolean enabled;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final Duration maxWait;
+    private final Duration retryAfter;
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder waited = new LongAdder();
+    private final LongAdder rejectedQueueFull = new LongAdder();
+    private final LongAdder rejectedTimeout = new LongAdder();
+
+    /**
+     * With {@code max-concurrent} at {@code 0}, admits as many units as the primary pool has connections, less the
+     * {@code payment.transfer.report.export-max-concurrent} exports may hold on it unless they read from a replica.
+     */
+    @Autowired
+    public DatabaseWorkLimiter(TransferProperties properties, DataSource dataSource) {
+        this("transfer", properties.getLimiter().isEnabled(), transferPermits(properties, dataSource),
+            properties.getLimiter().getMaxQueued(), properties.getLimiter().getMaxWait());
+    }
+
+    public DatabaseWorkLimiter(String name, boolean enabled, int maxConcurrent, int maxQueued, Duration maxWait) {
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.enabled = enabled && maxConcurrent > 0;
+        if (enabled && !this.enabled) {
+            log.warn("Database work limiter '{}' disabled: the connection pool size is unknown, "
+                + "set payment.transfer.limiter.max-concurrent", name);
+        }
+        this.maxQueued = Math.max(0, maxQueued);
+        this.maxWait = maxWait;
+        this.retryAfter = Duration.ofSeconds(Math.max(1, maxWait.toSeconds()));
+        this.permits = new Semaphore(Math.max(1, maxConcurrent), true);
+        log.info("Database work limiter '{}': enabled={}, maxConcurrent={}, maxQueued={}, maxWait={}",
+            name, this.enabled, maxConcurrent, this.maxQueued, maxWait);
+    }
+
+    private static int transferPermits(TransferProperties properties, DataSource dataSource) {
+        if (properties.getLimiter().getMaxConcurrent() > 0) {
+            return properties.getLimiter().getMaxConcurrent();
+        }
+        int poolSize = primaryPoolSize(dataSource);
+        int exportConnections = properties.getReplica().isEnabled()
+            ? 0 : properties.getReport().getExportMaxConcurrent();
+        return poolSize == 0 ? 0 : Math.max(1, poolSize - exportConnections);
+    }
+
+    /**
+     * Size of the Hikari pool behind the data source, which with a read replica is wrapped in a routing proxy.
+     */
+    private static int primaryPoolSize(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class)
+                ? dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize()
+                : 0;
+        } catch (SQLException e) {
+            return 0;
+        }
+    }
+
+    public <T> T call(Supplier<T> work) {
+        if (!enabled) {
+            return work.get();
+        }
+        acquire();
+        try {
+            return work.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    public void run(Runnable work) {
+        call(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public LimiterStats stats() {
+        return new LimiterStats(enabled, maxConcurrent, enabled ? maxConcurrent - permits.availablePermits() : 0,
+            queued.get(), admitted.sum(), waited.sum(), rejectedQueueFull.sum(), rejectedTimeout.sum());
+    }
+
+    /**
+     * The untimed {@code tryAcquire()} would let new arrivals overtake the queue, so even the first attempt goes
+     * through the fair, timed variant.
+     */
+    private void acquire() {
+        try {
+            if (permits.tryAcquire(0, TimeUnit.NANOSECONDS)) {
+                admitted.increment();
+                return;
+            }
+            if (queued.incrementAndGet() > maxQueued) {
+                queued.decrementAndGet();
+                rejectedQueueFull.increment();
+                throw new ServiceBusyException("too many queued requests", retryAfter);
+            }
+            try {
+                if (!permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS)) {
+                    rejectedTimeout.increment();
+                    throw new ServiceBusyException("no database capacity within " + maxWait, retryAfter);
+                }
+            } finally {
+                queued.decrementAndGet();
+            }
+            admitted.increment();
+            waited.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("interrupted while queued", retryAfter);
+        }
+    }
+}
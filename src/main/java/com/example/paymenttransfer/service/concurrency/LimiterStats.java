@@ -0,0 +1,17 @@
+package com.example.paymenttransfer.service.concurrency;
+
+/**
+ * Point-in-time counters of the {@link DatabaseWorkLimiter}.
+ *
+ * @param enabled           whether requests are limited at all
+ * @param maxConcurrent     units of database work admitted at once
+ * @param inFlight          units currently holding a permit
+ * @param queued            requests currently waiting for a permit
+ * @param admitted          requests that got a permit, immediately or after waiting
+ * @param waited            admitted requests that had to queue first
+ * @param rejectedQueueFull requests rejected because the queue was full
+ * @param rejectedTimeout   requests rejected after waiting {@code max-wait}
+ */
+public record LimiterStats(boolean enabled, int maxConcurrent, int inFlight, int queued, long admitted, long waited,
+                           long rejectedQueueFull, long rejectedTimeout) {
+}
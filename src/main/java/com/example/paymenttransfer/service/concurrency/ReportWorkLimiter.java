@@ -0,0 +1,54 @@
+package com.example.paymenttransfer.service.concurrency;
+
+import com.example.paymenttransfer.config.ReplicaDataSource;
+import com.example.paymenttransfer.config.TransferProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Admits report pages. With a read replica they run on the replica pool, so they take permits of a {@code replica}
+ * limiter sized from that pool, less the {@code payment.transfer.report.export-max-concurrent} connections exports may
+ * hold on it, and leave the primary's permits to transfers. Only while the {@link ReplicaDataSource} serves read-only
+ * transactions from the primary do pages take permits of the primary {@link DatabaseWorkLimiter}.
+ * <p>
+ * The replica's state is read when the page is admitted, so a page admitted on replica permits may still run on the
+ * primary if the replica falls behind, or has no free connection, in the meantime.
+ */
+@Component
+public class ReportWorkLimiter {
+
+    private final DatabaseWorkLimiter primaryLimiter;
+    private final ReplicaDataSource replicaDataSource;
+    private final DatabaseWorkLimiter replicaLimiter;
+
+    public ReportWorkLimiter(DatabaseWorkLimiter primaryLimiter,
+                             ObjectProvider<ReplicaDataSource> replicaDataSource,
+                             TransferProperties properties) {
+        this.primaryLimiter = primaryLimiter;
+        this.replicaDataSource = replicaDataSource.getIfAvailable();
+        this.replicaLimiter = this.replicaDataSource == null ? null : new DatabaseWorkLimiter("replica",
+            properties.getLimiter().isEnabled(),
+            Math.max(1, properties.getReplica().getMaximumPoolSize()
+                - properties.getReport().getExportMaxConcurrent()),
+            properties.getLimiter().getMaxQueued(),
+            properties.getLimiter().getMaxWait());
+    }
+
+    public <T> T call(Supplier<T> work) {
+        return onReplica() ? replicaLimiter.call(work) : primaryLimiter.call(work);
+    }
+
+    /**
+     * The limiter of pages served by the replica, if there is one.
+     */
+    public Optional<DatabaseWorkLimiter> replicaLimiter() {
+        return Optional.ofNullable(replicaLimiter);
+    }
+
+    private boolean onReplica() {
+        return replicaLimiter != null && replicaDataSource.stats().usable();
+    }
+}
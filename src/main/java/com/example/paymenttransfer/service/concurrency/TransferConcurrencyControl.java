@@ -0,0 +1,160 @@
+package com.example.paymenttransfer.service.concurrency;
+
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.errors.ConcurrentTransferException;
+import com.example.paymenttransfer.monitoring.TransferMetrics;
+import jakarta.persistence.OptimisticLockException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs transfer work in a transaction configured for the active {@link ConcurrencyMode} and retries it, with
+ * bounded and jittered exponential backoff, when it loses a race against a concurrent transfer. The begin and commit
+ * of each attempt are timed as {@link TransferMetrics.Phase#BEGIN} and {@link TransferMetrics.Phase#COMMIT}.
+ */
+@Component
+@Slf4j
+public class TransferConcurrencyControl {
+
+    private static final String SERIALIZATION_FAILURE = "40001";
+    private static final String DEADLOCK_DETECTED = "40P01";
+
+    private final TransferProperties.Concurrency settings;
+    private final TransferMetrics transferMetrics;
+    private final TransactionTemplate transactionTemplate;
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder aborts = new LongAdder();
+    private final LongAdder optimisticLockFailures = new LongAdder();
+    private final LongAdder serializationFailures = new LongAdder();
+    private final LongAdder deadlocks = new LongAdder();
+
+    public TransferConcurrencyControl(PlatformTransactionManager transactionManager, TransferProperties properties,
+                                      TransferMetrics transferMetrics) {
+        this.settings = properties.getConcurrency();
+        this.transferMetrics = transferMetrics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(settings.getMode().isolation().value());
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRED);
+    }
+
+    public ConcurrencyMode mode() {
+        return settings.getMode();
+    }
+
+    /**
+     * Executes {@code work} in a new transaction, retrying retryable concurrency failures. When the caller already
+     * runs inside a transaction the work joins it and is not retried, since the outer transaction is doomed anyway.
+     */
+    public <T> T execute(Supplier<T> work) {
+        return execute(transactionTemplate, work);
+    }
+
+    /**
+     * As {@link #execute(Supplier)}, in a transaction of {@code transactionTemplate} rather than one of the
+     * concurrency mode, for work with transaction settings of its own, such as the asynchronous workers.
+     */
+    public <T> T execute(TransactionTemplate transactionTemplate, Supplier<T> work) {
+        ConcurrencyMode mode = mode();
+        boolean joinsOuterTransaction = TransactionSynchronizationManager.isActualTransactionActive();
+        int maxAttempts = joinsOuterTransaction ? 1 : Math.max(1, settings.getMaxAttempts());
+
+        for (int attempt = 1; ; attempt++) {
+            attempts.increment();
+            try {
+                return joinsOuterTransaction
+                    ? transactionTemplate.execute(status -> work.get())
+                    : timedAttempt(transactionTemplate, work);
+            } catch (RuntimeException e) {
+                LongAdder cause = conflictCounter(e);
+                if (cause == null) {
+                    throw e;
+                }
+                cause.increment();
+                if (attempt >= maxAttempts) {
+                    aborts.increment();
+                    log.error("Transfer aborted after {} attempts in {} mode: {}", attempt, mode, e.getMessage());
+                    throw new ConcurrentTransferException(attempt, e);
+                }
+                retries.increment();
+                Duration backoff = backoff(attempt);
+                log.warn("Concurrency conflict in {} mode (attempt {}/{}), retrying in {} ms: {}",
+                    mode, attempt, maxAttempts, backoff.toMillis(), e.getMessage());
+                sleep(backoff);
+            }
+        }
+    }
+
+    public ConcurrencyStats stats() {
+        return new ConcurrencyStats(mode(), attempts.sum(), retries.sum(), aborts.sum(),
+            optimisticLockFailures.sum(), serializationFailures.sum(), deadlocks.sum());
+    }
+
+    private <T> T timedAttempt(TransactionTemplate transactionTemplate, Supplier<T> work) {
+        long started = System.nanoTime();
+        long[] workFinished = {0};
+        try {
+            return transactionTemplate.execute(status -> {
+                transferMetrics.record(TransferMetrics.Phase.BEGIN, started);
+                T result = work.get();
+                workFinished[0] = System.nanoTime();
+                return result;
+            });
+        } finally {
+            if (workFinished[0] != 0) {
+                transferMetrics.record(TransferMetrics.Phase.COMMIT, workFinished[0]);
+            }
+        }
+    }
+
+    /**
+     * Returns the counter of the retryable concurrency error behind {@code error}, or {@code null} when the error is
+     * not retryable.
+     */
+    private LongAdder conflictCounter(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OptimisticLockingFailureException || cause instanceof OptimisticLockException) {
+                return optimisticLockFailures;
+            }
+            if (cause instanceof SQLException sqlException) {
+                if (SERIALIZATION_FAILURE.equals(sqlException.getSQLState())) {
+                    return serializationFailures;
+                }
+                if (DEADLOCK_DETECTED.equals(sqlException.getSQLState())) {
+                    return deadlocks;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Full-jitter exponential backoff: a random delay between zero and {@code initial * 2^(attempt - 1)},
+     * capped at the configured maximum.
+     */
+    private Duration backoff(int attempt) {
+        long initial = settings.getInitialBackoff().toMillis();
+        long ceiling = Math.min(settings.getMaxBackoff().toMillis(), initial << Math.min(attempt - 1, 20));
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+
+    private void sleep(Duration backoff) {
+        try {
+            Thread.sleep(backoff);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry transfer", e);
+        }
+    }
+}
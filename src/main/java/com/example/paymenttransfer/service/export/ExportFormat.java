@@ -0,0 +1,50 @@
+package com.example.paymenttransfer.service.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+public enum ExportFormat {
+    /**
+     * One JSON object per line, with the same field names and value formats as the report endpoints.
+     */
+    NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson") {
+        @Override
+        public ExportRowWriter open(OutputStream out, List<String> columns, ObjectMapper objectMapper)
+                throws IOException {
+            return new NdjsonRowWriter(out, columns, objectMapper);
+        }
+    },
+    /**
+     * RFC 4180 CSV with a header row.
+     */
+    CSV(MediaType.parseMediaType("text/csv"), "csv") {
+        @Override
+        public ExportRowWriter open(OutputStream out, List<String> columns, ObjectMapper objectMapper)
+                throws IOException {
+            return new CsvRowWriter(out, columns);
+        }
+    };
+
+    private final MediaType mediaType;
+    private final String fileExtension;
+
+    ExportFormat(MediaType mediaType, String fileExtension) {
+        this.mediaType = mediaType;
+        this.fileExtension = fileExtension;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    public String fileExtension() {
+        return fileExtension;
+    }
+
+    public abstract ExportRowWriter open(OutputStream out, List<String> columns, ObjectMapper objectMapper)
+            throws IOException;
+}
@@ -0,0 +1,19 @@
+package com.example.paymenttransfer.service.export;
+
+import java.io.IOException;
+
+/**
+ * Writes export rows straight to the response stream, one at a time, so nothing but the current row is held.
+ */
+public interface ExportRowWriter {
+
+    /**
+     * Writes one row; values are in the order of the columns the writer was opened with.
+     */
+    void writeRow(Object[] values) throws IOException;
+
+    /**
+     * Flushes buffered output; the underlying stream stays open and is closed by the container.
+     */
+    void finish() throws IOException;
+}
@@ -0,0 +1,254 @@
+package com.example.paymenttransfer.service.idempotency;
+
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.domain.IdempotencyRecord;
+import com.example.paymenttransfer.domain.dto.TransferResponseDTO;
+import com.example.paymenttransfer.domain.enums.TransactionStatus;
+import com.example.paymenttransfer.repository.IdempotencyRecordRepository;
+import com.example.paymenttransfer.service.TransferResponses;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory front for idempotency checks.
+ * <p>
+ * A bloom filter over every stored key hash answers "definitely new" for first attempts, which are the vast
+ * majority, without a lookup query. A bounded Caffeine cache keeps the responses of recent transfers so client retries
+ * are answered from memory, each until its key expires; its lookups take no global lock. Both are only fed after the
+ * transfer commits, and both are rebuilt from the database on startup; until the first rebuild finishes every key is
+ * treated as possibly seen and checked against the database.
+ * Expired keys are purged from the database but cannot be removed from the filter, so it is rebuilt again once
+ * enough of its keys have been purged.
+ * <p>
+ * The cache is an optimisation only: the unique index on the key hash still rejects a duplicate that was committed
+ * by another instance and therefore is not in this instance's filter.
+ */
+@Component
+@Slf4j
+public class IdempotencyCache {
+
+    private static final int KEY_FETCH_SIZE = 10_000;
+
+    private final TransferProperties.IdempotencyCache settings;
+    private final JdbcTemplate jdbcTemplate;
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final TransactionTemplate scanTransaction;
+    private final Cache<IdempotencyKeyHash, CachedResponse> recentResponses;
+    private final LongAdder responseHits = new LongAdder();
+    private final LongAdder bloomNegatives = new LongAdder();
+    private final LongAdder bloomPositives = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder purgedSinceRebuild = new LongAdder();
+    private volatile BloomFilter bloomFilter;
+    private volatile BloomFilter rebuilding;
+    private volatile boolean ready;
+
+    public IdempotencyCache(TransferProperties properties,
+                            JdbcTemplate jdbcTemplate,
+                            IdempotencyRecordRepository idempotencyRecordRepository,
+                            PlatformTransactionManager transactionManager) {
+        this.settings = properties.getIdempotencyCache();
+        this.jdbcTemplate = jdbcTemplate;
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        // Not read-only: the rebuild must see every committed key, so it never runs on a lagging replica.
+        this.scanTransaction = new TransactionTemplate(transactionManager);
+        // Maintenance runs on the calling thread: evicting an entry is cheap, and the size bound then holds exactly.
+        this.recentResponses = Caffeine.newBuilder()
+            .maximumSize(Math.max(0, settings.getResponseCacheSize()))
+            .expireAfter(new ExpireWithKey())
+            .executor(Runnable::run)
+            .build();
+        this.bloomFilter = new BloomFilter(settings.getExpectedKeys(), settings.getFalsePositiveRate());
+    }
+
+    /**
+     * Returns the response of a recently processed transfer with this key, or {@code null}.
+     */
+    public TransferResponseDTO cachedResponse(IdempotencyKeyHash keyHash) {
+        if (!settings.isEnabled()) {
+            return null;
+        }
+        CachedResponse cached = recentResponses.getIfPresent(keyHash);
+        if (cached == null) {
+            return null;
+        }
+        responseHits.increment();
+        return cached.response();
+    }
+
+    /**
+     * {@code false} means the key has definitely not been processed and the lookup query can be skipped.
+     */
+    public boolean mightHaveBeenProcessed(IdempotencyKeyHash keyHash) {
+        if (!settings.isEnabled() || !ready) {
+            return true;
+        }
+        if (bloomFilter.mightContain(keyHash.bytes())) {
+            bloomPositives.increment();
+            return true;
+        }
+        bloomNegatives.increment();
+        return false;
+    }
+
+    /**
+     * Records that a bloom positive was not confirmed by the database.
+     */
+    public void recordFalsePositive() {
+        if (ready) {
+            falsePositives.increment();
+        }
+    }
+
+    /**
+     * Caches the response of an already committed transfer found by a lookup query. Responses of transfers still
+     * waiting for an asynchronous worker are not cached, since their status is about to change.
+     */
+    public void rememberResponse(IdempotencyKeyHash keyHash, TransferResponseDTO response, Instant expiresAt) {
+        if (settings.isEnabled() && response.getStatus() != TransactionStatus.PENDING) {
+            recentResponses.put(keyHash, new CachedResponse(response, expiresAt));
+        }
+    }
+
+    /**
+     * Registers a newly processed key. Inside a transaction the key becomes visible only once it commits, so a
+     * rolled back transfer never answers a retry from memory.
+     */
+    public void rememberProcessed(IdempotencyKeyHash keyHash, TransferResponseDTO replayResponse, Instant expiresAt) {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addProcessed(keyHash, replayResponse, expiresAt);
+                }
+            });
+        } else {
+            addProcessed(keyHash, replayResponse, expiresAt);
+        }
+    }
+
+    /**
+     * Called by the purge job; rebuilds the filter once a quarter of its keys no longer exist in the database.
+     */
+    public void onExpiredKeysPurged(long purged) {
+        purgedSinceRebuild.add(purged);
+        if (settings.isEnabled() && purgedSinceRebuild.sum() * 4 > bloomFilter.insertions()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Reloads the bloom filter from every stored key hash and warms the response cache with the most recent
+     * transfers. Expired records that were not purged yet are included on purpose: a key that hits one must go
+     * through the lookup path, which deletes the stale record before the key is reused. The previous filter keeps
+     * answering until the new one is complete.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        long started = System.nanoTime();
+
+        Long storedKeys = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM idempotency_record", Long.class);
+        BloomFilter rebuilt = new BloomFilter(
+            Math.max(settings.getExpectedKeys(), 2 * (storedKeys == null ? 0 : storedKeys)),
+            settings.getFalsePositiveRate());
+        // Keys committed from here on also go into the new filter through addProcessed, keys committed
+        // before are returned by the scan below, so nothing falls between the two.
+        rebuilding = rebuilt;
+        purgedSinceRebuild.reset();
+
+        JdbcTemplate keyScan = new JdbcTemplate(jdbcTemplate.getDataSource());
+        keyScan.setFetchSize(KEY_FETCH_SIZE);
+        scanTransaction.executeWithoutResult(status -> {
+            keyScan.query("SELECT key_hash FROM idempotency_record", rs -> {
+                rebuilt.put(rs.getBytes(1));
+            });
+
+            if (settings.getResponseCacheSize() > 0) {
+                idempotencyRecordRepository.findRecentActive(Instant.now(),
+                        PageRequest.of(0, settings.getResponseCacheSize()))
+                    .forEach(this::rememberRecord);
+            }
+        });
+        bloomFilter = rebuilt;
+        rebuilding = null;
+        ready = true;
+
+        log.info("Idempotency cache rebuilt in {} ms: {} keys in bloom filter ({} bits, {} hashes), "
+                + "{} cached responses",
+            (System.nanoTime() - started) / 1_000_000,
+            rebuilt.insertions(),
+            rebuilt.bitCount(),
+            rebuilt.hashCount(),
+            stats().cachedResponses());
+    }
+
+    public IdempotencyCacheStats stats() {
+        return new IdempotencyCacheStats(responseHits.sum(), bloomNegatives.sum(), bloomPositives.sum(),
+            falsePositives.sum(), bloomFilter.insertions(), (int) recentResponses.estimatedSize());
+    }
+
+    private void rememberRecord(IdempotencyRecord record) {
+        rememberResponse(IdempotencyKeyHash.fromBytes(record.getKeyHash()),
+            TransferResponses.fromExisting(record.getTransaction()),
+            record.getExpiresAt());
+    }
+
+    private void addProcessed(IdempotencyKeyHash keyHash, TransferResponseDTO replayResponse, Instant expiresAt) {
+        // Read the rebuild target before the current filter: if no rebuild is running yet, its scan will see this
+        // committed key; if one just finished, bloomFilter already points at the rebuilt filter.
+        BloomFilter next = rebuilding;
+        bloomFilter.put(keyHash.bytes());
+        if (next != null) {
+            next.put(keyHash.bytes());
+        }
+        rememberResponse(keyHash, replayResponse, expiresAt);
+    }
+
+    private record CachedResponse(TransferResponseDTO response, Instant expiresAt) {
+    }
+
+    /**
+     * Expire-after-write, with each entry living until its idempotency key expires rather than for a fixed time:
+     * reading an entry does not extend it.
+     */
+    private static final class ExpireWithKey implements Expiry<IdempotencyKeyHash, CachedResponse> {
+
+        @Override
+        public long expireAfterCreate(IdempotencyKeyHash key, CachedResponse value, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), value.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(IdempotencyKeyHash key, CachedResponse value, long currentTime,
+                                      long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(IdempotencyKeyHash key, CachedResponse value, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
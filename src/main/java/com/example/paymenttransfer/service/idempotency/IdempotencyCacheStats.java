@@ -0,0 +1,19 @@
+package com.example.paymenttransfer.service.idempotency;
+
+/**
+ * Point-in-time counters of the {@link IdempotencyCache}.
+ *
+ * @param responseHits    retries answered from the recent-response cache without touching the database
+ * @param bloomNegatives  keys the bloom filter reported as definitely new, so no lookup query was run
+ * @param bloomPositives  keys the bloom filter reported as possibly seen, each followed by a lookup query
+ * @param falsePositives  bloom positives the lookup query did not confirm
+ * @param bloomKeys       keys inserted into the bloom filter since the last rebuild
+ * @param cachedResponses entries currently held by the recent-response cache
+ */
+public record IdempotencyCacheStats(long responseHits, long bloomNegatives, long bloomPositives,
+                                    long falsePositives, long bloomKeys, int cachedResponses) {
+
+    public double falsePositiveRate() {
+        return bloomPositives == 0 ? 0 : (double) falsePositives / bloomPositives;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.paymenttransfer.service.idempotency;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Locale;
+
+/**
+ * Tells a concurrent transfer with the same idempotency key, rejected by the unique key on
+ * {@code idempotency_record.key_hash}, apart from any other integrity violation, which is a bug rather than a
+ * duplicate.
+ */
+public final class IdempotencyKeyConflicts {
+
+    /**
+     * Name of the unique constraint in the {@code idempotency-record} changelog and on the entity.
+     */
+    public static final String CONSTRAINT_NAME = "uk_idempotency_record_key_hash";
+
+    private IdempotencyKeyConflicts() {
+    }
+
+    /**
+     * Hibernate reports the violated constraint by name; a plain JDBC error (the {@code transfer_funds} function) only
+     * names it in the message, as do some drivers, so both are consulted along the cause chain.
+     */
+    public static boolean isKeyConflict(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && names(violation.getConstraintName())) {
+                return true;
+            }
+            if (names(cause.getMessage())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean names(String text) {
+        return text != null && text.toLowerCase(Locale.ROOT).contains(CONSTRAINT_NAME);
+    }
+}
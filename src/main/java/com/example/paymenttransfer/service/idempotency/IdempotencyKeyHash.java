@@ -0,0 +1,62 @@
+package com.example.paymenttransfer.service.idempotency;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 digest of a client supplied idempotency key, the form in which keys are stored and compared.
+ * <p>
+ * Must stay in sync with the {@code sha256(convert_to(key, 'UTF8'))} expression used by the
+ * {@code transfer_funds} database function.
+ */
+public final class IdempotencyKeyHash {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    private final byte[] bytes;
+    private final int hashCode;
+
+    private IdempotencyKeyHash(byte[] bytes) {
+        this.bytes = bytes;
+        this.hashCode = Arrays.hashCode(bytes);
+    }
+
+    public static IdempotencyKeyHash of(String idempotencyKey) {
+        return new IdempotencyKeyHash(SHA_256.get().digest(idempotencyKey.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public static IdempotencyKeyHash fromBytes(byte[] bytes) {
+        return new IdempotencyKeyHash(bytes.clone());
+    }
+
+    /**
+     * The digest itself; callers must not modify the returned array.
+     */
+    public byte[] bytes() {
+        return bytes;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || other instanceof IdempotencyKeyHash that && Arrays.equals(bytes, that.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return HexFormat.of().formatHex(bytes);
+    }
+}
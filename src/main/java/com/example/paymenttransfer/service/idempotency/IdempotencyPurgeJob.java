@@ -0,0 +1,50 @@
+package com.example.paymenttransfer.service.idempotency;
+
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.repository.IdempotencyRecordRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Deletes expired idempotency records in small batches, each in its own transaction, so the purge never holds
+ * locks for long and the key hash index only covers keys inside the TTL window.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyPurgeJob {
+
+    private static final int MAX_BATCHES_PER_RUN = 1000;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final IdempotencyCache idempotencyCache;
+    private final TransferProperties transferProperties;
+
+    @Scheduled(fixedDelayString = "${payment.transfer.idempotency.purge-interval:PT5M}",
+        initialDelayString = "${payment.transfer.idempotency.purge-interval:PT5M}")
+    public void purgeExpired() {
+        purgeExpiredBefore(Instant.now());
+    }
+
+    public long purgeExpiredBefore(Instant now) {
+        int batchSize = Math.max(1, transferProperties.getIdempotency().getPurgeBatchSize());
+        long purged = 0;
+        for (int batch = 0; batch < MAX_BATCHES_PER_RUN; batch++) {
+            int deleted = idempotencyRecordRepository.deleteExpiredBatch(now, batchSize);
+            purged += deleted;
+            if (deleted < batchSize) {
+                break;
+            }
+        }
+
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency records", purged);
+            idempotencyCache.onExpiredKeysPurged(purged);
+        }
+        return purged;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.paymenttransfer.service.ledger;
+
+import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+
+/**
+ * In-memory account of the ledger, with the balance in minor units of its currency. Once the engine runs, the balance
+ * is only read and written by the shard owning the account.
+ */
+final class LedgerAccount {
+
+    private final long id;
+    private final String accountNumber;
+    private final CurrencyEnum currency;
+    private long balance;
+
+    LedgerAccount(long id, String accountNumber, CurrencyEnum currency, long balance) {
+        this.id = id;
+        this.accountNumber = accountNumber;
+        this.currency = currency;
+        this.balance = balance;
+    }
+
+    long id() {
+        return id;
+    }
+
+    String accountNumber() {
+        return accountNumber;
+    }
+
+    CurrencyEnum currency() {
+        return currency;
+    }
+
+    long balance() {
+        return balance;
+    }
+
+    void setBalance(long balance) {
+        this.balance = balance;
+    }
+
+    boolean hasSufficientFunds(long amount) {
+        return balance >= amount;
+    }
+
+    LedgerAccount copy() {
+        return new LedgerAccount(id, accountNumber, currency, balance);
+    }
+}
@@ -0,0 +1,536 @@
+package com.example.paymenttransfer.service.ledger;
+
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.domain.Account;
+import com.example.paymenttransfer.domain.IdempotencyRecord;
+import com.example.paymenttransfer.domain.Money;
+import com.example.paymenttransfer.domain.dto.TransferRequestDTO;
+import com.example.paymenttransfer.domain.dto.TransferResponseDTO;
+import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+import com.example.paymenttransfer.domain.enums.TransactionStatus;
+import com.example.paymenttransfer.errors.DuplicateTransactionException;
+import com.example.paymenttransfer.errors.InsufficientFundsException;
+import com.example.paymenttransfer.errors.InvalidTransferException;
+import com.example.paymenttransfer.errors.ServiceBusyException;
+import com.example.paymenttransfer.monitoring.TransferMetrics;
+import com.example.paymenttransfer.repository.IdempotencyRecordRepository;
+import com.example.paymenttransfer.service.TransactionIds;
+import com.example.paymenttransfer.service.TransferExecutor;
+import com.example.paymenttransfer.service.TransferResponses;
+import com.example.paymenttransfer.service.concurrency.AccountBalanceSlots;
+import com.example.paymenttransfer.service.TransferRequestValidator;
+import com.example.paymenttransfer.service.idempotency.IdempotencyCache;
+import com.example.paymenttransfer.service.idempotency.IdempotencyKeyHash;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ledger execution mode: balances live in memory and transfers take no database lock.
+ * <p>
+ * Accounts are partitioned by id modulo {@code payment.transfer.ledger.shards}. Each shard is a single thread that
+ * alone reads and writes the balances of its accounts, so transfers apply without locks, in arrival order per shard.
+ * Every change is appended to the {@link LedgerJournal}, and a caller is answered only once its entries are durable.
+ * <p>
+ * A transfer within one shard is a single {@link LedgerEntry.Type#TRANSFER} entry. Across shards it takes two steps:
+ * the source shard checks the funds, debits and journals a {@link LedgerEntry.Type#DEBIT}, then hands the credit to
+ * the destination shard, which journals the {@link LedgerEntry.Type#CREDIT}. A durable debit commits the transfer;
+ * a credit can never be refused, and one lost to a crash is re-issued on startup from the debits left open.
+ * <p>
+ * On startup the state is rebuilt from the latest snapshot plus the journal tail. Accounts the ledger has not seen
+ * yet are loaded from the database on first use, after which the ledger owns their balance. Amounts and balances are
+ * held as {@code long} minor units of the account's currency (see {@link Money}); the {@code BigDecimal}s of the
+ * request, the response and the database are converted exactly at the edges. The
+ * {@link LedgerProjector} writes transactions, audits and balances to the database asynchronously, where reports
+ * read them. This mode assumes a single instance owns the ledger directory and that no other mode writes balances
+ * while it runs; batch and asynchronous transfers are therefore not available in it.
+ * <p>
+ * Idempotency keys the ledger has handled are kept in memory and rebuilt with the state. A key it does not know may
+ * still have been used by another mode before the switch to this one, so its active {@code idempotency_record} is
+ * looked up the way those modes do, through the {@link IdempotencyCache}, and its transfer is replayed instead of
+ * being executed again.
+ */
+@Slf4j
+public class LedgerEngine implements TransferExecutor {
+
+    private final AccountBalanceSlots accountBalanceSlots;
+    private final LedgerProjector projector;
+    private final IdempotencyCache idempotencyCache;
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final TransferMetrics transferMetrics;
+    private final TransferProperties.Ledger settings;
+    private final Duration keyTtl;
+    private final Path directory;
+    private final Map<Long, LedgerAccount> accounts = new ConcurrentHashMap<>();
+    private final Map<IdempotencyKeyHash, KeyedTransfer> keys = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder transfers = new LongAdder();
+    private final LongAdder crossShard = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private Shard[] shards;
+    private LedgerJournal journal;
+    private LedgerSnapshotter snapshotter;
+    private Thread projectorThread;
+    private volatile long projectedSequence;
+    private volatile boolean projecting;
+    private volatile boolean accepting;
+
+    public LedgerEngine(AccountBalanceSlots accountBalanceSlots,
+                        LedgerProjector projector,
+                        IdempotencyCache idempotencyCache,
+                        IdempotencyRecordRepository idempotencyRecordRepository,
+                        TransferMetrics transferMetrics,
+                        TransferProperties properties) {
+        this.accountBalanceSlots = accountBalanceSlots;
+        this.projector = projector;
+        this.idempotencyCache = idempotencyCache;
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.transferMetrics = transferMetrics;
+        this.settings = properties.getLedger();
+        this.keyTtl = properties.getIdempotency().getTtl();
+        this.directory = Path.of(settings.getDirectory());
+    }
+
+    @PostConstruct
+    public void start() {
+        try {
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ledger recovery failed in " + directory.toAbsolutePath(), e);
+        }
+        accepting = true;
+        log.info("Ledger started: directory={}, shards={}, sequence={}, accounts={}, keys={}",
+            directory.toAbsolutePath(), shards.length, journal.durableSequence(), accounts.size(), keys.size());
+    }
+
+    /**
+     * Stops taking transfers, waits for those in flight, then lets the projector and the snapshotter catch up with
+     * the journal before closing it.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        accepting = false;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        for (Shard shard : shards) {
+            shard.stop();
+        }
+        while (projectedSequence < journal.durableSequence() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        projecting = false;
+        projectorThread.join(TimeUnit.SECONDS.toMillis(10));
+        snapshotter.stop();
+        journal.close();
+        log.info("Ledger stopped at sequence {}, projected up to {}", journal.durableSequence(), projectedSequence);
+    }
+
+    @Override
+    public TransferResponseDTO transferFunds(TransferRequestDTO request) {
+        long started = System.nanoTime();
+        inFlight.incrementAndGet();
+        try {
+            TransferResponseDTO response = execute(request);
+            transferMetrics.transferCompleted(started);
+            return response;
+        } catch (RuntimeException e) {
+            transferMetrics.transferFailed(started, e);
+            throw e;
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    public LedgerStats stats() {
+        return new LedgerStats(transfers.sum(), crossShard.sum(), rejected.sum(), duplicates.sum(), journal.groups(),
+            journal.appended(), journal.durableSequence(), projectedSequence, snapshotter.snapshotSequence(),
+            accounts.size(), keys.size());
+    }
+
+    private TransferResponseDTO execute(TransferRequestDTO request) {
+        if (!accepting) {
+            throw new ServiceBusyException("ledger is not running", Duration.ofSeconds(1));
+        }
+        IdempotencyKeyHash keyHash = IdempotencyKeyHash.of(request.getIdempotencyKey());
+        KeyedTransfer existing = keys.get(keyHash);
+        if (existing != null) {
+            return duplicate(existing, request);
+        }
+        TransferResponseDTO processedBeforeLedger = findProcessedTransfer(keyHash);
+        if (processedBeforeLedger != null) {
+            log.warn("Duplicate transaction detected with idempotency key: {}", request.getIdempotencyKey());
+            duplicates.increment();
+            return processedBeforeLedger;
+        }
+
+        TransferRequestValidator.validate(request);
+        LedgerAccount source = account(request.getSourceAccountId());
+        LedgerAccount destination = account(request.getDestinationAccountId());
+        long amount = minorUnits(request.getAmount(), source.currency());
+
+        KeyedTransfer keyed = new KeyedTransfer(new CompletableFuture<>(), Instant.now());
+        existing = keys.putIfAbsent(keyHash, keyed);
+        if (existing != null) {
+            return duplicate(existing, request);
+        }
+        Shard shard = shardOf(source.id());
+        if (!shard.submit(() -> shard.transfer(amount, keyHash, keyed, source, destination))) {
+            keys.remove(keyHash, keyed);
+            throw new ServiceBusyException("ledger shard " + shard.index + " is full", Duration.ofSeconds(1));
+        }
+        return await(keyed.response());
+    }
+
+    /**
+     * A key whose transfer is complete is answered with that transfer; one still in flight is a concurrent
+     * duplicate, reported the same way the database modes report it.
+     */
+    private TransferResponseDTO duplicate(KeyedTransfer existing, TransferRequestDTO request) {
+        CompletableFuture<TransferResponseDTO> response = existing.response();
+        if (!response.isDone() || response.isCompletedExceptionally()) {
+            throw new DuplicateTransactionException(request.getIdempotencyKey());
+        }
+        log.warn("Duplicate transaction detected with idempotency key: {}", request.getIdempotencyKey());
+        duplicates.increment();
+        TransferResponseDTO processed = response.join();
+        return TransferResponseDTO.builder()
+            .transactionId(processed.getTransactionId())
+            .status(processed.getStatus())
+            .message("Transfer already processed")
+            .details(processed.getDetails())
+            .build();
+    }
+
+    /**
+     * The transfer another mode processed with this key, if its record is still active. Most keys are new, and the
+     * bloom filter of the {@link IdempotencyCache} answers those without a query.
+     */
+    private TransferResponseDTO findProcessedTransfer(IdempotencyKeyHash keyHash) {
+        TransferResponseDTO cached = idempotencyCache.cachedResponse(keyHash);
+        if (cached != null || !idempotencyCache.mightHaveBeenProcessed(keyHash)) {
+            return cached;
+        }
+        Optional<IdempotencyRecord> existingRecord =
+            idempotencyRecordRepository.findActiveByKeyHash(keyHash.bytes(), Instant.now());
+        if (existingRecord.isEmpty()) {
+            idempotencyCache.recordFalsePositive();
+            return null;
+        }
+        TransferResponseDTO response = TransferResponses.fromExisting(existingRecord.get().getTransaction());
+        idempotencyCache.rememberResponse(keyHash, response, existingRecord.get().getExpiresAt());
+        return response;
+    }
+
+    /**
+     * Accounts not seen before are loaded from the database, with any balance slots swept in, and journaled as opened.
+     * The entry is queued before any transfer can use the account, so it always precedes them in the journal.
+     * <p>
+     * Loading and journaling happen outside the map, so the sweep's row lock and the journal write never block lookups
+     * of other accounts. Two first uses of an account may both get here: the load is idempotent, the second sweep
+     * finding the slots already empty, the loser of {@code putIfAbsent} discards its account, and replay keeps the
+     * first opened entry of an account, so a late duplicate cannot reset a balance transfers have since changed.
+     */
+    private LedgerAccount account(Long accountId) {
+        LedgerAccount account = accounts.get(accountId);
+        if (account != null) {
+            return account;
+        }
+        Account loaded = accountBalanceSlots.consolidate(accountId);
+        long balance = loaded.getFunds().minorUnits();
+        journal.append(LedgerEntry.accountOpened(accountId, loaded.getAccountNumber(), loaded.getCurrency(), balance,
+            now()));
+        LedgerAccount opened = new LedgerAccount(accountId, loaded.getAccountNumber(), loaded.getCurrency(), balance);
+        LedgerAccount existing = accounts.putIfAbsent(accountId, opened);
+        return existing != null ? existing : opened;
+    }
+
+    void expireKeys(Instant cutoff) {
+        keys.values().removeIf(keyed -> keyed.createdAt().isBefore(cutoff) && keyed.response().isDone());
+    }
+
+    private void recover() throws IOException {
+        LedgerState state = LedgerState.loadLatest(Files.createDirectories(directory));
+        long snapshotSequence = state.sequence();
+        journal = new LedgerJournal(directory, settings.getSegmentSize().toBytes(), settings.isFsync(),
+            settings.getMaxGroupSize());
+        long lastSequence = journal.recover(snapshotSequence, state::apply);
+        projectedSequence = projector.checkpoint();
+        if (projectedSequence > lastSequence) {
+            throw new IllegalStateException("Ledger projection checkpoint " + projectedSequence
+                + " is ahead of the journal in " + directory.toAbsolutePath() + ", which ends at " + lastSequence);
+        }
+        log.info("Ledger recovered: snapshot at {}, journal replayed up to {}, {} open debits",
+            snapshotSequence, lastSequence, state.openDebits().size());
+        journal.start();
+
+        state.accounts().forEach((id, account) -> accounts.put(id, account.copy()));
+        Instant cutoff = Instant.now().minus(keyTtl);
+        state.keys().forEach((keyHash, entry) -> {
+            if (!entry.timestamp().isBefore(cutoff)) {
+                keys.put(keyHash, new KeyedTransfer(CompletableFuture.completedFuture(completed(entry)),
+                    entry.timestamp()));
+            }
+        });
+
+        shards = new Shard[Math.max(1, settings.getShards())];
+        for (int index = 0; index < shards.length; index++) {
+            shards[index] = new Shard(index);
+            shards[index].start();
+        }
+        List<LedgerEntry> openDebits = new ArrayList<>(state.openDebits().values());
+        for (LedgerEntry debit : openDebits) {
+            log.info("Re-issuing the credit of transaction {}", debit.transactionId());
+            Shard shard = shardOf(debit.destinationAccountId());
+            shard.send(() -> shard.credit(debit, null));
+        }
+
+        projecting = true;
+        projectorThread = new Thread(this::projectLoop, "ledger-projector");
+        projectorThread.setDaemon(true);
+        projectorThread.start();
+        snapshotter = new LedgerSnapshotter(journal, state, directory, settings.getSnapshotEvery(), keyTtl,
+            () -> projectedSequence, this::expireKeys);
+        snapshotter.start();
+    }
+
+    private void projectLoop() {
+        int batchSize = Math.max(1, settings.getProjectionBatchSize());
+        List<LedgerEntry> batch = new ArrayList<>(batchSize);
+        try (LedgerJournal.Reader reader = journal.reader(projectedSequence)) {
+            while (projecting) {
+                try {
+                    if (batch.isEmpty()) {
+                        LedgerEntry entry = reader.next(200, TimeUnit.MILLISECONDS);
+                        while (entry != null) {
+                            batch.add(entry);
+                            entry = batch.size() < batchSize ? reader.next(0, TimeUnit.NANOSECONDS) : null;
+                        }
+                        if (batch.isEmpty()) {
+                            continue;
+                        }
+                    }
+                    projector.project(batch);
+                    projectedSequence = batch.get(batch.size() - 1).sequence();
+                    batch.clear();
+                } catch (RuntimeException e) {
+                    log.error("Ledger projection of entries {} to {} failed, retrying", batch.get(0).sequence(),
+                        batch.get(batch.size() - 1).sequence(), e);
+                    Thread.sleep(1000);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.error("Ledger projection stopped at sequence {}: journal unreadable", projectedSequence, e);
+        }
+    }
+
+    private Shard shardOf(long accountId) {
+        return shards[(int) Math.floorMod(accountId, (long) shards.length)];
+    }
+
+    private TransferResponseDTO completed(LedgerEntry entry) {
+        return TransferResponseDTO.builder()
+            .transactionId(entry.transactionId())
+            .status(TransactionStatus.COMPLETED)
+            .message("Transfer completed successfully")
+            .details(TransferResponseDTO.TransferDetails.builder()
+                .sourceAccountId(entry.sourceAccountId())
+                .sourceAccountNumber(accounts.get(entry.sourceAccountId()).accountNumber())
+                .destinationAccountId(entry.destinationAccountId())
+                .destinationAccountNumber(accounts.get(entry.destinationAccountId()).accountNumber())
+                .amount(Money.toBigDecimal(entry.amount(), entry.currency()))
+                .currency(entry.currency())
+                .timestamp(entry.timestamp())
+                .build())
+            .build();
+    }
+
+    /**
+     * Completes {@code response} once {@code durable} does; {@code entry} is the entry that committed the transfer.
+     */
+    private void answerWhenDurable(CompletableFuture<Long> durable, LedgerEntry entry,
+                                   CompletableFuture<TransferResponseDTO> response) {
+        durable.whenComplete((sequence, error) -> {
+            if (error != null) {
+                response.completeExceptionally(error);
+            } else {
+                transfers.increment();
+                response.complete(completed(entry));
+            }
+        });
+    }
+
+    private static TransferResponseDTO await(CompletableFuture<TransferResponseDTO> response) {
+        try {
+            return response.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * The API accepts amounts with up to 17 integer digits, slightly more than a {@code long} of minor units holds.
+     */
+    private static long minorUnits(BigDecimal amount, CurrencyEnum currency) {
+        try {
+            return Money.toMinorUnits(amount, currency);
+        } catch (ArithmeticException e) {
+            throw new InvalidTransferException("Transfer amount " + amount.toPlainString()
+                + " cannot be represented in " + currency);
+        }
+    }
+
+    /**
+     * Journal timestamps are kept at the database's microsecond precision.
+     */
+    private static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private record KeyedTransfer(CompletableFuture<TransferResponseDTO> response, Instant createdAt) {
+    }
+
+    /**
+     * Single writer of the accounts mapped to it. Transfers are admitted up to {@code queue-capacity}; credits sent
+     * by other shards are always accepted, so two busy shards never wait on each other.
+     */
+    private final class Shard {
+
+        private final int index;
+        private final LinkedBlockingQueue<Runnable> commands = new LinkedBlockingQueue<>();
+        private final Semaphore capacity = new Semaphore(Math.max(1, settings.getQueueCapacity()));
+        private volatile boolean running;
+        private Thread thread;
+
+        private Shard(int index) {
+            this.index = index;
+        }
+
+        void start() {
+            running = true;
+            thread = new Thread(this::loop, "ledger-shard-" + index);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void stop() throws InterruptedException {
+            running = false;
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+
+        boolean submit(Runnable transfer) {
+            if (!capacity.tryAcquire()) {
+                return false;
+            }
+            commands.add(() -> {
+                try {
+                    transfer.run();
+                } finally {
+                    capacity.release();
+                }
+            });
+            return true;
+        }
+
+        void send(Runnable credit) {
+            commands.add(credit);
+        }
+
+        private void loop() {
+            while (running || !commands.isEmpty()) {
+                try {
+                    Runnable command = commands.poll(50, TimeUnit.MILLISECONDS);
+                    if (command != null) {
+                        command.run();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (RuntimeException e) {
+                    log.error("Unexpected failure in ledger shard {}", index, e);
+                }
+            }
+        }
+
+        void transfer(long amount, IdempotencyKeyHash keyHash, KeyedTransfer keyed, LedgerAccount source,
+                      LedgerAccount destination) {
+            Instant timestamp = now();
+            UUID transactionId = TransactionIds.next();
+            if (!source.hasSufficientFunds(amount)) {
+                InsufficientFundsException rejection =
+                    new InsufficientFundsException(source.id(), Money.toBigDecimal(amount, source.currency()),
+                        Money.toBigDecimal(source.balance(), source.currency()));
+                log.warn("Transfer declined: {}", rejection.getMessage());
+                keys.remove(keyHash, keyed);
+                rejected.increment();
+                journal.append(LedgerEntry.rejected(transactionId, source.id(), destination.id(), amount,
+                        source.currency(), timestamp, rejection.getMessage()))
+                    .whenComplete((sequence, error) ->
+                        keyed.response().completeExceptionally(error != null ? error : rejection));
+                return;
+            }
+
+            // Transfers conserve the total of a currency, so a balance can only overflow if that total does.
+            long sourceBalance = source.balance() - amount;
+            source.setBalance(sourceBalance);
+            Shard destinationShard = shardOf(destination.id());
+            if (destinationShard == this) {
+                long destinationBalance = Math.addExact(destination.balance(), amount);
+                destination.setBalance(destinationBalance);
+                LedgerEntry entry = LedgerEntry.transfer(transactionId, keyHash.bytes(), source.id(), destination.id(),
+                    amount, sourceBalance, destinationBalance, source.currency(), timestamp);
+                answerWhenDurable(journal.append(entry), entry, keyed.response());
+                return;
+            }
+
+            LedgerEntry debit = LedgerEntry.debit(transactionId, keyHash.bytes(), source.id(), destination.id(),
+                amount, sourceBalance, source.currency(), timestamp);
+            journal.append(debit);
+            crossShard.increment();
+            destinationShard.send(() -> destinationShard.credit(debit, keyed.response()));
+        }
+
+        /**
+         * Second step of a cross-shard transfer. The caller is answered once the credit is durable, which implies the
+         * debit queued before it is too; {@code response} is {@code null} for credits re-issued on recovery.
+         */
+        void credit(LedgerEntry debit, CompletableFuture<TransferResponseDTO> response) {
+            LedgerAccount destination = accounts.get(debit.destinationAccountId());
+            long destinationBalance = Math.addExact(destination.balance(), debit.amount());
+            destination.setBalance(destinationBalance);
+            CompletableFuture<Long> durable = journal.append(LedgerEntry.credit(debit, destinationBalance, now()));
+            if (response != null) {
+                answerWhenDurable(durable, debit, response);
+            }
+        }
+    }
+}
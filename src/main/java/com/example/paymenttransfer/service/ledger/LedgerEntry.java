@@ -0,0 +1,78 @@
+package com.example.paymenttransfer.service.ledger;
+
+import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One record of the ledger journal. Balances are recorded as the values after the entry, so replaying the journal
+ * sets them rather than recomputing them. Amounts and balances are in minor units of {@code currency}.
+ *
+ * @param sequence             position in the journal, assigned when the entry is written
+ * @param transactionId        public id of the transfer; {@code null} for {@link Type#ACCOUNT_OPENED}
+ * @param keyHash              SHA-256 of the idempotency key; only on {@link Type#TRANSFER} and {@link Type#DEBIT}
+ * @param sourceAccountId      debited account, or the opened account
+ * @param destinationAccountId credited account; {@code 0} for {@link Type#ACCOUNT_OPENED}
+ * @param amount               transferred amount; {@code 0} for {@link Type#ACCOUNT_OPENED}
+ * @param sourceBalance        source balance after the entry, or the opening balance; {@code 0} if unchanged
+ * @param destinationBalance   destination balance after the entry; {@code 0} if unchanged
+ * @param currency             currency of the transfer, or of the opened account
+ * @param timestamp            when the ledger applied the entry, truncated to microseconds
+ * @param text                 account number of an opened account, or the reason of a rejection
+ */
+public record LedgerEntry(long sequence, Type type, UUID transactionId, byte[] keyHash, long sourceAccountId,
+                          long destinationAccountId, long amount, long sourceBalance, long destinationBalance,
+                          CurrencyEnum currency, Instant timestamp, String text) {
+
+    public enum Type {
+        /** An account was loaded from the database; its balance is owned by the ledger from here on. */
+        ACCOUNT_OPENED,
+        /** A transfer between two accounts of the same shard, applied in one step. */
+        TRANSFER,
+        /**
+         * First step of a cross-shard transfer, written by the source shard. Once durable the transfer is
+         * committed: the matching {@link #CREDIT} cannot fail and is re-issued on recovery if it is missing.
+         */
+        DEBIT,
+        /** Second step of a cross-shard transfer, written by the destination shard. */
+        CREDIT,
+        /** A transfer refused for insufficient funds; no balance changed. */
+        REJECTED
+    }
+
+    static LedgerEntry accountOpened(long accountId, String accountNumber, CurrencyEnum currency, long balance,
+                                     Instant timestamp) {
+        return new LedgerEntry(0, Type.ACCOUNT_OPENED, null, null, accountId, 0, 0, balance, 0, currency,
+            timestamp, accountNumber);
+    }
+
+    static LedgerEntry transfer(UUID transactionId, byte[] keyHash, long sourceAccountId, long destinationAccountId,
+                                long amount, long sourceBalance, long destinationBalance,
+                                CurrencyEnum currency, Instant timestamp) {
+        return new LedgerEntry(0, Type.TRANSFER, transactionId, keyHash, sourceAccountId, destinationAccountId,
+            amount, sourceBalance, destinationBalance, currency, timestamp, null);
+    }
+
+    static LedgerEntry debit(UUID transactionId, byte[] keyHash, long sourceAccountId, long destinationAccountId,
+                             long amount, long sourceBalance, CurrencyEnum currency, Instant timestamp) {
+        return new LedgerEntry(0, Type.DEBIT, transactionId, keyHash, sourceAccountId, destinationAccountId, amount,
+            sourceBalance, 0, currency, timestamp, null);
+    }
+
+    static LedgerEntry credit(LedgerEntry debit, long destinationBalance, Instant timestamp) {
+        return new LedgerEntry(0, Type.CREDIT, debit.transactionId(), null, debit.sourceAccountId(),
+            debit.destinationAccountId(), debit.amount(), 0, destinationBalance, debit.currency(), timestamp, null);
+    }
+
+    static LedgerEntry rejected(UUID transactionId, long sourceAccountId, long destinationAccountId,
+                                long amount, CurrencyEnum currency, Instant timestamp, String reason) {
+        return new LedgerEntry(0, Type.REJECTED, transactionId, null, sourceAccountId, destinationAccountId, amount,
+            0, 0, currency, timestamp, reason);
+    }
+
+    LedgerEntry withSequence(long sequence) {
+        return new LedgerEntry(sequence, type, transactionId, keyHash, sourceAccountId, destinationAccountId, amount,
+            sourceBalance, destinationBalance, currency, timestamp, text);
+    }
+}
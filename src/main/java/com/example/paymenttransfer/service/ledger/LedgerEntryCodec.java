@@ -0,0 +1,89 @@
+package com.example.paymenttransfer.service.ledger;
+
+import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Binary form of {@link LedgerEntry}, shared by the journal and the snapshots. Fields are written in declaration
+ * order; nullable fields are preceded by a presence flag.
+ */
+final class LedgerEntryCodec {
+
+    private static final LedgerEntry.Type[] TYPES = LedgerEntry.Type.values();
+    private static final CurrencyEnum[] CURRENCIES = CurrencyEnum.values();
+
+    private LedgerEntryCodec() {
+    }
+
+    static byte[] encode(LedgerEntry entry) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try {
+            write(new DataOutputStream(bytes), entry);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static LedgerEntry decode(byte[] payload) throws IOException {
+        return read(new DataInputStream(new ByteArrayInputStream(payload)));
+    }
+
+    static void write(DataOutput out, LedgerEntry entry) throws IOException {
+        out.writeLong(entry.sequence());
+        out.writeByte(entry.type().ordinal());
+        out.writeBoolean(entry.transactionId() != null);
+        if (entry.transactionId() != null) {
+            out.writeLong(entry.transactionId().getMostSignificantBits());
+            out.writeLong(entry.transactionId().getLeastSignificantBits());
+        }
+        out.writeBoolean(entry.keyHash() != null);
+        if (entry.keyHash() != null) {
+            out.writeByte(entry.keyHash().length);
+            out.write(entry.keyHash());
+        }
+        out.writeLong(entry.sourceAccountId());
+        out.writeLong(entry.destinationAccountId());
+        out.writeLong(entry.amount());
+        out.writeLong(entry.sourceBalance());
+        out.writeLong(entry.destinationBalance());
+        out.writeByte(entry.currency().ordinal());
+        out.writeLong(entry.timestamp().getEpochSecond());
+        out.writeInt(entry.timestamp().getNano());
+        out.writeBoolean(entry.text() != null);
+        if (entry.text() != null) {
+            out.writeUTF(entry.text());
+        }
+    }
+
+    static LedgerEntry read(DataInput in) throws IOException {
+        long sequence = in.readLong();
+        LedgerEntry.Type type = TYPES[in.readUnsignedByte()];
+        UUID transactionId = in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+        byte[] keyHash = null;
+        if (in.readBoolean()) {
+            keyHash = new byte[in.readUnsignedByte()];
+            in.readFully(keyHash);
+        }
+        long sourceAccountId = in.readLong();
+        long destinationAccountId = in.readLong();
+        long amount = in.readLong();
+        long sourceBalance = in.readLong();
+        long destinationBalance = in.readLong();
+        CurrencyEnum currency = CURRENCIES[in.readUnsignedByte()];
+        Instant timestamp = Instant.ofEpochSecond(in.readLong(), in.readInt());
+        String text = in.readBoolean() ? in.readUTF() : null;
+        return new LedgerEntry(sequence, type, transactionId, keyHash, sourceAccountId, destinationAccountId, amount,
+            sourceBalance, destinationBalance, currency, timestamp, text);
+    }
+}
@@ -0,0 +1,491 @@
+package com.example.paymenttransfer.service.ledger;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of {@link LedgerEntry}s in segment files named after their first sequence
+ * ({@code journal-<sequence>.log}).
+ * <p>
+ * Every segment starts with a format header, {@code magic, version}, and every record is framed as
+ * {@code length, CRC32C, payload}. Recovery refuses segments of another format, including those of the unversioned
+ * format with decimal amounts, which have to be projected and removed with the release that wrote them before
+ * upgrading.
+ * <p>
+ * A single writer thread takes whatever entries are queued, up to {@code max-group-size}, numbers them in queue
+ * order, writes them with one write and forces them with one fsync, and only then completes their futures and makes
+ * them visible to {@link Reader}s. Entries are therefore durable, numbered and readable in exactly the order they were
+ * appended.
+ * <p>
+ * A crash can leave a torn record at the end of the last segment; {@link #recover} truncates it. A bad record
+ * anywhere else means the journal is corrupt and recovery fails. After a write error the journal refuses further
+ * appends, since callers have already applied the failed entries in memory; the instance has to be restarted.
+ */
+@Slf4j
+final class LedgerJournal implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int SEGMENT_MAGIC = 0x4C4A524E;
+    /**
+     * Version {@code 2} stores amounts and balances as {@code long} minor units, like snapshot version {@code 2}.
+     */
+    private static final int SEGMENT_VERSION = 2;
+    private static final int SEGMENT_HEADER_BYTES = 8;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int MAX_PAYLOAD_BYTES = 1 << 16;
+
+    private final Path directory;
+    private final long segmentSize;
+    private final boolean fsync;
+    private final int maxGroupSize;
+    private final BlockingQueue<PendingAppend> queue = new LinkedBlockingQueue<>();
+    private final ReentrantLock durableLock = new ReentrantLock();
+    private final Condition durableAdvanced = durableLock.newCondition();
+    private final LongAdder groups = new LongAdder();
+    private final LongAdder appended = new LongAdder();
+    private volatile long durableSequence;
+    private volatile IOException failure;
+    private volatile boolean running;
+    private Thread writer;
+
+    // Owned by the writer thread once started.
+    private FileChannel segment;
+    private long segmentPosition;
+    private long lastSequence;
+
+    LedgerJournal(Path directory, long segmentSize, boolean fsync, int maxGroupSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsync = fsync;
+        this.maxGroupSize = Math.max(1, maxGroupSize);
+    }
+
+    /**
+     * Passes every entry after {@code afterSequence} to {@code replay} in order and truncates a torn record at the
+     * end of the last segment.
+     *
+     * @throws IOException if a segment is corrupt, or was written in another format
+     * @return the sequence of the last entry, or {@code afterSequence} if the journal holds nothing newer
+     */
+    long recover(long afterSequence, Consumer<LedgerEntry> replay) throws IOException {
+        Files.createDirectories(directory);
+        List<Path> segments = segments();
+        long last = afterSequence;
+        for (int index = 0; index < segments.size(); index++) {
+            Path file = segments.get(index);
+            boolean lastSegment = index == segments.size() - 1;
+            long expected = firstSequence(file);
+            long position = SEGMENT_HEADER_BYTES;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                if (lastSegment && channel.size() < SEGMENT_HEADER_BYTES) {
+                    log.warn("Removing ledger journal segment {} with a torn format header", file);
+                    channel.close();
+                    Files.delete(file);
+                    break;
+                }
+                DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel),
+                    65536));
+                readSegmentHeader(file, in);
+                while (true) {
+                    byte[] payload;
+                    try {
+                        payload = readPayload(in);
+                    } catch (EOFException | CorruptRecordException e) {
+                        if (!lastSegment) {
+                            throw new IOException("Corrupt ledger journal segment " + file + " at byte " + position, e);
+                        }
+                        log.warn("Truncating torn ledger journal record in {} at byte {}", file, position);
+                        channel.truncate(position);
+                        channel.force(true);
+                        break;
+                    }
+                    if (payload == null) {
+                        break;
+                    }
+                    LedgerEntry entry = LedgerEntryCodec.decode(payload);
+                    if (entry.sequence() != expected) {
+                        throw new IOException("Ledger journal segment " + file + " holds sequence "
+                            + entry.sequence() + " where " + expected + " was expected");
+                    }
+                    if (entry.sequence() > afterSequence) {
+                        if (entry.sequence() != last + 1) {
+                            throw new IOException("Ledger journal is missing entries " + (last + 1) + " to "
+                                + (entry.sequence() - 1));
+                        }
+                        replay.accept(entry);
+                        last = entry.sequence();
+                    }
+                    position += RECORD_HEADER_BYTES + payload.length;
+                    expected++;
+                }
+            }
+            if (lastSegment && position == SEGMENT_HEADER_BYTES) {
+                Files.delete(file);
+            }
+        }
+        lastSequence = last;
+        durableSequence = last;
+        return last;
+    }
+
+    /**
+     * Starts the writer after {@link #recover}; new entries go to a fresh segment.
+     */
+    void start() throws IOException {
+        openSegment(lastSequence + 1);
+        running = true;
+        writer = new Thread(this::writeLoop, "ledger-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues an entry. The future completes with its sequence once the entry is durable.
+     */
+    CompletableFuture<Long> append(LedgerEntry entry) {
+        CompletableFuture<Long> durable = new CompletableFuture<>();
+        IOException failed = failure;
+        if (failed != null || !running) {
+            durable.completeExceptionally(new IllegalStateException("Ledger journal is not accepting entries",
+                failed));
+            return durable;
+        }
+        queue.add(new PendingAppend(entry, durable));
+        return durable;
+    }
+
+    long durableSequence() {
+        return durableSequence;
+    }
+
+    long groups() {
+        return groups.sum();
+    }
+
+    long appended() {
+        return appended.sum();
+    }
+
+    Reader reader(long afterSequence) {
+        return new Reader(afterSequence);
+    }
+
+    /**
+     * Deletes the segments whose entries all have a sequence up to {@code sequence}. The active segment is kept.
+     */
+    void deleteSegmentsThrough(long sequence) throws IOException {
+        List<Path> segments = segments();
+        for (int index = 0; index < segments.size() - 1; index++) {
+            if (firstSequence(segments.get(index + 1)) - 1 > sequence) {
+                break;
+            }
+            Files.deleteIfExists(segments.get(index));
+            log.debug("Deleted ledger journal segment {}", segments.get(index).getFileName());
+        }
+    }
+
+    /**
+     * Writes everything queued so far and stops the writer.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        if (writer != null) {
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (segment != null) {
+            segment.close();
+        }
+    }
+
+    private void writeLoop() {
+        List<PendingAppend> group = new ArrayList<>(maxGroupSize);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(maxGroupSize * 128);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingAppend first = queue.poll(50, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                queue.drainTo(group, maxGroupSize - 1);
+                long firstSequence = lastSequence + 1;
+                writeGroup(group, buffer);
+                signalDurable(lastSequence);
+                groups.increment();
+                appended.add(group.size());
+                for (int i = 0; i < group.size(); i++) {
+                    group.get(i).durable().complete(firstSequence + i);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (IOException e) {
+                log.error("Ledger journal write failed, refusing further entries", e);
+                failure = e;
+                group.forEach(pending -> pending.durable().completeExceptionally(e));
+                break;
+            } finally {
+                group.clear();
+            }
+        }
+        PendingAppend pending;
+        while ((pending = queue.poll()) != null) {
+            pending.durable().completeExceptionally(new IllegalStateException("Ledger journal stopped", failure));
+        }
+    }
+
+    private void writeGroup(List<PendingAppend> group, ByteArrayOutputStream buffer) throws IOException {
+        buffer.reset();
+        DataOutputStream out = new DataOutputStream(buffer);
+        CRC32C crc = new CRC32C();
+        for (PendingAppend pending : group) {
+            long sequence = lastSequence + 1;
+            byte[] payload = LedgerEntryCodec.encode(pending.entry().withSequence(sequence));
+            if (segmentPosition + buffer.size() + RECORD_HEADER_BYTES + payload.length > segmentSize
+                    && segmentPosition + buffer.size() > SEGMENT_HEADER_BYTES) {
+                flush(buffer);
+                openSegment(sequence);
+                out = new DataOutputStream(buffer);
+            }
+            crc.reset();
+            crc.update(payload);
+            out.writeInt(payload.length);
+            out.writeInt((int) crc.getValue());
+            out.write(payload);
+            lastSequence = sequence;
+        }
+        flush(buffer);
+    }
+
+    private void flush(ByteArrayOutputStream buffer) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+        while (bytes.hasRemaining()) {
+            segment.write(bytes);
+        }
+        segmentPosition += buffer.size();
+        buffer.reset();
+        if (fsync) {
+            segment.force(false);
+        }
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        if (segment != null) {
+            segment.close();
+        }
+        segment = FileChannel.open(segmentPath(firstSequence), StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_BYTES).putInt(SEGMENT_MAGIC).putInt(SEGMENT_VERSION)
+            .flip();
+        while (header.hasRemaining()) {
+            segment.write(header);
+        }
+        segmentPosition = SEGMENT_HEADER_BYTES;
+        if (fsync) {
+            segment.force(false);
+            // Make the new directory entry itself durable.
+            try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+                dir.force(true);
+            } catch (IOException e) {
+                log.debug("Directory fsync not supported for {}", directory);
+            }
+        }
+    }
+
+    private void signalDurable(long sequence) {
+        durableLock.lock();
+        try {
+            durableSequence = sequence;
+            durableAdvanced.signalAll();
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    private boolean awaitDurable(long sequence, long timeoutNanos) throws InterruptedException {
+        durableLock.lock();
+        try {
+            long remaining = timeoutNanos;
+            while (durableSequence < sequence) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = durableAdvanced.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                    && file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                .sorted(Comparator.comparingLong(LedgerJournal::firstSequence))
+                .toList();
+        }
+    }
+
+    private Path segmentPath(long firstSequence) {
+        return directory.resolve(SEGMENT_PREFIX + "%020d".formatted(firstSequence) + SEGMENT_SUFFIX);
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static void readSegmentHeader(Path segment, DataInputStream in) throws IOException {
+        int magic = in.readInt();
+        int version = in.readInt();
+        if (magic != SEGMENT_MAGIC) {
+            throw new IOException("Ledger journal segment " + segment + " has no format header; it was written by a "
+                + "release with decimal amounts and must be projected and removed with that release before upgrading");
+        }
+        if (version != SEGMENT_VERSION) {
+            throw new IOException("Ledger journal segment " + segment + " has format version " + version
+                + ", this release reads version " + SEGMENT_VERSION);
+        }
+    }
+
+    /**
+     * @return the next entry, or {@code null} at a clean end of the segment
+     */
+    private static LedgerEntry readRecord(DataInputStream in) throws IOException {
+        byte[] payload = readPayload(in);
+        return payload == null ? null : LedgerEntryCodec.decode(payload);
+    }
+
+    private static byte[] readPayload(DataInputStream in) throws IOException {
+        int firstByte = in.read();
+        if (firstByte < 0) {
+            return null;
+        }
+        int length = (firstByte << 24) | (in.readUnsignedByte() << 16) | (in.readUnsignedByte() << 8)
+            | in.readUnsignedByte();
+        if (length <= 0 || length > MAX_PAYLOAD_BYTES) {
+            throw new CorruptRecordException("invalid record length " + length);
+        }
+        int checksum = in.readInt();
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        if ((int) crc.getValue() != checksum) {
+            throw new CorruptRecordException("checksum mismatch");
+        }
+        return payload;
+    }
+
+    /**
+     * Sequential reader of durable entries, used by the projector and the snapshotter. Follows the writer into new
+     * segments.
+     */
+    final class Reader implements Closeable {
+
+        private long nextSequence;
+        private DataInputStream in;
+
+        private Reader(long afterSequence) {
+            this.nextSequence = afterSequence + 1;
+        }
+
+        /**
+         * Returns the next durable entry, waiting up to {@code timeout} for one to be written.
+         *
+         * @return the entry, or {@code null} if none became durable in time
+         */
+        LedgerEntry next(long timeout, TimeUnit unit) throws IOException, InterruptedException {
+            if (!awaitDurable(nextSequence, unit.toNanos(timeout))) {
+                return null;
+            }
+            while (true) {
+                if (in == null) {
+                    open();
+                }
+                LedgerEntry entry = readRecord(in);
+                if (entry == null) {
+                    // The writer rolled over; the next entry starts the following segment.
+                    in.close();
+                    in = null;
+                    continue;
+                }
+                if (entry.sequence() < nextSequence) {
+                    continue;
+                }
+                if (entry.sequence() != nextSequence) {
+                    throw new IOException("Ledger journal reader expected sequence " + nextSequence + " but read "
+                        + entry.sequence());
+                }
+                nextSequence++;
+                return entry;
+            }
+        }
+
+        private void open() throws IOException {
+            Path found = null;
+            for (Path candidate : segments()) {
+                if (firstSequence(candidate) <= nextSequence) {
+                    found = candidate;
+                }
+            }
+            if (found == null) {
+                throw new IOException("No ledger journal segment holds sequence " + nextSequence);
+            }
+            InputStream stream = Files.newInputStream(found);
+            in = new DataInputStream(new BufferedInputStream(stream, 65536));
+            readSegmentHeader(found, in);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (in != null) {
+                in.close();
+            }
+        }
+    }
+
+    private record PendingAppend(LedgerEntry entry, CompletableFuture<Long> durable) {
+    }
+
+    private static final class CorruptRecordException extends IOException {
+        CorruptRecordException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.paymenttransfer.service.ledger;
+
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.domain.Account;
+import com.example.paymenttransfer.domain.BalanceAudit;
+import com.example.paymenttransfer.domain.IdempotencyRecord;
+import com.example.paymenttransfer.domain.LedgerCheckpoint;
+import com.example.paymenttransfer.domain.Money;
+import com.example.paymenttransfer.domain.Transaction;
+import com.example.paymenttransfer.domain.enums.TransactionStatus;
+import com.example.paymenttransfer.repository.AccountRepository;
+import com.example.paymenttransfer.repository.BalanceAuditRepository;
+import com.example.paymenttransfer.repository.IdempotencyRecordRepository;
+import com.example.paymenttransfer.repository.LedgerCheckpointRepository;
+import com.example.paymenttransfer.repository.TransactionRepository;
+import com.example.paymenttransfer.service.idempotency.IdempotencyKeyHash;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Writes ledger journal entries into the relational tables, which stay the system of record for reports, exports
+ * and the other execution modes.
+ * <p>
+ * Each batch of entries becomes one database transaction: the transaction rows with their original timestamps, the
+ * balance audits, the idempotency records, the final balance of every account touched, and the journal sequence
+ * reached, stored in {@code ledger_checkpoint}. Since the checkpoint commits with the rows, every entry is projected
+ * exactly once, and a batch that fails is simply projected again.
+ */
+@Component
+@Slf4j
+public class LedgerProjector {
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final BalanceAuditRepository balanceAuditRepository;
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final LedgerCheckpointRepository checkpointRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration keyTtl;
+    private final int jdbcBatchSize;
+
+    public LedgerProjector(AccountRepository accountRepository,
+                           TransactionRepository transactionRepository,
+                           BalanceAuditRepository balanceAuditRepository,
+                           IdempotencyRecordRepository idempotencyRecordRepository,
+                           LedgerCheckpointRepository checkpointRepository,
+                           EntityManager entityManager,
+                           TransferProperties properties,
+                           PlatformTransactionManager transactionManager) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.balanceAuditRepository = balanceAuditRepository;
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.keyTtl = properties.getIdempotency().getTtl();
+        this.jdbcBatchSize = properties.getBatch().getJdbcBatchSize();
+    }
+
+    /**
+     * @return the sequence of the last projected entry, {@code 0} if nothing was projected yet
+     */
+    public long checkpoint() {
+        return checkpointRepository.findById(LedgerCheckpoint.SINGLETON_ID)
+            .map(LedgerCheckpoint::getJournalSequence)
+            .orElse(0L);
+    }
+
+    /**
+     * Projects consecutive journal entries in one transaction and advances the checkpoint to the last of them.
+     */
+    void project(List<LedgerEntry> entries) {
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);
+            Instant now = Instant.now();
+            Map<Long, Account> accounts = loadAccounts(entries);
+            Map<UUID, Transaction> transactions = new HashMap<>();
+            Map<Long, Long> balances = new LinkedHashMap<>();
+            List<BalanceAudit> audits = new ArrayList<>();
+            List<LedgerEntry> keyed = new ArrayList<>();
+
+            for (LedgerEntry entry : entries) {
+                Account source = accounts.get(entry.sourceAccountId());
+                Account destination = accounts.get(entry.destinationAccountId());
+                switch (entry.type()) {
+                    case ACCOUNT_OPENED -> {
+                    }
+                    case TRANSFER -> {
+                        Transaction transaction = newTransaction(entry, source, destination, transactions);
+                        audits.add(audit(source, entry.sourceBalance() + entry.amount(), entry.sourceBalance(),
+                            transaction, entry));
+                        audits.add(audit(destination, entry.destinationBalance() - entry.amount(),
+                            entry.destinationBalance(), transaction, entry));
+                        balances.put(source.getId(), entry.sourceBalance());
+                        balances.put(destination.getId(), entry.destinationBalance());
+                        keyed.add(entry);
+                    }
+                    case DEBIT -> {
+                        Transaction transaction = newTransaction(entry, source, destination, transactions);
+                        audits.add(audit(source, entry.sourceBalance() + entry.amount(), entry.sourceBalance(),
+                            transaction, entry));
+                        balances.put(source.getId(), entry.sourceBalance());
+                        keyed.add(entry);
+                    }
+                    case CREDIT -> {
+                        Transaction transaction = transactions.get(entry.transactionId());
+                        if (transaction == null) {
+                            transaction = transactionRepository.findByTransactionIdWithAccounts(entry.transactionId())
+                                .orElseThrow(() -> new IllegalStateException(
+                                    "Credit of unknown transaction " + entry.transactionId()));
+                        }
+                        audits.add(audit(destination, entry.destinationBalance() - entry.amount(),
+                            entry.destinationBalance(), transaction, entry));
+                        balances.put(destination.getId(), entry.destinationBalance());
+                    }
+                    case REJECTED -> newTransaction(entry, source, destination, transactions);
+                }
+            }
+
+            balanceAuditRepository.saveAll(audits);
+            storeIdempotencyRecords(keyed, transactions, now);
+            balances.forEach((accountId, balance) -> accountRepository.updateBalance(accountId, balance, now));
+            checkpointRepository.save(new LedgerCheckpoint(LedgerCheckpoint.SINGLETON_ID,
+                entries.get(entries.size() - 1).sequence(), now));
+        });
+        log.debug("Projected ledger entries {} to {}", entries.get(0).sequence(),
+            entries.get(entries.size() - 1).sequence());
+    }
+
+    private Map<Long, Account> loadAccounts(List<LedgerEntry> entries) {
+        Set<Long> accountIds = new HashSet<>();
+        for (LedgerEntry entry : entries) {
+            if (entry.type() != LedgerEntry.Type.ACCOUNT_OPENED) {
+                accountIds.add(entry.sourceAccountId());
+                accountIds.add(entry.destinationAccountId());
+            }
+        }
+        return accountRepository.findAllById(accountIds).stream()
+            .collect(Collectors.toMap(Account::getId, Function.identity()));
+    }
+
+    private Transaction newTransaction(LedgerEntry entry, Account source, Account destination,
+                                       Map<UUID, Transaction> transactions) {
+        boolean rejected = entry.type() == LedgerEntry.Type.REJECTED;
+        Transaction transaction = transactionRepository.save(Transaction.builder()
+            .transactionId(entry.transactionId())
+            .sourceAccount(source)
+            .destinationAccount(destination)
+            .amount(decimal(entry.amount(), entry))
+            .currency(entry.currency())
+            .status(rejected ? TransactionStatus.FAILED : TransactionStatus.COMPLETED)
+            .failureReason(rejected ? entry.text() : null)
+            .createdAt(entry.timestamp())
+            .build());
+        transactions.put(entry.transactionId(), transaction);
+        return transaction;
+    }
+
+    private BalanceAudit audit(Account account, long beforeBalance, long afterBalance, Transaction transaction,
+                               LedgerEntry entry) {
+        return BalanceAudit.builder()
+            .account(account)
+            .beforeBalance(decimal(beforeBalance, entry))
+            .afterBalance(decimal(afterBalance, entry))
+            .currency(account.getCurrency())
+            .transaction(transaction)
+            .createdAt(entry.timestamp())
+            .build();
+    }
+
+    /**
+     * Keys that already have an active record were used before the ledger owned them, by another execution mode;
+     * that record is kept. The engine replays such keys instead of executing them, so a ledger transaction holding
+     * one is logged as an error. Expired records holding a key are deleted first, as the other modes do.
+     */
+    private void storeIdempotencyRecords(List<LedgerEntry> keyed, Map<UUID, Transaction> transactions,
+                                         Instant now) {
+        if (keyed.isEmpty()) {
+            return;
+        }
+        List<byte[]> keyHashes = keyed.stream().map(LedgerEntry::keyHash).toList();
+        idempotencyRecordRepository.deleteExpiredByKeyHashIn(keyHashes, now);
+        Set<IdempotencyKeyHash> active = idempotencyRecordRepository.findAllActiveByKeyHashIn(keyHashes, now).stream()
+            .map(record -> IdempotencyKeyHash.fromBytes(record.getKeyHash()))
+            .collect(Collectors.toSet());
+        List<IdempotencyRecord> records = new ArrayList<>(keyed.size());
+        for (LedgerEntry entry : keyed) {
+            Instant expiresAt = entry.timestamp().plus(keyTtl);
+            if (!expiresAt.isAfter(now)) {
+                continue;
+            }
+            if (active.contains(IdempotencyKeyHash.fromBytes(entry.keyHash()))) {
+                log.error("Ledger transaction {} reused the idempotency key of an earlier transfer",
+                    entry.transactionId());
+                continue;
+            }
+            records.add(IdempotencyRecord.builder()
+                .transaction(transactions.get(entry.transactionId()))
+                .keyHash(entry.keyHash())
+                .createdAt(entry.timestamp())
+                .expiresAt(expiresAt)
+                .build());
+        }
+        idempotencyRecordRepository.saveAll(records);
+    }
+
+    /**
+     * Ledger amounts are minor units; the {@code NUMERIC(19,2)} columns take them back at the currency's scale.
+     */
+    private static BigDecimal decimal(long minorUnits, LedgerEntry entry) {
+        return Money.toBigDecimal(minorUnits, entry.currency());
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.paymenttransfer.service.ledger;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps a private copy of the {@link LedgerState} up to date from the journal and writes it as a snapshot every
+ * {@code snapshot-every} entries and on shutdown, so a restart replays only the journal tail.
+ * <p>
+ * After a snapshot the older snapshots are deleted, and so are the journal segments that neither recovery nor the
+ * projector will read again. Idempotency keys past their TTL are expired once a minute, in the copy and, through
+ * {@code expireKeys}, in the engine.
+ */
+@Slf4j
+final class LedgerSnapshotter {
+
+    private static final Duration EXPIRY_INTERVAL = Duration.ofMinutes(1);
+
+    private final LedgerJournal journal;
+    private final LedgerState state;
+    private final Path directory;
+    private final long snapshotEvery;
+    private final Duration keyTtl;
+    private final LongSupplier projectedSequence;
+    private final Consumer<Instant> expireKeys;
+    private final LongAdder snapshots = new LongAdder();
+    private volatile long snapshotSequence;
+    private volatile boolean running;
+    private Thread thread;
+
+    LedgerSnapshotter(LedgerJournal journal, LedgerState state, Path directory, long snapshotEvery, Duration keyTtl,
+                      LongSupplier projectedSequence, Consumer<Instant> expireKeys) {
+        this.journal = journal;
+        this.state = state;
+        this.directory = directory;
+        this.snapshotEvery = Math.max(1, snapshotEvery);
+        this.keyTtl = keyTtl;
+        this.projectedSequence = projectedSequence;
+        this.expireKeys = expireKeys;
+        this.snapshotSequence = state.sequence();
+    }
+
+    void start() {
+        running = true;
+        thread = new Thread(this::run, "ledger-snapshotter");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Applies the remaining durable entries and writes a final snapshot; the journal must no longer be written to.
+     */
+    void stop() throws InterruptedException {
+        running = false;
+        if (thread != null) {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    long snapshotSequence() {
+        return snapshotSequence;
+    }
+
+    long snapshots() {
+        return snapshots.sum();
+    }
+
+    private void run() {
+        long sinceSnapshot = 0;
+        Instant nextExpiry = Instant.now().plus(EXPIRY_INTERVAL);
+        try (LedgerJournal.Reader reader = journal.reader(state.sequence())) {
+            while (running || state.sequence() < journal.durableSequence()) {
+                LedgerEntry entry = reader.next(1, TimeUnit.SECONDS);
+                if (entry != null) {
+                    state.apply(entry);
+                    sinceSnapshot++;
+                }
+                if (Instant.now().isAfter(nextExpiry)) {
+                    expireKeys();
+                    nextExpiry = Instant.now().plus(EXPIRY_INTERVAL);
+                }
+                if (sinceSnapshot >= snapshotEvery) {
+                    snapshot();
+                    sinceSnapshot = 0;
+                }
+            }
+            if (sinceSnapshot > 0) {
+                snapshot();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            log.error("Ledger snapshots stopped at sequence {}; restarts will replay the journal from there",
+                snapshotSequence, e);
+        }
+    }
+
+    private void expireKeys() {
+        Instant cutoff = Instant.now().minus(keyTtl);
+        state.expireKeys(cutoff);
+        expireKeys.accept(cutoff);
+    }
+
+    private void snapshot() throws IOException {
+        expireKeys();
+        Path written = state.writeSnapshot(directory);
+        snapshotSequence = state.sequence();
+        snapshots.increment();
+        List<Path> existing = LedgerState.snapshots(directory);
+        for (Path snapshot : existing) {
+            if (!snapshot.equals(written)) {
+                Files.deleteIfExists(snapshot);
+            }
+        }
+        journal.deleteSegmentsThrough(Math.min(snapshotSequence, projectedSequence.getAsLong()));
+        log.info("Ledger snapshot written at sequence {}", snapshotSequence);
+    }
+}
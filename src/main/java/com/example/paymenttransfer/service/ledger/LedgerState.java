@@ -0,0 +1,195 @@
+package com.example.paymenttransfer.service.ledger;
+
+import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+import com.example.paymenttransfer.service.idempotency.IdempotencyKeyHash;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Everything the ledger needs to resume at a journal position: account balances, the idempotency keys still within
+ * their TTL, and cross-shard debits whose credit was not journaled yet. Built by replaying journal entries on top of a
+ * snapshot, and written to {@code snapshot-<sequence>.bin} files.
+ * <p>
+ * Not thread-safe; the engine hands its accounts to the shards once recovery is complete.
+ */
+final class LedgerState {
+
+    private static final int SNAPSHOT_MAGIC = 0x4C454447;
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+
+    private long sequence;
+    private final Map<Long, LedgerAccount> accounts = new HashMap<>();
+    private final Map<IdempotencyKeyHash, LedgerEntry> keys = new LinkedHashMap<>();
+    private final Map<UUID, LedgerEntry> openDebits = new LinkedHashMap<>();
+
+    long sequence() {
+        return sequence;
+    }
+
+    Map<Long, LedgerAccount> accounts() {
+        return accounts;
+    }
+
+    /**
+     * Completed transfers by idempotency key, each as its {@link LedgerEntry.Type#TRANSFER} or
+     * {@link LedgerEntry.Type#DEBIT} entry, oldest first.
+     */
+    Map<IdempotencyKeyHash, LedgerEntry> keys() {
+        return keys;
+    }
+
+    Map<UUID, LedgerEntry> openDebits() {
+        return openDebits;
+    }
+
+    void apply(LedgerEntry entry) {
+        switch (entry.type()) {
+            // Concurrent first uses may each journal the account; the first entry is the one the engine kept.
+            case ACCOUNT_OPENED -> accounts.putIfAbsent(entry.sourceAccountId(),
+                new LedgerAccount(entry.sourceAccountId(), entry.text(), entry.currency(), entry.sourceBalance()));
+            case TRANSFER -> {
+                accounts.get(entry.sourceAccountId()).setBalance(entry.sourceBalance());
+                accounts.get(entry.destinationAccountId()).setBalance(entry.destinationBalance());
+                keys.put(IdempotencyKeyHash.fromBytes(entry.keyHash()), entry);
+            }
+            case DEBIT -> {
+                accounts.get(entry.sourceAccountId()).setBalance(entry.sourceBalance());
+                keys.put(IdempotencyKeyHash.fromBytes(entry.keyHash()), entry);
+                openDebits.put(entry.transactionId(), entry);
+            }
+            case CREDIT -> {
+                accounts.get(entry.destinationAccountId()).setBalance(entry.destinationBalance());
+                openDebits.remove(entry.transactionId());
+            }
+            case REJECTED -> {
+            }
+        }
+        sequence = entry.sequence();
+    }
+
+    /**
+     * Forgets keys created before {@code cutoff}; keys are held in creation order.
+     */
+    void expireKeys(Instant cutoff) {
+        keys.values().removeIf(entry -> entry.timestamp().isBefore(cutoff));
+    }
+
+    LedgerState copy() {
+        LedgerState copy = new LedgerState();
+        copy.sequence = sequence;
+        accounts.forEach((id, account) -> copy.accounts.put(id, account.copy()));
+        copy.keys.putAll(keys);
+        copy.openDebits.putAll(openDebits);
+        return copy;
+    }
+
+    /**
+     * Writes the snapshot to a temporary file, forces it to disk and renames it into place, so a crash never leaves
+     * a partial snapshot behind.
+     */
+    Path writeSnapshot(Path directory) throws IOException {
+        Path target = directory.resolve(SNAPSHOT_PREFIX + "%020d".formatted(sequence) + SNAPSHOT_SUFFIX);
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            OutputStream stream = new BufferedOutputStream(Channels.newOutputStream(channel), 65536);
+            DataOutputStream out = new DataOutputStream(stream);
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(sequence);
+            out.writeInt(accounts.size());
+            for (LedgerAccount account : accounts.values()) {
+                out.writeLong(account.id());
+                out.writeUTF(account.accountNumber());
+                out.writeByte(account.currency().ordinal());
+                out.writeLong(account.balance());
+            }
+            out.writeInt(keys.size());
+            for (LedgerEntry entry : keys.values()) {
+                LedgerEntryCodec.write(out, entry);
+            }
+            out.writeInt(openDebits.size());
+            for (LedgerEntry entry : openDebits.values()) {
+                LedgerEntryCodec.write(out, entry);
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return target;
+    }
+
+    /**
+     * Loads the most recent snapshot in {@code directory}, or returns an empty state at sequence {@code 0}.
+     */
+    static LedgerState loadLatest(Path directory) throws IOException {
+        Optional<Path> latest = snapshots(directory).stream().reduce((first, second) -> second);
+        LedgerState state = new LedgerState();
+        if (latest.isEmpty()) {
+            return state;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(latest.get()),
+                65536))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a ledger snapshot: " + latest.get());
+            }
+            int version = in.readInt();
+            if (version != SNAPSHOT_VERSION) {
+                throw new IOException("Ledger snapshot " + latest.get() + " has format version " + version
+                    + ", this release reads version " + SNAPSHOT_VERSION);
+            }
+            state.sequence = in.readLong();
+            CurrencyEnum[] currencies = CurrencyEnum.values();
+            for (int i = in.readInt(); i > 0; i--) {
+                long id = in.readLong();
+                String accountNumber = in.readUTF();
+                CurrencyEnum currency = currencies[in.readUnsignedByte()];
+                state.accounts.put(id, new LedgerAccount(id, accountNumber, currency, in.readLong()));
+            }
+            for (int i = in.readInt(); i > 0; i--) {
+                LedgerEntry entry = LedgerEntryCodec.read(in);
+                state.keys.put(IdempotencyKeyHash.fromBytes(entry.keyHash()), entry);
+            }
+            for (int i = in.readInt(); i > 0; i--) {
+                LedgerEntry entry = LedgerEntryCodec.read(in);
+                state.openDebits.put(entry.transactionId(), entry);
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Snapshots in {@code directory}, oldest first.
+     */
+    static List<Path> snapshots(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .filter(file -> file.getFileName().toString().startsWith(SNAPSHOT_PREFIX)
+                    && file.getFileName().toString().endsWith(SNAPSHOT_SUFFIX))
+                .sorted(Comparator.comparing(file -> file.getFileName().toString()))
+                .toList();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.paymenttransfer.service.ledger;
+
+/**
+ * Point-in-time counters of the {@link LedgerEngine}.
+ *
+ * @param transfers          transfers completed by the ledger
+ * @param crossShard         completed transfers whose accounts belong to different shards
+ * @param rejected           transfers refused for insufficient funds
+ * @param duplicates         requests answered from an idempotency key the ledger already held
+ * @param journalGroups      journal writes, each covering a group of entries with one fsync
+ * @param journalEntries     entries written to the journal
+ * @param durableSequence    sequence of the last durable journal entry
+ * @param projectedSequence  sequence of the last entry projected into the database
+ * @param snapshotSequence   sequence of the latest snapshot
+ * @param accounts           accounts held in memory
+ * @param keys               idempotency keys held in memory
+ */
+public record LedgerStats(long transfers, long crossShard, long rejected, long duplicates, long journalGroups,
+                          long journalEntries, long durableSequence, long projectedSequence, long snapshotSequence,
+                          int accounts, int keys) {
+
+    public long projectionLag() {
+        return durableSequence - projectedSequence;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.paymenttransfer.service.microbatch;
+
+/**
+ * Point-in-time counters of the {@link MicroBatchTransferExecutor}.
+ *
+ * @param batches    group commits executed
+ * @param transfers  transfers that went through a group commit
+ * @param fallbacks  transfers re-run individually because their whole batch failed or the queue was full
+ * @param queued     transfers currently waiting for a worker
+ */
+public record MicroBatchStats(long batches, long transfers, long fallbacks, int queued) {
+
+    public double averageBatchSize() {
+        return batches == 0 ? 0 : (double) transfers / batches;
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.paymenttransfer.service.microbatch;
+
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.domain.dto.TransferRequestDTO;
+import com.example.paymenttransfer.domain.dto.TransferResponseDTO;
+import com.example.paymenttransfer.monitoring.TransferEvent;
+import com.example.paymenttransfer.monitoring.TransferMetrics;
+import com.example.paymenttransfer.service.BatchTransferOutcome;
+import com.example.paymenttransfer.service.BatchTransferService;
+import com.example.paymenttransfer.service.TransferExecutor;
+import com.example.paymenttransfer.service.TransferService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Group commit for concurrent single transfers.
+ * <p>
+ * Callers enqueue their request and wait on a future. Worker threads collect whatever arrives within
+ * {@code payment.transfer.micro-batch.window}, up to {@code max-size} requests, and run them through
+ * {@link BatchTransferService#processBatch} in one database transaction, so a burst of N transfers costs a handful
+ * of commits instead of N. Every caller still gets its own response or exception, exactly as the JPA mode would
+ * return it. If a whole batch fails (deadlock, lost connection), its transfers are retried one by one through
+ * {@link TransferService} so one bad batch cannot fail unrelated requests.
+ * <p>
+ * Transfers completed or failed by a batch are recorded in the transfer metrics and as a {@link TransferEvent} here,
+ * from enqueueing to the result; those run individually are recorded by {@link TransferService}.
+ */
+@Slf4j
+public class MicroBatchTransferExecutor implements TransferExecutor {
+
+    private final BatchTransferService batchTransferService;
+    private final TransferService transferService;
+    private final TransferMetrics transferMetrics;
+    private final TransferProperties.MicroBatch settings;
+    private final int maxBatchSize;
+    private final BlockingQueue<PendingTransfer> queue;
+    private final List<Thread> workers = new ArrayList<>();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder transfers = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private volatile boolean running;
+
+    public MicroBatchTransferExecutor(BatchTransferService batchTransferService,
+                                      TransferService transferService,
+                                      TransferMetrics transferMetrics,
+                                      TransferProperties properties) {
+        this.batchTransferService = batchTransferService;
+        this.transferService = transferService;
+        this.transferMetrics = transferMetrics;
+        this.settings = properties.getMicroBatch();
+        this.maxBatchSize = Math.max(1, Math.min(settings.getMaxSize(), properties.getBatch().getMaxSize()));
+        this.queue = new LinkedBlockingQueue<>(settings.getQueueCapacity());
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        for (int i = 0; i < Math.max(1, settings.getWorkers()); i++) {
+            Thread worker = new Thread(this::drainLoop, "transfer-micro-batch-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        log.info("Micro-batching started: window={} ms, maxSize={}, workers={}",
+            settings.getWindow().toMillis(), maxBatchSize, workers.size());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        PendingTransfer pending;
+        while ((pending = queue.poll()) != null) {
+            executeIndividually(pending);
+        }
+        log.info("Micro-batching stopped");
+    }
+
+    @Override
+    public TransferResponseDTO transferFunds(TransferRequestDTO request) {
+        PendingTransfer pending = new PendingTransfer(request);
+        if (!running || !queue.offer(pending)) {
+            log.warn("Micro-batch queue unavailable, executing transfer individually: idempotencyKey={}",
+                request.getIdempotencyKey());
+            fallbacks.increment();
+            return transferService.transferFunds(request);
+        }
+
+        long started = System.nanoTime();
+        TransferEvent event = new TransferEvent();
+        event.begin();
+        TransferResponseDTO response;
+        try {
+            response = pending.result.join();
+        } catch (CompletionException e) {
+            RuntimeException failure = e.getCause() instanceof RuntimeException cause ? cause : e;
+            if (!pending.individually) {
+                transferMetrics.transferFailed(started, failure);
+                event.failed(request, failure);
+            }
+            throw failure;
+        }
+        if (!pending.individually) {
+            transferMetrics.transferCompleted(started);
+            event.completed(request, response);
+        }
+        return response;
+    }
+
+    public MicroBatchStats stats() {
+        return new MicroBatchStats(batches.sum(), transfers.sum(), fallbacks.sum(), queue.size());
+    }
+
+    private void drainLoop() {
+        List<PendingTransfer> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                if (collect(batch)) {
+                    execute(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Unexpected micro-batch failure", e);
+                batch.forEach(pending -> pending.result.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Blocks briefly for the first request, then keeps collecting until the window closes or the batch is full.
+     */
+    private boolean collect(List<PendingTransfer> batch) throws InterruptedException {
+        PendingTransfer first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return false;
+        }
+        batch.add(first);
+
+        long deadline = System.nanoTime() + settings.getWindow().toNanos();
+        while (batch.size() < maxBatchSize) {
+            queue.drainTo(batch, maxBatchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= maxBatchSize || remaining <= 0) {
+                break;
+            }
+            PendingTransfer next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return true;
+    }
+
+    private void execute(List<PendingTransfer> batch) {
+        List<TransferRequestDTO> requests = batch.stream().map(pending -> pending.request).toList();
+        List<BatchTransferOutcome> outcomes;
+        try {
+            outcomes = batchTransferService.processBatch(requests);
+        } catch (RuntimeException e) {
+            log.warn("Micro-batch of {} transfers failed, executing them individually: {}",
+                batch.size(), e.getMessage());
+            fallbacks.add(batch.size());
+            batch.forEach(this::executeIndividually);
+            return;
+        }
+
+        batches.increment();
+        transfers.add(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            BatchTransferOutcome outcome = outcomes.get(i);
+            if (outcome.isSuccess()) {
+                batch.get(i).result.complete(outcome.response());
+            } else {
+                batch.get(i).result.completeExceptionally(outcome.error());
+            }
+        }
+        log.debug("Group commit of {} transfers", batch.size());
+    }
+
+    private void executeIndividually(PendingTransfer pending) {
+        pending.individually = true;
+        try {
+            pending.result.complete(transferService.transferFunds(pending.request));
+        } catch (RuntimeException e) {
+            pending.result.completeExceptionally(e);
+        }
+    }
+
+    private static final class PendingTransfer {
+
+        private final TransferRequestDTO request;
+        private final CompletableFuture<TransferResponseDTO> result = new CompletableFuture<>();
+        /**
+         * Set before {@link #result} is completed, which makes it visible to the caller; the transfer service then
+         * recorded the transfer already.
+         */
+        private boolean individually;
+
+        private PendingTransfer(TransferRequestDTO request) {
+            this.request = request;
+        }
+    }
+}
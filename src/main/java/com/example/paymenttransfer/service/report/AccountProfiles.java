@@ -0,0 +1,47 @@
+package com.example.paymenttransfer.service.report;
+
+import com.example.paymenttransfer.domain.AccountProfile;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves account ids to their {@link AccountProfile}s, so report queries can select the ids alone instead of
+ * joining {@code account} for every row.
+ */
+@Component
+@RequiredArgsConstructor
+public class AccountProfiles {
+
+    private final EntityManager entityManager;
+
+    /**
+     * Profiles by id, taken from the second-level cache where present; the misses are loaded together with one
+     * query. Must run in a transaction. Ids without an account are left out of the map.
+     */
+    public Map<Long, AccountProfile> findAll(Collection<Long> accountIds) {
+        if (accountIds.isEmpty()) {
+            return Map.of();
+        }
+        List<AccountProfile> profiles = entityManager.unwrap(Session.class)
+            .byMultipleIds(AccountProfile.class)
+            // Without an explicit cache mode, multi-loads skip the second-level cache.
+            .with(CacheMode.NORMAL)
+            .enableSessionCheck(true)
+            .multiLoad(List.copyOf(accountIds));
+        Map<Long, AccountProfile> byId = new HashMap<>(profiles.size());
+        for (AccountProfile profile : profiles) {
+            if (profile != null) {
+                byId.put(profile.getId(), profile);
+            }
+        }
+        return byId;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.paymenttransfer.service.report;
+
+import com.example.paymenttransfer.errors.InvalidCursorException;
+
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Comparator;
+
+/**
+ * Position in a report ordered by {@code (created_at DESC, id DESC)}: the next page holds the rows strictly before
+ * it. Clients only see it as an opaque URL-safe string.
+ */
+public record ReportCursor(Instant createdAt, long id) implements Comparable<ReportCursor> {
+
+    private static final Instant LATEST = Instant.parse("9999-12-31T00:00:00Z");
+    private static final int ENCODED_BYTES = Long.BYTES + Integer.BYTES + Long.BYTES;
+    private static final Comparator<ReportCursor> ORDER =
+        Comparator.comparing(ReportCursor::createdAt).thenComparingLong(ReportCursor::id);
+
+    /**
+     * Bound of the first page, before every row.
+     */
+    public static ReportCursor first() {
+        return new ReportCursor(LATEST, Long.MAX_VALUE);
+    }
+
+    /**
+     * Bound that selects the rows created strictly before {@code instant}.
+     */
+    public static ReportCursor before(Instant instant) {
+        return new ReportCursor(instant, Long.MIN_VALUE);
+    }
+
+    public static ReportCursor decode(String cursor) {
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+            if (bytes.length != ENCODED_BYTES) {
+                throw new InvalidCursorException(cursor);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            return new ReportCursor(Instant.ofEpochSecond(buffer.getLong(), buffer.getInt()), buffer.getLong());
+        } catch (IllegalArgumentException | DateTimeException | ArithmeticException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_BYTES)
+            .putLong(createdAt.getEpochSecond())
+            .putInt(createdAt.getNano())
+            .putLong(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    @Override
+    public int compareTo(ReportCursor other) {
+        return ORDER.compare(this, other);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.paymenttransfer.service.report;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a report; {@code nextCursor} is null on the last page.
+ */
+public record ReportPage<T>(List<T> items, String nextCursor) {
+
+    /**
+     * Builds a page from rows fetched with {@code pageSize + 1} as limit: the extra row only tells whether another
+     * page exists and is not returned.
+     */
+    public static <E, T> ReportPage<T> of(List<E> rows, int pageSize, Function<E, ReportCursor> cursorOf,
+                                          Function<E, T> mapper) {
+        boolean hasMore = rows.size() > pageSize;
+        List<E> pageRows = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasMore ? cursorOf.apply(pageRows.get(pageSize - 1)).encode() : null;
+        return new ReportPage<>(pageRows.stream().map(mapper).toList(), nextCursor);
+    }
+}
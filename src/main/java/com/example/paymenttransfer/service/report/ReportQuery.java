@@ -0,0 +1,46 @@
+package com.example.paymenttransfer.service.report;
+
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+
+import java.time.Instant;
+
+/**
+ * Filters and page position of a report request; every field is optional.
+ *
+ * @param from   inclusive lower bound on {@code created_at}
+ * @param to     exclusive upper bound on {@code created_at}
+ * @param cursor {@code nextCursor} of the previous page
+ * @param limit  requested page size, clamped to {@code payment.transfer.report.max-page-size}
+ */
+public record ReportQuery(CurrencyEnum currency, Instant from, Instant to, String cursor, Integer limit) {
+
+    public static ReportQuery firstPage() {
+        return new ReportQuery(null, null, null, null, null);
+    }
+
+    public Instant lowerBound() {
+        return from != null ? from : Instant.EPOCH;
+    }
+
+    /**
+     * The tighter of the cursor and the {@code to} bound, so a cursor can never page past {@code to}.
+     */
+    public ReportCursor upperBound() {
+        ReportCursor bound = cursor != null ? ReportCursor.decode(cursor) : ReportCursor.first();
+        if (to != null) {
+            ReportCursor toBound = ReportCursor.before(to);
+            if (toBound.compareTo(bound) < 0) {
+                return toBound;
+            }
+        }
+        return bound;
+    }
+
+    public int pageSize(TransferProperties.Report properties) {
+        if (limit == null) {
+            return properties.getDefaultPageSize();
+        }
+        return Math.max(1, Math.min(limit, properties.getMaxPageSize()));
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.paymenttransfer.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two in-memory databases stand in for the primary and the replica; each knows its own name.
+ */
+class ReplicaDataSourceTest {
+
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    private DataSource primary;
+    private DataSource replica;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+    }
+
+    @Test
+    void readOnlyTransactions_runOnTheReplica_othersOnThePrimary() {
+        ReplicaDataSource readOnly = replicaDataSource(replica);
+        readOnly.checkLag();
+
+        assertThat(databaseName(readOnly, true)).isEqualTo("replica");
+        assertThat(databaseName(readOnly, false)).isEqualTo("primary");
+        assertThat(readOnly.stats()).isEqualTo(new ReplicaStats(true, 0, 1, 0));
+    }
+
+    @Test
+    void laggingReplica_fallsBackToThePrimaryUntilItCatchesUp() {
+        ReplicaDataSource readOnly = replicaDataSource(replica);
+        lagMillis.set(6_000);
+        readOnly.checkLag();
+
+        assertThat(databaseName(readOnly, true)).isEqualTo("primary");
+
+        lagMillis.set(200);
+        readOnly.checkLag();
+
+        assertThat(databaseName(readOnly, true)).isEqualTo("replica");
+        assertThat(readOnly.stats()).isEqualTo(new ReplicaStats(true, 200, 1, 1));
+    }
+
+    @Test
+    void unreachableReplica_fallsBackToThePrimary() {
+        DriverManagerDataSource unreachable = new DriverManagerDataSource(
+            "jdbc:h2:mem:missing-" + UUID.randomUUID() + ";IFEXISTS=TRUE", "sa", "");
+        ReplicaDataSource readOnly = replicaDataSource(unreachable);
+        readOnly.checkLag();
+
+        assertThat(databaseName(readOnly, true)).isEqualTo("primary");
+        assertThat(readOnly.stats()).isEqualTo(new ReplicaStats(false, -1, 0, 1));
+    }
+
+    private ReplicaDataSource replicaDataSource(DataSource target) {
+        return new ReplicaDataSource(target, primary, Duration.ofSeconds(5)) {
+            @Override
+            long measureLagMillis(Connection connection) throws SQLException {
+                // The lag query needs a PostgreSQL standby; the connection is still taken, so failures show.
+                connection.isValid(1);
+                return lagMillis.get();
+            }
+        };
+    }
+
+    /**
+     * Reads the database name the way the application does: through the lazy proxy, inside a transaction.
+     */
+    private String databaseName(ReplicaDataSource readOnly, boolean readOnlyTransaction) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(readOnly);
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transaction.setReadOnly(readOnlyTransaction);
+        return transaction.execute(status ->
+            new JdbcTemplate(dataSource).queryForObject("SELECT name FROM database_name", String.class));
+    }
+
+    private static DataSource database(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE database_name (name VARCHAR(20))");
+        jdbcTemplate.update("INSERT INTO database_name VALUES (?)", name);
+        return dataSource;
+    }
+}
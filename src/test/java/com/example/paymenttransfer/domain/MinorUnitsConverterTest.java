@@ -0,0 +1,28 @@
+package com.example.paymenttransfer.domain;
+
+import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MinorUnitsConverterTest {
+
+    private final MinorUnitsConverter converter = new MinorUnitsConverter();
+
+    @Test
+    void conversions_matchTheColumnScale() {
+        assertEquals(new BigDecimal("10.50"), converter.convertToDatabaseColumn(1050L));
+        assertEquals(1050L, converter.convertToEntityAttribute(new BigDecimal("10.5")));
+        assertThrows(ArithmeticException.class, () -> converter.convertToEntityAttribute(new BigDecimal("0.001")));
+    }
+
+    @Test
+    void everyCurrency_hasTheColumnScaleAsMinorUnit() {
+        for (CurrencyEnum currency : CurrencyEnum.values()) {
+            assertEquals(MinorUnitsConverter.SCALE, currency.minorUnitDigits(), currency.name());
+        }
+    }
+}
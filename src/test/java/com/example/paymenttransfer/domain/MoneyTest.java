@@ -0,0 +1,44 @@
+package com.example.paymenttransfer.domain;
+
+import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MoneyTest {
+
+    @Test
+    void of_convertsExactlyBothWays() {
+        Money money = Money.of(new BigDecimal("10.5"), CurrencyEnum.EUR);
+
+        assertEquals(1050, money.minorUnits());
+        assertEquals(new BigDecimal("10.50"), money.toBigDecimal());
+        assertEquals(new BigDecimal("92233720368547758.07"), Money.toBigDecimal(Long.MAX_VALUE, CurrencyEnum.EUR));
+    }
+
+    @Test
+    void of_neverRounds() {
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("0.001"), CurrencyEnum.EUR));
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("92233720368547758.08"),
+            CurrencyEnum.EUR));
+    }
+
+    @Test
+    void arithmetic_isOverflowCheckedAndSingleCurrency() {
+        Money balance = new Money(10_000, CurrencyEnum.EUR);
+        Money amount = new Money(2_550, CurrencyEnum.EUR);
+
+        assertEquals(new Money(7_450, CurrencyEnum.EUR), balance.minus(amount));
+        assertEquals(new Money(12_550, CurrencyEnum.EUR), balance.plus(amount));
+        assertTrue(balance.isAtLeast(amount));
+        assertFalse(amount.isAtLeast(balance));
+        assertThrows(ArithmeticException.class,
+            () -> new Money(Long.MAX_VALUE, CurrencyEnum.EUR).plus(new Money(1, CurrencyEnum.EUR)));
+        assertThrows(IllegalArgumentException.class, () -> balance.plus(new Money(1, CurrencyEnum.USD)));
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.paymenttransfer.repository;
+
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+import com.example.paymenttransfer.service.ReportExportService;
+import com.example.paymenttransfer.service.concurrency.DatabaseWorkLimiter;
+import com.example.paymenttransfer.service.export.ExportFormat;
+import com.example.paymenttransfer.support.JdbcStatementRecorder;
+import com.example.paymenttransfer.support.JdbcStatementRecorder.RecordedExecution;
+import com.example.paymenttransfer.support.StatementRecordingConfiguration;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs every repository query against large seeded tables on PostgreSQL, explains the statements they send with the
+ * same bound parameters, and fails if any of them reads one of the large tables with a sequential scan.
+ * <p>
+ * Skipped unless {@code -Dtest.datasource.url=jdbc:postgresql://...} is given; the Liquibase changelog is applied to
+ * that database, and the seeded rows are rolled back with the test transaction.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfSystemProperty(named = "test.datasource.url", matches = ".+")
+@Import({StatementRecordingConfiguration.class, ReportExportService.class, DatabaseWorkLimiter.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@EnableConfigurationProperties(TransferProperties.class)
+class QueryPlanTest {
+
+    private static final int ACCOUNTS = 20_000;
+    private static final int STRIPED_ACCOUNTS = 20;
+    private static final int TRANSACTIONS = 100_000;
+    private static final List<String> LARGE_TABLES = List.of(
+        "account", "transaction", "balance_audit", "idempotency_record");
+    private static final Pattern SEQ_SCAN = Pattern.compile("Seq Scan on (\\w+)");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getProperty("test.datasource.url"));
+    }
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountBalanceSlotRepository slotRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private BalanceAuditRepository balanceAuditRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private ReportExportService exportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JdbcStatementRecorder recorder;
+
+    @Test
+    void repositoryQueries_neverScanLargeTablesSequentially() {
+        Seed seed = seed();
+        Instant now = Instant.now();
+        Instant from = now.minus(30, ChronoUnit.DAYS);
+        List<byte[]> keyHashes = List.of(keyHash(seed.firstTransactionId()), keyHash(seed.firstTransactionId() + 1));
+
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("AccountRepository.findByIdWithLock", () -> accountRepository.findByIdWithLock(seed.account()));
+        queries.put("AccountRepository.findAllByIdWithLock",
+            () -> accountRepository.findAllByIdWithLock(List.of(seed.account(), seed.account() + 1)));
+        queries.put("AccountRepository.findStripedIds", () -> accountRepository.findStripedIds());
+        queries.put("AccountRepository.updateBalance",
+            () -> accountRepository.updateBalance(seed.account(), 1_000L, now));
+        queries.put("AccountBalanceSlotRepository.sumBalance", () -> slotRepository.sumBalance(seed.account()));
+        queries.put("AccountBalanceSlotRepository.findByIdWithLock",
+            () -> slotRepository.findByIdWithLock(seed.account(), 0));
+        queries.put("AccountBalanceSlotRepository.findAllByAccountIdWithLock",
+            () -> slotRepository.findAllByAccountIdWithLock(seed.account()));
+        queries.put("TransactionRepository.findPageBySourceAccount", () -> transactionRepository
+            .findPageBySourceAccount(seed.account(), null, from, now, Long.MAX_VALUE, Limit.of(50)));
+        queries.put("TransactionRepository.findPageBySourceAccount(currency)", () -> transactionRepository
+            .findPageBySourceAccount(seed.account(), CurrencyEnum.EUR, from, now, Long.MAX_VALUE, Limit.of(50)));
+        queries.put("TransactionRepository.findPageByDestinationAccount", () -> transactionRepository
+            .findPageByDestinationAccount(seed.account(), null, from, now, Long.MAX_VALUE, Limit.of(50)));
+        queries.put("TransactionRepository.findByTransactionIdWithAccounts",
+            () -> transactionRepository.findByTransactionIdWithAccounts(seed.transactionId()));
+        queries.put("TransactionRepository.claimPending", () -> transactionRepository.claimPending(0, 4, 100));
+        queries.put("TransactionRepository.failPending",
+            () -> transactionRepository.failPending(seed.firstTransactionId(), "plan"));
+        queries.put("BalanceAuditRepository.findPageByAccount", () -> balanceAuditRepository
+            .findPageByAccount(seed.account(), null, from, now, Long.MAX_VALUE, Limit.of(50)));
+        queries.put("IdempotencyRecordRepository.findActiveByKeyHash",
+            () -> idempotencyRecordRepository.findActiveByKeyHash(keyHashes.get(0), now));
+        queries.put("IdempotencyRecordRepository.findAllActiveByKeyHashIn",
+            () -> idempotencyRecordRepository.findAllActiveByKeyHashIn(keyHashes, now));
+        queries.put("IdempotencyRecordRepository.findRecentActive",
+            () -> idempotencyRecordRepository.findRecentActive(now, PageRequest.of(0, 1000)));
+        queries.put("IdempotencyRecordRepository.deleteExpiredByKeyHashIn",
+            () -> idempotencyRecordRepository.deleteExpiredByKeyHashIn(keyHashes, now));
+        queries.put("IdempotencyRecordRepository.deleteExpiredBatch",
+            () -> idempotencyRecordRepository.deleteExpiredBatch(now, 1000));
+        queries.put("ReportExportService.exportTransactions", () -> exportService.exportTransactions(
+            seed.account(), null, from, now, ExportFormat.CSV, OutputStream.nullOutputStream()));
+        queries.put("ReportExportService.exportAudits", () -> exportService.exportAudits(
+            seed.account(), null, from, now, ExportFormat.CSV, OutputStream.nullOutputStream()));
+
+        Map<String, String> sequentialScans = new LinkedHashMap<>();
+        queries.forEach((name, query) -> {
+            recorder.reset();
+            query.run();
+            List<RecordedExecution> statements = recorder.executions().stream()
+                .filter(execution -> !execution.batch())
+                .toList();
+            assertThat(statements).as(name).isNotEmpty();
+            for (RecordedExecution statement : statements) {
+                String plan = explain(statement);
+                Matcher scan = SEQ_SCAN.matcher(plan);
+                while (scan.find()) {
+                    if (LARGE_TABLES.contains(scan.group(1))) {
+                        sequentialScans.put(name, statement.sql() + "\n" + plan);
+                    }
+                }
+            }
+        });
+
+        assertThat(sequentialScans).isEmpty();
+    }
+
+    /**
+     * Adds the accounts, a history of transfers between them with their audit and idempotency rows and the slots of
+     * a few striped accounts, then refreshes the planner statistics. Everything is rolled back after the test.
+     */
+    private Seed seed() {
+        long firstAccount = jdbcTemplate.queryForObject("SELECT nextval('account_seq')", Long.class);
+        jdbcTemplate.update("""
+            INSERT INTO account (id, account_number, owner_name, balance, currency, balance_slots)
+            SELECT ? + n, 'PLAN-' || (? + n), 'Plan Owner', 1000, 'EUR', CASE WHEN n < ? THEN 4 ELSE 0 END
+            FROM generate_series(0, ? - 1) n
+            """, firstAccount, firstAccount, STRIPED_ACCOUNTS, ACCOUNTS);
+        jdbcTemplate.update("""
+            INSERT INTO account_balance_slot (account_id, slot, balance)
+            SELECT id, slot, 0 FROM account, generate_series(0, 3) slot
+            WHERE id >= ? AND balance_slots > 0
+            """, firstAccount);
+
+        long firstTransaction = jdbcTemplate.queryForObject("SELECT nextval('transaction_seq')", Long.class);
+        jdbcTemplate.update("""
+            INSERT INTO transaction (id, source_account_id, destination_account_id, amount, currency, status,
+                                     created_at)
+            SELECT ? + n, ? + n % ?, ? + (n % ? + 1 + n / ? % (? - 1)) % ?, 1.00,
+                   CASE WHEN n % 3 = 0 THEN 'MKD' ELSE 'EUR' END,
+                   CASE WHEN n % 100 = 0 THEN 'PENDING' ELSE 'COMPLETED' END,
+                   now() - make_interval(secs => n * 60)
+            FROM generate_series(0, ? - 1) n
+            """, firstTransaction, firstAccount, ACCOUNTS, firstAccount, ACCOUNTS, ACCOUNTS, ACCOUNTS, ACCOUNTS,
+            TRANSACTIONS);
+        jdbcTemplate.update("""
+            INSERT INTO balance_audit (account_id, before_balance, after_balance, currency, transaction_id, created_at)
+            SELECT side.account_id, 10, 9, t.currency, t.id, t.created_at
+            FROM transaction t
+            CROSS JOIN LATERAL (VALUES (t.source_account_id), (t.destination_account_id)) side(account_id)
+            WHERE t.id >= ?
+            """, firstTransaction);
+        jdbcTemplate.update("""
+            INSERT INTO idempotency_record (transaction_id, key_hash, created_at, expires_at)
+            SELECT id, sha256(convert_to('plan-' || id, 'UTF8')), created_at, created_at + interval '1 day'
+            FROM transaction
+            WHERE id >= ?
+            """, firstTransaction);
+        jdbcTemplate.execute("ANALYZE account, account_balance_slot, transaction, balance_audit, idempotency_record");
+
+        UUID transactionId = jdbcTemplate.queryForObject(
+            "SELECT transaction_id FROM transaction WHERE id = ?", UUID.class, firstTransaction);
+        return new Seed(firstAccount, firstTransaction, transactionId);
+    }
+
+    private String explain(RecordedExecution statement) {
+        return jdbcTemplate.execute("EXPLAIN " + statement.sql(), (PreparedStatement explain) -> {
+            for (ParameterSetOperation parameter : statement.parameters()) {
+                try {
+                    parameter.getMethod().invoke(explain, parameter.getArgs());
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("Cannot replay " + parameter.getMethod().getName(), e);
+                }
+            }
+            List<String> lines = new ArrayList<>();
+            try (ResultSet rows = explain.executeQuery()) {
+                while (rows.next()) {
+                    lines.add(rows.getString(1));
+                }
+            }
+            return String.join("\n", lines);
+        });
+    }
+
+    private static byte[] keyHash(long transactionId) {
+        try {
+            return MessageDigest.getInstance("SHA-256")
+                .digest(("plan-" + transactionId).getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Seed(long account, long firstTransactionId, UUID transactionId) {
+    }
+}
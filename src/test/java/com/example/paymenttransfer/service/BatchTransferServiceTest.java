@@ -0,0 +1,347 @@
+package com.example.paymenttransfer.service;
+
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.domain.Account;
+import com.example.paymenttransfer.domain.AccountBalanceSlot;
+import com.example.paymenttransfer.domain.BalanceAudit;
+import com.example.paymenttransfer.domain.IdempotencyRecord;
+import com.example.paymenttransfer.domain.Transaction;
+import com.example.paymenttransfer.domain.dto.TransferRequestDTO;
+import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+import com.example.paymenttransfer.domain.enums.TransactionStatus;
+import com.example.paymenttransfer.errors.InsufficientFundsException;
+import com.example.paymenttransfer.errors.InvalidTransferException;
+import com.example.paymenttransfer.repository.AccountBalanceSlotRepository;
+import com.example.paymenttransfer.repository.AccountRepository;
+import com.example.paymenttransfer.repository.BalanceAuditRepository;
+import com.example.paymenttransfer.repository.IdempotencyRecordRepository;
+import com.example.paymenttransfer.repository.TransactionRepository;
+import com.example.paymenttransfer.monitoring.TransferMetrics;
+import com.example.paymenttransfer.service.concurrency.AccountBalanceSlots;
+import com.example.paymenttransfer.service.concurrency.TransferConcurrencyControl;
+import com.example.paymenttransfer.service.idempotency.IdempotencyCache;
+import com.example.paymenttransfer.service.idempotency.IdempotencyKeyHash;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchTransferServiceTest {
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private BalanceAuditRepository balanceAuditRepository;
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private FailedTransferRecorder failedTransferRecorder;
+
+    @Captor
+    private ArgumentCaptor<Collection<Transaction>> transactions;
+
+    @Captor
+    private ArgumentCaptor<Collection<BalanceAudit>> audits;
+
+    private final TransferProperties transferProperties = new TransferProperties();
+
+    private BatchTransferService batchTransferService;
+
+    @BeforeEach
+    void setUp() {
+        batchTransferService = batchTransferService(new AccountBalanceSlots(accountRepository,
+            mock(AccountBalanceSlotRepository.class), balanceAuditRepository, mock(PlatformTransactionManager.class),
+            transferProperties));
+    }
+
+    @Test
+    void processBatch_appliesTransfersInOrderAndRejectsOnlyFailingItems() {
+        Account first = account(1L, "100.00");
+        Account second = account(2L, "0.00");
+        stubSession();
+        when(idempotencyRecordRepository.findAllActiveByKeyHashIn(anyCollection(), any())).thenReturn(List.of());
+        when(accountRepository.findAllByIdWithLock(anyCollection())).thenReturn(List.of(first, second));
+
+        List<BatchTransferOutcome> outcomes = batchTransferService.processBatch(List.of(
+            request(1L, 2L, "80.00", "key-1"),
+            request(1L, 2L, "30.00", "key-2"),
+            request(2L, 1L, "50.00", "key-3")));
+
+        assertTrue(outcomes.get(0).isSuccess());
+        assertInstanceOf(InsufficientFundsException.class, outcomes.get(1).error());
+        assertTrue(outcomes.get(2).isSuccess());
+        assertEquals(new BigDecimal("70.00"), first.getBalance());
+        assertEquals(new BigDecimal("30.00"), second.getBalance());
+
+        verify(transactionRepository).saveAll(transactions.capture());
+        assertEquals(2, transactions.getValue().size());
+        verify(balanceAuditRepository).saveAll(argThat(audits -> ((Collection<?>) audits).size() == 4));
+        verify(idempotencyRecordRepository).saveAll(argThat(records -> ((Collection<?>) records).size() == 2));
+        verify(failedTransferRecorder).recordInBatch(argThat(declines -> declines.size() == 1
+            && declines.iterator().next().getStatus() == TransactionStatus.FAILED
+            && declines.iterator().next().getAmount().equals(new BigDecimal("30.00"))));
+    }
+
+    @Test
+    void processBatch_locksEveryAccountOnceInAscendingOrder() {
+        stubSession();
+        when(idempotencyRecordRepository.findAllActiveByKeyHashIn(anyCollection(), any())).thenReturn(List.of());
+        when(accountRepository.findAllByIdWithLock(anyCollection()))
+            .thenReturn(List.of(account(3L, "10.00"), account(5L, "10.00"), account(9L, "10.00")));
+
+        batchTransferService.processBatch(List.of(
+            request(9L, 3L, "1.00", "key-1"),
+            request(5L, 9L, "1.00", "key-2"),
+            request(3L, 5L, "1.00", "key-3")));
+
+        verify(accountRepository).findAllByIdWithLock(List.of(3L, 5L, 9L));
+        verifyNoMoreInteractions(accountRepository);
+    }
+
+    @Test
+    void processBatch_deadlock_retriesTheWholeBatch() {
+        Account first = account(1L, "100.00");
+        Account second = account(2L, "0.00");
+        transferProperties.getConcurrency().setInitialBackoff(Duration.ZERO);
+        stubSession();
+        when(idempotencyRecordRepository.findAllActiveByKeyHashIn(anyCollection(), any())).thenReturn(List.of());
+        when(accountRepository.findAllByIdWithLock(anyCollection()))
+            .thenThrow(new CannotAcquireLockException("deadlock detected",
+                new SQLException("deadlock detected", "40P01")))
+            .thenReturn(List.of(first, second));
+
+        List<BatchTransferOutcome> outcomes = batchTransferService.processBatch(List.of(
+            request(1L, 2L, "80.00", "key-1")));
+
+        assertTrue(outcomes.get(0).isSuccess());
+        assertEquals(new BigDecimal("20.00"), first.getBalance());
+        verify(accountRepository, times(2)).findAllByIdWithLock(anyCollection());
+        verify(transactionRepository, times(1)).saveAll(any());
+    }
+
+    @Test
+    void processBatch_returnsExistingTransactionForProcessedAndRepeatedKeys() {
+        Account first = account(1L, "100.00");
+        Account second = account(2L, "0.00");
+        Transaction existing = Transaction.builder()
+            .transactionId(UUID.randomUUID())
+            .sourceAccount(first)
+            .destinationAccount(second)
+            .amount(new BigDecimal("5.00"))
+            .currency(CurrencyEnum.EUR)
+            .status(TransactionStatus.COMPLETED)
+            .build();
+        IdempotencyRecord existingRecord = IdempotencyRecord.builder()
+            .transaction(existing)
+            .keyHash(IdempotencyKeyHash.of("key-old").bytes())
+            .expiresAt(Instant.now().plusSeconds(60))
+            .build();
+        stubSession();
+        when(idempotencyRecordRepository.findAllActiveByKeyHashIn(anyCollection(), any()))
+            .thenReturn(List.of(existingRecord));
+        when(accountRepository.findAllByIdWithLock(anyCollection())).thenReturn(List.of(first, second));
+
+        List<BatchTransferOutcome> outcomes = batchTransferService.processBatch(List.of(
+            request(1L, 2L, "5.00", "key-old"),
+            request(1L, 2L, "10.00", "key-new"),
+            request(1L, 2L, "10.00", "key-new")));
+
+        assertEquals(existing.getTransactionId(), outcomes.get(0).response().getTransactionId());
+        assertEquals(outcomes.get(1).response().getTransactionId(), outcomes.get(2).response().getTransactionId());
+        assertEquals(new BigDecimal("90.00"), first.getBalance());
+        verify(idempotencyRecordRepository).saveAll(argThat(records -> ((Collection<?>) records).size() == 1));
+    }
+
+    @Test
+    void processBatch_rejectsOversizedBatch() {
+        transferProperties.getBatch().setMaxSize(1);
+
+        InvalidTransferException ex = assertThrows(InvalidTransferException.class,
+            () -> batchTransferService.processBatch(List.of(
+                request(1L, 2L, "1.00", "key-1"),
+                request(1L, 2L, "1.00", "key-2"))));
+
+        assertFalse(ex.getMessage().isEmpty());
+        verifyNoInteractions(accountRepository, transactionRepository);
+    }
+
+    @Test
+    void processBatch_sameAccountItemFailsOnItsOwn() {
+        stubSession();
+        when(idempotencyRecordRepository.findAllActiveByKeyHashIn(anyCollection(), any())).thenReturn(List.of());
+        when(accountRepository.findAllByIdWithLock(anyCollection())).thenReturn(List.of(account(1L, "10.00")));
+
+        List<BatchTransferOutcome> outcomes = batchTransferService.processBatch(List.of(
+            request(1L, 1L, "1.00", "key-1")));
+
+        assertInstanceOf(InvalidTransferException.class, outcomes.get(0).error());
+        verify(transactionRepository).saveAll(argThat(transactions -> ((Collection<?>) transactions).isEmpty()));
+    }
+
+    @Test
+    void processBatch_readsStripedDestinationWithoutLock() {
+        Account source = account(1L, "100.00");
+        Account hot = stripedAccount(2L);
+        AccountBalanceSlotRepository slotRepository = mock(AccountBalanceSlotRepository.class);
+        AccountBalanceSlot slot = new AccountBalanceSlot(2L, 1, new BigDecimal("5.00"));
+        when(slotRepository.findByIdWithLock(eq(2L), anyInt())).thenReturn(Optional.of(slot));
+        batchTransferService = batchTransferService(stripedAccountBalanceSlots(slotRepository));
+        stubSession();
+        when(idempotencyRecordRepository.findAllActiveByKeyHashIn(anyCollection(), any())).thenReturn(List.of());
+        when(accountRepository.findAllByIdWithLock(List.of(1L))).thenReturn(List.of(source));
+        when(accountRepository.findAllById(Set.of(2L))).thenReturn(List.of(hot));
+
+        List<BatchTransferOutcome> outcomes = batchTransferService.processBatch(List.of(
+            request(1L, 2L, "10.00", "key-1")));
+
+        assertTrue(outcomes.get(0).isSuccess());
+        verify(accountRepository).findAllByIdWithLock(List.of(1L));
+        assertEquals(new BigDecimal("15.00"), slot.getBalance());
+        assertEquals(new BigDecimal("0.00"), hot.getBalance());
+    }
+
+    @Test
+    void processBatch_addsCreditsToStripedAccountToOneSlotWithChainedAudits() {
+        Account source = account(1L, "100.00");
+        Account hot = stripedAccount(2L);
+        AccountBalanceSlotRepository slotRepository = mock(AccountBalanceSlotRepository.class);
+        AccountBalanceSlot slot = new AccountBalanceSlot(2L, 3, new BigDecimal("5.00"));
+        when(slotRepository.findByIdWithLock(eq(2L), anyInt())).thenReturn(Optional.of(slot));
+        batchTransferService = batchTransferService(stripedAccountBalanceSlots(slotRepository));
+        stubSession();
+        when(idempotencyRecordRepository.findAllActiveByKeyHashIn(anyCollection(), any())).thenReturn(List.of());
+        when(accountRepository.findAllByIdWithLock(List.of(1L))).thenReturn(List.of(source));
+        when(accountRepository.findAllById(Set.of(2L))).thenReturn(List.of(hot));
+
+        batchTransferService.processBatch(List.of(
+            request(1L, 2L, "10.00", "key-1"),
+            request(1L, 2L, "20.00", "key-2"),
+            request(1L, 2L, "30.00", "key-3")));
+
+        verify(slotRepository, times(1)).findByIdWithLock(eq(2L), anyInt());
+        assertEquals(new BigDecimal("65.00"), slot.getBalance());
+        verify(balanceAuditRepository).saveAll(audits.capture());
+        assertEquals(List.of("null: 100.00 -> 90.00", "3: 5.00 -> 15.00", "null: 90.00 -> 70.00",
+                "3: 15.00 -> 35.00", "null: 70.00 -> 40.00", "3: 35.00 -> 65.00"),
+            audits.getValue().stream()
+                .map(audit -> audit.getBalanceSlot() + ": " + audit.getBeforeBalance() + " -> "
+                    + audit.getAfterBalance())
+                .toList());
+    }
+
+    @Test
+    void processBatch_locksSlotsOfStripedAccountsInAscendingIdOrder() {
+        Account source = account(1L, "100.00");
+        Account later = stripedAccount(5L);
+        Account earlier = stripedAccount(2L);
+        AccountBalanceSlotRepository slotRepository = mock(AccountBalanceSlotRepository.class);
+        when(slotRepository.findByIdWithLock(eq(2L), anyInt()))
+            .thenReturn(Optional.of(new AccountBalanceSlot(2L, 0, BigDecimal.ZERO)));
+        when(slotRepository.findByIdWithLock(eq(5L), anyInt()))
+            .thenReturn(Optional.of(new AccountBalanceSlot(5L, 0, BigDecimal.ZERO)));
+        batchTransferService = batchTransferService(stripedAccountBalanceSlots(slotRepository));
+        stubSession();
+        when(idempotencyRecordRepository.findAllActiveByKeyHashIn(anyCollection(), any())).thenReturn(List.of());
+        when(accountRepository.findAllByIdWithLock(List.of(1L))).thenReturn(List.of(source));
+        when(accountRepository.findAllById(Set.of(2L, 5L))).thenReturn(List.of(later, earlier));
+
+        batchTransferService.processBatch(List.of(
+            request(1L, 5L, "10.00", "key-1"),
+            request(1L, 2L, "20.00", "key-2")));
+
+        InOrder slotLocks = inOrder(slotRepository);
+        slotLocks.verify(slotRepository).findByIdWithLock(eq(2L), anyInt());
+        slotLocks.verify(slotRepository).findByIdWithLock(eq(5L), anyInt());
+    }
+
+    private Account stripedAccount(Long id) {
+        Account account = account(id, "0.00");
+        account.setBalanceSlots(4);
+        List<Long> striped = transferProperties.getBalanceSlots().getAccounts();
+        striped.add(id);
+        transferProperties.getBalanceSlots().setSlots(4);
+        when(accountRepository.findByIdWithLock(id)).thenReturn(Optional.of(account));
+        when(accountRepository.findStripedIds()).thenReturn(List.copyOf(striped));
+        return account;
+    }
+
+    private AccountBalanceSlots stripedAccountBalanceSlots(AccountBalanceSlotRepository slotRepository) {
+        AccountBalanceSlots accountBalanceSlots = new AccountBalanceSlots(accountRepository, slotRepository,
+            balanceAuditRepository, mock(PlatformTransactionManager.class), transferProperties);
+        accountBalanceSlots.start();
+        return accountBalanceSlots;
+    }
+
+    private BatchTransferService batchTransferService(AccountBalanceSlots accountBalanceSlots) {
+        return new BatchTransferService(accountRepository, transactionRepository,
+            balanceAuditRepository, idempotencyRecordRepository, transferProperties, entityManager,
+            new IdempotencyCache(transferProperties, mock(JdbcTemplate.class), idempotencyRecordRepository,
+                mock(PlatformTransactionManager.class)),
+            accountBalanceSlots, failedTransferRecorder,
+            new TransferConcurrencyControl(mock(PlatformTransactionManager.class), transferProperties,
+                new TransferMetrics(new SimpleMeterRegistry())));
+    }
+
+    private void stubSession() {
+        when(entityManager.unwrap(Session.class)).thenReturn(mock(Session.class));
+    }
+
+    private static Account account(Long id, String balance) {
+        return Account.builder()
+            .id(id)
+            .accountNumber("ACC-" + id)
+            .ownerName("Owner " + id)
+            .balance(new BigDecimal(balance))
+            .currency(CurrencyEnum.EUR)
+            .build();
+    }
+
+    private static TransferRequestDTO request(Long sourceId, Long destinationId, String amount, String key) {
+        TransferRequestDTO request = new TransferRequestDTO();
+        request.setSourceAccountId(sourceId);
+        request.setDestinationAccountId(destinationId);
+        request.setAmount(new BigDecimal(amount));
+        request.setIdempotencyKey(key);
+        return request;
+    }
+}
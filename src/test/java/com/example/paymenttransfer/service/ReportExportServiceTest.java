@@ -0,0 +1,160 @@
+package com.example.paymenttransfer.service;
+
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.domain.Account;
+import com.example.paymenttransfer.domain.BalanceAudit;
+import com.example.paymenttransfer.domain.Transaction;
+import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+import com.example.paymenttransfer.domain.enums.TransactionStatus;
+import com.example.paymenttransfer.repository.AccountRepository;
+import com.example.paymenttransfer.repository.BalanceAuditRepository;
+import com.example.paymenttransfer.repository.TransactionRepository;
+import com.example.paymenttransfer.service.export.ExportFormat;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@Import(ReportExportService.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@EnableConfigurationProperties(TransferProperties.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReportExportServiceTest {
+
+    @Autowired
+    private ReportExportService exportService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private BalanceAuditRepository balanceAuditRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Account merchant;
+    private final List<Transaction> merchantTransactions = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        balanceAuditRepository.deleteAll();
+        transactionRepository.deleteAll();
+        accountRepository.deleteAll();
+        merchantTransactions.clear();
+
+        merchant = accountRepository.save(account("EXPORT-MERCHANT"));
+        Account customer = accountRepository.save(account("EXPORT-CUSTOMER"));
+        Account other = accountRepository.save(account("EXPORT-OTHER"));
+        merchantTransactions.add(store(customer, merchant, CurrencyEnum.EUR, null));
+        merchantTransactions.add(store(merchant, customer, CurrencyEnum.MKD, "Limit exceeded, \"daily\""));
+        merchantTransactions.add(store(customer, merchant, CurrencyEnum.EUR, null));
+        store(customer, other, CurrencyEnum.EUR, null);
+    }
+
+    @Test
+    void exportTransactions_streamsSentAndReceivedAsNdjsonInChronologicalOrder() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.exportTransactions(merchant.getId(), null, null, null, ExportFormat.NDJSON, out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(3);
+        List<JsonNode> rows = new ArrayList<>();
+        for (String line : lines) {
+            rows.add(objectMapper.readTree(line));
+        }
+        assertThat(rows).extracting(row -> row.get("transactionId").asText())
+            .containsExactlyElementsOf(merchantTransactions.stream()
+                .map(transaction -> transaction.getTransactionId().toString())
+                .toList());
+        JsonNode sent = rows.get(1);
+        assertThat(sent.get("sourceAccountNumber").asText()).isEqualTo("EXPORT-MERCHANT");
+        assertThat(sent.get("destinationAccountNumber").asText()).isEqualTo("EXPORT-CUSTOMER");
+        assertThat(sent.get("amount").decimalValue()).isEqualByComparingTo("12.50");
+        assertThat(Instant.parse(sent.get("createdAt").asText()))
+            .isEqualTo(merchantTransactions.get(1).getCreatedAt());
+        assertThat(exportService.exportLimiter().stats().admitted()).isEqualTo(1);
+    }
+
+    @Test
+    void exportTransactions_writesFilteredCsvWithHeaderAndQuotedValues() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.exportTransactions(merchant.getId(), CurrencyEnum.MKD, null, null, ExportFormat.CSV, out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0)).isEqualTo("transactionId,sourceAccountId,sourceAccountNumber,destinationAccountId,"
+            + "destinationAccountNumber,amount,currency,status,failureReason,createdAt");
+        assertThat(lines.get(1))
+            .startsWith(merchantTransactions.get(1).getTransactionId().toString())
+            .contains(",12.50,MKD,FAILED,\"Limit exceeded, \"\"daily\"\"\",");
+    }
+
+    @Test
+    void exportAudits_honoursTimeBounds() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Instant from = merchantTransactions.get(1).getCreatedAt();
+
+        exportService.exportAudits(merchant.getId(), null, from, null, ExportFormat.CSV, out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(3);
+        assertThat(lines.get(1)).contains(merchantTransactions.get(1).getTransactionId().toString());
+        assertThat(lines.get(2)).contains(merchantTransactions.get(2).getTransactionId().toString());
+    }
+
+    private Transaction store(Account source, Account destination, CurrencyEnum currency, String failureReason) {
+        Transaction transaction = transactionRepository.save(Transaction.builder()
+            .transactionId(UUID.randomUUID())
+            .sourceAccount(source)
+            .destinationAccount(destination)
+            .amount(new BigDecimal("12.50"))
+            .currency(currency)
+            .status(failureReason == null ? TransactionStatus.COMPLETED : TransactionStatus.FAILED)
+            .failureReason(failureReason)
+            .build());
+        balanceAuditRepository.save(BalanceAudit.builder()
+            .account(destination == merchant ? destination : source)
+            .beforeBalance(BigDecimal.TEN)
+            .afterBalance(BigDecimal.TEN)
+            .currency(currency)
+            .transaction(transaction)
+            .build());
+        return transaction;
+    }
+
+    private Account account(String number) {
+        return Account.builder()
+            .accountNumber(number)
+            .ownerName(number)
+            .balance(new BigDecimal("1000.00"))
+            .currency(CurrencyEnum.EUR)
+            .build();
+    }
+}
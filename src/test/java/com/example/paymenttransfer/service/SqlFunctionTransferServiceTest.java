@@ -0,0 +1,162 @@
+package com.example.paymenttransfer.service;
+
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.domain.dto.TransferRequestDTO;
+import com.example.paymenttransfer.domain.dto.TransferResponseDTO;
+import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+import com.example.paymenttransfer.domain.enums.TransactionStatus;
+import com.example.paymenttransfer.errors.BankAccountNotFoundException;
+import com.example.paymenttransfer.errors.DuplicateTransactionException;
+import com.example.paymenttransfer.errors.InsufficientFundsException;
+import com.example.paymenttransfer.errors.InvalidTransferException;
+import com.example.paymenttransfer.service.SqlFunctionTransferService.Outcome;
+import com.example.paymenttransfer.service.SqlFunctionTransferService.TransferFunctionResult;
+import com.example.paymenttransfer.service.concurrency.AccountBalanceSlots;
+import com.example.paymenttransfer.service.concurrency.AccountTransferQueue;
+import com.example.paymenttransfer.service.concurrency.DatabaseWorkLimiter;
+import com.example.paymenttransfer.service.idempotency.IdempotencyCache;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SqlFunctionTransferServiceTest {
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private IdempotencyCache idempotencyCache;
+
+    @Mock
+    private AccountBalanceSlots accountBalanceSlots;
+
+    @Mock
+    private FailedTransferRecorder failedTransferRecorder;
+
+    @Spy
+    private TransferProperties transferProperties = new TransferProperties();
+
+    @Spy
+    private AccountTransferQueue accountTransferQueue = new AccountTransferQueue(new TransferProperties());
+
+    @Spy
+    private DatabaseWorkLimiter databaseWorkLimiter = new DatabaseWorkLimiter(new TransferProperties(),
+        new HikariDataSource());
+
+    @InjectMocks
+    private SqlFunctionTransferService transferService;
+
+    @Test
+    void transferFunds_completed_returnsSuccessResponse() {
+        UUID transactionId = UUID.randomUUID();
+        stubFunctionResult(result(Outcome.COMPLETED, transactionId, TransactionStatus.COMPLETED, null));
+
+        TransferResponseDTO response = transferService.transferFunds(request());
+
+        assertEquals(TransactionStatus.COMPLETED, response.getStatus());
+        assertEquals(transactionId, response.getTransactionId());
+        assertEquals("Transfer completed successfully", response.getMessage());
+        assertEquals("SRC-123", response.getDetails().getSourceAccountNumber());
+        assertEquals(2L, response.getDetails().getDestinationAccountId());
+    }
+
+    @Test
+    void transferFunds_duplicate_returnsExistingTransaction() {
+        stubFunctionResult(result(Outcome.DUPLICATE, UUID.randomUUID(), TransactionStatus.COMPLETED, null));
+
+        TransferResponseDTO response = transferService.transferFunds(request());
+
+        assertEquals(TransactionStatus.COMPLETED, response.getStatus());
+        assertEquals("Transfer already processed", response.getMessage());
+    }
+
+    @Test
+    void transferFunds_insufficientFunds_shouldThrow() {
+        stubFunctionResult(result(Outcome.INSUFFICIENT_FUNDS, null, null, BigDecimal.TEN));
+
+        assertThrows(InsufficientFundsException.class, () -> transferService.transferFunds(request()));
+        verify(failedTransferRecorder).record(any(TransferRequestDTO.class), eq(CurrencyEnum.EUR),
+            argThat(reason -> reason.startsWith("Insufficient funds")));
+    }
+
+    @Test
+    void transferFunds_destinationMissing_shouldThrow() {
+        stubFunctionResult(result(Outcome.DESTINATION_NOT_FOUND, null, null, null));
+
+        assertThrows(BankAccountNotFoundException.class, () -> transferService.transferFunds(request()));
+    }
+
+    @Test
+    void transferFunds_concurrentDuplicateKey_shouldThrowDuplicate() {
+        when(jdbcTemplate.queryForObject(eq(SqlFunctionTransferService.TRANSFER_FUNDS_SQL), anyRowMapper(),
+            any(), any(), any(), any(), any(), any()))
+            .thenThrow(new DuplicateKeyException(
+                "duplicate key value violates unique constraint \"uk_idempotency_record_key_hash\""));
+
+        assertThrows(DuplicateTransactionException.class, () -> transferService.transferFunds(request()));
+    }
+
+    @Test
+    void transferFunds_otherDuplicateKey_shouldNotBeReportedAsDuplicateTransfer() {
+        when(jdbcTemplate.queryForObject(eq(SqlFunctionTransferService.TRANSFER_FUNDS_SQL), anyRowMapper(),
+            any(), any(), any(), any(), any(), any()))
+            .thenThrow(new DuplicateKeyException(
+                "duplicate key value violates unique constraint \"transaction_transaction_id_key\""));
+
+        assertThrows(DuplicateKeyException.class, () -> transferService.transferFunds(request()));
+    }
+
+    @Test
+    void transferFunds_sameAccount_shouldThrowWithoutCallingDatabase() {
+        TransferRequestDTO request = request();
+        request.setDestinationAccountId(request.getSourceAccountId());
+
+        assertThrows(InvalidTransferException.class, () -> transferService.transferFunds(request));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private void stubFunctionResult(TransferFunctionResult result) {
+        when(jdbcTemplate.queryForObject(eq(SqlFunctionTransferService.TRANSFER_FUNDS_SQL), anyRowMapper(),
+            any(), any(), any(), any(), any(), any()))
+            .thenReturn(result);
+    }
+
+    private static RowMapper<TransferFunctionResult> anyRowMapper() {
+        return any();
+    }
+
+    private TransferFunctionResult result(Outcome outcome, UUID transactionId, TransactionStatus status,
+                                          BigDecimal availableBalance) {
+        return new TransferFunctionResult(outcome, transactionId, status, "SRC-123", "DEST-456",
+            BigDecimal.valueOf(50), CurrencyEnum.EUR, null, availableBalance, Instant.now());
+    }
+
+    private TransferRequestDTO request() {
+        TransferRequestDTO request = new TransferRequestDTO();
+        request.setSourceAccountId(1L);
+        request.setDestinationAccountId(2L);
+        request.setAmount(BigDecimal.valueOf(50));
+        request.setIdempotencyKey("key-123");
+        return request;
+    }
+}
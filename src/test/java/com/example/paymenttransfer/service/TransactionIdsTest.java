@@ -0,0 +1,62 @@
+package com.example.paymenttransfer.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransactionIdsTest {
+
+    @Test
+    void next_isVersion7WithTheCurrentTime() {
+        long before = System.currentTimeMillis();
+        UUID id = TransactionIds.next();
+        long after = System.currentTimeMillis();
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        long millis = id.getMostSignificantBits() >>> 16;
+        assertTrue(millis >= before && millis <= after + 1, "timestamp " + millis);
+    }
+
+    @Test
+    void next_increasesStrictlyWithinAThread() {
+        byte[] previous = bytes(TransactionIds.next());
+        Set<UUID> seen = new HashSet<>();
+        for (int i = 0; i < 100_000; i++) {
+            UUID id = TransactionIds.next();
+            byte[] current = bytes(id);
+            // Postgres orders uuid values by their unsigned bytes.
+            assertTrue(Arrays.compareUnsigned(previous, current) < 0, id.toString());
+            assertTrue(seen.add(id));
+            previous = current;
+        }
+    }
+
+    @Test
+    void next_isUniqueAcrossThreads() {
+        Set<UUID> ids = ConcurrentHashMap.newKeySet();
+        IntStream.range(0, 8).parallel().forEach(thread -> {
+            for (int i = 0; i < 50_000; i++) {
+                ids.add(TransactionIds.next());
+            }
+        });
+
+        assertEquals(400_000, ids.size());
+    }
+
+    private static byte[] bytes(UUID id) {
+        return ByteBuffer.allocate(16)
+            .putLong(id.getMostSignificantBits())
+            .putLong(id.getLeastSignificantBits())
+            .array();
+    }
+}
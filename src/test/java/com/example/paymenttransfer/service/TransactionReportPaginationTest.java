@@ -0,0 +1,176 @@
+package com.example.paymenttransfer.service;
+
+import com.example.paymenttransfer.config.SecondLevelCacheConfig;
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.domain.Account;
+import com.example.paymenttransfer.domain.BalanceAudit;
+import com.example.paymenttransfer.domain.Transaction;
+import com.example.paymenttransfer.domain.dto.AuditListResponseDTO;
+import com.example.paymenttransfer.domain.dto.TransactionListResponseDTO;
+import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+import com.example.paymenttransfer.domain.enums.TransactionStatus;
+import com.example.paymenttransfer.repository.AccountRepository;
+import com.example.paymenttransfer.repository.BalanceAuditRepository;
+import com.example.paymenttransfer.repository.TransactionRepository;
+import com.example.paymenttransfer.service.report.AccountProfiles;
+import com.example.paymenttransfer.service.report.ReportPage;
+import com.example.paymenttransfer.service.report.ReportQuery;
+import com.example.paymenttransfer.support.JdbcStatementRecorder;
+import com.example.paymenttransfer.support.StatementRecordingConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@Import({TransactionReportService.class, AccountProfiles.class, SecondLevelCacheConfig.class,
+    StatementRecordingConfiguration.class})
+@EnableConfigurationProperties(TransferProperties.class)
+class TransactionReportPaginationTest {
+
+    @Autowired
+    private TransactionReportService reportService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private BalanceAuditRepository balanceAuditRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcStatementRecorder recorder;
+
+    private Account merchant;
+
+    @BeforeEach
+    void setUp() {
+        merchant = accountRepository.save(account("PAGE-MERCHANT"));
+        Account customer = accountRepository.save(account("PAGE-CUSTOMER"));
+        Account other = accountRepository.save(account("PAGE-OTHER"));
+        for (int i = 0; i < 7; i++) {
+            store(customer, merchant, i % 2 == 0 ? CurrencyEnum.EUR : CurrencyEnum.MKD);
+        }
+        for (int i = 0; i < 5; i++) {
+            store(merchant, customer, CurrencyEnum.EUR);
+        }
+        for (int i = 0; i < 3; i++) {
+            store(customer, other, CurrencyEnum.EUR);
+        }
+        // Start the report calls with an empty persistence context, as a request would.
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void getAccountTransactions_pagesThroughSentAndReceivedWithoutGapsOrRepeats() {
+        List<TransactionListResponseDTO> all = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            ReportPage<TransactionListResponseDTO> page = reportService.getAccountTransactions(merchant.getId(),
+                new ReportQuery(null, null, null, cursor, 5));
+            assertThat(page.items()).hasSizeLessThanOrEqualTo(5);
+            all.addAll(page.items());
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(all).hasSize(12);
+        assertThat(all).extracting(TransactionListResponseDTO::getTransactionId).doesNotHaveDuplicates();
+        assertThat(all).extracting(TransactionListResponseDTO::getCreatedAt)
+            .isSortedAccordingTo(Comparator.reverseOrder());
+    }
+
+    @Test
+    void getAccountAudits_filtersByCurrency() {
+        List<AuditListResponseDTO> all = new ArrayList<>();
+        String cursor = null;
+        do {
+            ReportPage<AuditListResponseDTO> page = reportService.getAccountAudits(merchant.getId(),
+                new ReportQuery(CurrencyEnum.MKD, null, null, cursor, 2));
+            all.addAll(page.items());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertThat(all).hasSize(3);
+        assertThat(all).allSatisfy(audit -> {
+            assertThat(audit.getCurrency()).isEqualTo(CurrencyEnum.MKD);
+            assertThat(audit.getAccountNumber()).isEqualTo("PAGE-MERCHANT");
+        });
+    }
+
+    @Test
+    void reportPages_costAFixedNumberOfStatementsRegardlessOfRows() {
+        String cursor = null;
+        int pages = 0;
+        do {
+            recorder.reset();
+            ReportPage<TransactionListResponseDTO> page = reportService.getAccountTransactions(merchant.getId(),
+                new ReportQuery(null, null, null, cursor, 5));
+            // Only the first page loads account profiles; later pages find them in the second-level cache.
+            int statements = pages == 0 ? 3 : 2;
+            assertThat(recorder.executions()).hasSize(statements);
+            assertThat(recorder.executionsStartingWith("select")).hasSize(statements);
+            assertThat(page.items()).extracting(TransactionListResponseDTO::getSourceAccountNumber)
+                .containsAnyOf("PAGE-MERCHANT", "PAGE-CUSTOMER")
+                .doesNotContainNull();
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        recorder.reset();
+        ReportPage<AuditListResponseDTO> audits = reportService.getAccountAudits(merchant.getId(),
+            new ReportQuery(null, null, null, null, 20));
+
+        assertThat(audits.items()).hasSize(12);
+        assertThat(recorder.executions()).hasSize(1);
+    }
+
+    private void store(Account source, Account destination, CurrencyEnum currency) {
+        Transaction transaction = transactionRepository.save(Transaction.builder()
+            .transactionId(UUID.randomUUID())
+            .sourceAccount(source)
+            .destinationAccount(destination)
+            .amount(BigDecimal.ONE)
+            .currency(currency)
+            .status(TransactionStatus.COMPLETED)
+            .build());
+        Account audited = destination == merchant ? destination : source;
+        balanceAuditRepository.save(BalanceAudit.builder()
+            .account(audited)
+            .beforeBalance(BigDecimal.TEN)
+            .afterBalance(BigDecimal.TEN)
+            .currency(currency)
+            .transaction(transaction)
+            .build());
+    }
+
+    private Account account(String number) {
+        return Account.builder()
+            .accountNumber(number)
+            .ownerName(number)
+            .balance(new BigDecimal("1000.00"))
+            .currency(CurrencyEnum.EUR)
+            .build();
+    }
+}
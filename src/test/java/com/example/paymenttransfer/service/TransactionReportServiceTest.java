@@ -1,165 +1,155 @@
 package com.example.paymenttransfer.service;
 
-import com.example.paymenttransfer.domain.Account;
-import com.example.paymenttransfer.domain.BalanceAudit;
-import com.example.paymenttransfer.domain.Transaction;
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.domain.AccountProfile;
 import com.example.paymenttransfer.domain.dto.AuditListResponseDTO;
 import com.example.paymenttransfer.domain.dto.TransactionListResponseDTO;
 import com.example.paymenttransfer.domain.enums.CurrencyEnum;
 import com.example.paymenttransfer.domain.enums.TransactionStatus;
+import com.example.paymenttransfer.domain.projection.AuditReportRow;
+import com.example.paymenttransfer.domain.projection.TransactionReportRow;
+import com.example.paymenttransfer.errors.InvalidCursorException;
 import com.example.paymenttransfer.repository.BalanceAuditRepository;
 import com.example.paymenttransfer.repository.TransactionRepository;
-import org.junit.jupiter.api.BeforeEach;
+import com.example.paymenttransfer.service.report.AccountProfiles;
+import com.example.paymenttransfer.service.report.ReportCursor;
+import com.example.paymenttransfer.service.report.ReportPage;
+import com.example.paymenttransfer.service.report.ReportQuery;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 public class TransactionReportServiceTest {
+    private static final Instant T0 = Instant.parse("2026-10-18T10:00:00Z");
+    private static final Map<Long, AccountProfile> PROFILES = Map.of(
+        1L, new AccountProfile(1L, "SRC123", "Source Owner", CurrencyEnum.EUR),
+        2L, new AccountProfile(2L, "DST456", "Destination Owner", CurrencyEnum.EUR));
+
     @Mock
     private TransactionRepository transactionRepository;
 
     @Mock
     private BalanceAuditRepository balanceAuditRepository;
 
+    @Mock
+    private AccountProfiles accountProfiles;
+
+    @Spy
+    private TransferProperties transferProperties = new TransferProperties();
+
     @InjectMocks
     private TransactionReportService reportService;
 
-    private Account sourceAccount;
-    private Account destinationAccount;
-
-    @BeforeEach
-    void setUp() {
-        sourceAccount = Account.builder()
-            .id(1L)
-            .accountNumber("SRC123")
-            .currency(CurrencyEnum.EUR)
-            .build();
-
-        destinationAccount = Account.builder()
-            .id(2L)
-            .accountNumber("DST456")
-            .currency(CurrencyEnum.EUR)
-            .build();
+    @Test
+    void getAccountTransactions_mergesSentAndReceivedNewestFirst() {
+        TransactionReportRow sentOld = transaction(10L, true, T0);
+        TransactionReportRow sentNew = transaction(12L, true, T0.plusSeconds(2));
+        TransactionReportRow received = transaction(11L, false, T0.plusSeconds(1));
+
+        when(transactionRepository.findPageBySourceAccount(eq(1L), eq(CurrencyEnum.EUR), any(), any(), anyLong(),
+            eq(Limit.of(3))))
+            .thenReturn(List.of(sentNew, sentOld));
+        when(transactionRepository.findPageByDestinationAccount(eq(1L), eq(CurrencyEnum.EUR), any(), any(), anyLong(),
+            eq(Limit.of(3))))
+            .thenReturn(List.of(received));
+        when(accountProfiles.findAll(Set.of(1L, 2L))).thenReturn(PROFILES);
+
+        ReportPage<TransactionListResponseDTO> page = reportService.getAccountTransactions(1L,
+            new ReportQuery(CurrencyEnum.EUR, null, null, null, 2));
+
+        assertThat(page.items())
+            .extracting(TransactionListResponseDTO::getTransactionId)
+            .containsExactly(sentNew.transactionId(), received.transactionId());
+        assertThat(page.items().get(1).getSourceAccountNumber()).isEqualTo("DST456");
+        assertThat(page.items().get(1).getDestinationAccountNumber()).isEqualTo("SRC123");
+        assertThat(ReportCursor.decode(page.nextCursor())).isEqualTo(new ReportCursor(T0.plusSeconds(1), 11L));
     }
 
     @Test
-    void getAccountTransactionsByCurrency_returnsMappedTransactions() {
-        Transaction tx = Transaction.builder()
-            .transactionId(UUID.randomUUID())
-            .sourceAccount(sourceAccount)
-            .destinationAccount(destinationAccount)
-            .amount(BigDecimal.valueOf(100))
-            .currency(CurrencyEnum.EUR)
-            .status(TransactionStatus.COMPLETED)
-            .createdAt(Instant.now())
-            .build();
-
-        when(transactionRepository.findByCurrencyAndSourceAccountId(CurrencyEnum.EUR, 1L))
+    void getAccountTransactions_lastPageHasNoCursor() {
+        TransactionReportRow tx = transaction(10L, true, T0);
+        when(transactionRepository.findPageBySourceAccount(eq(1L), eq(null), eq(Instant.EPOCH), any(), anyLong(),
+            eq(Limit.of(51))))
             .thenReturn(List.of(tx));
+        when(accountProfiles.findAll(any())).thenReturn(PROFILES);
 
-        List<TransactionListResponseDTO> result = reportService.getAccountTransactionsByCurrency(1L, CurrencyEnum.EUR);
+        ReportPage<TransactionListResponseDTO> page = reportService.getAccountTransactions(1L, ReportQuery.firstPage());
 
-        assertThat(result).hasSize(1);
-        assertThat(result.get(0).getTransactionId()).isEqualTo(tx.getTransactionId());
-        assertThat(result.get(0).getAmount()).isEqualByComparingTo(tx.getAmount());
-        assertThat(result.get(0).getStatus()).isEqualTo(TransactionStatus.COMPLETED);
+        assertThat(page.items()).hasSize(1);
+        assertThat(page.items().get(0).getAmount()).isEqualByComparingTo(tx.amount());
+        assertThat(page.items().get(0).getStatus()).isEqualTo(TransactionStatus.COMPLETED);
+        assertThat(page.nextCursor()).isNull();
     }
 
     @Test
-    void getAllAccountTransactions_groupsByCurrency() {
-        Transaction tx1 = Transaction.builder()
-            .transactionId(UUID.randomUUID())
-            .sourceAccount(sourceAccount)
-            .destinationAccount(destinationAccount)
-            .amount(BigDecimal.valueOf(50))
-            .currency(CurrencyEnum.EUR)
-            .status(TransactionStatus.COMPLETED)
-            .createdAt(Instant.now())
-            .build();
-
-        Transaction tx2 = Transaction.builder()
-            .transactionId(UUID.randomUUID())
-            .sourceAccount(sourceAccount)
-            .destinationAccount(destinationAccount)
-            .amount(BigDecimal.valueOf(70))
-            .currency(CurrencyEnum.MKD)
-            .status(TransactionStatus.COMPLETED)
-            .createdAt(Instant.now())
-            .build();
-
-        when(transactionRepository.findAllByAccount(1L))
-            .thenReturn(List.of(tx1, tx2));
-
-        Map<CurrencyEnum, List<TransactionListResponseDTO>> result = reportService.getAllAccountTransactions(1L);
-
-        assertThat(result.keySet()).containsExactlyInAnyOrder(CurrencyEnum.MKD, CurrencyEnum.EUR);
-        assertThat(result.get(CurrencyEnum.EUR)).hasSize(1);
-        assertThat(result.get(CurrencyEnum.MKD)).hasSize(1);
+    void getAccountAudits_continuesFromCursorWithinTimeRange() {
+        AuditReportRow audit = new AuditReportRow(10L, 1L, null, BigDecimal.valueOf(200), BigDecimal.valueOf(100),
+            CurrencyEnum.EUR, UUID.randomUUID(), T0);
+        String cursor = new ReportCursor(T0.plusSeconds(30), 42L).encode();
+        Instant from = T0.minusSeconds(3600);
+
+        when(balanceAuditRepository.findPageByAccount(1L, CurrencyEnum.EUR, from, T0.plusSeconds(30), 42L,
+            Limit.of(11)))
+            .thenReturn(List.of(audit));
+        when(accountProfiles.findAll(List.of(1L))).thenReturn(PROFILES);
+
+        ReportPage<AuditListResponseDTO> page = reportService.getAccountAudits(1L,
+            new ReportQuery(CurrencyEnum.EUR, from, T0.plusSeconds(60), cursor, 10));
+
+        assertThat(page.items()).hasSize(1);
+        assertThat(page.items().get(0).getAuditId()).isEqualTo(audit.id());
+        assertThat(page.items().get(0).getAccountNumber()).isEqualTo("SRC123");
+        assertThat(page.items().get(0).getBeforeBalance()).isEqualByComparingTo(audit.beforeBalance());
+        assertThat(page.nextCursor()).isNull();
     }
 
     @Test
-    void getAccountAuditsByCurrency_returnsMappedAudits() {
-        BalanceAudit audit = BalanceAudit.builder()
-            .id(10L)
-            .account(sourceAccount)
-            .beforeBalance(BigDecimal.valueOf(200))
-            .afterBalance(BigDecimal.valueOf(100))
-            .currency(CurrencyEnum.EUR)
-            .transaction(Transaction.builder().transactionId(UUID.randomUUID()).build())
-            .createdAt(Instant.now())
-            .build();
-
-        when(balanceAuditRepository.findByCurrencyAndAccountId(CurrencyEnum.EUR, 1L))
-            .thenReturn(List.of(audit));
+    void getAccountAudits_clampsLimitAndStopsAtToBound() {
+        when(balanceAuditRepository.findPageByAccount(1L, null, Instant.EPOCH, T0, Long.MIN_VALUE, Limit.of(501)))
+            .thenReturn(List.of());
 
-        List<AuditListResponseDTO> result = reportService.getAccountAuditsByCurrency(1L, CurrencyEnum.EUR);
+        ReportPage<AuditListResponseDTO> page = reportService.getAccountAudits(1L,
+            new ReportQuery(null, null, T0, null, 100_000));
 
-        assertThat(result).hasSize(1);
-        assertThat(result.get(0).getAuditId()).isEqualTo(audit.getId());
-        assertThat(result.get(0).getBeforeBalance()).isEqualByComparingTo(audit.getBeforeBalance());
+        assertThat(page.items()).isEmpty();
+        verifyNoInteractions(accountProfiles);
+        verify(balanceAuditRepository).findPageByAccount(1L, null, Instant.EPOCH, T0, Long.MIN_VALUE, Limit.of(501));
     }
 
     @Test
-    void getAllAccountAudits_groupsByCurrency() {
-        BalanceAudit audit1 = BalanceAudit.builder()
-            .id(1L)
-            .account(sourceAccount)
-            .beforeBalance(BigDecimal.valueOf(200))
-            .afterBalance(BigDecimal.valueOf(100))
-            .currency(CurrencyEnum.USD)
-            .transaction(Transaction.builder().transactionId(UUID.randomUUID()).build())
-            .createdAt(Instant.now())
-            .build();
-
-        BalanceAudit audit2 = BalanceAudit.builder()
-            .id(2L)
-            .account(sourceAccount)
-            .beforeBalance(BigDecimal.valueOf(300))
-            .afterBalance(BigDecimal.valueOf(200))
-            .currency(CurrencyEnum.EUR)
-            .transaction(Transaction.builder().transactionId(UUID.randomUUID()).build())
-            .createdAt(Instant.now())
-            .build();
-
-        when(balanceAuditRepository.findAllByAccount(1L)).thenReturn(List.of(audit1, audit2));
-
-        Map<CurrencyEnum, List<AuditListResponseDTO>> result = reportService.getAllAccountAudits(1L);
-
-        assertThat(result.keySet()).containsExactlyInAnyOrder(CurrencyEnum.USD, CurrencyEnum.EUR);
-        assertThat(result.get(CurrencyEnum.USD)).hasSize(1);
-        assertThat(result.get(CurrencyEnum.EUR)).hasSize(1);
+    void getAccountAudits_rejectsMalformedCursor() {
+        assertThatThrownBy(() -> reportService.getAccountAudits(1L,
+            new ReportQuery(null, null, null, "not-a-cursor", null)))
+            .isInstanceOf(InvalidCursorException.class);
+        verifyNoInteractions(balanceAuditRepository);
     }
 
+    private TransactionReportRow transaction(Long id, boolean sent, Instant createdAt) {
+        return sent
+            ? new TransactionReportRow(id, UUID.randomUUID(), 1L, 2L, BigDecimal.valueOf(100), CurrencyEnum.EUR,
+                TransactionStatus.COMPLETED, null, createdAt)
+            : new TransactionReportRow(id, UUID.randomUUID(), 2L, 1L, BigDecimal.valueOf(100), CurrencyEnum.EUR,
+                TransactionStatus.COMPLETED, null, createdAt);
+    }
 }
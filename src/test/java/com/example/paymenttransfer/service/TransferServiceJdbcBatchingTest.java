@@ -0,0 +1,125 @@
+package com.example.paymenttransfer.service;
+
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.domain.Account;
+import com.example.paymenttransfer.domain.dto.TransferRequestDTO;
+import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+import com.example.paymenttransfer.errors.InsufficientFundsException;
+import com.example.paymenttransfer.monitoring.TransferMetrics;
+import com.example.paymenttransfer.repository.AccountRepository;
+import com.example.paymenttransfer.service.concurrency.AccountBalanceSlots;
+import com.example.paymenttransfer.service.concurrency.AccountTransferQueue;
+import com.example.paymenttransfer.service.concurrency.DatabaseWorkLimiter;
+import com.example.paymenttransfer.service.concurrency.TransferConcurrencyControl;
+import com.example.paymenttransfer.service.idempotency.IdempotencyCache;
+import com.example.paymenttransfer.support.JdbcStatementRecorder;
+import com.example.paymenttransfer.support.JdbcStatementRecorder.RecordedExecution;
+import com.example.paymenttransfer.support.StatementRecordingConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@Import({TransferService.class, TransferConcurrencyControl.class, AccountTransferQueue.class, DatabaseWorkLimiter.class,
+    AccountBalanceSlots.class, IdempotencyCache.class, FailedTransferRecorder.class, TransferMetrics.class,
+    SimpleMeterRegistry.class, StatementRecordingConfiguration.class})
+@EnableConfigurationProperties(TransferProperties.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TransferServiceJdbcBatchingTest {
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcStatementRecorder recorder;
+
+    @Autowired
+    private FailedTransferRecorder failedTransferRecorder;
+
+    @Test
+    void transferFunds_sendsInsertsAsJdbcBatches() {
+        Account source = accountRepository.save(account("BATCH-SRC", "500.00"));
+        Account destination = accountRepository.save(account("BATCH-DST", "100.00"));
+        recorder.reset();
+
+        TransferRequestDTO request = TransferRequestDTO.builder()
+            .sourceAccountId(source.getId())
+            .destinationAccountId(destination.getId())
+            .amount(new BigDecimal("25.00"))
+            .idempotencyKey("batching-key-1")
+            .build();
+
+        transferService.transferFunds(request);
+
+        List<RecordedExecution> inserts = recorder.executionsStartingWith("insert");
+
+        assertThat(inserts)
+            .as("every insert should go through the JDBC batch API")
+            .allMatch(RecordedExecution::batch);
+        assertThat(inserts)
+            .filteredOn(execution -> execution.targets("transaction"))
+            .singleElement()
+            .extracting(RecordedExecution::batchSize)
+            .isEqualTo(1);
+        assertThat(inserts)
+            .as("both audit rows should share a single round trip")
+            .filteredOn(execution -> execution.targets("balance_audit"))
+            .singleElement()
+            .extracting(RecordedExecution::batchSize)
+            .isEqualTo(2);
+        assertThat(inserts)
+            .as("one round trip per table: transaction, balance_audit, idempotency_record")
+            .hasSize(3);
+    }
+
+    @Test
+    void transferFunds_declined_writesOnlyTheFailureRecord() {
+        Account source = accountRepository.save(account("DECLINE-SRC", "10.00"));
+        Account destination = accountRepository.save(account("DECLINE-DST", "100.00"));
+        long written = failedTransferRecorder.stats().written();
+        recorder.reset();
+
+        TransferRequestDTO request = TransferRequestDTO.builder()
+            .sourceAccountId(source.getId())
+            .destinationAccountId(destination.getId())
+            .amount(new BigDecimal("25.00"))
+            .idempotencyKey("batching-declined-1")
+            .build();
+
+        assertThatThrownBy(() -> transferService.transferFunds(request))
+            .isInstanceOf(InsufficientFundsException.class)
+            .satisfies(rejection -> assertThat(rejection.getStackTrace()).isEmpty());
+
+        assertThat(recorder.executionsStartingWith("update")).isEmpty();
+        assertThat(recorder.executionsStartingWith("insert"))
+            .as("only the failed transaction row is written")
+            .singleElement()
+            .matches(execution -> execution.targets("transaction"));
+        assertThat(failedTransferRecorder.stats().written()).isEqualTo(written + 1);
+    }
+
+    private Account account(String accountNumber, String balance) {
+        return Account.builder()
+            .accountNumber(accountNumber)
+            .ownerName("Batch Owner")
+            .balance(new BigDecimal(balance))
+            .currency(CurrencyEnum.EUR)
+            .build();
+    }
+}
@@ -1,24 +1,54 @@
 package com.example.paymenttransfer.service;
 
+import com.example.paymenttransfer.config.TransferProperties;
 import com.example.paymenttransfer.domain.Account;
+import com.example.paymenttransfer.domain.IdempotencyRecord;
 import com.example.paymenttransfer.domain.Transaction;
 import com.example.paymenttransfer.domain.dto.TransferRequestDTO;
 import com.example.paymenttransfer.domain.dto.TransferResponseDTO;
 import com.example.paymenttransfer.domain.enums.CurrencyEnum;
 import com.example.paymenttransfer.domain.enums.TransactionStatus;
+import com.example.paymenttransfer.errors.DuplicateTransactionException;
 import com.example.paymenttransfer.errors.InsufficientFundsException;
 import com.example.paymenttransfer.errors.InvalidTransferException;
+import com.example.paymenttransfer.monitoring.TransferMetrics;
+import com.example.paymenttransfer.repository.AccountBalanceSlotRepository;
 import com.example.paymenttransfer.repository.AccountRepository;
 import com.example.paymenttransfer.repository.BalanceAuditRepository;
-import com.example.paymenttransfer.repository.IdempotencyKeyRepository;
+import com.example.paymenttransfer.repository.IdempotencyRecordRepository;
 import com.example.paymenttransfer.repository.TransactionRepository;
+import com.example.paymenttransfer.service.concurrency.AccountBalanceSlots;
+import com.example.paymenttransfer.service.concurrency.AccountTransferQueue;
+import com.example.paymenttransfer.service.concurrency.DatabaseWorkLimiter;
+import com.example.paymenttransfer.service.concurrency.TransferConcurrencyControl;
+import com.example.paymenttransfer.service.idempotency.IdempotencyCache;
+import com.example.paymenttransfer.service.idempotency.IdempotencyKeyHash;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -39,7 +69,38 @@ class TransferServiceTest {
     private BalanceAuditRepository balanceAuditRepository;
 
     @Mock
-    private IdempotencyKeyRepository idempotencyKeyRepository;
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Mock
+    private FailedTransferRecorder failedTransferRecorder;
+
+    @Spy
+    private TransferProperties transferProperties = new TransferProperties();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private TransferMetrics transferMetrics = new TransferMetrics(meterRegistry);
+
+    @Spy
+    private TransferConcurrencyControl concurrencyControl = new TransferConcurrencyControl(
+        mock(PlatformTransactionManager.class), new TransferProperties(), transferMetrics);
+
+    @Spy
+    private AccountTransferQueue accountTransferQueue = new AccountTransferQueue(new TransferProperties());
+
+    @Spy
+    private AccountBalanceSlots accountBalanceSlots = new AccountBalanceSlots(mock(AccountRepository.class),
+        mock(AccountBalanceSlotRepository.class), mock(BalanceAuditRepository.class),
+        mock(PlatformTransactionManager.class), new TransferProperties());
+
+    @Spy
+    private DatabaseWorkLimiter databaseWorkLimiter = new DatabaseWorkLimiter(new TransferProperties(),
+        new HikariDataSource());
+
+    @Spy
+    private IdempotencyCache idempotencyCache = new IdempotencyCache(new TransferProperties(),
+        mock(JdbcTemplate.class), mock(IdempotencyRecordRepository.class), mock(PlatformTransactionManager.class));
 
     @InjectMocks
     private TransferService transferService;
@@ -63,7 +124,7 @@ class TransferServiceTest {
 
         when(accountRepository.findByIdWithLock(sourceId)).thenReturn(Optional.of(source));
         when(accountRepository.findByIdWithLock(destId)).thenReturn(Optional.of(destination));
-        when(transactionRepository.findByIdempotencyKey("key-123")).thenReturn(Optional.empty());
+        when(idempotencyRecordRepository.findActiveByKeyHash(any(), any())).thenReturn(Optional.empty());
         when(transactionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         TransferRequestDTO request = new TransferRequestDTO();
@@ -77,9 +138,15 @@ class TransferServiceTest {
         assertEquals(TransactionStatus.COMPLETED, response.getStatus());
         verify(accountRepository).save(source);
         verify(accountRepository).save(destination);
-        verify(transactionRepository, times(2)).save(any(Transaction.class));
+        verify(transactionRepository).save(
+            argThat(transaction -> transaction.getStatus() == TransactionStatus.COMPLETED));
         verify(balanceAuditRepository, times(2)).save(any());
-        verify(idempotencyKeyRepository).save(any());
+        verify(idempotencyRecordRepository).save(any());
+        verify(transactionRepository).flush();
+        for (TransferMetrics.Phase phase : TransferMetrics.Phase.values()) {
+            assertEquals(1, phaseTimerCount(phase), phase.name());
+        }
+        assertEquals(1, meterRegistry.get("transfer.duration").tag("outcome", "completed").timer().count());
     }
 
     @Test
@@ -93,8 +160,7 @@ class TransferServiceTest {
 
         when(accountRepository.findByIdWithLock(sourceId)).thenReturn(Optional.of(source));
         when(accountRepository.findByIdWithLock(destId)).thenReturn(Optional.of(destination));
-        when(transactionRepository.findByIdempotencyKey("key-123")).thenReturn(Optional.empty());
-        when(transactionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(idempotencyRecordRepository.findActiveByKeyHash(any(), any())).thenReturn(Optional.empty());
 
         TransferRequestDTO request = new TransferRequestDTO();
         request.setSourceAccountId(sourceId);
@@ -103,7 +169,12 @@ class TransferServiceTest {
         request.setIdempotencyKey("key-123");
 
         assertThrows(InsufficientFundsException.class, () -> transferService.transferFunds(request));
-        verify(transactionRepository, times(2)).save(any(Transaction.class));
+        verify(transactionRepository, never()).save(any());
+        verify(accountRepository, never()).save(any());
+        verify(failedTransferRecorder).record(argThat(transaction ->
+            transaction.getStatus() == TransactionStatus.FAILED && transaction.getFailureReason() != null));
+        assertEquals(1, meterRegistry.get("transfer.failures").tag("reason", "insufficient_funds").counter().count());
+        assertEquals(0, phaseTimerCount(TransferMetrics.Phase.FLUSH));
     }
 
     @Test
@@ -142,8 +213,11 @@ class TransferServiceTest {
         when(existingTransaction.getCreatedAt()).thenReturn(java.time.Instant.now());
         when(existingTransaction.getFailureReason()).thenReturn(null);
 
-        when(transactionRepository.findByIdempotencyKey("key-123"))
-            .thenReturn(Optional.of(existingTransaction));
+        when(idempotencyRecordRepository.findActiveByKeyHash(any(), any()))
+            .thenReturn(Optional.of(IdempotencyRecord.builder()
+                .transaction(existingTransaction)
+                .expiresAt(Instant.now().plusSeconds(60))
+                .build()));
 
         TransferRequestDTO request = new TransferRequestDTO();
         request.setSourceAccountId(sourceId);
@@ -157,4 +231,128 @@ class TransferServiceTest {
         verify(transactionRepository, never()).save(any());
     }
 
+    @Test
+    void transferFunds_recentlyProcessedKey_answeredFromCacheWithoutQuery() {
+        TransferResponseDTO cached = TransferResponseDTO.builder()
+            .transactionId(UUID.randomUUID())
+            .status(TransactionStatus.COMPLETED)
+            .message("Transfer already processed")
+            .build();
+        idempotencyCache.rememberProcessed(IdempotencyKeyHash.of("key-123"), cached, Instant.now().plusSeconds(60));
+
+        TransferRequestDTO request = new TransferRequestDTO();
+        request.setSourceAccountId(1L);
+        request.setDestinationAccountId(2L);
+        request.setAmount(BigDecimal.valueOf(50));
+        request.setIdempotencyKey("key-123");
+
+        TransferResponseDTO response = transferService.transferFunds(request);
+
+        assertEquals(cached, response);
+        verifyNoInteractions(transactionRepository, accountRepository, idempotencyRecordRepository);
+    }
+
+    @Test
+    void transferFunds_concurrentSameKey_shouldThrowDuplicate() {
+        stubAccountsForFlush(new DataIntegrityViolationException("could not execute statement",
+            new ConstraintViolationException("duplicate key", new SQLException("duplicate key", "23505"),
+                "uk_idempotency_record_key_hash")));
+
+        assertThrows(DuplicateTransactionException.class, () -> transferService.transferFunds(request("key-dup")));
+        assertEquals(1, meterRegistry.get("transfer.failures").tag("reason", "duplicate").counter().count());
+    }
+
+    @Test
+    void transferFunds_otherIntegrityViolation_shouldNotBeReportedAsDuplicate() {
+        stubAccountsForFlush(new DataIntegrityViolationException("could not execute statement",
+            new ConstraintViolationException("null value", new SQLException("null value", "23502"), "currency")));
+
+        assertThrows(DataIntegrityViolationException.class, () -> transferService.transferFunds(request("key-bug")));
+        assertEquals(1, meterRegistry.get("transfer.failures").tag("reason", "error").counter().count());
+        assertEquals(0, meterRegistry.get("transfer.failures").tag("reason", "duplicate").counter().count());
+    }
+
+    @Test
+    void transferFunds_emitsFlightRecorderEvents() throws Exception {
+        Account source = mock(Account.class);
+        Account destination = mock(Account.class);
+        when(source.getBalance()).thenReturn(BigDecimal.valueOf(200));
+        when(destination.getBalance()).thenReturn(BigDecimal.valueOf(50));
+        when(source.hasSufficientFunds(any())).thenReturn(true);
+        when(accountRepository.findByIdWithLock(1L)).thenReturn(Optional.of(source));
+        when(accountRepository.findByIdWithLock(2L)).thenReturn(Optional.of(destination));
+        when(idempotencyRecordRepository.findActiveByKeyHash(any(), any())).thenReturn(Optional.empty());
+        when(transactionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        TransferRequestDTO request = new TransferRequestDTO();
+        request.setSourceAccountId(1L);
+        request.setDestinationAccountId(2L);
+        request.setAmount(new BigDecimal("12.50"));
+        request.setIdempotencyKey("key-jfr");
+
+        Path file = Files.createTempFile("transfer", ".jfr");
+        Configuration configuration;
+        try (Reader reader = new InputStreamReader(
+            getClass().getResourceAsStream("/jfr/payment-transfer.jfc"), StandardCharsets.UTF_8)) {
+            configuration = Configuration.create(reader);
+        }
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording(configuration)) {
+            // Thresholds of the bundled configuration would drop these fast mocked calls.
+            recording.enable("com.example.paymenttransfer.AccountLock").withoutThreshold();
+            recording.enable("com.example.paymenttransfer.TransferPersist").withoutThreshold();
+            recording.start();
+            transferService.transferFunds(request);
+            recording.stop();
+            recording.dump(file);
+            events = RecordingFile.readAllEvents(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        RecordedEvent transfer = singleEvent(events, "com.example.paymenttransfer.Transfer");
+        assertEquals(1L, transfer.getLong("sourceAccountId"));
+        assertEquals(2L, transfer.getLong("destinationAccountId"));
+        assertEquals("12.50", transfer.getString("amount"));
+        assertEquals("completed", transfer.getString("outcome"));
+        assertEquals(2, events.stream()
+            .filter(event -> event.getEventType().getName().equals("com.example.paymenttransfer.AccountLock"))
+            .count());
+        RecordedEvent persist = singleEvent(events, "com.example.paymenttransfer.TransferPersist");
+        assertEquals(transfer.getString("transactionId"), persist.getString("transactionId"));
+    }
+
+    private void stubAccountsForFlush(DataIntegrityViolationException flushError) {
+        Account source = mock(Account.class);
+        Account destination = mock(Account.class);
+        when(source.getBalance()).thenReturn(BigDecimal.valueOf(200));
+        when(destination.getBalance()).thenReturn(BigDecimal.valueOf(50));
+        when(source.hasSufficientFunds(any())).thenReturn(true);
+        when(accountRepository.findByIdWithLock(1L)).thenReturn(Optional.of(source));
+        when(accountRepository.findByIdWithLock(2L)).thenReturn(Optional.of(destination));
+        when(idempotencyRecordRepository.findActiveByKeyHash(any(), any())).thenReturn(Optional.empty());
+        when(transactionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        doThrow(flushError).when(transactionRepository).flush();
+    }
+
+    private static TransferRequestDTO request(String idempotencyKey) {
+        TransferRequestDTO request = new TransferRequestDTO();
+        request.setSourceAccountId(1L);
+        request.setDestinationAccountId(2L);
+        request.setAmount(BigDecimal.valueOf(50));
+        request.setIdempotencyKey(idempotencyKey);
+        return request;
+    }
+
+    private long phaseTimerCount(TransferMetrics.Phase phase) {
+        return meterRegistry.get("transfer.phase").tag("phase", phase.name().toLowerCase()).timer().count();
+    }
+
+    private static RecordedEvent singleEvent(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> matching = events.stream()
+            .filter(event -> event.getEventType().getName().equals(name))
+            .toList();
+        assertEquals(1, matching.size(), name);
+        return matching.get(0);
+    }
 }
@@ -0,0 +1,166 @@
+package com.example.paymenttransfer.service.async;
+
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.domain.Account;
+import com.example.paymenttransfer.domain.dto.TransferRequestDTO;
+import com.example.paymenttransfer.domain.dto.TransferResponseDTO;
+import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+import com.example.paymenttransfer.domain.enums.TransactionStatus;
+import com.example.paymenttransfer.errors.TransactionNotFoundException;
+import com.example.paymenttransfer.monitoring.TransferMetrics;
+import com.example.paymenttransfer.repository.AccountRepository;
+import com.example.paymenttransfer.repository.BalanceAuditRepository;
+import com.example.paymenttransfer.service.concurrency.AccountBalanceSlots;
+import com.example.paymenttransfer.service.concurrency.DatabaseWorkLimiter;
+import com.example.paymenttransfer.service.concurrency.TransferConcurrencyControl;
+import com.example.paymenttransfer.service.idempotency.IdempotencyCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs without worker threads so the test drains the single partition itself.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@Import({AsyncTransferService.class, AsyncTransferWorkers.class, DatabaseWorkLimiter.class, IdempotencyCache.class,
+    AccountBalanceSlots.class, TransferConcurrencyControl.class, TransferMetrics.class, SimpleMeterRegistry.class})
+@EnableConfigurationProperties(TransferProperties.class)
+@TestPropertySource(properties = {"payment.transfer.async.workers=0", "payment.transfer.async.batch-size=2"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AsyncTransferServiceTest {
+
+    @Autowired
+    private AsyncTransferService asyncTransferService;
+
+    @Autowired
+    private AsyncTransferWorkers workers;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private BalanceAuditRepository balanceAuditRepository;
+
+    @Autowired
+    private AccountBalanceSlots accountBalanceSlots;
+
+    @Autowired
+    private TransferProperties properties;
+
+    @Test
+    void submit_isPendingUntilDrainedThenAppliedInSubmissionOrder() {
+        Account source = accountRepository.save(account("ASYNC-SRC-1", "100.00"));
+        Account destination = accountRepository.save(account("ASYNC-DST-1", "0.00"));
+        long auditsBefore = balanceAuditRepository.count();
+
+        TransferResponseDTO first = asyncTransferService.submit(request(source, destination, "60.00", "async-1"));
+        TransferResponseDTO second = asyncTransferService.submit(request(source, destination, "30.00", "async-2"));
+        TransferResponseDTO third = asyncTransferService.submit(request(source, destination, "30.00", "async-3"));
+
+        assertEquals(TransactionStatus.PENDING, first.getStatus());
+        assertEquals(TransactionStatus.PENDING, asyncTransferService.status(first.getTransactionId()).getStatus());
+        assertEquals(new BigDecimal("100.00"), accountRepository.findById(source.getId()).orElseThrow().getBalance());
+
+        assertEquals(3, workers.drain(0));
+
+        assertEquals(TransactionStatus.COMPLETED, asyncTransferService.status(first.getTransactionId()).getStatus());
+        assertEquals(TransactionStatus.COMPLETED, asyncTransferService.status(second.getTransactionId()).getStatus());
+        TransferResponseDTO rejected = asyncTransferService.status(third.getTransactionId());
+        assertEquals(TransactionStatus.FAILED, rejected.getStatus());
+        assertTrue(rejected.getDetails().getFailureReason().contains("Insufficient funds"),
+            rejected.getDetails().getFailureReason());
+
+        assertEquals(new BigDecimal("10.00"), accountRepository.findById(source.getId()).orElseThrow().getBalance());
+        assertEquals(new BigDecimal("90.00"),
+            accountRepository.findById(destination.getId()).orElseThrow().getBalance());
+        assertEquals(auditsBefore + 4, balanceAuditRepository.count());
+        AsyncTransferStats stats = workers.stats();
+        assertEquals(2, stats.completed());
+        assertEquals(1, stats.failed());
+        assertEquals(0, workers.drain(0));
+    }
+
+    @Test
+    void submit_sameIdempotencyKey_returnsSameTransactionBeforeAndAfterProcessing() {
+        Account source = accountRepository.save(account("ASYNC-SRC-2", "100.00"));
+        Account destination = accountRepository.save(account("ASYNC-DST-2", "0.00"));
+        TransferRequestDTO request = request(source, destination, "25.00", "async-retry");
+
+        TransferResponseDTO accepted = asyncTransferService.submit(request);
+        TransferResponseDTO pendingRetry = asyncTransferService.submit(request);
+        workers.drain(0);
+        TransferResponseDTO processedRetry = asyncTransferService.submit(request);
+
+        assertEquals(accepted.getTransactionId(), pendingRetry.getTransactionId());
+        assertEquals(TransactionStatus.PENDING, pendingRetry.getStatus());
+        assertEquals(accepted.getTransactionId(), processedRetry.getTransactionId());
+        assertEquals(TransactionStatus.COMPLETED, processedRetry.getStatus());
+        assertEquals(new BigDecimal("75.00"), accountRepository.findById(source.getId()).orElseThrow().getBalance());
+    }
+
+    @Test
+    void drain_stripedAccount_creditsSlotsWithoutTheAccountRowAndDeclinesWithItsTotal() {
+        Account source = accountRepository.save(account("ASYNC-SRC-3", "100.00"));
+        Account hot = accountRepository.save(account("ASYNC-HOT-3", "0.00"));
+        properties.getBalanceSlots().setAccounts(List.of(hot.getId()));
+        accountBalanceSlots.start();
+        try {
+            Account striped = accountRepository.findById(hot.getId()).orElseThrow();
+            asyncTransferService.submit(request(source, hot, "30.00", "async-hot-1"));
+            asyncTransferService.submit(request(source, hot, "20.00", "async-hot-2"));
+            workers.drain(0);
+
+            Account credited = accountRepository.findById(hot.getId()).orElseThrow();
+            assertEquals(striped.getVersion(), credited.getVersion());
+            assertEquals(0, new BigDecimal("50.00").compareTo(accountBalanceSlots.balance(credited)));
+
+            TransferResponseDTO overdraft = asyncTransferService.submit(request(hot, source, "80.00", "async-hot-3"));
+            workers.drain(0);
+
+            String reason = asyncTransferService.status(overdraft.getTransactionId()).getDetails().getFailureReason();
+            assertTrue(reason.endsWith("Required: 80.00, Available: 50.00"), reason);
+        } finally {
+            properties.getBalanceSlots().setAccounts(List.of());
+            accountBalanceSlots.start();
+        }
+    }
+
+    @Test
+    void status_unknownTransaction_throws() {
+        assertThrows(TransactionNotFoundException.class, () -> asyncTransferService.status(UUID.randomUUID()));
+    }
+
+    private static TransferRequestDTO request(Account source, Account destination, String amount, String key) {
+        return TransferRequestDTO.builder()
+            .sourceAccountId(source.getId())
+            .destinationAccountId(destination.getId())
+            .amount(new BigDecimal(amount))
+            .idempotencyKey(key)
+            .build();
+    }
+
+    private static Account account(String accountNumber, String balance) {
+        return Account.builder()
+            .accountNumber(accountNumber)
+            .ownerName("Async Owner")
+            .balance(new BigDecimal(balance))
+            .currency(CurrencyEnum.EUR)
+            .build();
+    }
+}
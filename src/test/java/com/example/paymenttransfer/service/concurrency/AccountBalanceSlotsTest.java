@@ -0,0 +1,163 @@
+package com.example.paymenttransfer.service.concurrency;
+
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.domain.Account;
+import com.example.paymenttransfer.domain.dto.TransferRequestDTO;
+import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+import com.example.paymenttransfer.errors.InsufficientFundsException;
+import com.example.paymenttransfer.monitoring.TransferMetrics;
+import com.example.paymenttransfer.repository.AccountBalanceSlotRepository;
+import com.example.paymenttransfer.repository.AccountRepository;
+import com.example.paymenttransfer.service.FailedTransferRecorder;
+import com.example.paymenttransfer.service.TransferService;
+import com.example.paymenttransfer.service.idempotency.IdempotencyCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@Import({TransferService.class, TransferConcurrencyControl.class, AccountTransferQueue.class, DatabaseWorkLimiter.class,
+    AccountBalanceSlots.class, IdempotencyCache.class, FailedTransferRecorder.class, TransferMetrics.class,
+    SimpleMeterRegistry.class})
+@EnableConfigurationProperties(TransferProperties.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AccountBalanceSlotsTest {
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private AccountBalanceSlots accountBalanceSlots;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountBalanceSlotRepository slotRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void credit_toStripedAccount_goesToSlotsWithoutTouchingTheAccountRow() {
+        Account source = accountRepository.save(account("SLOTS-SRC-1", "100.00"));
+        Account hot = accountRepository.save(account("SLOTS-HOT-1", "500.00"));
+        accountBalanceSlots.stripe(hot.getId(), 1);
+        Account striped = accountRepository.findById(hot.getId()).orElseThrow();
+        long credits = accountBalanceSlots.stats().credits();
+
+        transfer(source, striped, "30.00");
+        transfer(source, striped, "20.00");
+
+        Account after = accountRepository.findById(hot.getId()).orElseThrow();
+        assertTrue(accountBalanceSlots.isStriped(hot.getId()));
+        assertEquals(0, new BigDecimal("500.00").compareTo(after.getBalance()));
+        assertEquals(striped.getVersion(), after.getVersion());
+        assertEquals(0, new BigDecimal("50.00").compareTo(slotRepository.sumBalance(hot.getId())));
+        assertEquals(List.of("slot 0: 0.00 -> 30.00", "slot 0: 30.00 -> 50.00"), audits(hot));
+        assertEquals(credits + 2, accountBalanceSlots.stats().credits());
+    }
+
+    @Test
+    void debit_beyondAccountBalance_sweepsTheSlots() {
+        Account source = accountRepository.save(account("SLOTS-SRC-2", "100.00"));
+        Account hot = accountRepository.save(account("SLOTS-HOT-2", "10.00"));
+        accountBalanceSlots.stripe(hot.getId(), 1);
+        transfer(source, hot, "40.00");
+        long sweeps = accountBalanceSlots.stats().sweeps();
+
+        transfer(hot, source, "45.00");
+
+        assertEquals(0, new BigDecimal("5.00").compareTo(accountRepository.findById(hot.getId()).orElseThrow()
+            .getBalance()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(slotRepository.sumBalance(hot.getId())));
+        assertEquals(List.of("slot 0: 0.00 -> 40.00", "slot 0: 40.00 -> 0.00 (sweep)",
+            "balance: 10.00 -> 50.00 (sweep)", "balance: 50.00 -> 5.00"), audits(hot));
+        assertEquals(sweeps + 1, accountBalanceSlots.stats().sweeps());
+    }
+
+    @Test
+    void debit_beyondStripedTotal_reportsTheTotalAsAvailable() {
+        Account source = accountRepository.save(account("SLOTS-SRC-4", "100.00"));
+        Account hot = accountRepository.save(account("SLOTS-HOT-4", "10.00"));
+        accountBalanceSlots.stripe(hot.getId(), 1);
+        transfer(source, hot, "40.00");
+
+        InsufficientFundsException e = assertThrows(InsufficientFundsException.class,
+            () -> transfer(hot, source, "80.00"));
+
+        assertTrue(e.getMessage().endsWith("Required: 80.00, Available: 50.00"), e.getMessage());
+        assertEquals(0, new BigDecimal("50.00").compareTo(accountBalanceSlots.balance(
+            accountRepository.findById(hot.getId()).orElseThrow())));
+    }
+
+    @Test
+    void stripe_toZeroSlots_foldsTheSlotsBackIntoTheBalance() {
+        Account source = accountRepository.save(account("SLOTS-SRC-3", "100.00"));
+        Account hot = accountRepository.save(account("SLOTS-HOT-3", "0.00"));
+        accountBalanceSlots.stripe(hot.getId(), 1);
+        transfer(source, hot, "25.00");
+
+        accountBalanceSlots.stripe(hot.getId(), 0);
+
+        Account after = accountRepository.findById(hot.getId()).orElseThrow();
+        assertFalse(accountBalanceSlots.isStriped(hot.getId()));
+        assertEquals(0, after.getBalanceSlots());
+        assertEquals(0, new BigDecimal("25.00").compareTo(after.getBalance()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(slotRepository.sumBalance(hot.getId())));
+        assertEquals(List.of("slot 0: 0.00 -> 25.00", "slot 0: 25.00 -> 0.00 (sweep)",
+            "balance: 0.00 -> 25.00 (sweep)"), audits(hot));
+    }
+
+    private void transfer(Account source, Account destination, String amount) {
+        transferService.transferFunds(TransferRequestDTO.builder()
+            .sourceAccountId(source.getId())
+            .destinationAccountId(destination.getId())
+            .amount(new BigDecimal(amount))
+            .idempotencyKey(UUID.randomUUID().toString())
+            .build());
+    }
+
+    /**
+     * The account's audits in insertion order, each with the balance row it belongs to.
+     */
+    private List<String> audits(Account account) {
+        return jdbcTemplate.query("SELECT balance_slot, before_balance, after_balance, transaction_id "
+                + "FROM balance_audit WHERE account_id = ? ORDER BY id",
+            (rs, row) -> {
+                int slot = rs.getInt("balance_slot");
+                String balanceRow = rs.wasNull() ? "balance" : "slot " + slot;
+                rs.getLong("transaction_id");
+                String sweep = rs.wasNull() ? " (sweep)" : "";
+                return balanceRow + ": " + rs.getBigDecimal("before_balance").setScale(2) + " -> "
+                    + rs.getBigDecimal("after_balance").setScale(2) + sweep;
+            },
+            account.getId());
+    }
+
+    private Account account(String accountNumber, String balance) {
+        return Account.builder()
+            .accountNumber(accountNumber)
+            .ownerName("Slots Owner")
+            .balance(new BigDecimal(balance))
+            .currency(CurrencyEnum.EUR)
+            .build();
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.paymenttransfer.service.concurrency;
+
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.errors.ServiceBusyException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccountTransferQueueTest {
+
+    @Test
+    void call_sharedAccount_waitsForTheRunningTransfer() throws InterruptedException {
+        AccountTransferQueue queue = queue(Duration.ofSeconds(5));
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = Thread.ofVirtual().start(() -> queue.call(1L, 2L, () -> {
+            holding.countDown();
+            return awaitQuietly(release);
+        }));
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+        AtomicBoolean ran = new AtomicBoolean();
+        Thread waiter = Thread.ofVirtual().start(() -> queue.call(3L, 2L, () -> ran.getAndSet(true)));
+        while (queue.stats().waiting() == 0) {
+            Thread.onSpinWait();
+        }
+        assertFalse(ran.get());
+
+        release.countDown();
+        holder.join();
+        waiter.join();
+        assertTrue(ran.get());
+        AccountQueueStats stats = queue.stats();
+        assertEquals(2, stats.admitted());
+        assertEquals(1, stats.contended());
+        assertEquals(0, stats.waiting());
+    }
+
+    @Test
+    void call_unrelatedAccounts_runInParallel() throws InterruptedException {
+        AccountTransferQueue queue = queue(Duration.ofSeconds(5));
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = Thread.ofVirtual().start(() -> queue.call(1L, 2L, () -> {
+            holding.countDown();
+            return awaitQuietly(release);
+        }));
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+        assertEquals("done", queue.call(3L, 4L, () -> "done"));
+
+        release.countDown();
+        holder.join();
+        assertEquals(0, queue.stats().contended());
+    }
+
+    @Test
+    void call_accountBusyBeyondMaxWait_isRejected() throws InterruptedException {
+        AccountTransferQueue queue = queue(Duration.ofMillis(50));
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = Thread.ofVirtual().start(() -> queue.call(1L, 2L, () -> {
+            holding.countDown();
+            return awaitQuietly(release);
+        }));
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+        assertThrows(ServiceBusyException.class, () -> queue.call(2L, 1L, () -> "late"));
+
+        release.countDown();
+        holder.join();
+        assertEquals("next", queue.call(2L, 1L, () -> "next"));
+        assertEquals(1, queue.stats().timeouts());
+    }
+
+    /**
+     * Account ids 1 to 4 land on distinct stripes out of 1024.
+     */
+    private static AccountTransferQueue queue(Duration maxWait) {
+        TransferProperties properties = new TransferProperties();
+        properties.getAccountQueue().setStripes(1024);
+        properties.getAccountQueue().setMaxWait(maxWait);
+        return new AccountTransferQueue(properties);
+    }
+
+    private static boolean awaitQuietly(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
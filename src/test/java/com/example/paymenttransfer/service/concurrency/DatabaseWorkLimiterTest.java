@@ -0,0 +1,102 @@
+package com.example.paymenttransfer.service.concurrency;
+
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.errors.ServiceBusyException;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DatabaseWorkLimiterTest {
+
+    @Test
+    void maxConcurrent_defaultsToConnectionPoolSizeLessExportConnections() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setMaximumPoolSize(7);
+
+        DatabaseWorkLimiter limiter = new DatabaseWorkLimiter(new TransferProperties(), dataSource);
+
+        assertEquals(5, limiter.stats().maxConcurrent());
+        assertEquals("done", limiter.call(() -> "done"));
+        assertEquals(1, limiter.stats().admitted());
+        assertEquals(0, limiter.stats().inFlight());
+    }
+
+    @Test
+    void maxConcurrent_withExportsOnReplica_usesWholeConnectionPool() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setMaximumPoolSize(7);
+        TransferProperties properties = new TransferProperties();
+        properties.getReplica().setEnabled(true);
+
+        assertEquals(7, new DatabaseWorkLimiter(properties, dataSource).stats().maxConcurrent());
+    }
+
+    @Test
+    void call_queueFull_isRejectedWithoutWaiting() throws InterruptedException {
+        DatabaseWorkLimiter limiter = limiter(0, Duration.ofSeconds(30));
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = Thread.ofVirtual().start(() -> limiter.run(() -> {
+            holding.countDown();
+            awaitQuietly(release);
+        }));
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+        long started = System.nanoTime();
+        assertThrows(ServiceBusyException.class, () -> limiter.call(() -> "rejected"));
+        assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(5));
+
+        release.countDown();
+        holder.join();
+        LimiterStats stats = limiter.stats();
+        assertEquals(1, stats.admitted());
+        assertEquals(1, stats.rejectedQueueFull());
+        assertEquals(0, stats.inFlight());
+    }
+
+    @Test
+    void call_noPermitWithinMaxWait_isRejected() throws InterruptedException {
+        DatabaseWorkLimiter limiter = limiter(1, Duration.ofMillis(50));
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = Thread.ofVirtual().start(() -> limiter.run(() -> {
+            holding.countDown();
+            awaitQuietly(release);
+        }));
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+        ServiceBusyException busy = assertThrows(ServiceBusyException.class, () -> limiter.call(() -> "late"));
+        assertEquals(Duration.ofSeconds(1), busy.getRetryAfter());
+
+        release.countDown();
+        holder.join();
+        assertEquals("next", limiter.call(() -> "next"));
+        LimiterStats stats = limiter.stats();
+        assertEquals(1, stats.rejectedTimeout());
+        assertEquals(0, stats.queued());
+        assertEquals(2, stats.admitted());
+    }
+
+    private static DatabaseWorkLimiter limiter(int maxQueued, Duration maxWait) {
+        TransferProperties properties = new TransferProperties();
+        properties.getLimiter().setMaxConcurrent(1);
+        properties.getLimiter().setMaxQueued(maxQueued);
+        properties.getLimiter().setMaxWait(maxWait);
+        return new DatabaseWorkLimiter(properties, new HikariDataSource());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.paymenttransfer.service.concurrency;
+
+import com.example.paymenttransfer.config.ReplicaDataSource;
+import com.example.paymenttransfer.config.ReplicaStats;
+import com.example.paymenttransfer.config.TransferProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReportWorkLimiterTest {
+
+    private final DatabaseWorkLimiter primaryLimiter =
+        new DatabaseWorkLimiter("transfer", true, 4, 10, Duration.ofSeconds(1));
+    private final ReplicaDataSource replicaDataSource = mock(ReplicaDataSource.class);
+
+    @Test
+    void call_withUsableReplica_takesReplicaPermits() {
+        when(replicaDataSource.stats()).thenReturn(new ReplicaStats(true, 0, 0, 0));
+        TransferProperties properties = new TransferProperties();
+        properties.getReplica().setMaximumPoolSize(6);
+        ReportWorkLimiter limiter = limiter(properties, true);
+
+        assertEquals("page", limiter.call(() -> "page"));
+
+        DatabaseWorkLimiter replicaLimiter = limiter.replicaLimiter().orElseThrow();
+        assertEquals("replica", replicaLimiter.name());
+        assertEquals(4, replicaLimiter.stats().maxConcurrent());
+        assertEquals(1, replicaLimiter.stats().admitted());
+        assertEquals(0, primaryLimiter.stats().admitted());
+    }
+
+    @Test
+    void call_whileReplicaFallsBackToPrimary_takesPrimaryPermits() {
+        when(replicaDataSource.stats()).thenReturn(new ReplicaStats(false, 6_000, 0, 0));
+        ReportWorkLimiter limiter = limiter(new TransferProperties(), true);
+
+        limiter.call(() -> "page");
+
+        assertEquals(0, limiter.replicaLimiter().orElseThrow().stats().admitted());
+        assertEquals(1, primaryLimiter.stats().admitted());
+    }
+
+    @Test
+    void call_withoutReplica_takesPrimaryPermits() {
+        ReportWorkLimiter limiter = limiter(new TransferProperties(), false);
+
+        limiter.call(() -> "page");
+
+        assertTrue(limiter.replicaLimiter().isEmpty());
+        assertEquals(1, primaryLimiter.stats().admitted());
+    }
+
+    private ReportWorkLimiter limiter(TransferProperties properties, boolean withReplica) {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(
+            withReplica ? Map.of("readOnlyDataSource", replicaDataSource) : Map.of());
+        return new ReportWorkLimiter(primaryLimiter, beanFactory.getBeanProvider(ReplicaDataSource.class), properties);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.paymenttransfer.service.concurrency;
+
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.errors.ConcurrentTransferException;
+import com.example.paymenttransfer.errors.InsufficientFundsException;
+import com.example.paymenttransfer.monitoring.TransferMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(MockitoExtension.class)
+class TransferConcurrencyControlTest {
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TransferConcurrencyControl concurrencyControl;
+
+    @BeforeEach
+    void setUp() {
+        TransferProperties properties = new TransferProperties();
+        properties.getConcurrency().setMode(ConcurrencyMode.SERIALIZABLE);
+        properties.getConcurrency().setMaxAttempts(3);
+        properties.getConcurrency().setInitialBackoff(Duration.ofMillis(1));
+        properties.getConcurrency().setMaxBackoff(Duration.ofMillis(2));
+        concurrencyControl = new TransferConcurrencyControl(transactionManager, properties,
+            new TransferMetrics(new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void execute_serializationFailure_isRetriedUntilSuccess() {
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = concurrencyControl.execute(() -> {
+            if (calls.incrementAndGet() < 3) {
+                throw serializationFailure();
+            }
+            return "done";
+        });
+
+        assertEquals("done", result);
+        ConcurrencyStats stats = concurrencyControl.stats();
+        assertEquals(3, stats.attempts());
+        assertEquals(2, stats.retries());
+        assertEquals(0, stats.aborts());
+        assertEquals(2, stats.serializationFailures());
+    }
+
+    @Test
+    void execute_optimisticLockFailure_isRetried() {
+        AtomicInteger calls = new AtomicInteger();
+
+        concurrencyControl.execute(() -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new ObjectOptimisticLockingFailureException("Account", 1L);
+            }
+            return null;
+        });
+
+        assertEquals(2, calls.get());
+        assertEquals(1, concurrencyControl.stats().retries());
+        assertEquals(1, concurrencyControl.stats().optimisticLockFailures());
+    }
+
+    @Test
+    void execute_retriesExhausted_shouldAbort() {
+        assertThrows(ConcurrentTransferException.class,
+            () -> concurrencyControl.execute(() -> {
+                throw serializationFailure();
+            }));
+
+        ConcurrencyStats stats = concurrencyControl.stats();
+        assertEquals(3, stats.attempts());
+        assertEquals(2, stats.retries());
+        assertEquals(1, stats.aborts());
+    }
+
+    @Test
+    void execute_businessRuleViolation_isNotRetried() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(InsufficientFundsException.class,
+            () -> concurrencyControl.execute(() -> {
+                calls.incrementAndGet();
+                throw new InsufficientFundsException(1L, BigDecimal.TEN, BigDecimal.ONE);
+            }));
+
+        assertEquals(1, calls.get());
+        assertEquals(0, concurrencyControl.stats().retries());
+    }
+
+    private static RuntimeException serializationFailure() {
+        return new CannotAcquireLockException("could not serialize access",
+            new SQLException("could not serialize access due to concurrent update", "40001"));
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.paymenttransfer.service.idempotency;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    @Test
+    void mightContain_neverReportsAnAddedKeyAsNew() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(key("added-" + i));
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain(key("added-" + i)));
+        }
+    }
+
+    @Test
+    void mightContain_falsePositiveRateStaysNearTarget() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(key("added-" + i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(key("unseen-" + i))) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 2_000, "false positive rate too high: " + falsePositives + " / 100000");
+    }
+
+    private static byte[] key(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
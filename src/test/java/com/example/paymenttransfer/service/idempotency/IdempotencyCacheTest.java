@@ -0,0 +1,90 @@
+package com.example.paymenttransfer.service.idempotency;
+
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.domain.dto.TransferResponseDTO;
+import com.example.paymenttransfer.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class IdempotencyCacheTest {
+
+    private static final Instant FUTURE = Instant.now().plusSeconds(3600);
+
+    private final TransferProperties properties = new TransferProperties();
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void rememberProcessed_insideTransaction_visibleOnlyAfterCommit() {
+        IdempotencyCache cache = cache();
+        TransferResponseDTO response = response("key-1");
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.rememberProcessed(hash("key-1"), response, FUTURE);
+        assertNull(cache.cachedResponse(hash("key-1")));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertSame(response, cache.cachedResponse(hash("key-1")));
+        assertEquals(1, cache.stats().responseHits());
+    }
+
+    @Test
+    void cachedResponse_keepsAtMostCapacityEntries() {
+        properties.getIdempotencyCache().setResponseCacheSize(2);
+        IdempotencyCache cache = cache();
+
+        for (int i = 0; i < 10; i++) {
+            cache.rememberProcessed(hash("key-" + i), response("key-" + i), FUTURE);
+        }
+
+        assertEquals(2, cache.stats().cachedResponses());
+    }
+
+    @Test
+    void cachedResponse_ignoresExpiredEntries() {
+        IdempotencyCache cache = cache();
+
+        cache.rememberProcessed(hash("key-1"), response("key-1"), Instant.now().minusSeconds(1));
+
+        assertNull(cache.cachedResponse(hash("key-1")));
+        assertEquals(0, cache.stats().cachedResponses());
+    }
+
+    @Test
+    void mightHaveBeenProcessed_beforeRebuild_defersToDatabase() {
+        IdempotencyCache cache = cache();
+
+        assertTrue(cache.mightHaveBeenProcessed(hash("never-seen")));
+        assertEquals(0, cache.stats().bloomNegatives());
+    }
+
+    private IdempotencyCache cache() {
+        return new IdempotencyCache(properties, mock(JdbcTemplate.class), mock(IdempotencyRecordRepository.class),
+            mock(PlatformTransactionManager.class));
+    }
+
+    private static IdempotencyKeyHash hash(String key) {
+        return IdempotencyKeyHash.of(key);
+    }
+
+    private static TransferResponseDTO response(String message) {
+        return TransferResponseDTO.builder().message(message).build();
+    }
+}
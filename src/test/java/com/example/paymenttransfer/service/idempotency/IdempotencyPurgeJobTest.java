@@ -0,0 +1,127 @@
+package com.example.paymenttransfer.service.idempotency;
+
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.domain.Account;
+import com.example.paymenttransfer.domain.IdempotencyRecord;
+import com.example.paymenttransfer.domain.Transaction;
+import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+import com.example.paymenttransfer.domain.enums.TransactionStatus;
+import com.example.paymenttransfer.repository.AccountRepository;
+import com.example.paymenttransfer.repository.IdempotencyRecordRepository;
+import com.example.paymenttransfer.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@Import({IdempotencyPurgeJob.class, IdempotencyCache.class})
+@EnableConfigurationProperties(TransferProperties.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyPurgeJobTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-18T12:00:00Z");
+
+    @Autowired
+    private IdempotencyPurgeJob purgeJob;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransferProperties transferProperties;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Account source;
+    private Account destination;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyRecordRepository.deleteAll();
+        transactionRepository.deleteAll();
+        accountRepository.deleteAll();
+        source = accountRepository.save(account("PURGE-SRC"));
+        destination = accountRepository.save(account("PURGE-DST"));
+    }
+
+    @Test
+    void purgeExpiredBefore_deletesOnlyExpiredRecordsInBatches() {
+        transferProperties.getIdempotency().setPurgeBatchSize(2);
+        for (int i = 0; i < 5; i++) {
+            store("expired-" + i, NOW.minus(Duration.ofMinutes(i + 1)));
+        }
+        store("active", NOW.plus(Duration.ofHours(1)));
+
+        long purged = purgeJob.purgeExpiredBefore(NOW);
+
+        assertThat(purged).isEqualTo(5);
+        assertThat(idempotencyRecordRepository.findAll())
+            .extracting(IdempotencyRecord::getKeyHash)
+            .containsExactly(IdempotencyKeyHash.of("active").bytes());
+    }
+
+    @Test
+    void findAllActiveByKeyHashIn_ignoresExpiredRecords() {
+        store("expired", NOW.minusSeconds(1));
+        store("active", NOW.plusSeconds(60));
+
+        List<IdempotencyRecord> found = idempotencyRecordRepository.findAllActiveByKeyHashIn(
+            List.of(IdempotencyKeyHash.of("expired").bytes(), IdempotencyKeyHash.of("active").bytes()), NOW);
+
+        assertThat(found)
+            .extracting(IdempotencyRecord::getKeyHash)
+            .containsExactly(IdempotencyKeyHash.of("active").bytes());
+    }
+
+    private void store(String key, Instant expiresAt) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Transaction transaction = transactionRepository.save(Transaction.builder()
+                .transactionId(UUID.randomUUID())
+                .sourceAccount(source)
+                .destinationAccount(destination)
+                .amount(BigDecimal.ONE)
+                .currency(CurrencyEnum.EUR)
+                .status(TransactionStatus.COMPLETED)
+                .build());
+            idempotencyRecordRepository.save(IdempotencyRecord.builder()
+                .transaction(transaction)
+                .keyHash(IdempotencyKeyHash.of(key).bytes())
+                .createdAt(expiresAt.minus(Duration.ofHours(24)))
+                .expiresAt(expiresAt)
+                .build());
+        });
+    }
+
+    private static Account account(String accountNumber) {
+        return Account.builder()
+            .accountNumber(accountNumber)
+            .ownerName("Purge Owner")
+            .balance(new BigDecimal("100.00"))
+            .currency(CurrencyEnum.EUR)
+            .build();
+    }
+}
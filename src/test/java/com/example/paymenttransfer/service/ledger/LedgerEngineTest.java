@@ -0,0 +1,330 @@
+package com.example.paymenttransfer.service.ledger;
+
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.domain.Account;
+import com.example.paymenttransfer.domain.Transaction;
+import com.example.paymenttransfer.domain.dto.TransferRequestDTO;
+import com.example.paymenttransfer.domain.dto.TransferResponseDTO;
+import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+import com.example.paymenttransfer.domain.enums.TransactionStatus;
+import com.example.paymenttransfer.errors.InsufficientFundsException;
+import com.example.paymenttransfer.errors.InvalidTransferException;
+import com.example.paymenttransfer.monitoring.TransferMetrics;
+import com.example.paymenttransfer.repository.AccountRepository;
+import com.example.paymenttransfer.repository.IdempotencyRecordRepository;
+import com.example.paymenttransfer.repository.LedgerCheckpointRepository;
+import com.example.paymenttransfer.repository.TransactionRepository;
+import com.example.paymenttransfer.service.FailedTransferRecorder;
+import com.example.paymenttransfer.service.TransferService;
+import com.example.paymenttransfer.service.concurrency.AccountBalanceSlots;
+import com.example.paymenttransfer.service.concurrency.AccountTransferQueue;
+import com.example.paymenttransfer.service.concurrency.DatabaseWorkLimiter;
+import com.example.paymenttransfer.service.concurrency.TransferConcurrencyControl;
+import com.example.paymenttransfer.service.idempotency.IdempotencyCache;
+import com.example.paymenttransfer.service.idempotency.IdempotencyKeyHash;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Every engine is stopped before its database side is checked; stopping waits for the projection to catch up.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@Import({LedgerProjector.class, AccountBalanceSlots.class, TransferService.class, TransferConcurrencyControl.class,
+    AccountTransferQueue.class, DatabaseWorkLimiter.class, IdempotencyCache.class, FailedTransferRecorder.class,
+    TransferMetrics.class, SimpleMeterRegistry.class})
+@EnableConfigurationProperties(TransferProperties.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LedgerEngineTest {
+
+    @Autowired
+    private LedgerProjector projector;
+
+    @Autowired
+    private AccountBalanceSlots accountBalanceSlots;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerCheckpointRepository checkpointRepository;
+
+    @TempDir
+    private Path directory;
+
+    @BeforeEach
+    void resetCheckpoint() {
+        checkpointRepository.deleteAll();
+    }
+
+    @Test
+    void transferFunds_sameAndCrossShard_areJournaledAndProjected() throws Exception {
+        Account source = accountRepository.save(account("LEDGER-SRC-1", "100.00"));
+        Account crossShard = accountRepository.save(account("LEDGER-DST-1", "0.00"));
+        Account sameShard = accountRepository.save(account("LEDGER-DST-2", "0.00"));
+        assertEquals(1, Math.floorMod(crossShard.getId() - source.getId(), 2));
+        assertEquals(0, Math.floorMod(sameShard.getId() - source.getId(), 2));
+
+        LedgerEngine engine = start(2);
+        TransferResponseDTO same = engine.transferFunds(request(source, sameShard, "30.00", "ledger-1"));
+        TransferResponseDTO cross = engine.transferFunds(request(source, crossShard, "20.00", "ledger-2"));
+        TransferResponseDTO retry = engine.transferFunds(request(source, sameShard, "30.00", "ledger-1"));
+        assertThrows(InsufficientFundsException.class,
+            () -> engine.transferFunds(request(source, crossShard, "60.00", "ledger-3")));
+        assertThrows(InvalidTransferException.class,
+            () -> engine.transferFunds(request(source, crossShard, "0.005", "ledger-4")));
+        LedgerStats stats = engine.stats();
+        engine.stop();
+
+        assertEquals(TransactionStatus.COMPLETED, same.getStatus());
+        assertEquals(new BigDecimal("30.00"), same.getDetails().getAmount());
+        assertEquals(same.getTransactionId(), retry.getTransactionId());
+        assertEquals("Transfer already processed", retry.getMessage());
+        assertEquals(2, stats.transfers());
+        assertEquals(1, stats.crossShard());
+        assertEquals(1, stats.rejected());
+        assertEquals(1, stats.duplicates());
+
+        assertEquals(new BigDecimal("50.00"), balance(source));
+        assertEquals(new BigDecimal("20.00"), balance(crossShard));
+        assertEquals(new BigDecimal("30.00"), balance(sameShard));
+        assertEquals(TransactionStatus.COMPLETED, transaction(cross.getTransactionId()).getStatus());
+        assertEquals(cross.getDetails().getTimestamp(), transaction(cross.getTransactionId()).getCreatedAt());
+        assertEquals(stats.durableSequence(), projector.checkpoint());
+    }
+
+    @Test
+    void transferFunds_keyUsedInJpaMode_replaysThatTransferInLedgerMode() throws Exception {
+        Account source = accountRepository.save(account("LEDGER-SRC-JPA", "100.00"));
+        Account destination = accountRepository.save(account("LEDGER-DST-JPA", "0.00"));
+        TransferResponseDTO jpa = transferService.transferFunds(request(source, destination, "40.00", "ledger-jpa"));
+
+        LedgerEngine engine = start(2);
+        TransferResponseDTO retry = engine.transferFunds(request(source, destination, "40.00", "ledger-jpa"));
+        LedgerStats stats = engine.stats();
+        engine.stop();
+
+        assertEquals(jpa.getTransactionId(), retry.getTransactionId());
+        assertEquals("Transfer already processed", retry.getMessage());
+        assertEquals(0, stats.transfers());
+        assertEquals(1, stats.duplicates());
+        assertEquals(new BigDecimal("60.00"), balance(source));
+        assertEquals(new BigDecimal("40.00"), balance(destination));
+    }
+
+    @Test
+    void start_afterRestart_recoversBalancesAndKeysWithoutProjectingTwice() throws Exception {
+        Account source = accountRepository.save(account("LEDGER-SRC-2", "100.00"));
+        Account destination = accountRepository.save(account("LEDGER-DST-3", "0.00"));
+
+        LedgerEngine first = start(2);
+        TransferResponseDTO original = first.transferFunds(request(source, destination, "70.00", "ledger-restart"));
+        first.stop();
+        long transactions = transactionRepository.count();
+        // Changes made behind the ledger's back are ignored: it owns the balance once it has seen the account.
+        Account changed = accountRepository.findById(source.getId()).orElseThrow();
+        changed.setBalance(new BigDecimal("1000.00"));
+        accountRepository.save(changed);
+
+        LedgerEngine second = start(2);
+        TransferResponseDTO retry = second.transferFunds(request(source, destination, "70.00", "ledger-restart"));
+        assertThrows(InsufficientFundsException.class,
+            () -> second.transferFunds(request(source, destination, "40.00", "ledger-after-restart")));
+        second.transferFunds(request(source, destination, "10.00", "ledger-after-restart"));
+        second.stop();
+
+        assertEquals(original.getTransactionId(), retry.getTransactionId());
+        assertEquals(transactions + 2, transactionRepository.count());
+        assertEquals(new BigDecimal("20.00"), balance(source));
+        assertEquals(new BigDecimal("80.00"), balance(destination));
+    }
+
+    @Test
+    void start_withOpenDebit_reissuesTheCredit() throws Exception {
+        Account source = accountRepository.save(account("LEDGER-SRC-3", "100.00"));
+        Account destination = accountRepository.save(account("LEDGER-DST-4", "0.00"));
+        UUID transactionId = UUID.randomUUID();
+        Instant now = Instant.now();
+        try (LedgerJournal journal = new LedgerJournal(directory, 1 << 20, false, 10)) {
+            journal.recover(0, entry -> { });
+            journal.start();
+            journal.append(LedgerEntry.accountOpened(source.getId(), source.getAccountNumber(), CurrencyEnum.EUR,
+                10_000, now));
+            journal.append(LedgerEntry.accountOpened(destination.getId(), destination.getAccountNumber(),
+                CurrencyEnum.EUR, 0, now));
+            journal.append(LedgerEntry.debit(transactionId, new byte[32], source.getId(), destination.getId(),
+                4_000, 6_000, CurrencyEnum.EUR, now)).join();
+        }
+
+        LedgerEngine engine = start(2);
+        engine.stop();
+
+        assertEquals(new BigDecimal("60.00"), balance(source));
+        assertEquals(new BigDecimal("40.00"), balance(destination));
+        assertEquals(TransactionStatus.COMPLETED, transaction(transactionId).getStatus());
+        assertEquals(4, engine.stats().durableSequence());
+        assertEquals(4, projector.checkpoint());
+    }
+
+    @Test
+    void start_withDuplicateOpenedEntry_keepsTheFirst() throws Exception {
+        Account source = accountRepository.save(account("LEDGER-SRC-4", "100.00"));
+        Account destination = accountRepository.save(account("LEDGER-DST-5", "0.00"));
+        Instant now = Instant.now();
+        try (LedgerJournal journal = new LedgerJournal(directory, 1 << 20, false, 10)) {
+            journal.recover(0, entry -> { });
+            journal.start();
+            journal.append(LedgerEntry.accountOpened(source.getId(), source.getAccountNumber(), CurrencyEnum.EUR,
+                10_000, now));
+            journal.append(LedgerEntry.accountOpened(destination.getId(), destination.getAccountNumber(),
+                CurrencyEnum.EUR, 0, now));
+            journal.append(LedgerEntry.transfer(UUID.randomUUID(), IdempotencyKeyHash.of("ledger-opened").bytes(),
+                source.getId(), destination.getId(), 4_000, 6_000, 4_000, CurrencyEnum.EUR, now));
+            // A concurrent first use that lost the race, journaled after the winner's transfer.
+            journal.append(LedgerEntry.accountOpened(source.getId(), source.getAccountNumber(), CurrencyEnum.EUR,
+                10_000, now)).join();
+        }
+
+        LedgerEngine engine = start(2);
+        assertThrows(InsufficientFundsException.class,
+            () -> engine.transferFunds(request(source, destination, "70.00", "ledger-duplicate-open")));
+        engine.stop();
+
+        assertEquals(new BigDecimal("60.00"), balance(source));
+        assertEquals(new BigDecimal("40.00"), balance(destination));
+    }
+
+    @Test
+    void recover_tornLastRecord_isTruncatedAndSequenceContinues() throws IOException {
+        try (LedgerJournal journal = new LedgerJournal(directory, 1 << 20, false, 10)) {
+            journal.recover(0, entry -> { });
+            journal.start();
+            for (int i = 0; i < 3; i++) {
+                journal.append(LedgerEntry.accountOpened(i + 1, "TORN-" + i, CurrencyEnum.EUR, 100,
+                    Instant.now())).join();
+            }
+        }
+        Path segment = segments().get(0);
+        long intact = Files.size(segment);
+        Files.write(segment, new byte[] {0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        List<LedgerEntry> replayed = new ArrayList<>();
+        try (LedgerJournal journal = new LedgerJournal(directory, 1 << 20, false, 10)) {
+            assertEquals(3, journal.recover(0, replayed::add));
+            assertEquals(intact, Files.size(segment));
+            journal.start();
+            assertEquals(4, journal.append(LedgerEntry.accountOpened(4, "TORN-3", CurrencyEnum.EUR, 100,
+                Instant.now())).join());
+        }
+        assertEquals(3, replayed.size());
+        assertEquals(4, journalTypes().size());
+    }
+
+    @Test
+    void recover_segmentWithoutFormatHeader_refusesToStart() throws IOException {
+        // A record of the unversioned format starts directly with its length and checksum.
+        Path segment = directory.resolve("journal-%020d.log".formatted(1));
+        Files.write(segment, new byte[] {0, 0, 0, 3, 0, 0, 0, 0, 1, 2, 3});
+
+        try (LedgerJournal journal = new LedgerJournal(directory, 1 << 20, false, 10)) {
+            IOException e = assertThrows(IOException.class, () -> journal.recover(0, entry -> { }));
+            assertTrue(e.getMessage().contains("no format header"));
+        }
+        assertEquals(11, Files.size(segment));
+    }
+
+    private LedgerEngine start(int shards) {
+        TransferProperties properties = new TransferProperties();
+        properties.getLedger().setDirectory(directory.toString());
+        properties.getLedger().setShards(shards);
+        properties.getLedger().setSnapshotEvery(2);
+        // A cache of its own that was never rebuilt, so keys used before are only found in the database.
+        IdempotencyCache idempotencyCache = new IdempotencyCache(properties, jdbcTemplate, idempotencyRecordRepository,
+            transactionManager);
+        LedgerEngine engine = new LedgerEngine(accountBalanceSlots, projector, idempotencyCache,
+            idempotencyRecordRepository, new TransferMetrics(new SimpleMeterRegistry()), properties);
+        engine.start();
+        return engine;
+    }
+
+    private List<LedgerEntry.Type> journalTypes() throws IOException {
+        List<LedgerEntry.Type> types = new ArrayList<>();
+        try (LedgerJournal journal = new LedgerJournal(directory, 1 << 20, false, 10)) {
+            journal.recover(0, entry -> types.add(entry.type()));
+        }
+        return types;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".log")).sorted().toList();
+        }
+    }
+
+    private BigDecimal balance(Account account) {
+        return accountRepository.findById(account.getId()).orElseThrow().getBalance();
+    }
+
+    private Transaction transaction(UUID transactionId) {
+        return transactionRepository.findByTransactionIdWithAccounts(transactionId).orElseThrow();
+    }
+
+    private static TransferRequestDTO request(Account source, Account destination, String amount, String key) {
+        return TransferRequestDTO.builder()
+            .sourceAccountId(source.getId())
+            .destinationAccountId(destination.getId())
+            .amount(new BigDecimal(amount))
+            .idempotencyKey(key)
+            .build();
+    }
+
+    private static Account account(String accountNumber, String balance) {
+        return Account.builder()
+            .accountNumber(accountNumber)
+            .ownerName("Ledger Owner")
+            .balance(new BigDecimal(balance))
+            .currency(CurrencyEnum.EUR)
+            .build();
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.paymenttransfer.service.microbatch;
+
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.domain.dto.TransferRequestDTO;
+import com.example.paymenttransfer.domain.dto.TransferResponseDTO;
+import com.example.paymenttransfer.errors.InsufficientFundsException;
+import com.example.paymenttransfer.monitoring.TransferMetrics;
+import com.example.paymenttransfer.service.BatchTransferOutcome;
+import com.example.paymenttransfer.service.BatchTransferService;
+import com.example.paymenttransfer.service.TransferService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class MicroBatchTransferExecutorTest {
+
+    private final BatchTransferService batchTransferService = mock(BatchTransferService.class);
+    private final TransferService transferService = mock(TransferService.class);
+    private final TransferProperties properties = new TransferProperties();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private MicroBatchTransferExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        properties.getMicroBatch().setWindow(Duration.ofMillis(50));
+        properties.getMicroBatch().setMaxSize(10);
+        properties.getMicroBatch().setWorkers(1);
+        executor = new MicroBatchTransferExecutor(batchTransferService, transferService,
+            new TransferMetrics(registry), properties);
+        executor.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        executor.stop();
+    }
+
+    @Test
+    void transferFunds_groupsConcurrentRequestsAndCompletesEachCaller() throws Exception {
+        when(batchTransferService.processBatch(anyList())).thenAnswer(invocation -> {
+            List<TransferRequestDTO> requests = invocation.getArgument(0);
+            return requests.stream()
+                .map(request -> BatchTransferOutcome.success(request, response(request)))
+                .toList();
+        });
+
+        List<TransferResponseDTO> responses = submitConcurrently(20);
+
+        for (int i = 0; i < responses.size(); i++) {
+            assertEquals("key-" + i, responses.get(i).getMessage());
+        }
+        MicroBatchStats stats = executor.stats();
+        assertEquals(20, stats.transfers());
+        assertTrue(stats.batches() < 20, "expected grouped commits, got " + stats.batches());
+        assertEquals(20, registry.get("transfer.duration").tag("outcome", "completed").timer().count());
+        verifyNoInteractions(transferService);
+    }
+
+    @Test
+    void transferFunds_rethrowsPerItemFailure() {
+        InsufficientFundsException failure =
+            new InsufficientFundsException(1L, BigDecimal.TEN, BigDecimal.ONE);
+        when(batchTransferService.processBatch(anyList())).thenAnswer(invocation -> {
+            List<TransferRequestDTO> requests = invocation.getArgument(0);
+            return requests.stream().map(request -> BatchTransferOutcome.failure(request, failure)).toList();
+        });
+
+        InsufficientFundsException thrown =
+            assertThrows(InsufficientFundsException.class, () -> executor.transferFunds(request(0)));
+        assertEquals(failure, thrown);
+        assertEquals(1, registry.get("transfer.failures").tag("reason", "insufficient_funds").counter().count());
+    }
+
+    @Test
+    void transferFunds_fallsBackToSingleTransfersWhenBatchFails() throws Exception {
+        when(batchTransferService.processBatch(anyList()))
+            .thenThrow(new CannotAcquireLockException("deadlock detected"));
+        when(transferService.transferFunds(any())).thenAnswer(invocation -> response(invocation.getArgument(0)));
+
+        List<TransferResponseDTO> responses = submitConcurrently(5);
+
+        assertEquals(5, responses.size());
+        verify(transferService, times(5)).transferFunds(any());
+        assertEquals(5, executor.stats().fallbacks());
+        // The transfer service records the transfers it runs itself.
+        assertEquals(0, registry.get("transfer.duration").tag("outcome", "completed").timer().count());
+    }
+
+    @Test
+    void transferFunds_runsIndividuallyAfterStop() throws Exception {
+        executor.stop();
+        when(transferService.transferFunds(any())).thenAnswer(invocation -> response(invocation.getArgument(0)));
+
+        TransferResponseDTO response = executor.transferFunds(request(7));
+
+        assertEquals("key-7", response.getMessage());
+        verifyNoInteractions(batchTransferService);
+    }
+
+    private List<TransferResponseDTO> submitConcurrently(int count) throws InterruptedException, ExecutionException {
+        ExecutorService callers = Executors.newFixedThreadPool(count);
+        try {
+            List<Callable<TransferResponseDTO>> calls = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                TransferRequestDTO request = request(i);
+                calls.add(() -> executor.transferFunds(request));
+            }
+            List<TransferResponseDTO> responses = new ArrayList<>();
+            for (Future<TransferResponseDTO> future : callers.invokeAll(calls)) {
+                responses.add(future.get());
+            }
+            return responses;
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    private static TransferRequestDTO request(int index) {
+        TransferRequestDTO request = new TransferRequestDTO();
+        request.setSourceAccountId(1L);
+        request.setDestinationAccountId(2L);
+        request.setAmount(BigDecimal.ONE);
+        request.setIdempotencyKey("key-" + index);
+        return request;
+    }
+
+    private static TransferResponseDTO response(TransferRequestDTO request) {
+        return TransferResponseDTO.builder().message(request.getIdempotencyKey()).build();
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.paymenttransfer.service.report;
+
+import com.example.paymenttransfer.config.SecondLevelCacheConfig;
+import com.example.paymenttransfer.config.TransferProperties;
+import com.example.paymenttransfer.domain.Account;
+import com.example.paymenttransfer.domain.AccountProfile;
+import com.example.paymenttransfer.domain.enums.CurrencyEnum;
+import com.example.paymenttransfer.repository.AccountRepository;
+import com.example.paymenttransfer.support.JdbcStatementRecorder;
+import com.example.paymenttransfer.support.StatementRecordingConfiguration;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@Import({AccountProfiles.class, SecondLevelCacheConfig.class, StatementRecordingConfiguration.class})
+@EnableConfigurationProperties(TransferProperties.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AccountProfilesTest {
+
+    @Autowired
+    private AccountProfiles accountProfiles;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterBinder accountProfileCacheMetrics;
+
+    @Autowired
+    private JdbcStatementRecorder recorder;
+
+    @Test
+    void findAll_servesLaterTransactionsFromTheCacheAcrossBalanceUpdates() {
+        Account merchant = accountRepository.save(account("PROFILE-MERCHANT"));
+        Account customer = accountRepository.save(account("PROFILE-CUSTOMER"));
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        accountProfileCacheMetrics.bindTo(registry);
+        double hitsBefore = registry.get("cache.gets").tag("result", "hit").functionCounter().count();
+
+        recorder.reset();
+        transaction.execute(status -> accountProfiles.findAll(List.of(merchant.getId(), customer.getId())));
+        assertThat(recorder.executionsStartingWith("select")).hasSize(1);
+
+        // A bulk update of the account table, as the ledger projection issues, must not evict the profiles.
+        transaction.executeWithoutResult(status ->
+            accountRepository.updateBalance(merchant.getId(), 500L, Instant.now()));
+
+        recorder.reset();
+        Map<Long, AccountProfile> profiles = transaction.execute(status ->
+            accountProfiles.findAll(List.of(merchant.getId(), customer.getId())));
+
+        assertThat(recorder.executions()).isEmpty();
+        assertThat(profiles.get(merchant.getId()).getAccountNumber()).isEqualTo("PROFILE-MERCHANT");
+        assertThat(profiles.get(customer.getId()).getOwnerName()).isEqualTo("Owner of PROFILE-CUSTOMER");
+        assertThat(registry.get("cache.gets").tag("result", "hit").functionCounter().count())
+            .isEqualTo(hitsBefore + 2);
+    }
+
+    @Test
+    void findAll_leavesOutUnknownAccounts() {
+        Account merchant = accountRepository.save(account("PROFILE-KNOWN"));
+
+        Map<Long, AccountProfile> profiles = new TransactionTemplate(transactionManager).execute(status ->
+            accountProfiles.findAll(List.of(merchant.getId(), Long.MAX_VALUE)));
+
+        assertThat(profiles).containsOnlyKeys(merchant.getId());
+    }
+
+    private Account account(String number) {
+        return Account.builder()
+            .accountNumber(number)
+            .ownerName("Owner of " + number)
+            .balance(new BigDecimal("100.00"))
+            .currency(CurrencyEnum.EUR)
+            .build();
+    }
+}
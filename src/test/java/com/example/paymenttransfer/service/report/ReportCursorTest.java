@@ -0,0 +1,40 @@
+package com.example.paymenttransfer.service.report;
+
+import com.example.paymenttransfer.errors.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReportCursorTest {
+
+    @Test
+    void decode_readsWhatEncodeWrote() {
+        ReportCursor cursor = new ReportCursor(Instant.parse("2026-10-18T09:30:00.123456789Z"), 42);
+
+        assertThat(ReportCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void decode_craftedCursors_areInvalidCursors() {
+        // Nanoseconds that carry past the largest epoch second overflow inside Instant.ofEpochSecond.
+        String overflowing = encode(Long.MAX_VALUE, Integer.MAX_VALUE, 1);
+        String outOfRange = encode(Long.MIN_VALUE, 0, 1);
+
+        for (String cursor : new String[] {overflowing, outOfRange, "not base64!", "AAAA"}) {
+            assertThatThrownBy(() -> ReportCursor.decode(cursor)).isInstanceOf(InvalidCursorException.class);
+        }
+    }
+
+    private static String encode(long epochSecond, int nanos, long id) {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES + Integer.BYTES + Long.BYTES)
+            .putLong(epochSecond)
+            .putInt(nanos)
+            .putLong(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.paymenttransfer.support;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Records every JDBC execution (one entry per round trip) that goes through the proxied data source.
+ */
+public class JdbcStatementRecorder implements QueryExecutionListener {
+
+    private final List<RecordedExecution> executions = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        QueryInfo first = queryInfoList.isEmpty() ? null : queryInfoList.get(0);
+        String sql = first == null ? "" : first.getQuery();
+        List<ParameterSetOperation> parameters = first == null || first.getParametersList().isEmpty()
+            ? List.of()
+            : List.copyOf(first.getParametersList().get(0));
+        executions.add(new RecordedExecution(sql, execInfo.isBatch(), execInfo.getBatchSize(), parameters));
+    }
+
+    public void reset() {
+        executions.clear();
+    }
+
+    public List<RecordedExecution> executions() {
+        synchronized (executions) {
+            return List.copyOf(executions);
+        }
+    }
+
+    public List<RecordedExecution> executionsStartingWith(String keyword) {
+        String prefix = keyword.toLowerCase(Locale.ROOT);
+        return executions().stream()
+            .filter(execution -> execution.normalizedSql().startsWith(prefix))
+            .toList();
+    }
+
+    /**
+     * One round trip; {@code parameters} are the setter calls of its first statement, in the order they were made.
+     */
+    public record RecordedExecution(String sql, boolean batch, int batchSize, List<ParameterSetOperation> parameters) {
+
+        public String normalizedSql() {
+            return sql.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        }
+
+        public boolean targets(String table) {
+            return normalizedSql().matches(".*\\b(into|update|from) " + table + "\\b.*");
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.paymenttransfer.support;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the test data source so tests can assert on the exact JDBC round trips a service call makes.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class StatementRecordingConfiguration {
+
+    @Bean
+    public JdbcStatementRecorder jdbcStatementRecorder() {
+        return new JdbcStatementRecorder();
+    }
+
+    @Bean
+    public static BeanPostProcessor statementRecordingDataSourcePostProcessor(
+            ObjectProvider<JdbcStatementRecorder> recorder) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                        .name(beanName)
+                        .listener(recorder.getObject())
+                        .build();
+                }
+                return bean;
+            }
+        };
+    }
+}